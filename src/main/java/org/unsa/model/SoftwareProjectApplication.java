@@ -2,8 +2,10 @@ package org.unsa.model;
 
 import org.springframework.boot.SpringApplication;
 import org.springframework.boot.autoconfigure.SpringBootApplication;
+import org.springframework.scheduling.annotation.EnableScheduling;
 
 @SpringBootApplication
+@EnableScheduling
 public class SoftwareProjectApplication {
 
 	public static void main(String[] args) {
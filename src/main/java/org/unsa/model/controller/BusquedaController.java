@@ -0,0 +1,60 @@
+package org.unsa.model.controller;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+import org.unsa.model.dtos.ResultadoBusquedaPlato;
+import org.unsa.model.dtos.ResumenRestaurante;
+import org.unsa.model.dtos.Sugerencia;
+import org.unsa.model.service.busqueda.AutocompletadoService;
+import org.unsa.service.interfaces.IPlatilloServicio;
+import org.unsa.service.interfaces.IRestauranteServicio;
+
+import java.util.List;
+
+/**
+ * Controlador REST del buscador de la app: responde desde los indices en memoria, sin consultar la base de datos.
+ */
+@RestController
+@RequestMapping("/api")
+public class BusquedaController {
+
+    private final IPlatilloServicio platilloServicio;
+    private final IRestauranteServicio restauranteServicio;
+    private final AutocompletadoService autocompletadoService;
+
+    @Autowired
+    public BusquedaController(IPlatilloServicio platilloServicio, IRestauranteServicio restauranteServicio,
+                              AutocompletadoService autocompletadoService) {
+        this.platilloServicio = platilloServicio;
+        this.restauranteServicio = restauranteServicio;
+        this.autocompletadoService = autocompletadoService;
+    }
+
+    // Buscar platos por nombre o descripcion, tolerando prefijos, tildes y errores de tipeo
+    @GetMapping("/platillos/buscar")
+    public ResponseEntity<List<ResultadoBusquedaPlato>> buscarPlatillos(
+            @RequestParam("q") String consulta,
+            @RequestParam(defaultValue = "20") int limite) {
+        return ResponseEntity.ok(platilloServicio.buscarPlatillos(consulta, limite));
+    }
+
+    // Buscar restaurantes por nombre, direccion o tipo de cocina; los de nombre identico primero
+    @GetMapping("/restaurantes/buscar")
+    public ResponseEntity<List<ResumenRestaurante>> buscarRestaurantes(
+            @RequestParam(value = "q", defaultValue = "") String consulta,
+            @RequestParam(defaultValue = "20") int limite) {
+        return ResponseEntity.ok(restauranteServicio.buscarRestaurantes(consulta, limite));
+    }
+
+    // Sugerencias mientras se escribe: restaurantes, platos y tipos de cocina, de mas a menos populares
+    @GetMapping("/autocomplete")
+    public ResponseEntity<List<Sugerencia>> autocompletar(
+            @RequestParam("q") String texto,
+            @RequestParam(defaultValue = "10") int limite) {
+        return ResponseEntity.ok(autocompletadoService.sugerir(texto, limite));
+    }
+}
@@ -0,0 +1,208 @@
+package org.unsa.model.controller;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+import org.unsa.model.dtos.ResumenEntrega;
+import org.unsa.model.dtos.UbicacionRequest;
+import org.unsa.model.exceptions.SinRepartidorDisponibleException;
+import org.unsa.model.service.impl.GestionEntregasService;
+import org.unsa.model.service.logistica.CandidatoRepartidor;
+import org.unsa.model.service.logistica.DespachoService;
+import org.unsa.model.service.logistica.PosicionEntrega;
+
+import java.util.List;
+import java.util.Map;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Controlador REST para entregas, ubicacion de repartidores y despacho.
+ */
+@RestController
+@RequestMapping("/entregas")
+public class EntregasController {
+
+    private static final Logger logger = LoggerFactory.getLogger(EntregasController.class);
+
+    private final GestionEntregasService gestionEntregas;
+    private final DespachoService despacho;
+
+    @Autowired
+    public EntregasController(GestionEntregasService gestionEntregas, DespachoService despacho) {
+        this.gestionEntregas = gestionEntregas;
+        this.despacho = despacho;
+    }
+
+    /**
+     * Actualiza la ubicacion del repartidor de una entrega.
+     * PUT /entregas/{idEntrega}/ubicacion
+     * @return 202 si se registro (se escribe en la base de datos en el siguiente volcado),
+     * o 400 si la entrega no existe o las coordenadas no son validas.
+     */
+    @PutMapping(value = "/{idEntrega}/ubicacion", consumes = MediaType.APPLICATION_JSON_VALUE)
+    public ResponseEntity<Void> actualizarUbicacion(@PathVariable Long idEntrega, @RequestBody UbicacionRequest ubicacion) {
+        try {
+            gestionEntregas.actualizarUbicacion(idEntrega, ubicacion.getLatitud(), ubicacion.getLongitud());
+            return new ResponseEntity<>(HttpStatus.ACCEPTED);
+        } catch (IllegalArgumentException e) {
+            logger.debug("Error al actualizar ubicacion de entrega {} : {}", idEntrega, e.getMessage());
+            return new ResponseEntity<>(HttpStatus.BAD_REQUEST);
+        }
+    }
+
+    /**
+     * Variante compacta para pings frecuentes: el cuerpo es texto "latitud,longitud".
+     * PUT /entregas/{idEntrega}/ubicacion (Content-Type: text/plain)
+     */
+    @PutMapping(value = "/{idEntrega}/ubicacion", consumes = MediaType.TEXT_PLAIN_VALUE)
+    public ResponseEntity<Void> actualizarUbicacionTexto(@PathVariable Long idEntrega, @RequestBody String coordenadas) {
+        try {
+            gestionEntregas.actualizarUbicacion(idEntrega, coordenadas);
+            return new ResponseEntity<>(HttpStatus.ACCEPTED);
+        } catch (IllegalArgumentException e) {
+            logger.debug("Error al actualizar ubicacion de entrega {} : {}", idEntrega, e.getMessage());
+            return new ResponseEntity<>(HttpStatus.BAD_REQUEST);
+        }
+    }
+
+    /**
+     * Obtiene la ultima ubicacion conocida del repartidor de una entrega.
+     * GET /entregas/{idEntrega}/ubicacion
+     * @return 200 con la posicion, o 404 si no hay una reciente.
+     */
+    @GetMapping("/{idEntrega}/ubicacion")
+    public ResponseEntity<PosicionEntrega> verUbicacion(@PathVariable Long idEntrega) {
+        PosicionEntrega posicion = gestionEntregas.obtenerUbicacion(idEntrega);
+        return posicion != null ? new ResponseEntity<>(posicion, HttpStatus.OK) : new ResponseEntity<>(HttpStatus.NOT_FOUND);
+    }
+
+    /**
+     * Lista las entregas activas (asignadas, recogidas o en ruta) de un repartidor.
+     * GET /entregas/repartidores/{idRepartidor}/activas
+     */
+    @GetMapping("/repartidores/{idRepartidor}/activas")
+    public ResponseEntity<List<ResumenEntrega>> verEntregasActivas(@PathVariable Integer idRepartidor) {
+        return new ResponseEntity<>(gestionEntregas.obtenerEntregasActivas(idRepartidor), HttpStatus.OK);
+    }
+
+    /**
+     * Lista las entregas de un pedido.
+     * GET /entregas/pedido/{idPedido}
+     */
+    @GetMapping("/pedido/{idPedido}")
+    public ResponseEntity<List<ResumenEntrega>> verEntregasDePedido(@PathVariable Long idPedido) {
+        return new ResponseEntity<>(gestionEntregas.obtenerEntregasDePedido(idPedido), HttpStatus.OK);
+    }
+
+    /**
+     * Asigna un repartidor a una entrega.
+     * PUT /entregas/{idEntrega}/repartidor/{idRepartidor}
+     * @return 200, o 400 si la entrega o el repartidor no existen.
+     */
+    @PutMapping("/{idEntrega}/repartidor/{idRepartidor}")
+    public ResponseEntity<Void> asignarRepartidor(@PathVariable Long idEntrega, @PathVariable Integer idRepartidor) {
+        try {
+            gestionEntregas.asignarRepartidor(idEntrega, idRepartidor);
+            return new ResponseEntity<>(HttpStatus.OK);
+        } catch (IllegalArgumentException e) {
+            logger.warn("Error al asignar repartidor {} a entrega {} : {}", idRepartidor, idEntrega, e.getMessage());
+            return new ResponseEntity<>(HttpStatus.BAD_REQUEST);
+        }
+    }
+
+    /**
+     * Registra que el repartidor recogio el pedido.
+     * PUT /entregas/{idEntrega}/recojo
+     * @return 200, 400 si la entrega no existe o 409 si no estaba asignada.
+     */
+    @PutMapping("/{idEntrega}/recojo")
+    public ResponseEntity<Void> registrarRecojo(@PathVariable Long idEntrega) {
+        return cambiarEstado(idEntrega, () -> gestionEntregas.registrarRecojo(idEntrega));
+    }
+
+    /**
+     * Registra que el pedido fue entregado al cliente.
+     * PUT /entregas/{idEntrega}/entrega
+     * @return 200, 400 si la entrega no existe o 409 si no habia sido recogida.
+     */
+    @PutMapping("/{idEntrega}/entrega")
+    public ResponseEntity<Void> registrarEntrega(@PathVariable Long idEntrega) {
+        return cambiarEstado(idEntrega, () -> gestionEntregas.registrarEntrega(idEntrega));
+    }
+
+    private ResponseEntity<Void> cambiarEstado(Long idEntrega, Runnable cambio) {
+        try {
+            cambio.run();
+            return new ResponseEntity<>(HttpStatus.OK);
+        } catch (IllegalArgumentException e) {
+            logger.warn("Entrega {} no encontrada : {}", idEntrega, e.getMessage());
+            return new ResponseEntity<>(HttpStatus.BAD_REQUEST);
+        } catch (IllegalStateException e) {
+            logger.warn("Cambio de estado invalido en entrega {} : {}", idEntrega, e.getMessage());
+            return new ResponseEntity<>(HttpStatus.CONFLICT);
+        }
+    }
+
+    /**
+     * Marca a un repartidor como disponible en la posicion indicada.
+     * PUT /entregas/repartidores/{idRepartidor}/disponible
+     */
+    @PutMapping("/repartidores/{idRepartidor}/disponible")
+    public ResponseEntity<Void> marcarDisponible(@PathVariable Integer idRepartidor, @RequestBody UbicacionRequest ubicacion) {
+        try {
+            despacho.registrarDisponible(idRepartidor, ubicacion.getLatitud(), ubicacion.getLongitud());
+            return new ResponseEntity<>(HttpStatus.OK);
+        } catch (IllegalArgumentException e) {
+            logger.warn("Error al registrar disponibilidad de repartidor {} : {}", idRepartidor, e.getMessage());
+            return new ResponseEntity<>(HttpStatus.BAD_REQUEST);
+        }
+    }
+
+    /**
+     * Retira a un repartidor del despacho.
+     * DELETE /entregas/repartidores/{idRepartidor}/disponible
+     */
+    @DeleteMapping("/repartidores/{idRepartidor}/disponible")
+    public ResponseEntity<Void> retirar(@PathVariable Integer idRepartidor) {
+        despacho.retirar(idRepartidor);
+        return new ResponseEntity<>(HttpStatus.NO_CONTENT);
+    }
+
+    /**
+     * Lista los repartidores disponibles mas cercanos a un punto.
+     * GET /entregas/repartidores/cercanos?latitud=..&longitud=..&k=5
+     */
+    @GetMapping("/repartidores/cercanos")
+    public ResponseEntity<List<CandidatoRepartidor>> buscarCercanos(@RequestParam double latitud,
+                                                                    @RequestParam double longitud,
+                                                                    @RequestParam(defaultValue = "5") int k) {
+        try {
+            return new ResponseEntity<>(despacho.buscarCercanos(latitud, longitud, Math.min(k, 50)), HttpStatus.OK);
+        } catch (IllegalArgumentException e) {
+            return new ResponseEntity<>(HttpStatus.BAD_REQUEST);
+        }
+    }
+
+    /**
+     * Asigna al pedido el repartidor disponible mas cercano a su restaurante.
+     * POST /entregas/despacho/{idPedido}
+     * @return 200 con el ID del repartidor, 400 si el pedido no es valido o 409 si no hay repartidores cerca.
+     */
+    @PostMapping("/despacho/{idPedido}")
+    public ResponseEntity<Map<String, Integer>> despachar(@PathVariable Long idPedido) {
+        logger.info("Recibida solicitud de despacho para pedido {}", idPedido);
+        try {
+            Integer idRepartidor = despacho.despachar(idPedido);
+            return new ResponseEntity<>(Map.of("idRepartidor", idRepartidor), HttpStatus.OK);
+        } catch (SinRepartidorDisponibleException e) {
+            logger.warn("Sin repartidores para pedido {} : {}", idPedido, e.getMessage());
+            return new ResponseEntity<>(HttpStatus.CONFLICT);
+        } catch (IllegalArgumentException e) {
+            logger.warn("Error al despachar pedido {} : {}", idPedido, e.getMessage());
+            return new ResponseEntity<>(HttpStatus.BAD_REQUEST);
+        }
+    }
+}
@@ -0,0 +1,37 @@
+package org.unsa.model.controller;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+import org.unsa.model.service.Interfaces.IFuenteMetricas;
+
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Controlador REST que expone las metricas de todos los componentes que implementan IFuenteMetricas.
+ */
+@RestController
+@RequestMapping("/api/metricas")
+public class MetricasController {
+
+    private final List<IFuenteMetricas> fuentes;
+
+    @Autowired
+    public MetricasController(List<IFuenteMetricas> fuentes) {
+        this.fuentes = fuentes;
+    }
+
+    // Metricas agrupadas por componente
+    @GetMapping
+    public ResponseEntity<Map<String, Map<String, Number>>> obtenerMetricas() {
+        Map<String, Map<String, Number>> metricas = new TreeMap<>();
+        for (IFuenteMetricas fuente : fuentes) {
+            metricas.put(fuente.getNombreMetricas(), fuente.getMetricas());
+        }
+        return ResponseEntity.ok(metricas);
+    }
+}
@@ -5,14 +5,35 @@ import org.unsa.model.domain.pedidos.Pedido;
 import org.unsa.model.domain.pedidos.EstadoPedido;
 import org.unsa.model.dtos.CrearPedidoRequest;
 import org.unsa.model.dtos.ActualizarEstadoPedidoRequest;
+import org.unsa.model.dtos.DetallePedido;
+import org.unsa.model.dtos.PaginaPedidos;
+import org.unsa.model.dtos.ResumenPedido;
+import org.unsa.model.dtos.TicketPedido;
+import org.unsa.model.exceptions.CapacidadExcedidaException;
+import org.unsa.model.exceptions.CarritoInvalidoException;
+import org.unsa.model.exceptions.ClaveIdempotenciaReutilizadaException;
+import org.unsa.model.exceptions.OperacionEnCursoException;
+import org.unsa.model.exceptions.TransicionInvalidaException;
 import org.unsa.model.service.Interfaces.IPedidoServicio;
+import org.unsa.model.service.eventos.SeguimientoPedidosService;
+import org.unsa.model.service.impl.ConsultaPedidosService;
+import org.unsa.model.service.impl.IdempotenciaPedidosService;
+import org.unsa.model.service.impl.IngestaPedidosLoteService;
+import org.unsa.model.service.impl.RecepcionAsincronaPedidosService;
 
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
 
+import java.io.IOException;
+import java.net.URI;
 import java.util.List;
+import java.util.function.Supplier;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -27,11 +48,29 @@ public class PedidosController {
 
     private static final Logger logger = LoggerFactory.getLogger(PedidosController.class);
 
+    private static final String MEDIA_NDJSON = "application/x-ndjson";
+    private static final String CABECERA_SIGUIENTE_CURSOR = "X-Siguiente-Cursor";
+
     private final IPedidoServicio pedidoServicio;
+    private final IngestaPedidosLoteService ingestaPedidosLote;
+    private final IdempotenciaPedidosService idempotencia;
+    private final RecepcionAsincronaPedidosService recepcionAsincrona;
+    private final ConsultaPedidosService consultaPedidos;
+    private final SeguimientoPedidosService seguimiento;
 
     @Autowired // Inyeccion de dependencia
-    public PedidosController(IPedidoServicio pedidoServicio) {
+    public PedidosController(IPedidoServicio pedidoServicio,
+                             IngestaPedidosLoteService ingestaPedidosLote,
+                             IdempotenciaPedidosService idempotencia,
+                             RecepcionAsincronaPedidosService recepcionAsincrona,
+                             ConsultaPedidosService consultaPedidos,
+                             SeguimientoPedidosService seguimiento) {
         this.pedidoServicio = pedidoServicio;
+        this.ingestaPedidosLote = ingestaPedidosLote;
+        this.idempotencia = idempotencia;
+        this.recepcionAsincrona = recepcionAsincrona;
+        this.consultaPedidos = consultaPedidos;
+        this.seguimiento = seguimiento;
         logger.info("PedidosController inicializado.");
     }
 
@@ -39,30 +78,44 @@ public class PedidosController {
      * Endpoint para crear un nuevo pedido.
      * POST /api/pedidos
      * @param request El DTO con los datos para crear el pedido.
-     * @return ResponseEntity con el pedido creado y estado HTTP 201.
+     * @param claveIdempotencia Encabezado Idempotency-Key opcional; los reintentos con la misma clave
+     *                          devuelven el pedido ya creado en lugar de crear otro.
+     * @return ResponseEntity con el pedido creado y estado HTTP 201; 409 si la clave sigue en proceso
+     * o 422 si la clave ya se uso con otro cuerpo.
      */
     @PutMapping
-    public ResponseEntity<Pedido> crearPedido(@RequestBody CrearPedidoRequest request) {
+    public ResponseEntity<Pedido> crearPedido(@RequestBody CrearPedidoRequest request,
+                                              @RequestHeader(value = "Idempotency-Key", required = false) String claveIdempotencia) {
         logger.info("Recibida solicitud para crear pedido para cliente: {}  ",request.getIdCliente());
         try {
 
-            if (request.getIdCliente() == null || request.getIdCliente() <= 0 ||
-                    request.getIdRestaurante() == null || request.getIdRestaurante() <= 0 ||
-                    request.getItemsCarrito() == null || request.getItemsCarrito().isEmpty() ||
-                    request.getDireccionEntrega() == null) {
-
+            if (!solicitudValida(request)) {
                 logger.warn( "Datos de creación de pedido incompletos o inválidos.");
                 return new ResponseEntity<>(HttpStatus.BAD_REQUEST);
             }
 
-            Pedido nuevoPedido = pedidoServicio.crearPedido(
+            Supplier<Pedido> creacion = () -> pedidoServicio.crearPedido(
                     request.getIdCliente(),
                     request.getIdRestaurante(),
                     request.getItemsCarrito(),
                     request.getDireccionEntrega(),
                     request.getInstruccionesEspeciales()
             );
+            Pedido nuevoPedido = claveIdempotencia == null || claveIdempotencia.isBlank()
+                    ? creacion.get()
+                    // La clave se acota al cliente para que dos clientes no compartan resultados
+                    : idempotencia.ejecutar(request.getIdCliente() + ":" + claveIdempotencia, request, creacion);
             return new ResponseEntity<>(nuevoPedido, HttpStatus.CREATED);
+        } catch (CarritoInvalidoException e) {
+            // Se delega al GlobalExceptionHandler para devolver todas las lineas con error
+            logger.warn("Carrito invalido al crear pedido: {} ", e.getMessage());
+            throw e;
+        } catch (OperacionEnCursoException e) {
+            logger.warn("Pedido con clave de idempotencia en curso: {} ", e.getMessage());
+            return new ResponseEntity<>(HttpStatus.CONFLICT);
+        } catch (ClaveIdempotenciaReutilizadaException e) {
+            logger.warn("Clave de idempotencia reutilizada: {} ", e.getMessage());
+            return new ResponseEntity<>(HttpStatus.UNPROCESSABLE_ENTITY);
         } catch (IllegalArgumentException e) {
             logger.warn("Error al crear pedido: {} ", e.getMessage(),e);
             return new ResponseEntity<>(HttpStatus.BAD_REQUEST);
@@ -72,16 +125,74 @@ public class PedidosController {
         }
     }
 
+    /**
+     * Endpoint para crear un pedido en modo asincrono.
+     * POST /pedidos/async
+     * Valida la solicitud, la registra y la encola; el pedido se crea en segundo plano. Una solicitud aceptada
+     * con 202 ya esta persistida, por lo que no se pierde si la aplicacion se reinicia.
+     * @param request El DTO con los datos para crear el pedido.
+     * @return ResponseEntity con el ticket y estado HTTP 202, 400 si los datos son invalidos o 503 si la cola esta llena.
+     */
+    @PostMapping("/async")
+    public ResponseEntity<TicketPedido> crearPedidoAsincrono(@RequestBody CrearPedidoRequest request) {
+        if (!solicitudValida(request)) {
+            logger.warn("Datos de creación de pedido asincrono incompletos o inválidos.");
+            return new ResponseEntity<>(HttpStatus.BAD_REQUEST);
+        }
+        try {
+            TicketPedido ticket = recepcionAsincrona.encolar(request);
+            return ResponseEntity.accepted()
+                    .location(URI.create("/pedidos/tickets/" + ticket.getId()))
+                    .body(ticket);
+        } catch (CapacidadExcedidaException e) {
+            logger.warn("Pedido asincrono rechazado: {}", e.getMessage());
+            return new ResponseEntity<>(HttpStatus.SERVICE_UNAVAILABLE);
+        }
+    }
+
+    /**
+     * Endpoint para consultar un ticket de pedido asincrono.
+     * GET /pedidos/tickets/{idTicket}
+     * @param idTicket ID del ticket devuelto por POST /pedidos/async.
+     * @return ResponseEntity con el ticket (incluye idPedido cuando ya se persistio), o 404 si no existe.
+     */
+    @GetMapping("/tickets/{idTicket}")
+    public ResponseEntity<TicketPedido> verTicket(@PathVariable String idTicket) {
+        TicketPedido ticket = recepcionAsincrona.obtenerTicket(idTicket);
+        if (ticket == null) {
+            return new ResponseEntity<>(HttpStatus.NOT_FOUND);
+        }
+        return new ResponseEntity<>(ticket, HttpStatus.OK);
+    }
+
+    /**
+     * Endpoint para la carga masiva de pedidos.
+     * POST /pedidos/batch
+     * Acepta NDJSON (un pedido por linea) o un arreglo JSON y responde en NDJSON con un resultado por linea,
+     * escrito a medida que cada bloque se persiste.
+     * @param request Peticion cuyo cuerpo se lee como flujo.
+     * @param response Respuesta donde se escriben los resultados.
+     * @throws IOException Si falla la lectura o escritura del flujo.
+     */
+    @PostMapping(value = "/batch", consumes = {MEDIA_NDJSON, "application/json"})
+    public void crearPedidosEnLote(HttpServletRequest request, HttpServletResponse response) throws IOException {
+        logger.info("Recibida solicitud de carga masiva de pedidos");
+        response.setStatus(HttpStatus.OK.value());
+        response.setContentType(MEDIA_NDJSON);
+        response.setCharacterEncoding("UTF-8");
+        ingestaPedidosLote.procesar(request.getInputStream(), response.getOutputStream());
+    }
+
     /**
      * Endpoint para obtener un pedido por su ID.
      * GET /api/pedidos/{idPedido}
      * @param idPedido ID del pedido a buscar (int).
-     * @return ResponseEntity con el pedido encontrado y estado HTTP 200, o 404 si no existe.
+     * @return ResponseEntity con el detalle del pedido y estado HTTP 200, o 404 si no existe.
      */
     @GetMapping("/{idPedido}")
-    public ResponseEntity<Pedido> verDetallePedido(@PathVariable Integer idPedido) {
+    public ResponseEntity<DetallePedido> verDetallePedido(@PathVariable Long idPedido) {
         logger.info("Recibida solicitud para ver detalle de pedido con ID: {}",idPedido);
-        Pedido pedido = pedidoServicio.obtenerPedidoPorId(idPedido);
+        DetallePedido pedido = consultaPedidos.obtenerDetalle(idPedido);
         if (pedido != null) {
             return new ResponseEntity<>(pedido, HttpStatus.OK); // 200 OK
         } else {
@@ -91,21 +202,96 @@ public class PedidosController {
     }
 
     /**
-     * Endpoint para obtener todos los pedidos de un usuario.
-     * GET /api/pedidos/usuario/{idUsuario}
+     * Endpoint de seguimiento en vivo de un pedido (Server-Sent Events).
+     * GET /pedidos/{idPedido}/seguimiento
+     * Envia eventos "estado" con los cambios del pedido y "posicion" con la ultima ubicacion del repartidor,
+     * mas comentarios periodicos de latido. Reemplaza el sondeo de GET /pedidos/{idPedido}.
+     * @param idPedido ID del pedido a seguir.
+     * @return ResponseEntity con el flujo de eventos, 404 si el pedido no existe o 503 si no hay capacidad.
+     */
+    @GetMapping(value = "/{idPedido}/seguimiento", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public ResponseEntity<SseEmitter> seguirPedido(@PathVariable Long idPedido) {
+        try {
+            return ResponseEntity.ok()
+                    .header("X-Accel-Buffering", "no") // Sin buffer en proxies inversos
+                    .body(seguimiento.suscribir(idPedido));
+        } catch (CapacidadExcedidaException e) {
+            logger.warn("Seguimiento del pedido {} rechazado: {}", idPedido, e.getMessage());
+            return new ResponseEntity<>(HttpStatus.SERVICE_UNAVAILABLE);
+        } catch (IllegalArgumentException e) {
+            logger.warn("Seguimiento de pedido inexistente {}: {}", idPedido, e.getMessage());
+            return new ResponseEntity<>(HttpStatus.NOT_FOUND);
+        }
+    }
+
+    /**
+     * Endpoint para obtener los pedidos de un usuario, del mas reciente al mas antiguo.
+     * GET /api/pedidos/usuario/{idUsuario}?cursor=...&tamano=20
+     * Conserva la respuesta original (lista de pedidos), pero acotada con la misma pagina por clave que
+     * /usuario/{idUsuario}/pagina; el token de la pagina siguiente viaja en la cabecera X-Siguiente-Cursor.
+     * Para el historial completo usar /usuario/{idUsuario}/exportar.
      * @param idUsuario ID del usuario (int).
-     * @return ResponseEntity con la lista de pedidos y estado HTTP 200.
+     * @param cursor Valor de X-Siguiente-Cursor de la respuesta anterior; se omite para la primera pagina.
+     * @param tamano Cantidad de pedidos por pagina.
+     * @return ResponseEntity con la lista de pedidos y estado HTTP 200, o 400 si el cursor no es valido.
      */
     @GetMapping("/usuario/{idUsuario}")
-    public ResponseEntity<List<Pedido>> verPedidosUsuario(@PathVariable int idUsuario) { // ID cambiado a int
+    public ResponseEntity<List<Pedido>> verPedidosUsuario(@PathVariable int idUsuario, // ID cambiado a int
+                                                          @RequestParam(required = false) String cursor,
+                                                          @RequestParam(defaultValue = "20") int tamano) {
         logger.info("Recibida solicitud para ver pedidos de usuario con ID: {} ",idUsuario);
-        List<Pedido> pedidos = pedidoServicio.obtenerPedidosPorCliente(idUsuario);
-        return new ResponseEntity<>(pedidos, HttpStatus.OK); // 200 OK
+        PaginaPedidos pagina;
+        try {
+            pagina = consultaPedidos.obtenerPagina(idUsuario, cursor, tamano);
+        } catch (IllegalArgumentException e) {
+            logger.warn("Solicitud de pedidos invalida para usuario {} : {}", idUsuario, e.getMessage());
+            return new ResponseEntity<>(HttpStatus.BAD_REQUEST);
+        }
+        List<Pedido> pedidos = pedidoServicio.obtenerPedidosPorIds(
+                pagina.getPedidos().stream().map(ResumenPedido::getIdPedido).toList());
+        ResponseEntity.BodyBuilder respuesta = ResponseEntity.ok(); // 200 OK
+        if (pagina.getSiguienteCursor() != null) {
+            respuesta.header(CABECERA_SIGUIENTE_CURSOR, pagina.getSiguienteCursor());
+        }
+        return respuesta.body(pedidos);
+    }
+
+    /**
+     * Endpoint para obtener el historial de pedidos de un usuario, paginado del mas reciente al mas antiguo.
+     * GET /api/pedidos/usuario/{idUsuario}/pagina?cursor=...&tamano=20
+     * @param idUsuario ID del usuario (int).
+     * @param cursor Token siguienteCursor de la pagina anterior; se omite para la primera pagina.
+     * @param tamano Cantidad de pedidos por pagina.
+     * @return ResponseEntity con la pagina y estado HTTP 200, o 400 si el cursor no es valido.
+     */
+    @GetMapping("/usuario/{idUsuario}/pagina")
+    public ResponseEntity<PaginaPedidos> verPaginaPedidosUsuario(@PathVariable int idUsuario,
+                                                                 @RequestParam(required = false) String cursor,
+                                                                 @RequestParam(defaultValue = "20") int tamano) {
+        logger.info("Recibida solicitud para ver una pagina de pedidos de usuario con ID: {} ",idUsuario);
+        try {
+            return new ResponseEntity<>(consultaPedidos.obtenerPagina(idUsuario, cursor, tamano), HttpStatus.OK); // 200 OK
+        } catch (IllegalArgumentException e) {
+            logger.warn("Solicitud de historial invalida para usuario {} : {}", idUsuario, e.getMessage());
+            return new ResponseEntity<>(HttpStatus.BAD_REQUEST);
+        }
+    }
+
+    /**
+     * Endpoint para transmitir el historial completo de un usuario en NDJSON (un pedido por linea).
+     * GET /api/pedidos/usuario/{idUsuario}/exportar
+     * @param idUsuario ID del usuario (int).
+     */
+    @GetMapping(value = "/usuario/{idUsuario}/exportar", produces = MEDIA_NDJSON)
+    public void transmitirPedidosUsuario(@PathVariable int idUsuario, HttpServletResponse response) throws IOException {
+        logger.info("Recibida solicitud para transmitir pedidos de usuario con ID: {} ",idUsuario);
+        response.setContentType(MEDIA_NDJSON);
+        consultaPedidos.transmitir(idUsuario, response.getOutputStream());
     }
 
     @PutMapping("/{idPedido}/estado")
     public ResponseEntity<Void> actualizarEstadoPedido(
-            @PathVariable Integer idPedido,
+            @PathVariable Long idPedido,
             @RequestBody ActualizarEstadoPedidoRequest request) {
         logger.warn("Recibida solicitud para actualizar estado de pedido {} a {}",
                      idPedido,
@@ -116,6 +302,9 @@ public class PedidosController {
             pedidoServicio.actualizarEstadoPedido(idPedido, nuevoEstado);
 
             return new ResponseEntity<>(HttpStatus.OK);
+        } catch (TransicionInvalidaException e) {
+            logger.warn("Transicion rechazada al actualizar estado de pedido {} : {}", idPedido, e.getMessage());
+            return new ResponseEntity<>(HttpStatus.CONFLICT);
         } catch (IllegalArgumentException e) {
             logger.warn("Estado invalido o pedido no encontrado para ID {} : {}", idPedido, e.getMessage(), e);
 
@@ -135,11 +324,14 @@ public class PedidosController {
      * @return ResponseEntity con estado HTTP 200 si es exitoso, o 400/404/500.
      */
     @PutMapping("/{idPedido}/cancelar")
-    public ResponseEntity<Void> cancelarPedido(@PathVariable Integer idPedido, @RequestParam Integer idUsuario) { // IDs cambiados a int
+    public ResponseEntity<Void> cancelarPedido(@PathVariable Long idPedido, @RequestParam Integer idUsuario) {
         logger.warn("Recibida solicitud para cancelar pedido {} por usuario {} ",idPedido,idUsuario);
         try {
             pedidoServicio.cancelarPedido(idPedido, idUsuario);
             return new ResponseEntity<>(HttpStatus.OK); // 200 OK
+        } catch (TransicionInvalidaException e) {
+            logger.warn("Transicion rechazada al cancelar pedido {} : {}", idPedido, e.getMessage());
+            return new ResponseEntity<>(HttpStatus.CONFLICT);
         } catch (IllegalArgumentException e) {
             logger.warn("Error al cancelar pedido {} : {} ",idPedido, e.getMessage(),e);
             return new ResponseEntity<>(HttpStatus.BAD_REQUEST);
@@ -156,11 +348,14 @@ public class PedidosController {
      * @return ResponseEntity con estado HTTP 200 si es exitoso, o 404/500.
      */
     @PutMapping("/{idPedido}/confirmar-entrega")
-    public ResponseEntity<Void> confirmarEntrega(@PathVariable int idPedido) { // ID cambiado a int
+    public ResponseEntity<Void> confirmarEntrega(@PathVariable Long idPedido) {
         logger.warn("Recibida solicitud para confirmar entrega de pedido  {} ",idPedido);
         try {
             pedidoServicio.confirmarEntrega(idPedido);
             return new ResponseEntity<>(HttpStatus.OK); // 200 OK
+        } catch (TransicionInvalidaException e) {
+            logger.warn("Transicion rechazada al confirmar entrega de pedido {} : {}", idPedido, e.getMessage());
+            return new ResponseEntity<>(HttpStatus.CONFLICT);
         } catch (IllegalArgumentException e) {
             logger.warn("Error al confirmar entrega de pedido  {} : {} ",idPedido,e.getMessage());
             return new ResponseEntity<>(HttpStatus.NOT_FOUND); // Si el pedido no existe
@@ -169,4 +364,11 @@ public class PedidosController {
             return new ResponseEntity<>(HttpStatus.INTERNAL_SERVER_ERROR);
         }
     }
+
+    private static boolean solicitudValida(CrearPedidoRequest request) {
+        return request.getIdCliente() != null && request.getIdCliente() > 0 &&
+                request.getIdRestaurante() != null && request.getIdRestaurante() > 0 &&
+                request.getItemsCarrito() != null && !request.getItemsCarrito().isEmpty() &&
+                request.getDireccionEntrega() != null;
+    }
 }
@@ -2,15 +2,16 @@
 package org.unsa.model.controller;
 
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
 import org.unsa.model.domain.restaurantes.Plato;
 import org.unsa.model.dtos.CrearPlatilloRequest;
 import org.unsa.model.dtos.ActualizarPlatilloRequest;
+import org.unsa.model.dtos.MenuRestaurante;
 import org.unsa.service.interfaces.IPlatilloServicio;
 
-import java.util.List;
-
 @RestController
 @RequestMapping("/api/restaurantes/{idRestaurante}/platillos")
 public class PlatillosController {
@@ -35,10 +36,18 @@ public class PlatillosController {
         return ResponseEntity.ok(nuevo);
     }
 
-    // Listar todos los platillos de un restaurante
-    @GetMapping
-    public ResponseEntity<List<Plato>> listarPlatillos(@PathVariable Integer idRestaurante) {
-        return ResponseEntity.ok(platilloServicio.listarPlatillosPorRestaurante(idRestaurante));
+    // Listar todos los platillos de un restaurante: se sirve el JSON cacheado y 304 si el cliente ya tiene esta version.
+    // checkNotModified compara If-None-Match como lo define HTTP (listas, ETags debiles y "*") y escribe el 304 con su ETag
+    @GetMapping(produces = MediaType.APPLICATION_JSON_VALUE)
+    public ResponseEntity<byte[]> listarPlatillos(@PathVariable Integer idRestaurante, WebRequest request) {
+        MenuRestaurante menu = platilloServicio.obtenerMenu(idRestaurante);
+        if (request.checkNotModified(menu.getEtag())) {
+            return null;
+        }
+        return ResponseEntity.ok()
+                .eTag(menu.getEtag())
+                .contentType(MediaType.APPLICATION_JSON)
+                .body(menu.getJson());
     }
 
     // Ver detalle de un platillo específico
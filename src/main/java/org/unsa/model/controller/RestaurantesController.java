@@ -0,0 +1,49 @@
+package org.unsa.model.controller;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+import org.unsa.model.dtos.PaginaRestaurantes;
+import org.unsa.service.interfaces.IRestauranteServicio;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Controlador REST para consultar restaurantes.
+ */
+@RestController
+@RequestMapping("/api/restaurantes")
+public class RestaurantesController {
+
+    private static final Logger logger = LoggerFactory.getLogger(RestaurantesController.class);
+
+    private final IRestauranteServicio restauranteServicio;
+
+    @Autowired
+    public RestaurantesController(IRestauranteServicio restauranteServicio) {
+        this.restauranteServicio = restauranteServicio;
+    }
+
+    /**
+     * Endpoint para listar los restaurantes abiertos en este momento, paginados por ID ascendente.
+     * GET /api/restaurantes/abiertos?cursor=...&tamano=20
+     * @param cursor Token siguienteCursor de la pagina anterior; se omite para la primera pagina.
+     * @param tamano Cantidad de restaurantes por pagina.
+     * @return ResponseEntity con la pagina y estado HTTP 200, o 400 si el cursor o el tamano no son validos.
+     */
+    @GetMapping("/abiertos")
+    public ResponseEntity<PaginaRestaurantes> verRestaurantesAbiertos(@RequestParam(required = false) String cursor,
+                                                                      @RequestParam(defaultValue = "20") int tamano) {
+        try {
+            return new ResponseEntity<>(restauranteServicio.obtenerRestaurantesAbiertos(cursor, tamano), HttpStatus.OK);
+        } catch (IllegalArgumentException e) {
+            logger.warn("Solicitud de restaurantes abiertos invalida: {}", e.getMessage());
+            return new ResponseEntity<>(HttpStatus.BAD_REQUEST);
+        }
+    }
+}
@@ -0,0 +1,67 @@
+package org.unsa.model.domain.pedidos;
+
+import jakarta.persistence.*;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+import org.springframework.data.domain.Persistable;
+
+import java.util.Date;
+
+/**
+ * Registro persistente de una clave de idempotencia usada al crear pedidos.
+ * La clave primaria unica garantiza que dos instancias de la aplicacion no creen
+ * el mismo pedido aunque la clave ya no este en la cache en memoria.
+ * Mientras el pedido se esta creando {@code idPedido} es nulo.
+ * La huella es un resumen del cuerpo de la peticion original, para rechazar la clave si se reutiliza con otro contenido.
+ */
+@Getter
+@Setter
+@NoArgsConstructor
+@Entity
+@Table(name = "claves_idempotencia")
+public class ClaveIdempotencia implements Persistable<String> {
+
+    @Id
+    @Column(length = 120)
+    private String clave;
+
+    private Long idPedido;
+
+    @Column(length = 64)
+    private String huella;
+
+    @Temporal(TemporalType.TIMESTAMP)
+    @Column(nullable = false)
+    private Date fechaCreacion;
+
+    @Transient
+    private boolean nueva;
+
+    public ClaveIdempotencia(String clave, String huella) {
+        this.clave = clave;
+        this.huella = huella;
+        this.fechaCreacion = new Date();
+        this.nueva = true;
+    }
+
+    @Override
+    public String getId() {
+        return clave;
+    }
+
+    /**
+     * La clave siempre se asigna en la aplicacion; se indica a Spring Data que debe insertarla
+     * (y fallar por la restriccion unica) en lugar de hacer un merge.
+     */
+    @Override
+    public boolean isNew() {
+        return nueva;
+    }
+
+    @PostLoad
+    @PostPersist
+    void marcarExistente() {
+        this.nueva = false;
+    }
+}
@@ -19,17 +19,15 @@ public class DatosPlatoPedido {
      * Constructor para DatosPlatoPedido.
      * @param idPlato ID del plato.
      * @param cantidad Cantidad del plato.
-     * @throws IllegalArgumentException Si el ID del plato es nulo/vacío o la cantidad es <= 0.
+     * La cantidad no se valida aqui: ResolutorCarrito la revisa junto con las demas lineas del carrito,
+     * para reportar todos los errores en una sola respuesta.
+     * @throws IllegalArgumentException Si el ID del plato es nulo/vacío.
      */
     public DatosPlatoPedido(Integer idPlato, int cantidad) {
         if (idPlato == null) {
             logger.log(Level.SEVERE, () -> "Intento de crear DatosPlatoPedido con ID de plato nulo o vacio.");
             throw new IllegalArgumentException("El ID del plato no puede ser nulo o vacio.");
         }
-        if (cantidad <= 0) {
-            logger.log(Level.SEVERE, () -> "Intento de crear DatosPlatoPedido con cantidad invalida: " + cantidad);
-            throw new IllegalArgumentException("La cantidad debe ser mayor a cero.");
-        }
         this.idPlato = idPlato;
         this.cantidad = cantidad;
         logger.info(() -> "DatosPlatoPedido creado para plato ID: " + idPlato + ", cantidad: " + cantidad);
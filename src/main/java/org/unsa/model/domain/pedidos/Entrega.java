@@ -1,10 +1,18 @@
     package org.unsa.model.domain.pedidos;
 
+    import com.fasterxml.jackson.databind.annotation.JsonSerialize;
+    import com.fasterxml.jackson.databind.ser.std.ToStringSerializer;
     import jakarta.persistence.*; // Importa todas las anotaciones JPA
     import org.unsa.model.domain.restaurantes.Plato;
     import org.unsa.model.domain.pedidos.Entrega;
     import org.unsa.model.domain.usuarios.Repartidor;
+    import org.springframework.data.domain.AfterDomainEventPublication;
+    import org.springframework.data.domain.DomainEvents;
+    import org.unsa.model.ids.IdTemporal;
+    import java.util.ArrayList;
+    import java.util.Collection;
     import java.util.Date;
+    import java.util.List;
     import java.util.Objects;
 
     import lombok.*;
@@ -18,12 +26,21 @@
     @Getter
     @Setter
     @Entity // Marca esta clase como una entidad JPA
-    @Table(name = "entregas") // Mapea esta entidad a la tabla "entregas"
+    @Table(name = "entregas", indexes = { // Mapea esta entidad a la tabla "entregas"
+            // Entregas activas de un repartidor
+            @Index(name = "idx_entregas_repartidor_estado", columnList = "repartidor_id, estado, fecha_hora_asignacion"),
+            @Index(name = "idx_entregas_pedido", columnList = "pedido_id"),
+            @Index(name = "idx_entregas_viaje", columnList = "viaje_id, orden_parada"),
+            // Barrido de entregas estancadas: recorre cada estado por fecha sin leer la tabla
+            @Index(name = "idx_entregas_estado_asignacion", columnList = "estado, fecha_hora_asignacion, id"),
+            @Index(name = "idx_entregas_estado_recojo", columnList = "estado, fecha_hora_recojo, id")
+    })
     public class Entrega {
 
         @Id // Marca 'id' como la clave primaria
-        @GeneratedValue(strategy = GenerationType.IDENTITY) // ID autoincremental
-        private Integer id; // Usar Integer es la mejor práctica para IDs JPA
+        @IdTemporal // ID de 64 bits generado en la aplicacion, permite inserciones en lote
+        @JsonSerialize(using = ToStringSerializer.class)
+        private Long id;
 
         // Relación ManyToOne con Pedido
         // Una entrega pertenece a un pedido. Un pedido puede tener una o más entregas (aunque típicamente es 1:1)
@@ -37,10 +54,20 @@
         @JoinColumn(name = "repartidor_id") // Columna FK en la tabla 'entregas'. Puede ser nulo si aún no se asigna.
         private Repartidor repartidor; // Referencia al objeto Repartidor
 
+        // Viaje de varias paradas al que pertenece la entrega; nulo si se despacho sola
+        @ManyToOne(fetch = FetchType.LAZY)
+        @JoinColumn(name = "viaje_id")
+        private Viaje viaje;
+
+        private Integer ordenParada; // Posicion de la entrega dentro del viaje, desde 1
+
         @Enumerated(EnumType.STRING) // Almacena el enum como String en la DB
         @Column(nullable = false)
         private EstadoEntrega estado;
 
+        @Version // Bloqueo optimista: un guardado con una entrega leida antes de otro cambio falla en vez de pisarlo
+        private Long version;
+
         @Temporal(TemporalType.TIMESTAMP) // Almacena fecha y hora
         private Date fechaHoraAsignacion;
 
@@ -50,7 +77,26 @@
         @Temporal(TemporalType.TIMESTAMP)
         private Date fechaHoraEntrega;
 
-        private String ubicacionActualRepartidor; // Coordenadas o descripción de la ubicación
+        // Ultima posicion conocida; solo la escribe en lote UbicacionesEntregaService con JDBC, asi que
+        // guardar la entidad (con una posicion leida antes del ultimo volcado) nunca la sobrescribe
+        @Column(insertable = false, updatable = false)
+        private String ubicacionActualRepartidor; // "latitud,longitud"
+
+        @Column(insertable = false, updatable = false)
+        private Double latitudActual;
+
+        @Column(insertable = false, updatable = false)
+        private Double longitudActual;
+
+        @Temporal(TemporalType.TIMESTAMP)
+        @Column(insertable = false, updatable = false)
+        private Date fechaHoraUbicacion;
+
+        // Cambios pendientes de publicar al guardar la entrega
+        @Transient
+        @Getter(AccessLevel.NONE)
+        @Setter(AccessLevel.NONE)
+        private final transient List<EntregaCambiada> cambios = new ArrayList<>();
 
         @Transient // Este campo no se mapeará a la base de datos
         private static final Logger logger = LoggerFactory.getLogger(Entrega.class);
@@ -92,9 +138,11 @@
             if (repartidor == null) {
                 throw new IllegalArgumentException("El repartidor no puede ser nulo.");
             }
+            Integer anterior = this.repartidor != null ? this.repartidor.getId() : null;
             this.repartidor = repartidor;
             this.estado = EstadoEntrega.ASIGNADO;
             this.fechaHoraAsignacion = new Date();
+            registrarCambio(anterior);
             logger.info("Entrega ID  {}  asignada a Repartidor ID {} ",id,repartidor.getId());
         }
 
@@ -122,6 +170,7 @@
             }
             this.estado = EstadoEntrega.RECOGIDO;
             this.fechaHoraRecojo = new Date();
+            registrarCambio(idRepartidor());
             logger.info("Entrega ID " + id + ": Pedido recogido.");
         }
 
@@ -134,17 +183,29 @@
             }
             this.estado = EstadoEntrega.PROPORCIONADO;
             this.fechaHoraEntrega = new Date();
+            registrarCambio(idRepartidor());
             logger.info("Entrega ID " + id + ": Pedido entregado.");
         }
 
 
-        /**
-         * Actualiza la ubicación actual del repartidor para esta entrega.
-         * @param coordenadas Las coordenadas o descripción de la ubicación.
-         */
-        public void actualizarUbicacion(String coordenadas) {
-            this.ubicacionActualRepartidor = coordenadas;
-            logger.info("Entrega ID " + id + ": Ubicación actualizada a: " + coordenadas);
+        private Integer idRepartidor() {
+            return repartidor != null ? repartidor.getId() : null;
+        }
+
+        private void registrarCambio(Integer idRepartidorAnterior) {
+            cambios.add(new EntregaCambiada(id, pedido != null ? pedido.getIdPedido() : null,
+                    idRepartidorAnterior, idRepartidor(), estado, fechaHoraAsignacion, fechaHoraRecojo));
+        }
+
+        // Una entrega nueva recibe su ID al persistirse, despues de registrar la asignacion
+        @DomainEvents
+        Collection<EntregaCambiada> cambiosPendientes() {
+            return cambios.stream().map(c -> c.getIdEntrega() == null ? c.conIdEntrega(id) : c).toList();
+        }
+
+        @AfterDomainEventPublication
+        void limpiarCambios() {
+            cambios.clear();
         }
 
         @Override
@@ -166,11 +227,11 @@
             if (this == o) return true;
             if (o == null || getClass() != o.getClass()) return false;
             Entrega entrega = (Entrega) o;
-            return Objects.equals(id, entrega.id); // Comparación de Integer ID
+            return Objects.equals(id, entrega.id); // Comparación de ID
         }
 
         @Override
         public int hashCode() {
-            return Objects.hash(id); // Hash basado en Integer ID
+            return Objects.hash(id); // Hash basado en el ID
         }
     }
\ No newline at end of file
@@ -0,0 +1,30 @@
+package org.unsa.model.domain.pedidos;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+import java.util.Date;
+
+/**
+ * Evento de dominio que emite una {@link Entrega} al asignarse, recogerse o entregarse.
+ * Se publica al guardarla con su repositorio.
+ */
+@Getter
+@AllArgsConstructor
+public class EntregaCambiada {
+    private final Long idEntrega;
+    private final Long idPedido;
+    // Repartidor que tenia antes del cambio; difiere de idRepartidor solo en una reasignacion
+    private final Integer idRepartidorAnterior;
+    private final Integer idRepartidor;
+    private final EstadoEntrega estado;
+    private final Date fechaHoraAsignacion;
+    private final Date fechaHoraRecojo;
+
+    /**
+     * @return Una copia con el ID de la entrega, para los cambios registrados antes de persistirla.
+     */
+    EntregaCambiada conIdEntrega(Long id) {
+        return new EntregaCambiada(id, idPedido, idRepartidorAnterior, idRepartidor, estado, fechaHoraAsignacion, fechaHoraRecojo);
+    }
+}
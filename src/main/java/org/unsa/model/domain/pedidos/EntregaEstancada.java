@@ -0,0 +1,16 @@
+package org.unsa.model.domain.pedidos;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+/**
+ * Evento emitido cuando el barrido pasa a INCIDENCIA una entrega que supero el tiempo maximo en su estado.
+ */
+@Getter
+@AllArgsConstructor
+public class EntregaEstancada {
+    private final Long idEntrega;
+    private final Long idPedido;
+    private final Integer idRepartidor;
+    private final EstadoEntrega estadoAnterior;
+}
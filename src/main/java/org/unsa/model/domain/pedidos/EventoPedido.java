@@ -0,0 +1,92 @@
+package org.unsa.model.domain.pedidos;
+
+import com.fasterxml.jackson.databind.annotation.JsonSerialize;
+import com.fasterxml.jackson.databind.ser.std.ToStringSerializer;
+import jakarta.persistence.*;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import org.springframework.data.domain.DomainEvents;
+import org.unsa.model.ids.IdTemporal;
+
+import java.util.Collection;
+import java.util.Date;
+import java.util.List;
+
+/**
+ * Evento de cambio de un pedido registrado en la tabla outbox.
+ * Se inserta en la misma transaccion que el cambio, de modo que el evento existe si y solo si el cambio se confirmo;
+ * un relevo en segundo plano lo publica despues y lo marca como publicado. Cada publicacion fallida suma un intento;
+ * al llegar al maximo configurado el evento se estaciona (deja de reintentarse) para no bloquear al resto.
+ * El ID temporal crece con el tiempo, por lo que ordenar por ID conserva el orden de los eventos de cada pedido.
+ * Al guardarse con su repositorio, un cambio de estado publica ademas un {@link PedidoCambiado} local y una
+ * asignacion de repartidor un {@link RepartidorAsignado}.
+ */
+@Getter
+@NoArgsConstructor
+@Entity
+@Table(name = "eventos_pedido", indexes = {
+        // El relevo busca los pendientes no estacionados en orden de ID
+        @Index(name = "idx_eventos_pedido_pendientes", columnList = "publicado, estacionado, id")
+})
+public class EventoPedido {
+
+    public static final String PEDIDO_CREADO = "PEDIDO_CREADO";
+    public static final String ESTADO_CAMBIADO = "ESTADO_CAMBIADO";
+    public static final String REPARTIDOR_ASIGNADO = "REPARTIDOR_ASIGNADO";
+
+    @Id
+    @IdTemporal
+    @JsonSerialize(using = ToStringSerializer.class)
+    private Long id;
+
+    @Column(nullable = false)
+    @JsonSerialize(using = ToStringSerializer.class)
+    private Long idPedido;
+
+    @Column(nullable = false, length = 40)
+    private String tipo;
+
+    @Enumerated(EnumType.STRING)
+    private EstadoPedido estado;
+
+    private Integer idRepartidor;
+
+    @Temporal(TemporalType.TIMESTAMP)
+    @Column(nullable = false)
+    private Date fechaCreacion;
+
+    @Column(nullable = false)
+    private boolean publicado;
+
+    @Column(nullable = false)
+    private int intentos;
+
+    @Column(nullable = false)
+    private boolean estacionado;
+
+    public EventoPedido(Long idPedido, String tipo, EstadoPedido estado, Integer idRepartidor) {
+        this.idPedido = idPedido;
+        this.tipo = tipo;
+        this.estado = estado;
+        this.idRepartidor = idRepartidor;
+        this.fechaCreacion = new Date();
+        this.publicado = false;
+    }
+
+    /**
+     * Evento publicado por el repositorio al guardar un cambio de estado o una asignacion en el outbox.
+     */
+    @DomainEvents
+    Collection<Object> cambiosPendientes() {
+        if (publicado) {
+            return List.of();
+        }
+        if (ESTADO_CAMBIADO.equals(tipo)) {
+            return List.of(new PedidoCambiado(idPedido, estado, fechaCreacion));
+        }
+        if (REPARTIDOR_ASIGNADO.equals(tipo)) {
+            return List.of(new RepartidorAsignado(idPedido, estado, idRepartidor, fechaCreacion));
+        }
+        return List.of();
+    }
+}
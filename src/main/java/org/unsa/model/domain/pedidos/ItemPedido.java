@@ -1,10 +1,14 @@
 // file: src/main/java/org/unsa/model/dominio/pedidos/ItemPedido.java
 package org.unsa.model.domain.pedidos;
 
+import com.fasterxml.jackson.databind.annotation.JsonSerialize;
+import com.fasterxml.jackson.databind.ser.std.ToStringSerializer;
 import jakarta.persistence.*;
 import org.unsa.model.domain.restaurantes.Dinero;
+import org.unsa.model.domain.restaurantes.Moneda;
 import org.unsa.model.domain.restaurantes.Plato;
 import org.unsa.model.domain.pedidos.Pedido;
+import org.unsa.model.ids.IdTemporal;
 
 import java.util.Objects;
 import java.util.logging.Level;
@@ -21,8 +25,9 @@ import java.util.logging.Logger;
 @Table(name = "items_pedido") // Mapea esta entidad a la tabla "items_pedido"
 public class ItemPedido {
     @Id // Marca 'id' como la clave primaria
-    @GeneratedValue(strategy = GenerationType.IDENTITY) // Indica que el ID sera autoincremental por la DB
-    private Integer id; // ID propio para el ItemPedido
+    @IdTemporal // ID de 64 bits generado en la aplicacion, permite inserciones en lote
+    @JsonSerialize(using = ToStringSerializer.class)
+    private Long id; // ID propio para el ItemPedido
 
     @ManyToOne // Relacion muchos a uno con Plato
     @JoinColumn(name = "plato_id", nullable = false) // Columna para la clave foranea
@@ -31,7 +36,7 @@ public class ItemPedido {
 
     @Embedded // Indica que Dinero es un componente incrustable
 
-    @AttributeOverride(name = "valor", column = @Column(name = "subtotal_valor"))
+    @AttributeOverride(name = "centimos", column = @Column(name = "subtotal_centimos"))
     @AttributeOverride(name = "moneda", column = @Column(name = "subtotal_moneda"))
     private Dinero subtotal; // Subtotal calculado para este item
 
@@ -66,17 +71,16 @@ public class ItemPedido {
         this.cantidad = cantidad;
         // Calcular subtotal al crear el item
         if (plato.getPrecio() != null) {
-            this.subtotal = new Dinero(plato.getPrecio().getValor() * cantidad, plato.getPrecio().getMoneda());
+            this.subtotal = plato.getPrecio().multiplicar(cantidad);
         } else {
-            this.subtotal = new Dinero(0.0, "PEN"); // O la moneda por defecto
+            this.subtotal = Dinero.cero(Moneda.PEN); // O la moneda por defecto
             logger.log(Level.WARNING, () -> "Plato '" + plato.getNombre() + "' no tiene precio definido. Subtotal a 0.");
         }
         logger.info(() -> "ItemPedido creado: " + this.toString());
     }
 
     // --- Getters ---
-    public Integer getId() { return id; } // Getter para el ID propio del ItemPedido
-    public void setId(int id) { this.id = id; } // Setter para el ID propio del ItemPedido
+    public Long getId() { return id; } // Getter para el ID propio del ItemPedido
 
     public Plato getPlato() {
         return plato;
@@ -92,7 +96,7 @@ public class ItemPedido {
     public Pedido getPedido() { return pedido; }
 
     // --- Setters ---
-    public void setId(Integer id ) { this.id = id; }
+    public void setId(Long id) { this.id = id; }
     public void setPedido(Pedido pedido) { this.pedido = pedido; }
     public void setPlato(Plato plato) {
         if (plato == null) {
@@ -102,9 +106,9 @@ public class ItemPedido {
         this.plato = plato;
         // Recalcular subtotal si el plato cambia
         if (plato.getPrecio() != null) {
-            this.subtotal = new Dinero(plato.getPrecio().getValor() * cantidad, plato.getPrecio().getMoneda());
+            this.subtotal = plato.getPrecio().multiplicar(cantidad);
         } else {
-            this.subtotal = new Dinero(0.0, "PEN");
+            this.subtotal = Dinero.cero(Moneda.PEN);
         }
         logger.info(() -> "Plato de ItemPedido actualizado a: " + plato.getNombre());
     }
@@ -117,7 +121,7 @@ public class ItemPedido {
         this.cantidad = cantidad;
         // Recalcular subtotal si la cantidad cambia
         if (plato != null && plato.getPrecio() != null) {
-            this.subtotal = new Dinero(plato.getPrecio().getValor() * cantidad, plato.getPrecio().getMoneda());
+            this.subtotal = plato.getPrecio().multiplicar(cantidad);
         }
         logger.info(() -> "Cantidad de ItemPedido actualizada a: " + cantidad);
     }
@@ -130,7 +134,7 @@ public class ItemPedido {
         if (this == o) return true;
         if (o == null || getClass() != o.getClass()) return false;
         ItemPedido itemPedido = (ItemPedido) o;
-        return id.equals(itemPedido.id); // ItemsPedido son iguales si tienen el mismo ID
+        return Objects.equals(id, itemPedido.id); // ItemsPedido son iguales si tienen el mismo ID
     }
 
     @Override
@@ -0,0 +1,130 @@
+package org.unsa.model.domain.pedidos;
+
+import org.unsa.model.exceptions.TransicionInvalidaException;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.EnumSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Tabla de transiciones permitidas entre los estados de un pedido.
+ * Para cada estado guarda los estados siguientes y, precalculado, el conjunto de estados de origen
+ * desde los que se puede llegar a el; este ultimo se usa en las actualizaciones condicionales
+ * ({@code ... WHERE estado IN (origenes)}) para que la base de datos rechace transiciones ilegales
+ * o que perdieron la carrera contra otra actualizacion.
+ * Las guardas son condiciones adicionales que requieren el pedido completo.
+ */
+public final class MaquinaEstadosPedido {
+
+    /**
+     * Condicion adicional para entrar en un estado.
+     */
+    @FunctionalInterface
+    public interface Guarda {
+        /**
+         * @param pedido Pedido que va a cambiar de estado.
+         * @return null si la transicion puede continuar, o el motivo por el que se rechaza.
+         */
+        String verificar(Pedido pedido);
+    }
+
+    private static final Map<EstadoPedido, Set<EstadoPedido>> SIGUIENTES = new EnumMap<>(EstadoPedido.class);
+    private static final Map<EstadoPedido, Set<EstadoPedido>> ORIGENES = new EnumMap<>(EstadoPedido.class);
+    private static final Map<EstadoPedido, List<Guarda>> GUARDAS = new EnumMap<>(EstadoPedido.class);
+
+    /**
+     * Estados en los que un pedido sin repartidor puede recibir uno; se usan en la asignacion condicional
+     * ({@code ... WHERE repartidor IS NULL AND estado IN (...)}).
+     */
+    public static final Set<EstadoPedido> ADMITEN_REPARTIDOR = Collections.unmodifiableSet(
+            EnumSet.of(EstadoPedido.PENDIENTE, EstadoPedido.EN_PREPARACION, EstadoPedido.LISTO_PARA_RECOGER));
+
+    static {
+        for (EstadoPedido estado : EstadoPedido.values()) {
+            SIGUIENTES.put(estado, EnumSet.noneOf(EstadoPedido.class));
+            ORIGENES.put(estado, EnumSet.noneOf(EstadoPedido.class));
+            GUARDAS.put(estado, new ArrayList<>());
+        }
+        permitir(EstadoPedido.PENDIENTE, EstadoPedido.EN_PREPARACION, EstadoPedido.CANCELADO);
+        permitir(EstadoPedido.EN_PREPARACION, EstadoPedido.LISTO_PARA_RECOGER, EstadoPedido.CANCELADO);
+        permitir(EstadoPedido.LISTO_PARA_RECOGER, EstadoPedido.EN_CAMINO, EstadoPedido.CANCELADO);
+        permitir(EstadoPedido.EN_CAMINO, EstadoPedido.ENTREGADO);
+
+        agregarGuarda(EstadoPedido.EN_CAMINO,
+                p -> p.getRepartidor() == null ? "el pedido no tiene repartidor asignado" : null);
+
+        // Se congelan las tablas: despues de la inicializacion solo se leen
+        for (EstadoPedido estado : EstadoPedido.values()) {
+            SIGUIENTES.put(estado, Collections.unmodifiableSet(SIGUIENTES.get(estado)));
+            ORIGENES.put(estado, Collections.unmodifiableSet(ORIGENES.get(estado)));
+            GUARDAS.put(estado, List.copyOf(GUARDAS.get(estado)));
+        }
+    }
+
+    private MaquinaEstadosPedido() {
+    }
+
+    private static void permitir(EstadoPedido origen, EstadoPedido... destinos) {
+        for (EstadoPedido destino : destinos) {
+            SIGUIENTES.get(origen).add(destino);
+            ORIGENES.get(destino).add(origen);
+        }
+    }
+
+    private static void agregarGuarda(EstadoPedido destino, Guarda guarda) {
+        GUARDAS.get(destino).add(guarda);
+    }
+
+    /**
+     * @return true si se permite pasar de origen a destino.
+     */
+    public static boolean esValida(EstadoPedido origen, EstadoPedido destino) {
+        return SIGUIENTES.get(origen).contains(destino);
+    }
+
+    /**
+     * @return Los estados a los que se puede pasar desde el estado dado.
+     */
+    public static Set<EstadoPedido> siguientes(EstadoPedido origen) {
+        return SIGUIENTES.get(origen);
+    }
+
+    /**
+     * @return Los estados desde los que se puede llegar al estado dado (vacio si ninguno).
+     */
+    public static Set<EstadoPedido> origenes(EstadoPedido destino) {
+        return ORIGENES.get(destino);
+    }
+
+    /**
+     * @return true si entrar en el estado requiere verificar guardas sobre el pedido completo.
+     */
+    public static boolean tieneGuardas(EstadoPedido destino) {
+        return !GUARDAS.get(destino).isEmpty();
+    }
+
+    /**
+     * Verifica que el pedido pueda pasar al estado indicado.
+     * @param pedido Pedido en su estado actual.
+     * @param destino Estado al que se quiere pasar.
+     * @throws TransicionInvalidaException Si la transicion no esta permitida o alguna guarda la rechaza.
+     */
+    public static void validar(Pedido pedido, EstadoPedido destino) {
+        EstadoPedido origen = pedido.getEstado();
+        if (!esValida(origen, destino)) {
+            throw new TransicionInvalidaException(
+                    "El pedido " + pedido.getIdPedido() + " no puede pasar de " + origen + " a " + destino + ".");
+        }
+        for (Guarda guarda : GUARDAS.get(destino)) {
+            String motivo = guarda.verificar(pedido);
+            if (motivo != null) {
+                throw new TransicionInvalidaException(
+                        "El pedido " + pedido.getIdPedido() + " no puede pasar a " + destino + ": " + motivo + ".");
+            }
+        }
+    }
+}
@@ -1,12 +1,16 @@
 // file: src/main/java/org/unsa/model/dominio/pedidos/Pedido.java
 package org.unsa.model.domain.pedidos;
 
+import com.fasterxml.jackson.databind.annotation.JsonSerialize;
+import com.fasterxml.jackson.databind.ser.std.ToStringSerializer;
 import jakarta.persistence.*; // Importar todas las anotaciones de JPA
 import org.unsa.model.domain.usuarios.Direccion;
 import org.unsa.model.domain.restaurantes.Dinero;
+import org.unsa.model.domain.restaurantes.Moneda;
 import org.unsa.model.domain.restaurantes.Restaurante;
 import org.unsa.model.domain.usuarios.Cliente; // Importar Cliente para la relacion ManyToOne
 import org.unsa.model.domain.usuarios.Repartidor; // Importar Repartidor para la relacion ManyToOne
+import org.unsa.model.ids.IdTemporal;
 
 import java.util.ArrayList;
 import java.util.Date;
@@ -22,11 +26,17 @@ import lombok.*;
  */
 @Data
 @Entity
-@Table(name = "pedidos")
+@Table(name = "pedidos", indexes = {
+        // Historial por cliente paginado por clave (fecha, id)
+        @Index(name = "idx_pedidos_cliente_fecha", columnList = "cliente_id, fecha_hora_creacion, id_pedido"),
+        // Pedidos pendientes de asignar repartidor
+        @Index(name = "idx_pedidos_estado_repartidor", columnList = "estado, repartidor_id")
+})
 public class Pedido {
     @Id // Marca 'id' como la clave primaria
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
-    private Integer idPedido; // ID de tipo int
+    @IdTemporal // ID de 64 bits generado en la aplicacion, permite inserciones en lote
+    @JsonSerialize(using = ToStringSerializer.class)
+    private Long idPedido;
 
     @ManyToOne // Relacion muchos a uno con Repartidor (opcional)
     @JoinColumn(name = "repartidor_id") // Columna para la clave foranea, puede ser nula
@@ -38,13 +48,17 @@ public class Pedido {
 
     @Enumerated(EnumType.STRING)
     @Column(nullable = false)
+    @Setter(AccessLevel.PACKAGE) // Fuera del paquete el estado solo cambia con actualizarEstado, que valida la transicion
     private EstadoPedido estado;
 
+    @Version // Bloqueo optimista: detecta actualizaciones concurrentes del mismo pedido
+    private Long version;
+
     @Embedded
     private PedidoData info;
 
     @Embedded // Incrusta el objeto Dinero
-    @AttributeOverride(name = "valor", column = @Column(name = "monto_total_valor"))
+    @AttributeOverride(name = "centimos", column = @Column(name = "monto_total_centimos"))
     @AttributeOverride(name = "moneda", column = @Column(name = "monto_total_moneda"))
     private Dinero montoTotal;
 
@@ -67,19 +81,16 @@ public class Pedido {
     public Pedido() {
         this.fechaHoraCreacion = new Date();
         this.estado = EstadoPedido.PENDIENTE;
-        this.montoTotal = new Dinero(0.0, "PEN"); // O la moneda por defecto
+        this.montoTotal = Dinero.cero(Moneda.PEN); // O la moneda por defecto
         logger.info(() -> "Nuevo pedido creado (constructor vacio). ID sera asignado por JPA.");
     }
 
     /**
      * Constructor completo para la clase Pedido.
      * Los IDs de Cliente, Repartidor y Restaurante se reemplazan por los objetos reales.
-     * @param idPedido Identificador unico del pedido (int).
-     *                  En un entorno real con GenerationType.IDENTITY, el ID no se pasaria
-     *                  en el constructor para nuevas entidades, se dejaria a la DB.
-     *                 Lo mantenemos para compatibilidad con TestUsuarios.java por ahora.
+     * @param idPedido Identificador unico del pedido; si es nulo lo asigna el generador de IDs temporales.
      */
-    public Pedido(PedidoData info, Integer idPedido) { // ID cambiado a int
+    public Pedido(PedidoData info, Long idPedido) {
         this.idPedido = idPedido;
         this.info = info;
         this.fechaHoraCreacion = new Date();
@@ -97,34 +108,38 @@ public class Pedido {
 
     /**
      * Calcula el monto total del pedido sumando los subtotales de todos los items.
+     * Acumula en centimos (long) y crea un solo Dinero al final.
      * @return El monto total del pedido.
      */
     @Transient // Este metodo no es persistente directamente
     private Dinero calcularMontoTotal() {
         var items = info.getItems();
         if (items == null || items.isEmpty()) {
-            return new Dinero(0.0, "PEN"); // O la moneda por defecto
+            return Dinero.cero(Moneda.PEN); // O la moneda por defecto
         }
         // Asegurarse de que el primer item tenga un subtotal con moneda para inicializar
-        String monedaBase = items.getFirst().getSubtotal() != null ? items.getFirst().getSubtotal().getMoneda() : "PEN";
-        Dinero total = new Dinero(0.0, monedaBase);
-        for (ItemPedido item : items) {
+        Moneda monedaBase = items.getFirst().getSubtotal() != null ? items.getFirst().getSubtotal().getMoneda() : Moneda.PEN;
+        long centimos = 0;
+        for (int i = 0, n = items.size(); i < n; i++) {
+            ItemPedido item = items.get(i);
             if (item.getSubtotal() != null) {
-                total = total.sumar(item.getSubtotal());
+                centimos = Dinero.sumarCentimos(centimos, monedaBase, item.getSubtotal());
             } else {
                 logger.log(Level.WARNING, () -> "Item con subtotal nulo encontrado en pedido " + this.idPedido + ". Se ignorara.");
             }
         }
-        return total;
+        return new Dinero(centimos, monedaBase);
     }
 
     /**
-     * Actualiza el estado del pedido.
+     * Actualiza el estado del pedido validando la transicion contra {@link MaquinaEstadosPedido}.
      * @param nuevoEstado El nuevo estado del pedido.
+     * @throws org.unsa.model.exceptions.TransicionInvalidaException Si la transicion no esta permitida.
      */
     @Transient // Este metodo no es persistente directamente
     public void actualizarEstado(EstadoPedido nuevoEstado) {
-        setEstado(nuevoEstado); // Reutiliza el setter con su validacion y log
+        MaquinaEstadosPedido.validar(this, nuevoEstado);
+        setEstado(nuevoEstado);
     }
 
     // --- Métodos Esenciales para Objetos (equals y hashCode) ---
@@ -133,12 +148,12 @@ public class Pedido {
         if (this == o) return true;
         if (o == null || getClass() != o.getClass()) return false;
         Pedido pedido = (Pedido) o;
-        return idPedido == pedido.idPedido; // Pedidos son iguales si tienen el mismo ID (int)
+        return Objects.equals(idPedido, pedido.idPedido); // Pedidos son iguales si tienen el mismo ID
     }
 
     @Override
     public int hashCode() {
-        return Objects.hash(idPedido); // Hash basado en int ID
+        return Objects.hash(idPedido); // Hash basado en el ID
     }
 
     // --- Método toString() ---
@@ -153,11 +168,11 @@ public class Pedido {
                 TO_STRING_SUFFIX;
     }
 
-    public Integer getIdPedido() {
+    public Long getIdPedido() {
         return idPedido;
     }
 
-    public void setIdPedido(Integer idPedido) {
+    public void setIdPedido(Long idPedido) {
         this.idPedido = idPedido;
     }
 }
@@ -0,0 +1,20 @@
+package org.unsa.model.domain.pedidos;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+import java.util.Date;
+
+/**
+ * Evento de dominio que emite un {@link EventoPedido} de cambio de estado al guardarse en el outbox.
+ * Se publica dentro de la aplicacion con la transaccion del cambio, sin pasar por el relevo, asi que
+ * lo reciben los oyentes transaccionales sea cual sea el destino configurado para el outbox.
+ */
+@Getter
+@AllArgsConstructor
+public class PedidoCambiado {
+    private final Long idPedido;
+    private final EstadoPedido estado;
+    // Fecha del evento en el outbox
+    private final Date fecha;
+}
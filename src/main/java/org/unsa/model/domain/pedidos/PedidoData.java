@@ -37,6 +37,8 @@ public class PedidoData {
     @AttributeOverride(name = "ciudad", column = @Column(name = "direccion_ciudad"))
     @AttributeOverride(name = "codigoPostal", column = @Column(name = "direccion_codigo_postal"))
     @AttributeOverride(name = "referencia", column = @Column(name = "direccion_referencia"))
+    @AttributeOverride(name = "latitud", column = @Column(name = "direccion_latitud"))
+    @AttributeOverride(name = "longitud", column = @Column(name = "direccion_longitud"))
     private Direccion direccionEntrega;
 
     private String instruccionesEspeciales;
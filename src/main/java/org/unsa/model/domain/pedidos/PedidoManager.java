@@ -2,6 +2,7 @@ package org.unsa.model.domain.pedidos;
 
 import lombok.RequiredArgsConstructor;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
 import org.unsa.model.domain.usuarios.Cliente;
 import org.unsa.model.domain.usuarios.Direccion;
 import org.unsa.model.domain.usuarios.Repartidor;
@@ -13,7 +14,10 @@ import org.unsa.model.repository.RepartidorRepository;
 import org.unsa.model.repository.RestauranteRepository;
 import org.unsa.model.service.Interfaces.IPedidoServicio;
 
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.Objects;
 import java.util.Optional;
 import java.util.logging.Level;
 import java.util.logging.Logger;
@@ -67,7 +71,7 @@ public class PedidoManager implements IPedidoServicio {
     }
 
     @Override
-    public Pedido obtenerPedidoPorId(Integer idPedido) {
+    public Pedido obtenerPedidoPorId(Long idPedido) {
         return pedidoRepository.findById(idPedido)
                 .orElseThrow(() -> new RuntimeException("Pedido no encontrado con ID: " + idPedido));
     }
@@ -78,33 +82,46 @@ public class PedidoManager implements IPedidoServicio {
     }
 
     @Override
-    public void actualizarEstadoPedido(Integer idPedido, EstadoPedido nuevoEstado) {
+    public List<Pedido> obtenerPedidosPorIds(List<Long> idsPedidos) {
+        Map<Long, Pedido> porId = new HashMap<>();
+        pedidoRepository.findAllById(idsPedidos).forEach(p -> porId.put(p.getIdPedido(), p));
+        return idsPedidos.stream().map(porId::get).filter(Objects::nonNull).toList();
+    }
+
+    @Override
+    public void actualizarEstadoPedido(Long idPedido, EstadoPedido nuevoEstado) {
         Pedido pedido = obtenerPedidoPorId(idPedido);
-        pedido.setEstado(nuevoEstado);
+        pedido.actualizarEstado(nuevoEstado);
         pedidoRepository.save(pedido);
     }
 
     @Override
-    public void asignarRepartidorAPedido(Integer idPedido, Integer idRepartidor) {
+    public void asignarRepartidorAPedido(Long idPedido, Integer idRepartidor) {
         Pedido pedido = obtenerPedidoPorId(idPedido);
         Repartidor repartidor = repartidorRepository.findById(idRepartidor)
                 .orElseThrow(() -> new RuntimeException("Repartidor no encontrado con ID: " + idRepartidor));
         pedido.setRepartidor(repartidor);
-        pedido.setEstado(EstadoPedido.EN_CAMINO);
+        pedido.actualizarEstado(EstadoPedido.EN_CAMINO);
         pedidoRepository.save(pedido);
     }
 
     @Override
-    public void cancelarPedido(Integer idPedido, Integer idUsuario) {
+    @Transactional
+    public boolean quitarRepartidorDePedido(Long idPedido, Integer idRepartidor) {
+        return pedidoRepository.quitarRepartidor(idPedido, idRepartidor, MaquinaEstadosPedido.ADMITEN_REPARTIDOR) > 0;
+    }
+
+    @Override
+    public void cancelarPedido(Long idPedido, Integer idUsuario) {
         Pedido pedido = obtenerPedidoPorId(idPedido);
-        pedido.setEstado(EstadoPedido.CANCELADO);
+        pedido.actualizarEstado(EstadoPedido.CANCELADO);
         pedidoRepository.save(pedido);
     }
 
     @Override
-    public void confirmarEntrega(Integer idPedido) {
+    public void confirmarEntrega(Long idPedido) {
         Pedido pedido = obtenerPedidoPorId(idPedido);
-        pedido.setEstado(EstadoPedido.ENTREGADO);
+        pedido.actualizarEstado(EstadoPedido.ENTREGADO);
         pedidoRepository.save(pedido);
     }
 }
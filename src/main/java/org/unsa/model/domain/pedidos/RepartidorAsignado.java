@@ -0,0 +1,20 @@
+package org.unsa.model.domain.pedidos;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+import java.util.Date;
+
+/**
+ * Evento de dominio que emite un {@link EventoPedido} de asignacion de repartidor al guardarse en el outbox.
+ * Igual que {@link PedidoCambiado}, se publica con la transaccion de la asignacion y no depende del relevo.
+ */
+@Getter
+@AllArgsConstructor
+public class RepartidorAsignado {
+    private final Long idPedido;
+    // Estado del pedido al asignarse el repartidor
+    private final EstadoPedido estado;
+    private final Integer idRepartidor;
+    private final Date fecha;
+}
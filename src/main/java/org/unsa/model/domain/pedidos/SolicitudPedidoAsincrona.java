@@ -0,0 +1,62 @@
+package org.unsa.model.domain.pedidos;
+
+import jakarta.persistence.*;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import org.unsa.model.dtos.TicketPedido;
+
+import java.util.Date;
+
+/**
+ * Registro persistente de una solicitud recibida por POST /pedidos/async.
+ * Se inserta antes de responder 202, con el cuerpo de la solicitud en JSON, para que un reinicio no pierda
+ * pedidos aceptados: las solicitudes que siguen pendientes se vuelven a encolar.
+ * Pasa a COMPLETADO en la misma transaccion que crea el pedido, solo si aun estaba PENDIENTE.
+ */
+@Getter
+@NoArgsConstructor
+@Entity
+@Table(name = "solicitudes_pedido_async", indexes = {
+        // La recuperacion busca las pendientes mas antiguas
+        @Index(name = "idx_solicitudes_async_estado", columnList = "estado, fechaRecepcion")
+})
+public class SolicitudPedidoAsincrona {
+
+    @Id
+    @Column(length = 36)
+    private String id;
+
+    @Lob
+    @Column(nullable = false)
+    private String cuerpo;
+
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false, length = 20)
+    private TicketPedido.Estado estado;
+
+    private Long idPedido;
+
+    @Column(length = 500)
+    private String error;
+
+    @Temporal(TemporalType.TIMESTAMP)
+    @Column(nullable = false)
+    private Date fechaRecepcion;
+
+    @Temporal(TemporalType.TIMESTAMP)
+    private Date fechaResolucion;
+
+    public SolicitudPedidoAsincrona(TicketPedido ticket, String cuerpo) {
+        this.id = ticket.getId();
+        this.cuerpo = cuerpo;
+        this.estado = ticket.getEstado();
+        this.fechaRecepcion = ticket.getFechaRecepcion();
+    }
+
+    /**
+     * @return El ticket con el estado registrado.
+     */
+    public TicketPedido aTicket() {
+        return new TicketPedido(id, fechaRecepcion, estado, idPedido, error);
+    }
+}
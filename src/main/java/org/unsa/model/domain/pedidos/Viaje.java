@@ -0,0 +1,103 @@
+package org.unsa.model.domain.pedidos;
+
+import com.fasterxml.jackson.databind.annotation.JsonSerialize;
+import com.fasterxml.jackson.databind.ser.std.ToStringSerializer;
+import jakarta.persistence.*;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+import org.springframework.data.domain.AfterDomainEventPublication;
+import org.springframework.data.domain.DomainEvents;
+import org.unsa.model.domain.restaurantes.Restaurante;
+import org.unsa.model.domain.usuarios.Repartidor;
+import org.unsa.model.ids.IdTemporal;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Date;
+import java.util.List;
+import java.util.Objects;
+
+/**
+ * Viaje de un repartidor que recoge varios pedidos en el mismo restaurante y los entrega en orden.
+ * Cada pedido tiene su {@link Entrega}, enlazada al viaje con su numero de parada.
+ * Las entregas se insertan en cascada, asi que sus {@link EntregaCambiada} se publican al guardar el viaje.
+ */
+@Getter
+@Setter
+@NoArgsConstructor
+@Entity
+@Table(name = "viajes")
+public class Viaje {
+
+    @Id
+    @IdTemporal
+    @JsonSerialize(using = ToStringSerializer.class)
+    private Long id;
+
+    @ManyToOne(fetch = FetchType.LAZY)
+    @JoinColumn(name = "restaurante_id", nullable = false)
+    private Restaurante restaurante;
+
+    @ManyToOne(fetch = FetchType.LAZY)
+    @JoinColumn(name = "repartidor_id")
+    private Repartidor repartidor;
+
+    @Temporal(TemporalType.TIMESTAMP)
+    @Column(nullable = false)
+    private Date fechaCreacion;
+
+    // Distancia estimada del recorrido restaurante -> paradas en orden
+    private Double distanciaEstimadaKm;
+
+    @OneToMany(mappedBy = "viaje", cascade = CascadeType.PERSIST)
+    @OrderBy("ordenParada")
+    private List<Entrega> entregas = new ArrayList<>();
+
+    public Viaje(Restaurante restaurante) {
+        this.restaurante = Objects.requireNonNull(restaurante, "El restaurante no puede ser nulo para un viaje.");
+        this.fechaCreacion = new Date();
+    }
+
+    /**
+     * Agrega la entrega del pedido como la siguiente parada del viaje.
+     */
+    public Entrega agregarParada(Pedido pedido) {
+        Entrega entrega = new Entrega(pedido);
+        entrega.setViaje(this);
+        entrega.setOrdenParada(entregas.size() + 1);
+        entregas.add(entrega);
+        return entrega;
+    }
+
+    /**
+     * Asigna el repartidor al viaje y a cada una de sus entregas.
+     */
+    public void asignarRepartidor(Repartidor repartidor) {
+        this.repartidor = Objects.requireNonNull(repartidor, "El repartidor no puede ser nulo.");
+        entregas.forEach(e -> e.asignarRepartidor(repartidor));
+    }
+
+    // Una entrega guardada en cascada no publica sus propios eventos de dominio
+    @DomainEvents
+    Collection<EntregaCambiada> cambiosPendientes() {
+        return entregas.stream().flatMap(e -> e.cambiosPendientes().stream()).toList();
+    }
+
+    @AfterDomainEventPublication
+    void limpiarCambios() {
+        entregas.forEach(Entrega::limpiarCambios);
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (o == null || getClass() != o.getClass()) return false;
+        return Objects.equals(id, ((Viaje) o).id);
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(id);
+    }
+}
@@ -1,25 +1,101 @@
 // file: src/main/java/org/unsa/model/domain/restaurantes/Dinero.java
 package org.unsa.model.domain.restaurantes;
 
+import com.fasterxml.jackson.annotation.JsonIgnore;
+import jakarta.persistence.Column;
 import jakarta.persistence.Embeddable;
 import lombok.Getter;
 import lombok.Setter;
 
+import java.util.Objects;
+
+/**
+ * Monto de dinero expresado en centimos (unidad minima) con su moneda.
+ * Usar un entero evita el error de redondeo de double al sumar muchos montos; los totales
+ * se acumulan como long con {@link #sumarCentimos} y solo se crea un Dinero al final.
+ * En la base de datos se guardan los centimos tal cual en una columna BIGINT (*_centimos), sin pasar por double;
+ * en JSON se sigue exponiendo como valor decimal y codigo de moneda.
+ */
 @Embeddable
 @Getter
 @Setter
 public class Dinero {
-    private double valor;
-    private String moneda;
+    @Column(name = "centimos")
+    private long centimos;
+
+    @Convert(converter = MonedaConverter.class)
+    @Column(length = 3)
+    private Moneda moneda;
 
     public Dinero() {}
 
-    public Dinero(double valor, String moneda) {
-        this.valor = valor;
+    public Dinero(long centimos, Moneda moneda) {
+        this.centimos = centimos;
         this.moneda = moneda;
     }
 
-    public Dinero sumar(Dinero subtotal) {
-        return new Dinero(this.valor + subtotal.getValor(), this.moneda);
+    /**
+     * Crea un monto a partir de un valor decimal, redondeado al centimo mas cercano.
+     */
+    public Dinero(double valor, String moneda) {
+        this.moneda = Moneda.desdeCodigo(moneda);
+        this.centimos = Math.round(valor * this.moneda.getFactor());
+    }
+
+    public static Dinero cero(Moneda moneda) {
+        return new Dinero(0L, moneda);
+    }
+
+    @JsonIgnore
+    public long getCentimos() {
+        return centimos;
+    }
+
+    /**
+     * @return El monto en unidades principales (por ejemplo soles), para mostrarlo.
+     */
+    public double getValor() {
+        return (double) centimos / (moneda != null ? moneda.getFactor() : 100);
+    }
+
+    public void setValor(double valor) {
+        this.centimos = Math.round(valor * (moneda != null ? moneda.getFactor() : 100));
+    }
+
+    public Dinero sumar(Dinero otro) {
+        return new Dinero(sumarCentimos(centimos, moneda, otro), moneda);
+    }
+
+    public Dinero multiplicar(int cantidad) {
+        return new Dinero(Math.multiplyExact(centimos, cantidad), moneda);
+    }
+
+    /**
+     * Suma sin crear objetos: agrega los centimos de un monto a un acumulado en la moneda dada.
+     * @throws IllegalArgumentException Si el monto esta en otra moneda.
+     * @throws ArithmeticException Si el resultado desborda un long.
+     */
+    public static long sumarCentimos(long acumulado, Moneda moneda, Dinero monto) {
+        if (monto.moneda != moneda) {
+            throw new IllegalArgumentException("No se pueden sumar montos en " + moneda + " y " + monto.moneda + ".");
+        }
+        return Math.addExact(acumulado, monto.centimos);
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (!(o instanceof Dinero dinero)) return false;
+        return centimos == dinero.centimos && moneda == dinero.moneda;
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(centimos, moneda);
+    }
+
+    @Override
+    public String toString() {
+        return getValor() + " " + moneda;
     }
 }
@@ -100,21 +100,21 @@ public class HorarioAtencion {
             logger.log(Level.WARNING, "Parametros de hora/dia invalidos para estaAbiertoAhora: " + horaActualStr + ", " + diaActualStr, e);
             return false;
         }
+        return estaAbiertoEn(diaActual, horaActual);
+    }
 
-        if (!diaActual.equals(diaSemana)) {
-            logger.fine(() -> "No esta abierto: Dia actual (" + diaActual + ") no coincide con dia de horario (" + diaSemana + ")");
-            return false;
-        }
-
-        boolean abierto;
+    /**
+     * Igual que {@link #estaAbiertoAhora(String, String)}, sin interpretar texto ni registrar nada.
+     * Un horario que cruza la medianoche (cierre anterior o igual a la apertura) sigue abierto
+     * en el dia siguiente hasta la hora de cierre.
+     */
+    @Transient // Este metodo no es persistente directamente
+    public boolean estaAbiertoEn(DayOfWeek dia, LocalTime hora) {
         if (horaApertura.isBefore(horaCierre)) {
-            abierto = !horaActual.isBefore(horaApertura) && horaActual.isBefore(horaCierre);
-            logger.fine(() -> "Horario normal. Abierto: " + abierto + " (" + horaApertura + "-" + horaCierre + ", actual: " + horaActual + ")");
-        } else {
-            abierto = !horaActual.isBefore(horaApertura) || horaActual.isBefore(horaCierre);
-            logger.fine(() -> "Horario cruza medianoche. Abierto: " + abierto + " (" + horaApertura + "-" + horaCierre + ", actual: " + horaActual + ")");
+            return dia == diaSemana && !hora.isBefore(horaApertura) && hora.isBefore(horaCierre);
         }
-        return abierto;
+        return (dia == diaSemana && !hora.isBefore(horaApertura))
+                || (dia == diaSemana.plus(1) && hora.isBefore(horaCierre));
     }
 
     /**
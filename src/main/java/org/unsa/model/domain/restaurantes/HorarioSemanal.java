@@ -0,0 +1,74 @@
+package org.unsa.model.domain.restaurantes;
+
+import java.time.DayOfWeek;
+import java.time.LocalTime;
+import java.util.Arrays;
+import java.util.Collection;
+
+/**
+ * Horario de atencion de un restaurante compilado a un mapa de bits con un bit por minuto de la semana
+ * (lunes 00:00 es el minuto 0). Consultar si esta abierto es leer un bit, sin interpretar horas ni dias.
+ */
+public final class HorarioSemanal {
+
+    public static final int MINUTOS_DIA = 24 * 60;
+    public static final int MINUTOS_SEMANA = 7 * MINUTOS_DIA;
+
+    private final long[] bits = new long[(MINUTOS_SEMANA + 63) / 64];
+
+    /**
+     * Compila los horarios de atencion de un restaurante.
+     */
+    public static HorarioSemanal de(Collection<HorarioAtencion> horarios) {
+        HorarioSemanal semana = new HorarioSemanal();
+        for (HorarioAtencion h : horarios) {
+            semana.agregar(h.getDiaSemana(), h.getHoraApertura(), h.getHoraCierre());
+        }
+        return semana;
+    }
+
+    /**
+     * Marca un rango de atencion. Si el cierre es anterior o igual a la apertura, el rango cruza la
+     * medianoche y continua en el dia siguiente (del domingo pasa al lunes).
+     */
+    public void agregar(DayOfWeek dia, LocalTime apertura, LocalTime cierre) {
+        int inicio = minutoDeLaSemana(dia, apertura);
+        int fin = minutoDeLaSemana(dia, cierre);
+        if (fin <= inicio) {
+            fin += MINUTOS_DIA;
+        }
+        for (int m = inicio; m < fin; m++) {
+            int minuto = m % MINUTOS_SEMANA;
+            bits[minuto >>> 6] |= 1L << minuto;
+        }
+    }
+
+    public boolean estaAbierto(int minutoSemana) {
+        return (bits[minutoSemana >>> 6] & (1L << minutoSemana)) != 0;
+    }
+
+    /**
+     * @return Los minutos en que el estado cambia respecto del minuto anterior (el anterior al minuto 0 es
+     * el ultimo de la semana), en orden.
+     */
+    public int[] cambios() {
+        int[] cambios = new int[16];
+        int cantidad = 0;
+        boolean anterior = estaAbierto(MINUTOS_SEMANA - 1);
+        for (int m = 0; m < MINUTOS_SEMANA; m++) {
+            boolean abierto = estaAbierto(m);
+            if (abierto != anterior) {
+                if (cantidad == cambios.length) {
+                    cambios = Arrays.copyOf(cambios, cantidad * 2);
+                }
+                cambios[cantidad++] = m;
+                anterior = abierto;
+            }
+        }
+        return Arrays.copyOf(cambios, cantidad);
+    }
+
+    public static int minutoDeLaSemana(DayOfWeek dia, LocalTime hora) {
+        return (dia.getValue() - 1) * MINUTOS_DIA + hora.getHour() * 60 + hora.getMinute();
+    }
+}
@@ -0,0 +1,49 @@
+package org.unsa.model.domain.restaurantes;
+
+import java.util.Locale;
+
+/**
+ * Monedas soportadas. Todos los montos se guardan en la unidad minima (centimos), por lo que
+ * cada moneda indica cuantos decimales tiene su unidad principal.
+ */
+public enum Moneda {
+    PEN(2),
+    USD(2);
+
+    private final int decimales;
+    private final long factor;
+
+    Moneda(int decimales) {
+        this.decimales = decimales;
+        long f = 1;
+        for (int i = 0; i < decimales; i++) {
+            f *= 10;
+        }
+        this.factor = f;
+    }
+
+    /**
+     * Interpreta un codigo de moneda, tolerando mayusculas, espacios y los simbolos usados antes de que la
+     * moneda fuera un enum.
+     * @throws IllegalArgumentException Si el codigo no corresponde a ninguna moneda soportada.
+     */
+    public static Moneda desdeCodigo(String codigo) {
+        String normalizado = codigo.trim().toUpperCase(Locale.ROOT);
+        return switch (normalizado) {
+            case "PEN", "S/", "S/.", "SOL", "SOLES" -> PEN;
+            case "USD", "US$", "$", "DOLAR", "DOLARES" -> USD;
+            default -> throw new IllegalArgumentException("Moneda no soportada: " + codigo);
+        };
+    }
+
+    public int getDecimales() {
+        return decimales;
+    }
+
+    /**
+     * @return Cantidad de unidades minimas en una unidad principal (100 para dos decimales).
+     */
+    public long getFactor() {
+        return factor;
+    }
+}
@@ -0,0 +1,23 @@
+package org.unsa.model.domain.restaurantes;
+
+import jakarta.persistence.AttributeConverter;
+import jakarta.persistence.Converter;
+
+/**
+ * Guarda {@link Moneda} por su codigo ISO en las columnas *_moneda existentes.
+ * Al leer acepta los valores que la columna tenia cuando era texto libre (minusculas, espacios, "S/", "$");
+ * la migracion db/migraciones/003_monedas.sql ya los normaliza, esto solo evita que una fila suelta impida cargar la entidad.
+ */
+@Converter
+public class MonedaConverter implements AttributeConverter<Moneda, String> {
+
+    @Override
+    public String convertToDatabaseColumn(Moneda moneda) {
+        return moneda == null ? null : moneda.name();
+    }
+
+    @Override
+    public Moneda convertToEntityAttribute(String codigo) {
+        return codigo == null ? null : Moneda.desdeCodigo(codigo);
+    }
+}
@@ -28,7 +28,7 @@ public class Plato {
     private boolean disponible;
 
     @Embedded
-    @AttributeOverride(name = "valor", column = @Column(name = "precio_valor"))
+    @AttributeOverride(name = "centimos", column = @Column(name = "precio_centimos"))
     @AttributeOverride(name = "moneda", column = @Column(name = "precio_moneda"))
     private Dinero precio;
 
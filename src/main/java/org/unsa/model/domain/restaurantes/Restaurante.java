@@ -1,7 +1,14 @@
 // file: src/main/java/org/unsa/model/dominio/restaurantes/Restaurante.java
 package org.unsa.model.domain.restaurantes;
 
+import com.fasterxml.jackson.annotation.JsonIgnore;
 import jakarta.persistence.*; // Importar todas las anotaciones de JPA
+import org.springframework.data.domain.DomainEvents;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
 import java.util.Objects;
 import java.util.logging.Level;
 import java.util.logging.Logger;
@@ -24,6 +31,15 @@ public class Restaurante {
     @Column(nullable = false) // El tipo de cocina no puede ser nulo
     private TipoCocina tipoCocina;
 
+    // Ubicacion geografica, usada para buscar repartidores cercanos (puede ser nula)
+    private Double latitud;
+    private Double longitud;
+
+    // Horario semanal: a lo sumo un rango por dia; un rango que cruza la medianoche sigue en el dia siguiente
+    @ElementCollection
+    @CollectionTable(name = "restaurante_horarios", joinColumns = @JoinColumn(name = "restaurante_id"))
+    private List<HorarioAtencion> horarios = new ArrayList<>();
+
     @Transient // Indica que este campo no se mapeara a la base de datos
     private static final Logger logger = Logger.getLogger(Restaurante.class.getName());
 
@@ -98,6 +114,36 @@ public class Restaurante {
     public TipoCocina getTipoCocina() { return tipoCocina; }
     public void setTipoCocina(TipoCocina tipoCocina) { this.tipoCocina = tipoCocina; }
 
+    public Double getLatitud() { return latitud; }
+    public void setLatitud(Double latitud) { this.latitud = latitud; }
+
+    public Double getLongitud() { return longitud; }
+    public void setLongitud(Double longitud) { this.longitud = longitud; }
+
+    @JsonIgnore // Coleccion perezosa: no se serializa con el restaurante
+    public List<HorarioAtencion> getHorarios() { return Collections.unmodifiableList(horarios); }
+
+    /**
+     * Reemplaza el horario del dia indicado en el horario, o lo agrega si ese dia no tenia.
+     * @param horario Nuevo horario de un dia.
+     */
+    public void actualizarHorario(HorarioAtencion horario) {
+        if (horario == null) {
+            throw new IllegalArgumentException("El horario no puede ser nulo.");
+        }
+        horarios.removeIf(h -> h.getDiaSemana() == horario.getDiaSemana());
+        horarios.add(horario);
+        logger.info(() -> "Horario del restaurante " + id + " actualizado: " + horario);
+    }
+
+    /**
+     * Evento publicado por el repositorio al guardar o eliminar el restaurante (ya con su ID asignado).
+     */
+    @DomainEvents
+    Collection<RestauranteCambiado> cambiosPendientes() {
+        return id == null ? List.of() : List.of(new RestauranteCambiado(id));
+    }
+
     /**
      * Representacion en cadena del objeto Restaurante para depuracion.
      */
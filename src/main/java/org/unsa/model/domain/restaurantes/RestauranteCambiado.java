@@ -0,0 +1,14 @@
+package org.unsa.model.domain.restaurantes;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+/**
+ * Evento de dominio que emite un {@link Restaurante} cada vez que se guarda o elimina con su repositorio.
+ * Solo lleva el ID: quien lo escuche relee el estado confirmado.
+ */
+@Getter
+@AllArgsConstructor
+public class RestauranteCambiado {
+    private final Integer idRestaurante;
+}
@@ -14,5 +14,14 @@ public class Direccion {
     private String distrito;
     private String referencia;
 
+    // Coordenadas en grados decimales; opcionales, se usan para agrupar entregas cercanas en un viaje
+    private Double latitud;
+    private Double longitud;
+
+    // Constructor sin coordenadas, el que existia antes de agregarlas
+    public Direccion(String calle, String ciudad, String distrito, String referencia) {
+        this(calle, ciudad, distrito, referencia, null, null);
+    }
+
     // Puedes agregar validaciones con @NotNull, @Size, etc.
 }
@@ -0,0 +1,43 @@
+package org.unsa.model.dtos;
+
+import com.fasterxml.jackson.databind.annotation.JsonSerialize;
+import com.fasterxml.jackson.databind.ser.std.ToStringSerializer;
+import com.fasterxml.jackson.annotation.JsonInclude;
+import lombok.Getter;
+import lombok.RequiredArgsConstructor;
+import lombok.Setter;
+import org.unsa.model.domain.pedidos.EstadoPedido;
+import org.unsa.model.domain.restaurantes.Dinero;
+
+import java.util.Date;
+import java.util.List;
+
+/**
+ * Modelo de lectura con el detalle de un pedido.
+ * La cabecera se llena con una consulta que une cliente, restaurante y repartidor, y las lineas con otra
+ * que une los platos; ninguna de las dos carga entidades ni toca proxies perezosos.
+ */
+@Getter
+@RequiredArgsConstructor
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public class DetallePedido {
+    @JsonSerialize(using = ToStringSerializer.class)
+    private final Long idPedido;
+    private final Date fechaHoraCreacion;
+    private final EstadoPedido estado;
+    private final Integer idCliente;
+    private final String nombreCliente;
+    private final Integer idRestaurante;
+    private final String nombreRestaurante;
+    private final Integer idRepartidor;
+    private final String nombreRepartidor;
+    private final String calleEntrega;
+    private final String ciudadEntrega;
+    private final String distritoEntrega;
+    private final String referenciaEntrega;
+    private final String instruccionesEspeciales;
+    private final Dinero montoTotal;
+
+    @Setter
+    private List<LineaDetallePedido> items;
+}
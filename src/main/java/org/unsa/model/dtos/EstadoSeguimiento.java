@@ -0,0 +1,25 @@
+package org.unsa.model.dtos;
+
+import com.fasterxml.jackson.databind.annotation.JsonSerialize;
+import com.fasterxml.jackson.databind.ser.std.ToStringSerializer;
+import com.fasterxml.jackson.annotation.JsonInclude;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import org.unsa.model.domain.pedidos.EstadoPedido;
+
+import java.util.Date;
+
+/**
+ * DTO con un cambio de pedido enviado al seguimiento en vivo (evento SSE "estado").
+ */
+@Getter
+@AllArgsConstructor
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public class EstadoSeguimiento {
+    @JsonSerialize(using = ToStringSerializer.class)
+    private final Long idPedido;
+    private final String tipo;
+    private final EstadoPedido estado;
+    private final Integer idRepartidor;
+    private final Date fecha;
+}
@@ -0,0 +1,21 @@
+package org.unsa.model.dtos;
+
+import com.fasterxml.jackson.databind.annotation.JsonSerialize;
+import com.fasterxml.jackson.databind.ser.std.ToStringSerializer;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import org.unsa.model.domain.restaurantes.Dinero;
+
+/**
+ * Linea de un {@link DetallePedido} con los datos del plato necesarios para mostrarla.
+ */
+@Getter
+@AllArgsConstructor
+public class LineaDetallePedido {
+    @JsonSerialize(using = ToStringSerializer.class)
+    private final Long idItem;
+    private final Integer idPlato;
+    private final String nombrePlato;
+    private final int cantidad;
+    private final Dinero subtotal;
+}
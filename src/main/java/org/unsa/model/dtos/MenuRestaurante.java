@@ -0,0 +1,21 @@
+package org.unsa.model.dtos;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import org.unsa.model.domain.restaurantes.Plato;
+
+import java.util.List;
+
+/**
+ * Menu de un restaurante tal como se guarda en la cache: los platos, su JSON ya serializado
+ * y el ETag derivado de la version del menu.
+ */
+@Getter
+@AllArgsConstructor
+public class MenuRestaurante {
+    private final Integer idRestaurante;
+    private final long version;
+    private final String etag;
+    private final List<Plato> platos;
+    private final byte[] json;
+}
@@ -0,0 +1,19 @@
+package org.unsa.model.dtos;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+import java.util.List;
+
+/**
+ * DTO con una pagina del historial de pedidos de un cliente, del mas reciente al mas antiguo.
+ * siguienteCursor se envia en la siguiente peticion para continuar; es nulo en la ultima pagina.
+ */
+@Getter
+@AllArgsConstructor
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public class PaginaPedidos {
+    private final List<ResumenPedido> pedidos;
+    private final String siguienteCursor;
+}
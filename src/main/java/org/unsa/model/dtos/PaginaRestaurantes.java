@@ -0,0 +1,19 @@
+package org.unsa.model.dtos;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+import java.util.List;
+
+/**
+ * DTO con una pagina de restaurantes abiertos, por ID ascendente.
+ * siguienteCursor se envia en la siguiente peticion para continuar; es nulo en la ultima pagina.
+ */
+@Getter
+@AllArgsConstructor
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public class PaginaRestaurantes {
+    private final List<ResumenRestaurante> restaurantes;
+    private final String siguienteCursor;
+}
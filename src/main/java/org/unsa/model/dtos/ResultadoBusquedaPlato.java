@@ -0,0 +1,18 @@
+package org.unsa.model.dtos;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+/**
+ * Resultado de la busqueda de platos: los datos que muestra la lista de resultados y el puntaje
+ * con el que se ordeno.
+ */
+@Getter
+@AllArgsConstructor
+public class ResultadoBusquedaPlato {
+    private final Integer idPlato;
+    private final Integer idRestaurante;
+    private final String nombre;
+    private final boolean disponible;
+    private final double puntaje;
+}
@@ -0,0 +1,39 @@
+package org.unsa.model.dtos;
+
+import com.fasterxml.jackson.databind.annotation.JsonSerialize;
+import com.fasterxml.jackson.databind.ser.std.ToStringSerializer;
+import com.fasterxml.jackson.annotation.JsonInclude;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+import java.util.List;
+
+/**
+ * DTO con el resultado de procesar una linea de una carga masiva de pedidos.
+ */
+@Getter
+@AllArgsConstructor
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public class ResultadoLineaPedido {
+    public static final String CREADO = "CREADO";
+    public static final String RECHAZADO = "RECHAZADO";
+    public static final String ERROR = "ERROR";
+
+    private final int linea;
+    private final String estado;
+    @JsonSerialize(using = ToStringSerializer.class)
+    private final Long idPedido;
+    private final List<String> errores;
+
+    public static ResultadoLineaPedido creado(int linea, Long idPedido) {
+        return new ResultadoLineaPedido(linea, CREADO, idPedido, null);
+    }
+
+    public static ResultadoLineaPedido rechazado(int linea, List<String> errores) {
+        return new ResultadoLineaPedido(linea, RECHAZADO, null, errores);
+    }
+
+    public static ResultadoLineaPedido error(int linea, String mensaje) {
+        return new ResultadoLineaPedido(linea, ERROR, null, List.of(mensaje));
+    }
+}
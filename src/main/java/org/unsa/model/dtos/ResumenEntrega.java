@@ -0,0 +1,25 @@
+package org.unsa.model.dtos;
+
+import com.fasterxml.jackson.databind.annotation.JsonSerialize;
+import com.fasterxml.jackson.databind.ser.std.ToStringSerializer;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import org.unsa.model.domain.pedidos.EstadoEntrega;
+
+import java.util.Date;
+
+/**
+ * DTO compacto de una entrega para la app del repartidor: solo columnas de la tabla entregas,
+ * sin cargar el pedido ni el repartidor.
+ */
+@Getter
+@AllArgsConstructor
+public class ResumenEntrega {
+    @JsonSerialize(using = ToStringSerializer.class)
+    private final Long idEntrega;
+    @JsonSerialize(using = ToStringSerializer.class)
+    private final Long idPedido;
+    private final EstadoEntrega estado;
+    private final Date fechaHoraAsignacion;
+    private final Date fechaHoraRecojo;
+}
@@ -0,0 +1,26 @@
+package org.unsa.model.dtos;
+
+import com.fasterxml.jackson.databind.annotation.JsonSerialize;
+import com.fasterxml.jackson.databind.ser.std.ToStringSerializer;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import org.unsa.model.domain.pedidos.EstadoPedido;
+import org.unsa.model.domain.restaurantes.Dinero;
+
+import java.util.Date;
+
+/**
+ * Modelo de lectura con el resumen de un pedido, para listados.
+ * Se llena directamente desde una consulta JPQL (expresion constructora), sin cargar entidades.
+ */
+@Getter
+@AllArgsConstructor
+public class ResumenPedido {
+    @JsonSerialize(using = ToStringSerializer.class)
+    private final Long idPedido;
+    private final Date fechaHoraCreacion;
+    private final EstadoPedido estado;
+    private final Integer idRestaurante;
+    private final String nombreRestaurante;
+    private final Dinero montoTotal;
+}
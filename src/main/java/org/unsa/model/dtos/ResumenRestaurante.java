@@ -0,0 +1,21 @@
+package org.unsa.model.dtos;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import org.unsa.model.domain.restaurantes.TipoCocina;
+
+/**
+ * Datos de un restaurante que muestran el buscador y la lista de abiertos: solo columnas de la tabla
+ * restaurantes, sin el horario, asi que puede guardarse en memoria y serializarse fuera de una transaccion.
+ */
+@Getter
+@AllArgsConstructor
+public class ResumenRestaurante {
+    private final Integer idRestaurante;
+    private final String nombre;
+    private final String direccion;
+    private final String telefono;
+    private final TipoCocina tipoCocina;
+    private final Double latitud;
+    private final Double longitud;
+}
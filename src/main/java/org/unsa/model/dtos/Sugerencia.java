@@ -0,0 +1,21 @@
+package org.unsa.model.dtos;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+/**
+ * Sugerencia del autocompletado. Los platos con el mismo nombre se agrupan en una sola sugerencia,
+ * asi que solo las de restaurante llevan ID.
+ */
+@Getter
+@AllArgsConstructor
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public class Sugerencia {
+    public enum Tipo { RESTAURANTE, PLATO, COCINA }
+
+    private final String texto;
+    private final Tipo tipo;
+    private final Integer idRestaurante;
+    private final long peso;
+}
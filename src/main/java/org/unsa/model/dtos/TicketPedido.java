@@ -0,0 +1,53 @@
+package org.unsa.model.dtos;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import com.fasterxml.jackson.databind.annotation.JsonSerialize;
+import com.fasterxml.jackson.databind.ser.std.ToStringSerializer;
+import lombok.Getter;
+
+import java.util.Date;
+
+/**
+ * DTO que representa el estado de un pedido recibido en modo asincrono.
+ * Se actualiza cuando el pedido se persiste o se rechaza; su estado tambien se guarda en la tabla
+ * solicitudes_pedido_async.
+ */
+@Getter
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public class TicketPedido {
+    public enum Estado { PENDIENTE, COMPLETADO, RECHAZADO }
+
+    private final String id;
+    private final Date fechaRecepcion;
+    private volatile Estado estado;
+    @JsonSerialize(using = ToStringSerializer.class)
+    private volatile Long idPedido;
+    private volatile String error;
+
+    public TicketPedido(String id) {
+        this.id = id;
+        this.fechaRecepcion = new Date();
+        this.estado = Estado.PENDIENTE;
+    }
+
+    /**
+     * Reconstruye un ticket a partir de su registro persistido.
+     */
+    public TicketPedido(String id, Date fechaRecepcion, Estado estado, Long idPedido, String error) {
+        this.id = id;
+        this.fechaRecepcion = fechaRecepcion;
+        this.estado = estado;
+        this.idPedido = idPedido;
+        this.error = error;
+    }
+
+    public void completar(Long idPedido) {
+        this.idPedido = idPedido;
+        this.estado = Estado.COMPLETADO;
+    }
+
+    public void rechazar(String error) {
+        this.error = error;
+        this.estado = Estado.RECHAZADO;
+    }
+}
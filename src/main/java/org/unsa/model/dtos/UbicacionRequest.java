@@ -0,0 +1,16 @@
+package org.unsa.model.dtos;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * DTO con una posicion geografica en grados decimales.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class UbicacionRequest {
+    private double latitud;
+    private double longitud;
+}
@@ -0,0 +1,10 @@
+package org.unsa.model.exceptions;
+
+/**
+ * Se lanza cuando una cola interna esta llena y la solicitud no puede aceptarse por ahora.
+ */
+public class CapacidadExcedidaException extends IllegalStateException {
+  public CapacidadExcedidaException(String msg) {
+    super(msg);
+  }
+}
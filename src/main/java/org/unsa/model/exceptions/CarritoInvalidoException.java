@@ -0,0 +1,20 @@
+package org.unsa.model.exceptions;
+
+import java.util.List;
+
+/**
+ * Se lanza cuando una o mas lineas del carrito no pueden convertirse en items del pedido.
+ * Acumula todos los errores encontrados para reportarlos en una sola respuesta.
+ */
+public class CarritoInvalidoException extends IllegalArgumentException {
+  private final List<String> errores;
+
+  public CarritoInvalidoException(List<String> errores) {
+    super("Carrito invalido: " + String.join("; ", errores));
+    this.errores = List.copyOf(errores);
+  }
+
+  public List<String> getErrores() {
+    return errores;
+  }
+}
@@ -0,0 +1,11 @@
+package org.unsa.model.exceptions;
+
+/**
+ * Se lanza cuando una clave de idempotencia ya usada llega con un cuerpo de peticion distinto al original.
+ * Reutilizar la clave para otro pedido es un error del cliente; no se devuelve el pedido anterior.
+ */
+public class ClaveIdempotenciaReutilizadaException extends IllegalArgumentException {
+  public ClaveIdempotenciaReutilizadaException(String msg) {
+    super(msg);
+  }
+}
@@ -1,9 +1,11 @@
 package org.unsa.model.exceptions;
 
+import com.fasterxml.jackson.annotation.JsonInclude;
 import lombok.Getter;
 import org.springframework.http.HttpStatus;
 
 import java.time.LocalDateTime;
+import java.util.List;
 
 @Getter
 public class ErrorResponse {
@@ -11,10 +13,20 @@ public class ErrorResponse {
     private final int status;
     private final String error;
     private final String message;
+    @JsonInclude(JsonInclude.Include.NON_NULL)
+    private final List<String> errores;
 
     public ErrorResponse(HttpStatus status, String message) {
+        this(status, message, null);
+    }
+
+    /**
+     * @param errores Detalle de cada error cuando la peticion tiene varios (por ejemplo, una linea por item del carrito).
+     */
+    public ErrorResponse(HttpStatus status, String message, List<String> errores) {
         this.status = status.value();
         this.error = status.getReasonPhrase();
         this.message = message;
+        this.errores = errores;
     }
 }
@@ -15,4 +15,14 @@ public class GlobalExceptionHandler {
         );
         return ResponseEntity.status(HttpStatus.NOT_FOUND).body(error);
     }
+
+    @ExceptionHandler(CarritoInvalidoException.class)
+    public ResponseEntity<ErrorResponse> manejarCarritoInvalido(CarritoInvalidoException ex) {
+        ErrorResponse error = new ErrorResponse(
+                HttpStatus.BAD_REQUEST,
+                "Carrito invalido",
+                ex.getErrores()
+        );
+        return ResponseEntity.status(HttpStatus.BAD_REQUEST).body(error);
+    }
 }
@@ -0,0 +1,11 @@
+package org.unsa.model.exceptions;
+
+/**
+ * Se lanza cuando una operacion con la misma clave de idempotencia aun se esta procesando
+ * en otra instancia de la aplicacion.
+ */
+public class OperacionEnCursoException extends IllegalStateException {
+  public OperacionEnCursoException(String msg) {
+    super(msg);
+  }
+}
@@ -0,0 +1,10 @@
+package org.unsa.model.exceptions;
+
+/**
+ * Se lanza cuando no hay ningun repartidor disponible dentro del radio de despacho.
+ */
+public class SinRepartidorDisponibleException extends IllegalStateException {
+  public SinRepartidorDisponibleException(String msg) {
+    super(msg);
+  }
+}
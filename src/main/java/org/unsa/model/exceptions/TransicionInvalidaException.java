@@ -0,0 +1,11 @@
+package org.unsa.model.exceptions;
+
+/**
+ * Se lanza cuando un pedido no puede pasar al estado solicitado, ya sea porque la transicion no esta
+ * permitida o porque otra operacion concurrente cambio el estado antes.
+ */
+public class TransicionInvalidaException extends IllegalStateException {
+  public TransicionInvalidaException(String msg) {
+    super(msg);
+  }
+}
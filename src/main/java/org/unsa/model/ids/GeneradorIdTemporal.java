@@ -0,0 +1,93 @@
+package org.unsa.model.ids;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.LongSupplier;
+
+/**
+ * Generador de IDs de 64 bits ordenados en el tiempo (estilo Snowflake).
+ * Estructura: 41 bits de milisegundos desde {@link #EPOCA}, 10 bits de nodo y 12 bits de secuencia.
+ * Genera los IDs en la JVM sin ir a la base de datos, de modo que Hibernate puede agrupar
+ * las inserciones en lotes, y al ser crecientes mantienen las inserciones al final del indice B-tree.
+ * Es seguro para hilos y no usa bloqueos: el ultimo valor emitido se avanza con compareAndSet.
+ */
+public final class GeneradorIdTemporal {
+
+    /** 2025-01-01T00:00:00Z en milisegundos. */
+    public static final long EPOCA = 1735689600000L;
+
+    static final int BITS_NODO = 10;
+    static final int BITS_SECUENCIA = 12;
+    public static final long MAX_NODO = (1L << BITS_NODO) - 1;
+
+    private static final long MASCARA_SECUENCIA = (1L << BITS_SECUENCIA) - 1;
+
+    private static volatile GeneradorIdTemporal compartido;
+
+    private final long nodo;
+    private final LongSupplier reloj;
+    // (milisegundos desde la epoca << BITS_SECUENCIA) | secuencia del ultimo ID emitido
+    private final AtomicLong ultimo = new AtomicLong();
+
+    public GeneradorIdTemporal(long nodo) {
+        this(nodo, System::currentTimeMillis);
+    }
+
+    GeneradorIdTemporal(long nodo, LongSupplier reloj) {
+        if (nodo < 0 || nodo > MAX_NODO) {
+            throw new IllegalArgumentException("El nodo debe estar entre 0 y " + MAX_NODO + ": " + nodo);
+        }
+        this.nodo = nodo;
+        this.reloj = reloj;
+    }
+
+    /**
+     * Devuelve el siguiente ID. Si el reloj retrocede o se agota la secuencia del milisegundo,
+     * se sigue avanzando sobre el ultimo valor emitido, por lo que los IDs nunca se repiten ni decrecen.
+     * @return Un ID positivo y unico para este nodo.
+     */
+    public long siguienteId() {
+        while (true) {
+            long actual = ultimo.get();
+            long ahora = (reloj.getAsLong() - EPOCA) << BITS_SECUENCIA;
+            long siguiente = ahora > actual ? ahora : actual + 1;
+            if (ultimo.compareAndSet(actual, siguiente)) {
+                long milisegundos = siguiente >>> BITS_SECUENCIA;
+                long secuencia = siguiente & MASCARA_SECUENCIA;
+                return (milisegundos << (BITS_NODO + BITS_SECUENCIA)) | (nodo << BITS_SECUENCIA) | secuencia;
+            }
+        }
+    }
+
+    public long getNodo() {
+        return nodo;
+    }
+
+    /**
+     * Extrae el instante (epoch en milisegundos) en que se genero un ID.
+     * @param id ID generado por esta clase.
+     * @return Milisegundos desde 1970-01-01T00:00:00Z.
+     */
+    public static long instanteDe(long id) {
+        return (id >>> (BITS_NODO + BITS_SECUENCIA)) + EPOCA;
+    }
+
+    /**
+     * Registra la instancia que usan las entidades anotadas con {@link IdTemporal}.
+     * @param generador Generador configurado para este nodo.
+     */
+    public static void configurar(GeneradorIdTemporal generador) {
+        compartido = generador;
+    }
+
+    /**
+     * @return La instancia compartida.
+     * @throws IllegalStateException Si aun no se configuro; usar un nodo por defecto podria repetir IDs entre instancias.
+     */
+    public static GeneradorIdTemporal compartido() {
+        GeneradorIdTemporal generador = compartido;
+        if (generador == null) {
+            throw new IllegalStateException("El generador de IDs temporales no esta configurado; defina app.ids.nodo");
+        }
+        return generador;
+    }
+}
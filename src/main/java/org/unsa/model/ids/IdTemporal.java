@@ -0,0 +1,19 @@
+package org.unsa.model.ids;
+
+import org.hibernate.annotations.IdGeneratorType;
+
+import java.lang.annotation.Retention;
+import java.lang.annotation.Target;
+
+import static java.lang.annotation.ElementType.FIELD;
+import static java.lang.annotation.RetentionPolicy.RUNTIME;
+
+/**
+ * Marca un campo {@code @Id} de tipo Long para que su valor lo asigne {@link GeneradorIdTemporal}
+ * antes de la insercion, en lugar de usar IDENTITY.
+ */
+@IdGeneratorType(IdTemporalHibernateGenerator.class)
+@Retention(RUNTIME)
+@Target(FIELD)
+public @interface IdTemporal {
+}
@@ -0,0 +1,26 @@
+package org.unsa.model.ids;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Configura el generador de IDs temporales con el nodo definido en {@code app.ids.nodo}.
+ * Cada instancia de la aplicacion que escriba en la misma base de datos debe tener un nodo distinto,
+ * por eso la propiedad no tiene valor por defecto: si falta, la aplicacion no arranca.
+ */
+@Configuration
+public class IdTemporalConfig {
+
+    private static final Logger logger = LoggerFactory.getLogger(IdTemporalConfig.class);
+
+    @Bean
+    public GeneradorIdTemporal generadorIdTemporal(@Value("${app.ids.nodo}") long nodo) {
+        GeneradorIdTemporal generador = new GeneradorIdTemporal(nodo);
+        GeneradorIdTemporal.configurar(generador);
+        logger.info("Generador de IDs temporales configurado para el nodo {}", nodo);
+        return generador;
+    }
+}
@@ -0,0 +1,25 @@
+package org.unsa.model.ids;
+
+import org.hibernate.engine.spi.SharedSessionContractImplementor;
+import org.hibernate.id.IdentifierGenerator;
+
+/**
+ * Adaptador de {@link GeneradorIdTemporal} para Hibernate.
+ * Respeta un ID ya asignado (por ejemplo, en cargas masivas que generan los IDs por su cuenta).
+ */
+public class IdTemporalHibernateGenerator implements IdentifierGenerator {
+
+    @Override
+    public Object generate(SharedSessionContractImplementor session, Object entidad) {
+        Object asignado = session.getEntityPersister(null, entidad).getIdentifier(entidad, session);
+        if (asignado != null) {
+            return asignado;
+        }
+        return GeneradorIdTemporal.compartido().siguienteId();
+    }
+
+    @Override
+    public boolean allowAssignedIdentifiers() {
+        return true;
+    }
+}
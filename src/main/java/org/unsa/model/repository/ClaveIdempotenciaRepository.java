@@ -0,0 +1,34 @@
+package org.unsa.model.repository;
+
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+import org.unsa.model.domain.pedidos.ClaveIdempotencia;
+
+import java.util.Date;
+
+@Repository
+public interface ClaveIdempotenciaRepository extends JpaRepository<ClaveIdempotencia, String> {
+
+    // Asocia la clave reservada con el pedido creado
+    @Modifying
+    @Query("update ClaveIdempotencia c set c.idPedido = :idPedido where c.clave = :clave")
+    int asignarPedido(@Param("clave") String clave, @Param("idPedido") Long idPedido);
+
+    // Libera una reserva que nunca llego a asociarse con un pedido (la instancia que la tomo fallo)
+    @Modifying
+    @Query("delete from ClaveIdempotencia c where c.clave = :clave and c.idPedido is null and c.fechaCreacion < :limite")
+    int liberarReservaVencida(@Param("clave") String clave, @Param("limite") Date limite);
+
+    // Libera todas las reservas sin pedido anteriores al limite
+    @Modifying
+    @Query("delete from ClaveIdempotencia c where c.idPedido is null and c.fechaCreacion < :limite")
+    int liberarReservasVencidas(@Param("limite") Date limite);
+
+    // Elimina las claves vencidas
+    @Modifying
+    @Query("delete from ClaveIdempotencia c where c.fechaCreacion < :limite")
+    int eliminarAnterioresA(@Param("limite") Date limite);
+}
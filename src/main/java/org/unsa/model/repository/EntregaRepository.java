@@ -1,18 +1,128 @@
 // file: src/main/java/org/unsa/softwareproject/repository/EntregaRepository.java
 package org.unsa.model.repository;
 
+import org.springframework.data.domain.Limit;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 import org.unsa.model.domain.pedidos.Entrega; // Asegúrate de que esta ruta sea correcta
+import org.unsa.model.domain.pedidos.EstadoEntrega;
+import org.unsa.model.dtos.ResumenEntrega;
 
+import java.util.Collection;
+import java.util.Date;
 import java.util.List;
+import java.util.Optional;
 
 @Repository
-public interface EntregaRepository extends JpaRepository<Entrega, Integer> {
-    // Puedes añadir métodos personalizados aquí, por ejemplo:
-    // List<Entrega> findByRepartidorId(Integer repartidorId);
-    // List<Entrega> findByEstado(EstadoEntrega estado);
-    // List<Entrega> findByPedidoId(Integer pedidoId); // Si ItemPedido tiene un campo 'pedidoId'
-    // O si Entrega tiene una relación @ManyToOne con Pedido llamada 'pedido':
-    // List<Entrega> findByPedido_Id(Integer pedidoId);
+public interface EntregaRepository extends JpaRepository<Entrega, Long> {
+    String RESUMEN = "select new org.unsa.model.dtos.ResumenEntrega(e.id, e.pedido.idPedido, e.estado, " +
+            "e.fechaHoraAsignacion, e.fechaHoraRecojo) from Entrega e ";
+
+    // Usa idx_entregas_repartidor_estado; las claves foraneas se leen sin unir pedidos ni usuarios
+    @Query(RESUMEN + "where e.repartidor.id = :idRepartidor and e.estado in :estados order by e.fechaHoraAsignacion")
+    List<ResumenEntrega> buscarPorRepartidorYEstados(@Param("idRepartidor") Integer idRepartidor,
+                                                     @Param("estados") Collection<EstadoEntrega> estados);
+
+    @Query(RESUMEN + "where e.pedido.idPedido = :idPedido order by e.id")
+    List<ResumenEntrega> buscarPorPedido(@Param("idPedido") Long idPedido);
+
+    // Solo confirma que la entrega existe y devuelve su repartidor (puede ser nulo)
+    @Query("select e.id as idEntrega, e.repartidor.id as idRepartidor from Entrega e where e.id = :idEntrega")
+    Optional<RepartidorDeEntrega> buscarRepartidor(@Param("idEntrega") Long idEntrega);
+
+    // Entrega mas reciente del pedido, para seguirla en vivo
+    @Query("select e.id from Entrega e where e.pedido.idPedido = :idPedido order by e.id desc limit 1")
+    Optional<Long> buscarIdPorPedido(@Param("idPedido") Long idPedido);
+
+    // Barrido de entregas estancadas: paginas por (fecha, id) desde el cursor, resueltas solo con el indice
+    @Query("select e.id as id, e.fechaHoraAsignacion as fecha from Entrega e " +
+            "where e.estado = :estado and e.fechaHoraAsignacion < :limite " +
+            "and (e.fechaHoraAsignacion > :fechaCursor or (e.fechaHoraAsignacion = :fechaCursor and e.id > :idCursor)) " +
+            "order by e.fechaHoraAsignacion, e.id")
+    List<ClaveBarrido> buscarAsignadasAntesDe(@Param("estado") EstadoEntrega estado, @Param("limite") Date limite,
+                                              @Param("fechaCursor") Date fechaCursor, @Param("idCursor") Long idCursor,
+                                              Limit limiteFilas);
+
+    @Query("select e.id as id, e.fechaHoraRecojo as fecha from Entrega e " +
+            "where e.estado = :estado and e.fechaHoraRecojo < :limite " +
+            "and (e.fechaHoraRecojo > :fechaCursor or (e.fechaHoraRecojo = :fechaCursor and e.id > :idCursor)) " +
+            "order by e.fechaHoraRecojo, e.id")
+    List<ClaveBarrido> buscarRecogidasAntesDe(@Param("estado") EstadoEntrega estado, @Param("limite") Date limite,
+                                              @Param("fechaCursor") Date fechaCursor, @Param("idCursor") Long idCursor,
+                                              Limit limiteFilas);
+
+    // Solo cambia las que siguen en el estado y vencidas: una entrega que avanzo mientras tanto no se toca.
+    // Sube la version, para que un guardado con una lectura anterior al barrido falle en vez de deshacerlo
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @Query("update Entrega e set e.estado = org.unsa.model.domain.pedidos.EstadoEntrega.INCIDENCIA, e.version = coalesce(e.version, 0) + 1 " +
+            "where e.id in :ids and e.estado = org.unsa.model.domain.pedidos.EstadoEntrega.ASIGNADO and e.fechaHoraAsignacion < :limite")
+    int escalarAsignadas(@Param("ids") Collection<Long> ids, @Param("limite") Date limite);
+
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @Query("update Entrega e set e.estado = org.unsa.model.domain.pedidos.EstadoEntrega.INCIDENCIA, e.version = coalesce(e.version, 0) + 1 " +
+            "where e.id in :ids and e.estado = org.unsa.model.domain.pedidos.EstadoEntrega.RECOGIDO and e.fechaHoraRecojo < :limite")
+    int escalarRecogidas(@Param("ids") Collection<Long> ids, @Param("limite") Date limite);
+
+    @Query("select e.id as idEntrega, e.pedido.idPedido as idPedido, e.repartidor.id as idRepartidor from Entrega e " +
+            "where e.id in :ids and e.estado = org.unsa.model.domain.pedidos.EstadoEntrega.INCIDENCIA")
+    List<EntregaEscalada> buscarEscaladas(@Param("ids") Collection<Long> ids);
+
+    // Avances de fase de las geocercas: solo si la entrega sigue en la fase de origen, y suben la version igual que un guardado
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @Query("update Entrega e set e.estado = org.unsa.model.domain.pedidos.EstadoEntrega.RECOGIDO, e.fechaHoraRecojo = :fecha, " +
+            "e.version = coalesce(e.version, 0) + 1 " +
+            "where e.id = :idEntrega and e.estado = org.unsa.model.domain.pedidos.EstadoEntrega.ASIGNADO")
+    int marcarRecogida(@Param("idEntrega") Long idEntrega, @Param("fecha") Date fecha);
+
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @Query("update Entrega e set e.estado = org.unsa.model.domain.pedidos.EstadoEntrega.PROPORCIONADO, e.fechaHoraEntrega = :fecha, " +
+            "e.version = coalesce(e.version, 0) + 1 " +
+            "where e.id = :idEntrega and e.estado = org.unsa.model.domain.pedidos.EstadoEntrega.RECOGIDO")
+    int marcarEntregada(@Param("idEntrega") Long idEntrega, @Param("fecha") Date fecha);
+
+    // Lo necesario para emitir el EntregaCambiada de una actualizacion condicional
+    @Query("select e.pedido.idPedido as idPedido, e.repartidor.id as idRepartidor, " +
+            "e.fechaHoraAsignacion as fechaHoraAsignacion, e.fechaHoraRecojo as fechaHoraRecojo from Entrega e where e.id = :idEntrega")
+    Optional<DatosCambio> buscarDatosCambio(@Param("idEntrega") Long idEntrega);
+
+    // Puntos de recojo y entrega de una entrega, para las geocercas
+    @Query("select e.id as idEntrega, e.estado as estado, r.latitud as latitudRestaurante, r.longitud as longitudRestaurante, " +
+            "p.info.direccionEntrega.latitud as latitudDestino, p.info.direccionEntrega.longitud as longitudDestino " +
+            "from Entrega e join e.pedido p join p.info.restaurante r where e.id = :idEntrega")
+    Optional<PuntosEntrega> buscarPuntos(@Param("idEntrega") Long idEntrega);
+
+    interface DatosCambio {
+        Long getIdPedido();
+        Integer getIdRepartidor();
+        Date getFechaHoraAsignacion();
+        Date getFechaHoraRecojo();
+    }
+
+    interface PuntosEntrega {
+        Long getIdEntrega();
+        EstadoEntrega getEstado();
+        Double getLatitudRestaurante();
+        Double getLongitudRestaurante();
+        Double getLatitudDestino();
+        Double getLongitudDestino();
+    }
+
+    interface ClaveBarrido {
+        Long getId();
+        Date getFecha();
+    }
+
+    interface EntregaEscalada {
+        Long getIdEntrega();
+        Long getIdPedido();
+        Integer getIdRepartidor();
+    }
+
+    interface RepartidorDeEntrega {
+        Long getIdEntrega();
+        Integer getIdRepartidor();
+    }
 }
\ No newline at end of file
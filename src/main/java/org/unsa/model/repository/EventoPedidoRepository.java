@@ -0,0 +1,35 @@
+package org.unsa.model.repository;
+
+import org.springframework.data.domain.Limit;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+import org.unsa.model.domain.pedidos.EventoPedido;
+
+import java.util.Collection;
+import java.util.Date;
+import java.util.List;
+
+@Repository
+public interface EventoPedidoRepository extends JpaRepository<EventoPedido, Long> {
+
+    // Siguiente lote de eventos pendientes (no estacionados) a partir del cursor, en orden de ID
+    @Query("select e from EventoPedido e where e.publicado = false and e.estacionado = false and e.id > :despuesDe order by e.id")
+    List<EventoPedido> buscarPendientes(@Param("despuesDe") Long despuesDe, Limit limite);
+
+    @Modifying
+    @Query("update EventoPedido e set e.publicado = true where e.id in :ids")
+    int marcarPublicados(@Param("ids") Collection<Long> ids);
+
+    // Registra un intento fallido; con estacionado = true el relevo deja de tomarlo
+    @Modifying
+    @Query("update EventoPedido e set e.intentos = :intentos, e.estacionado = :estacionado where e.id = :id")
+    int registrarFallo(@Param("id") Long id, @Param("intentos") int intentos, @Param("estacionado") boolean estacionado);
+
+    // Limpieza de eventos ya publicados
+    @Modifying
+    @Query("delete from EventoPedido e where e.publicado = true and e.fechaCreacion < :limite")
+    int eliminarPublicadosAnterioresA(@Param("limite") Date limite);
+}
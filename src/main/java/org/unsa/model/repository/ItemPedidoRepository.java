@@ -2,13 +2,16 @@
 package org.unsa.model.repository;
 
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 import org.unsa.model.domain.pedidos.ItemPedido; // <<--- ¡Asegúrate de que esta ruta sea correcta!
 
+import java.util.Date;
 import java.util.List;
 
 @Repository
-public interface ItemPedidoRepository extends JpaRepository<ItemPedido, Integer> {
+public interface ItemPedidoRepository extends JpaRepository<ItemPedido, Long> {
 
     // Puedes añadir métodos de búsqueda personalizados aquí.
     // Por ejemplo, para encontrar todos los ítems de un pedido específico:
@@ -18,4 +21,11 @@ public interface ItemPedidoRepository extends JpaRepository<ItemPedido, Integer>
     //
     // También podrías buscar ítems por el plato asociado:
     // List<ItemPedido> findByPlato_Id(Integer platoId); // Si ItemPedido tiene una relación @ManyToOne con Plato llamada 'plato'
-}
\ No newline at end of file
+
+    /**
+     * Unidades vendidas por plato en pedidos creados desde la fecha dada; es el peso de los platos en el autocompletado.
+     */
+    @Query("select i.plato.idPlato as id, sum(i.cantidad) as cantidad from ItemPedido i " +
+            "where i.pedido.fechaHoraCreacion >= :desde group by i.plato.idPlato")
+    List<PedidoRepository.Popularidad> sumarPorPlatoDesde(@Param("desde") Date desde);
+}
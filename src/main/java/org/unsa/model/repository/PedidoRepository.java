@@ -1,16 +1,230 @@
 // src/main/java/org/unsa/softwareproject/repository/PedidoRepository.java
 package org.unsa.model.repository;
 
+import jakarta.persistence.QueryHint;
+import org.springframework.data.domain.Limit;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 import org.unsa.model.domain.pedidos.Pedido;
 import org.unsa.model.domain.pedidos.EstadoPedido;
+import org.unsa.model.domain.usuarios.Repartidor;
+import org.unsa.model.dtos.DetallePedido;
+import org.unsa.model.dtos.LineaDetallePedido;
+import org.unsa.model.dtos.ResumenPedido;
+import java.util.Collection;
+import java.util.Date;
 import java.util.List;
+import java.util.Optional;
+import java.util.stream.Stream;
 
 
 @Repository
-public interface PedidoRepository extends JpaRepository<Pedido, Integer> {
+public interface PedidoRepository extends JpaRepository<Pedido, Long> {
+    /** Proyeccion comun de los listados de pedidos; las consultas le agregan su WHERE y ORDER BY. */
+    String RESUMEN = "select new org.unsa.model.dtos.ResumenPedido(p.idPedido, p.fechaHoraCreacion, p.estado, " +
+            "r.id, r.nombre, p.montoTotal) from Pedido p join p.info.restaurante r ";
+
     // Puedes añadir métodos personalizados aquí, por ejemplo:
-    List<Pedido> findByCliente_Id(Integer clienteId);
+
+    @Query("select p from Pedido p where p.info.cliente.id = :clienteId")
+    List<Pedido> findByCliente_Id(@Param("clienteId") Integer clienteId);
+
+    /**
+     * Cabecera del detalle de un pedido en una sola consulta; el repartidor es opcional.
+     */
+    @Query("select new org.unsa.model.dtos.DetallePedido(p.idPedido, p.fechaHoraCreacion, p.estado, " +
+            "c.id, c.nombre, r.id, r.nombre, rep.id, rep.nombre, " +
+            "p.info.direccionEntrega.calle, p.info.direccionEntrega.ciudad, p.info.direccionEntrega.distrito, " +
+            "p.info.direccionEntrega.referencia, p.info.instruccionesEspeciales, p.montoTotal) " +
+            "from Pedido p join p.info.cliente c join p.info.restaurante r left join p.repartidor rep " +
+            "where p.idPedido = :idPedido")
+    Optional<DetallePedido> buscarDetalle(@Param("idPedido") Long idPedido);
+
+    /**
+     * Lineas del detalle de un pedido con el nombre de cada plato.
+     */
+    @Query("select new org.unsa.model.dtos.LineaDetallePedido(i.id, pl.idPlato, pl.nombre, i.cantidad, " +
+            "i.subtotal) from ItemPedido i join i.plato pl " +
+            "where i.pedido.idPedido = :idPedido order by i.id")
+    List<LineaDetallePedido> buscarLineasDetalle(@Param("idPedido") Long idPedido);
+
+    /**
+     * Primera pagina del historial de un cliente, del mas reciente al mas antiguo.
+     */
+    @Query(RESUMEN + "where p.info.cliente.id = :idCliente " +
+            "order by p.fechaHoraCreacion desc, p.idPedido desc")
+    List<ResumenPedido> buscarHistorial(@Param("idCliente") Integer idCliente, Limit limite);
+
+    /**
+     * Pagina siguiente del historial: pedidos estrictamente anteriores a la posicion (fecha, id) dada.
+     */
+    @Query(RESUMEN + "where p.info.cliente.id = :idCliente " +
+            "and (p.fechaHoraCreacion < :fecha or (p.fechaHoraCreacion = :fecha and p.idPedido < :idPedido)) " +
+            "order by p.fechaHoraCreacion desc, p.idPedido desc")
+    List<ResumenPedido> buscarHistorialDespuesDe(@Param("idCliente") Integer idCliente,
+                                                 @Param("fecha") Date fecha,
+                                                 @Param("idPedido") Long idPedido,
+                                                 Limit limite);
+
+    /**
+     * Historial completo como cursor de base de datos; debe consumirse dentro de una transaccion y cerrarse.
+     */
+    @QueryHints(@QueryHint(name = org.hibernate.jpa.HibernateHints.HINT_FETCH_SIZE, value = "200"))
+    @Query(RESUMEN + "where p.info.cliente.id = :idCliente " +
+            "order by p.fechaHoraCreacion desc, p.idPedido desc")
+    Stream<ResumenPedido> transmitirHistorial(@Param("idCliente") Integer idCliente);
     List<Pedido> findByEstado(EstadoPedido estado);
+
+    /**
+     * Cambia el estado en una sola sentencia, solo si el estado actual es uno de los origenes permitidos.
+     * Incrementa la version para que las transacciones con el pedido cargado detecten el cambio.
+     * @return 1 si la transicion se aplico, 0 si el pedido no existe o su estado ya no lo permite.
+     */
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @Query("update Pedido p set p.estado = :destino, p.version = coalesce(p.version, 0) + 1 " +
+            "where p.idPedido = :idPedido and p.estado in :origenes")
+    int transicionar(@Param("idPedido") Long idPedido,
+                     @Param("destino") EstadoPedido destino,
+                     @Param("origenes") Collection<EstadoPedido> origenes);
+
+    /**
+     * Igual que {@link #transicionar}, pero ademas exige que el pedido pertenezca al cliente indicado.
+     */
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @Query("update Pedido p set p.estado = :destino, p.version = coalesce(p.version, 0) + 1 " +
+            "where p.idPedido = :idPedido and p.info.cliente.id = :idCliente and p.estado in :origenes")
+    int transicionarDeCliente(@Param("idPedido") Long idPedido,
+                              @Param("idCliente") Integer idCliente,
+                              @Param("destino") EstadoPedido destino,
+                              @Param("origenes") Collection<EstadoPedido> origenes);
+
+    /**
+     * Igual que {@link #transicionar}, pero solo si el pedido tiene repartidor: es la guarda de EN_CAMINO,
+     * comprobada en la misma sentencia para avanzar el pedido junto con su entrega sin cargarlo.
+     */
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @Query("update Pedido p set p.estado = :destino, p.version = coalesce(p.version, 0) + 1 " +
+            "where p.idPedido = :idPedido and p.repartidor is not null and p.estado in :origenes")
+    int transicionarConRepartidor(@Param("idPedido") Long idPedido,
+                                  @Param("destino") EstadoPedido destino,
+                                  @Param("origenes") Collection<EstadoPedido> origenes);
+
+    /**
+     * Asigna el repartidor en una sola sentencia, solo si el pedido aun no tiene uno y su estado lo admite.
+     * Dos asignaciones concurrentes del mismo pedido no pueden confirmarse ambas: la segunda no afecta filas.
+     * @return 1 si se asigno, 0 si el pedido no existe, ya tiene repartidor o su estado no lo admite.
+     */
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @Query("update Pedido p set p.repartidor = :repartidor, p.version = coalesce(p.version, 0) + 1 " +
+            "where p.idPedido = :idPedido and p.repartidor is null and p.estado in :estados")
+    int asignarRepartidor(@Param("idPedido") Long idPedido,
+                          @Param("repartidor") Repartidor repartidor,
+                          @Param("estados") Collection<EstadoPedido> estados);
+
+    /**
+     * Quita el repartidor del pedido solo si sigue siendo el indicado y el estado admite asignar otro;
+     * una reasignacion hecha mientras tanto no se deshace.
+     * @return 1 si se quito, 0 si el pedido ya no tiene ese repartidor o su estado no lo admite.
+     */
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @Query("update Pedido p set p.repartidor = null, p.version = coalesce(p.version, 0) + 1 " +
+            "where p.idPedido = :idPedido and p.repartidor.id = :idRepartidor and p.estado in :estados")
+    int quitarRepartidor(@Param("idPedido") Long idPedido,
+                         @Param("idRepartidor") Integer idRepartidor,
+                         @Param("estados") Collection<EstadoPedido> estados);
+
+    /**
+     * Lee solo el estado y el cliente de un pedido, para explicar por que una transicion condicional no se aplico.
+     */
+    @Query("select p.estado as estado, p.info.cliente.id as idCliente from Pedido p where p.idPedido = :idPedido")
+    Optional<EstadoActual> buscarEstadoActual(@Param("idPedido") Long idPedido);
+
+    /**
+     * Coordenadas del restaurante de un pedido, para buscar repartidores cercanos.
+     */
+    @Query("select r.latitud as latitud, r.longitud as longitud from Pedido p join p.info.restaurante r where p.idPedido = :idPedido")
+    Optional<UbicacionRestaurante> buscarUbicacionRestaurante(@Param("idPedido") Long idPedido);
+
+    /**
+     * Pedidos sin repartidor en los estados indicados cuyo restaurante tiene ubicacion, los mas antiguos primero.
+     */
+    @Query("select p.idPedido as idPedido, r.latitud as latitud, r.longitud as longitud " +
+            "from Pedido p join p.info.restaurante r " +
+            "where p.repartidor is null and p.estado in :estados and r.latitud is not null and r.longitud is not null " +
+            "order by p.fechaHoraCreacion")
+    List<PedidoPorAsignar> buscarPorAsignar(@Param("estados") Collection<EstadoPedido> estados, Limit limite);
+
+    /**
+     * Pedidos con repartidor que siguen en curso, para reconstruir la carga de cada repartidor.
+     * Los pedidos de un mismo viaje traen su ID de viaje: juntos ocupan una sola unidad de carga.
+     */
+    @Query("select p.idPedido as idPedido, p.repartidor.id as idRepartidor, " +
+            "(select max(e.viaje.id) from Entrega e where e.pedido = p) as idViaje from Pedido p " +
+            "where p.repartidor is not null and p.estado in :estados")
+    List<AsignacionActiva> buscarAsignacionesActivas(@Param("estados") Collection<EstadoPedido> estados);
+
+    /**
+     * Pedidos por restaurante creados desde la fecha dada; es el peso de los restaurantes en el autocompletado.
+     */
+    @Query("select p.info.restaurante.id as id, count(p) as cantidad from Pedido p " +
+            "where p.fechaHoraCreacion >= :desde group by p.info.restaurante.id")
+    List<Popularidad> contarPorRestauranteDesde(@Param("desde") Date desde);
+
+    interface Popularidad {
+        Integer getId();
+        Long getCantidad();
+    }
+
+    interface AsignacionActiva {
+        Long getIdPedido();
+        Integer getIdRepartidor();
+        Long getIdViaje();
+    }
+
+    String PARA_VIAJE = "select p.idPedido as idPedido, r.id as idRestaurante, " +
+            "r.latitud as latitudRestaurante, r.longitud as longitudRestaurante, " +
+            "p.info.direccionEntrega.latitud as latitudEntrega, p.info.direccionEntrega.longitud as longitudEntrega " +
+            "from Pedido p join p.info.restaurante r ";
+
+    /**
+     * Datos para agrupar en viajes los pedidos indicados, si siguen sin repartidor.
+     */
+    @Query(PARA_VIAJE + "where p.idPedido in :ids and p.repartidor is null")
+    List<PedidoParaViaje> buscarParaViaje(@Param("ids") Collection<Long> ids);
+
+    /**
+     * Pedidos en el estado indicado, sin repartidor y sin entrega; se usa al arrancar para retomar los pendientes.
+     */
+    @Query(PARA_VIAJE + "where p.estado = :estado and p.repartidor is null " +
+            "and not exists (select 1 from Entrega e where e.pedido = p) order by p.fechaHoraCreacion")
+    List<PedidoParaViaje> buscarSinEntrega(@Param("estado") EstadoPedido estado, Limit limite);
+
+    interface PedidoParaViaje {
+        Long getIdPedido();
+        Integer getIdRestaurante();
+        Double getLatitudRestaurante();
+        Double getLongitudRestaurante();
+        Double getLatitudEntrega();
+        Double getLongitudEntrega();
+    }
+
+    interface PedidoPorAsignar {
+        Long getIdPedido();
+        Double getLatitud();
+        Double getLongitud();
+    }
+
+    interface UbicacionRestaurante {
+        Double getLatitud();
+        Double getLongitud();
+    }
+
+    interface EstadoActual {
+        EstadoPedido getEstado();
+        Integer getIdCliente();
+    }
 }
\ No newline at end of file
@@ -1,10 +1,16 @@
 package org.unsa.model.repository;
 
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 import org.unsa.model.domain.restaurantes.Plato;
 
+import jakarta.persistence.QueryHint;
+import java.util.Collection;
 import java.util.List;
+import java.util.stream.Stream;
 
 @Repository
 public interface PlatoRepository extends JpaRepository<Plato, Integer> {
@@ -15,6 +21,24 @@ public interface PlatoRepository extends JpaRepository<Plato, Integer> {
     // Lista todos los platos disponibles (disponible = true)
     List<Plato> findByDisponibleTrue();
 
-    // Búsqueda de platos por nombre (parcial e insensible a mayúsculas)
-    List<Plato> findByNombreContainingIgnoreCase(String nombre);
+    // Carga en una sola consulta todos los platos de un carrito junto con su restaurante
+    @Query("select p from Plato p join fetch p.restaurante where p.idPlato in :ids")
+    List<Plato> findAllConRestauranteByIdPlatoIn(@Param("ids") Collection<Integer> ids);
+
+    /**
+     * Todos los platos con solo las columnas que usa el indice de busqueda, como cursor de base de datos;
+     * debe consumirse dentro de una transaccion y cerrarse.
+     */
+    @QueryHints(@QueryHint(name = org.hibernate.jpa.HibernateHints.HINT_FETCH_SIZE, value = "1000"))
+    @Query("select p.idPlato as idPlato, p.restaurante.id as idRestaurante, p.nombre as nombre, " +
+            "p.descripcion as descripcion, p.disponible as disponible from Plato p")
+    Stream<PlatoIndexable> transmitirParaIndice();
+
+    interface PlatoIndexable {
+        Integer getIdPlato();
+        Integer getIdRestaurante();
+        String getNombre();
+        String getDescripcion();
+        Boolean getDisponible();
+    }
 }
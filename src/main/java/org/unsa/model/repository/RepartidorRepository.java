@@ -2,8 +2,11 @@
 package org.unsa.model.repository;
 
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 import org.unsa.model.domain.usuarios.Repartidor;
+import java.util.List;
 import java.util.Optional;
 @Repository
 public interface RepartidorRepository extends JpaRepository<Repartidor, Integer> {
@@ -11,4 +14,13 @@ public interface RepartidorRepository extends JpaRepository<Repartidor, Integer>
     // List<Repartidor> findByTipoVehiculo(String tipoVehiculo);
     // List<Repartidor> findByDisponibleParaEntregasTrue();
     Optional<Repartidor> findById(Integer id);
+
+    // Para reconstruir el registro de disponibilidad al arrancar
+    @Query("select r.id as id, r.disponibleParaEntregas as disponibleParaEntregas from Repartidor r")
+    List<Disponibilidad> buscarDisponibilidades();
+
+    interface Disponibilidad {
+        Integer getId();
+        boolean getDisponibleParaEntregas();
+    }
 }
\ No newline at end of file
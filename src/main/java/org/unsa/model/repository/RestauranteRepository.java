@@ -1,10 +1,16 @@
 package org.unsa.model.repository;
 
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 import org.unsa.model.domain.restaurantes.Restaurante;
 import org.unsa.model.domain.restaurantes.TipoCocina;
+import org.unsa.model.dtos.ResumenRestaurante;
 
+import java.time.DayOfWeek;
+import java.time.LocalTime;
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 
@@ -16,4 +22,47 @@ public interface RestauranteRepository extends JpaRepository<Restaurante, Intege
 
     // Buscar restaurante por nombre exacto
     Optional<Restaurante> findByNombre(String nombre);
+
+    // Solo lo que necesita el autocompletado, sin cargar entidades
+    @Query("select r.id as id, r.nombre as nombre, r.tipoCocina as tipoCocina from Restaurante r")
+    List<NombreRestaurante> buscarNombres();
+
+    interface NombreRestaurante {
+        Integer getId();
+        String getNombre();
+        TipoCocina getTipoCocina();
+    }
+
+    String RESUMEN = "select new org.unsa.model.dtos.ResumenRestaurante(r.id, r.nombre, r.direccion, r.telefono, " +
+            "r.tipoCocina, r.latitud, r.longitud) from Restaurante r ";
+
+    // Los resumenes que guarda el indice de busqueda, para construirlo al arrancar sin cargar entidades
+    @Query(RESUMEN)
+    List<ResumenRestaurante> buscarResumenes();
+
+    // El resumen de un restaurante; vacio si ya no existe
+    @Query(RESUMEN + "where r.id = :idRestaurante")
+    Optional<ResumenRestaurante> buscarResumen(@Param("idRestaurante") Integer idRestaurante);
+
+    // Los resumenes de una pagina de IDs (acotada por quien llama), por ID ascendente
+    @Query(RESUMEN + "where r.id in :ids order by r.id")
+    List<ResumenRestaurante> buscarResumenes(@Param("ids") Collection<Integer> ids);
+
+    String HORARIOS = "select r.id as idRestaurante, h.diaSemana as diaSemana, h.horaApertura as horaApertura, " +
+            "h.horaCierre as horaCierre from Restaurante r join r.horarios h ";
+
+    // Todos los rangos de atencion, para construir el indice de restaurantes abiertos al arrancar
+    @Query(HORARIOS)
+    List<HorarioDeRestaurante> buscarTodosLosHorarios();
+
+    // Rangos de atencion de un restaurante; vacio si no tiene horario o ya no existe
+    @Query(HORARIOS + "where r.id = :idRestaurante")
+    List<HorarioDeRestaurante> buscarHorarios(@Param("idRestaurante") Integer idRestaurante);
+
+    interface HorarioDeRestaurante {
+        Integer getIdRestaurante();
+        DayOfWeek getDiaSemana();
+        LocalTime getHoraApertura();
+        LocalTime getHoraCierre();
+    }
 }
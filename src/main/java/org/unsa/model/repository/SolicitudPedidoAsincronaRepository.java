@@ -0,0 +1,41 @@
+package org.unsa.model.repository;
+
+import org.springframework.data.domain.Limit;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+import org.unsa.model.domain.pedidos.SolicitudPedidoAsincrona;
+
+import java.util.Date;
+import java.util.List;
+
+@Repository
+public interface SolicitudPedidoAsincronaRepository extends JpaRepository<SolicitudPedidoAsincrona, String> {
+
+    // Completa la solicitud solo si sigue pendiente; 0 filas significa que otro trabajador ya la resolvio
+    @Modifying
+    @Query("update SolicitudPedidoAsincrona s set s.estado = org.unsa.model.dtos.TicketPedido.Estado.COMPLETADO, "
+            + "s.idPedido = :idPedido, s.fechaResolucion = :ahora "
+            + "where s.id = :id and s.estado = org.unsa.model.dtos.TicketPedido.Estado.PENDIENTE")
+    int completar(@Param("id") String id, @Param("idPedido") Long idPedido, @Param("ahora") Date ahora);
+
+    @Modifying
+    @Query("update SolicitudPedidoAsincrona s set s.estado = org.unsa.model.dtos.TicketPedido.Estado.RECHAZADO, "
+            + "s.error = :error, s.fechaResolucion = :ahora "
+            + "where s.id = :id and s.estado = org.unsa.model.dtos.TicketPedido.Estado.PENDIENTE")
+    int rechazar(@Param("id") String id, @Param("error") String error, @Param("ahora") Date ahora);
+
+    // Pendientes recibidas antes del limite, las mas antiguas primero
+    @Query("select s from SolicitudPedidoAsincrona s "
+            + "where s.estado = org.unsa.model.dtos.TicketPedido.Estado.PENDIENTE and s.fechaRecepcion < :limite "
+            + "order by s.fechaRecepcion")
+    List<SolicitudPedidoAsincrona> buscarPendientesAnterioresA(@Param("limite") Date limite, Limit cantidad);
+
+    // Limpieza de solicitudes ya resueltas
+    @Modifying
+    @Query("delete from SolicitudPedidoAsincrona s "
+            + "where s.estado <> org.unsa.model.dtos.TicketPedido.Estado.PENDIENTE and s.fechaRecepcion < :limite")
+    int eliminarResueltasAnterioresA(@Param("limite") Date limite);
+}
@@ -0,0 +1,9 @@
+package org.unsa.model.repository;
+
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.stereotype.Repository;
+import org.unsa.model.domain.pedidos.Viaje;
+
+@Repository
+public interface ViajeRepository extends JpaRepository<Viaje, Long> {
+}
@@ -0,0 +1,12 @@
+package org.unsa.model.service.Interfaces;
+
+import java.util.Map;
+
+/**
+ * Interfaz para los componentes que exponen metricas operativas.
+ * Todas las implementaciones se publican en GET /api/metricas.
+ */
+public interface IFuenteMetricas {
+    String getNombreMetricas();
+    Map<String, Number> getMetricas();
+}
@@ -15,10 +15,12 @@ import java.util.List;
  */
 public interface IPedidoServicio {
     Pedido crearPedido(PedidoData info);
-    Pedido obtenerPedidoPorId(Integer idPedido);
+    Pedido obtenerPedidoPorId(Long idPedido);
     List<Pedido> obtenerPedidosPorCliente(Integer idCliente);
-    void actualizarEstadoPedido(Integer idPedido, EstadoPedido nuevoEstado);
-    void asignarRepartidorAPedido(Integer idPedido, Integer idRepartidor);
-    void cancelarPedido(Integer idPedido, Integer idUsuario);
-    void confirmarEntrega(Integer idPedido);
+    List<Pedido> obtenerPedidosPorIds(List<Long> idsPedidos);
+    void actualizarEstadoPedido(Long idPedido, EstadoPedido nuevoEstado);
+    void asignarRepartidorAPedido(Long idPedido, Integer idRepartidor);
+    boolean quitarRepartidorDePedido(Long idPedido, Integer idRepartidor);
+    void cancelarPedido(Long idPedido, Integer idUsuario);
+    void confirmarEntrega(Long idPedido);
 }
@@ -3,6 +3,8 @@ package org.unsa.service.interfaces;
 
 import org.unsa.model.domain.restaurantes.Plato;
 import org.unsa.model.domain.restaurantes.Dinero; // Necesario para crear/actualizar Plato
+import org.unsa.model.dtos.MenuRestaurante;
+import org.unsa.model.dtos.ResultadoBusquedaPlato;
 
 import java.util.List;
 
@@ -13,6 +15,8 @@ import java.util.List;
 public interface IPlatilloServicio {
     Plato crearPlatillo(Integer idRestaurante, String nombre, String descripcion,Dinero precio);
     List<Plato> listarPlatillosPorRestaurante(Integer idRestaurante);
+    MenuRestaurante obtenerMenu(Integer idRestaurante); // Menu cacheado, ya serializado y con ETag
+    List<ResultadoBusquedaPlato> buscarPlatillos(String consulta, int limite); // Indice invertido, sin LIKE sobre la tabla
     Plato verDetallePlatillo(Integer idPlatillo);
     Plato actualizarPlatillo(Integer idPlatillo, String nombre, String descripcion, Dinero precio, boolean disponible);
     void eliminarPlatillo(Integer idPlatillo);
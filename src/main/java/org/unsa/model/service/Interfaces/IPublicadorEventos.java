@@ -0,0 +1,14 @@
+package org.unsa.model.service.Interfaces;
+
+import org.unsa.model.domain.pedidos.EventoPedido;
+
+import java.util.List;
+
+/**
+ * Destino al que el relevo del outbox entrega los eventos de pedidos.
+ * Recibe los eventos en orden de ID; si lanza una excepcion el relevo vuelve a entregar el lote evento por evento
+ * para aislar al que falla, por lo que las implementaciones deben tolerar duplicados (entrega al menos una vez).
+ */
+public interface IPublicadorEventos {
+    void publicar(List<EventoPedido> eventos) throws Exception;
+}
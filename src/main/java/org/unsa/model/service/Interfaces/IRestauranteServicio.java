@@ -4,6 +4,8 @@ package org.unsa.service.interfaces;
 import org.unsa.model.domain.restaurantes.Restaurante;
 import org.unsa.model.domain.restaurantes.TipoCocina;
 import org.unsa.model.domain.restaurantes.HorarioAtencion; // Para actualizar horarios
+import org.unsa.model.dtos.PaginaRestaurantes;
+import org.unsa.model.dtos.ResumenRestaurante;
 
 import java.util.List;
 
@@ -13,10 +15,11 @@ import java.util.List;
  */
 public interface IRestauranteServicio {
     Restaurante registrarRestaurante(String nombre, String direccion, String telefono, TipoCocina tipoCocina);
-    List<Restaurante> buscarRestaurantes(String query);
+    List<ResumenRestaurante> buscarRestaurantes(String query, int limite); // Desde el indice de texto, sin consultar la base de datos
     List<Restaurante> obtenerTodosRestaurantes();
     Restaurante verDetalleRestaurante(String idRestaurante);
     Restaurante actualizarRestaurante(String idRestaurante, String nombre, String direccion, String telefono, TipoCocina tipoCocina);
     void eliminarRestaurante(String idRestaurante);
     void actualizarHorarioRestaurante(String idRestaurante, HorarioAtencion horario);
+    PaginaRestaurantes obtenerRestaurantesAbiertos(String cursor, int tamano); // Desde el indice de horarios, sin evaluar horario por horario
 }
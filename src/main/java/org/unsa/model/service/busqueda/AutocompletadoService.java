@@ -0,0 +1,340 @@
+package org.unsa.model.service.busqueda;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.unsa.model.domain.restaurantes.TipoCocina;
+import org.unsa.model.dtos.Sugerencia;
+import org.unsa.model.repository.ItemPedidoRepository;
+import org.unsa.model.repository.PedidoRepository;
+import org.unsa.model.repository.PlatoRepository;
+import org.unsa.model.repository.RestauranteRepository;
+import org.unsa.model.service.Interfaces.IFuenteMetricas;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.stream.Stream;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Autocompletado del buscador sobre nombres de restaurantes, nombres de platos y tipos de cocina.
+ * Cada sugerencia tiene un peso de popularidad (pedidos recientes del restaurante, unidades vendidas del plato)
+ * y las sugerencias se numeran de mayor a menor peso, asi que las K mejores de un prefijo son los K indices
+ * mas bajos de su rango. Las claves son los nombres normalizados a partir de cada palabra ("pollo a la brasa",
+ * "brasa"), en un arreglo ordenado donde un prefijo es un rango contiguo; los rangos de prefijos cortos,
+ * que son los mas grandes, se precalculan.
+ * La estructura es inmutable: se reconstruye en segundo plano y se reemplaza con una sola escritura volatil,
+ * de modo que las consultas nunca esperan a la reconstruccion.
+ */
+@Service
+public class AutocompletadoService implements IFuenteMetricas {
+
+    private static final Logger logger = LoggerFactory.getLogger(AutocompletadoService.class);
+
+    private final RestauranteRepository restauranteRepository;
+    private final PlatoRepository platoRepository;
+    private final PedidoRepository pedidoRepository;
+    private final ItemPedidoRepository itemPedidoRepository;
+    private final TransactionTemplate transaccionLectura;
+    private final ReentrantLock enCurso = new ReentrantLock();
+
+    private volatile Instantanea actual = Instantanea.VACIA;
+
+    private final AtomicLong consultas = new AtomicLong();
+    private final AtomicLong reconstrucciones = new AtomicLong();
+    private final AtomicLong ultimaReconstruccionMs = new AtomicLong();
+    private final AtomicLong ultimaLatenciaMicros = new AtomicLong();
+    private final AtomicLong maxLatenciaMicros = new AtomicLong();
+
+    @Value("${app.autocompletar.max-sugerencias:10}")
+    private int maxSugerencias;
+
+    @Value("${app.autocompletar.prefijos-precalculados:3}")
+    private int prefijosPrecalculados;
+
+    @Value("${app.autocompletar.ventana-dias:30}")
+    private int ventanaDias;
+
+    public AutocompletadoService(RestauranteRepository restauranteRepository,
+                                 PlatoRepository platoRepository,
+                                 PedidoRepository pedidoRepository,
+                                 ItemPedidoRepository itemPedidoRepository,
+                                 PlatformTransactionManager transactionManager) {
+        this.restauranteRepository = restauranteRepository;
+        this.platoRepository = platoRepository;
+        this.pedidoRepository = pedidoRepository;
+        this.itemPedidoRepository = itemPedidoRepository;
+        this.transaccionLectura = new TransactionTemplate(transactionManager);
+        this.transaccionLectura.setReadOnly(true);
+    }
+
+    /**
+     * @param texto Lo que el cliente lleva escrito.
+     * @param limite Cantidad maxima de sugerencias (acotada por app.autocompletar.max-sugerencias).
+     * @return Las sugerencias cuyo nombre, o alguna de sus palabras, empieza con el texto, de mayor a menor peso.
+     */
+    public List<Sugerencia> sugerir(String texto, int limite) {
+        long inicio = System.nanoTime();
+        Instantanea instantanea = actual;
+        String prefijo = NormalizadorTexto.normalizar(texto);
+        int k = Math.max(1, Math.min(limite, maxSugerencias));
+
+        List<Sugerencia> resultado;
+        if (prefijo.isEmpty()) {
+            resultado = List.of();
+        } else {
+            int[] indices = instantanea.precalculados().get(prefijo);
+            if (indices == null && prefijo.length() > instantanea.largoPrecalculado()) {
+                indices = instantanea.mejoresDelRango(prefijo, k);
+            }
+            resultado = new ArrayList<>();
+            for (int i = 0; indices != null && i < indices.length && i < k; i++) {
+                resultado.add(instantanea.sugerencias()[indices[i]]);
+            }
+        }
+
+        consultas.incrementAndGet();
+        long micros = TimeUnit.NANOSECONDS.toMicros(System.nanoTime() - inicio);
+        ultimaLatenciaMicros.set(micros);
+        maxLatenciaMicros.accumulateAndGet(micros, Math::max);
+        return resultado;
+    }
+
+    /**
+     * Reconstruye la estructura desde la base de datos y la publica. La primera ejecucion ocurre al arrancar;
+     * hasta entonces no hay sugerencias.
+     */
+    @Scheduled(fixedDelayString = "${app.autocompletar.intervalo-ms:300000}")
+    public void reconstruir() {
+        if (!enCurso.tryLock()) {
+            return;
+        }
+        try {
+            long inicio = System.nanoTime();
+            Instantanea nueva = transaccionLectura.execute(estado -> construir());
+            actual = nueva;
+            long ms = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - inicio);
+            reconstrucciones.incrementAndGet();
+            ultimaReconstruccionMs.set(ms);
+            logger.info("Autocompletado reconstruido: {} sugerencias, {} claves en {} ms",
+                    nueva.sugerencias().length, nueva.claves().length, ms);
+        } catch (RuntimeException e) {
+            logger.error("Fallo la reconstruccion del autocompletado; se mantiene la anterior: {}", e.getMessage(), e);
+        } finally {
+            enCurso.unlock();
+        }
+    }
+
+    private Instantanea construir() {
+        Date desde = new Date(System.currentTimeMillis() - TimeUnit.DAYS.toMillis(ventanaDias));
+        Map<Integer, Long> pedidosPorRestaurante = aMapa(pedidoRepository.contarPorRestauranteDesde(desde));
+        Map<Integer, Long> vendidosPorPlato = aMapa(itemPedidoRepository.sumarPorPlatoDesde(desde));
+
+        // Una sugerencia por tipo y nombre normalizado; los pesos de nombres repetidos se suman
+        Map<String, Acumulado> acumulados = new HashMap<>();
+        Map<TipoCocina, Long> pesoPorCocina = new HashMap<>();
+        for (RestauranteRepository.NombreRestaurante r : restauranteRepository.buscarNombres()) {
+            long peso = 1 + pedidosPorRestaurante.getOrDefault(r.getId(), 0L);
+            acumular(acumulados, Sugerencia.Tipo.RESTAURANTE, r.getNombre(), r.getId(), peso);
+            if (r.getTipoCocina() != null) {
+                pesoPorCocina.merge(r.getTipoCocina(), peso, Long::sum);
+            }
+        }
+        for (TipoCocina cocina : TipoCocina.values()) {
+            String nombre = cocina.name().charAt(0) + cocina.name().substring(1).toLowerCase();
+            acumular(acumulados, Sugerencia.Tipo.COCINA, nombre, null, 1 + pesoPorCocina.getOrDefault(cocina, 0L));
+        }
+        try (Stream<PlatoRepository.PlatoIndexable> platos = platoRepository.transmitirParaIndice()) {
+            platos.filter(p -> Boolean.TRUE.equals(p.getDisponible()))
+                    .forEach(p -> acumular(acumulados, Sugerencia.Tipo.PLATO, p.getNombre(), null,
+                            1 + vendidosPorPlato.getOrDefault(p.getIdPlato(), 0L)));
+        }
+        return Instantanea.de(new ArrayList<>(acumulados.values()), prefijosPrecalculados, maxSugerencias);
+    }
+
+    private static void acumular(Map<String, Acumulado> acumulados, Sugerencia.Tipo tipo, String texto,
+                                 Integer idRestaurante, long peso) {
+        String normalizado = NormalizadorTexto.normalizar(texto);
+        if (normalizado.isEmpty()) {
+            return;
+        }
+        Acumulado a = acumulados.computeIfAbsent(tipo + ":" + normalizado, c -> new Acumulado(tipo, normalizado));
+        a.peso += peso;
+        // Entre restaurantes homonimos, la sugerencia lleva al mas pedido y se muestra con su nombre
+        if (peso > a.pesoMejor) {
+            a.pesoMejor = peso;
+            a.texto = texto;
+            a.idRestaurante = idRestaurante;
+        }
+    }
+
+    private static Map<Integer, Long> aMapa(List<PedidoRepository.Popularidad> filas) {
+        Map<Integer, Long> mapa = new HashMap<>(filas.size() * 2);
+        for (PedidoRepository.Popularidad fila : filas) {
+            mapa.put(fila.getId(), fila.getCantidad());
+        }
+        return mapa;
+    }
+
+    @Override
+    public String getNombreMetricas() {
+        return "autocompletar";
+    }
+
+    @Override
+    public Map<String, Number> getMetricas() {
+        Instantanea instantanea = actual;
+        Map<String, Number> metricas = new LinkedHashMap<>();
+        metricas.put("sugerencias", instantanea.sugerencias().length);
+        metricas.put("claves", instantanea.claves().length);
+        metricas.put("prefijosPrecalculados", instantanea.precalculados().size());
+        metricas.put("reconstrucciones", reconstrucciones.get());
+        metricas.put("ultimaReconstruccionMs", ultimaReconstruccionMs.get());
+        metricas.put("consultas", consultas.get());
+        metricas.put("ultimaLatenciaMicros", ultimaLatenciaMicros.get());
+        metricas.put("maxLatenciaMicros", maxLatenciaMicros.get());
+        return metricas;
+    }
+
+    private static final class Acumulado {
+        private final Sugerencia.Tipo tipo;
+        private final String normalizado;
+        private String texto;
+        private Integer idRestaurante;
+        private long peso;
+        private long pesoMejor;
+
+        private Acumulado(Sugerencia.Tipo tipo, String normalizado) {
+            this.tipo = tipo;
+            this.normalizado = normalizado;
+        }
+    }
+
+    /**
+     * Estructura inmutable de una reconstruccion.
+     * @param sugerencias Ordenadas de mayor a menor peso.
+     * @param claves Nombres normalizados desde cada palabra, ordenados.
+     * @param indiceDeClave Para cada clave, el indice de su sugerencia.
+     * @param precalculados Para cada prefijo de hasta largoPrecalculado letras, los indices de sus mejores sugerencias.
+     */
+    private record Instantanea(Sugerencia[] sugerencias, String[] claves, int[] indiceDeClave,
+                               Map<String, int[]> precalculados, int largoPrecalculado) {
+
+        private static final Instantanea VACIA = new Instantanea(new Sugerencia[0], new String[0], new int[0], Map.of(), 0);
+
+        private static Instantanea de(List<Acumulado> acumulados, int largoPrecalculado, int k) {
+            acumulados.sort(Comparator.comparingLong((Acumulado a) -> a.peso).reversed()
+                    .thenComparing(a -> a.normalizado));
+            Sugerencia[] sugerencias = new Sugerencia[acumulados.size()];
+            List<Map.Entry<String, Integer>> pares = new ArrayList<>();
+            for (int i = 0; i < sugerencias.length; i++) {
+                Acumulado a = acumulados.get(i);
+                sugerencias[i] = new Sugerencia(a.texto, a.tipo, a.idRestaurante, a.peso);
+                // El nombre se indexa desde el principio y desde el inicio de cada palabra que no sea vacia
+                String nombre = a.normalizado;
+                int inicio = 0;
+                while (inicio < nombre.length()) {
+                    int fin = nombre.indexOf(' ', inicio);
+                    fin = fin < 0 ? nombre.length() : fin;
+                    if (inicio == 0 || !NormalizadorTexto.esPalabraVacia(nombre.substring(inicio, fin))) {
+                        pares.add(Map.entry(nombre.substring(inicio), i));
+                    }
+                    inicio = fin + 1;
+                }
+            }
+            pares.sort(Map.Entry.<String, Integer>comparingByKey().thenComparing(Map.Entry.<String, Integer>comparingByValue()));
+
+            String[] claves = new String[pares.size()];
+            int[] indiceDeClave = new int[pares.size()];
+            int n = 0;
+            for (Map.Entry<String, Integer> par : pares) {
+                if (n > 0 && claves[n - 1].equals(par.getKey()) && indiceDeClave[n - 1] == par.getValue()) {
+                    continue; // La misma clave para la misma sugerencia
+                }
+                claves[n] = par.getKey();
+                indiceDeClave[n++] = par.getValue();
+            }
+            claves = Arrays.copyOf(claves, n);
+            indiceDeClave = Arrays.copyOf(indiceDeClave, n);
+
+            Map<String, Mejores> porPrefijo = new HashMap<>();
+            // Los mejores de cada prefijo corto se guardan hasta el maximo de sugerencias (k)
+            for (int i = 0; i < n; i++) {
+                for (int largo = 1; largo <= largoPrecalculado && largo <= claves[i].length(); largo++) {
+                    porPrefijo.computeIfAbsent(claves[i].substring(0, largo), p -> new Mejores(k)).agregar(indiceDeClave[i]);
+                }
+            }
+            Map<String, int[]> precalculados = new HashMap<>(porPrefijo.size() * 2);
+            porPrefijo.forEach((prefijo, mejores) -> precalculados.put(prefijo, mejores.aArreglo()));
+            return new Instantanea(sugerencias, claves, indiceDeClave, precalculados, largoPrecalculado);
+        }
+
+        /**
+         * Recorre el rango de claves que empiezan con el prefijo y devuelve los k indices de sugerencia mas bajos.
+         */
+        private int[] mejoresDelRango(String prefijo, int k) {
+            Mejores mejores = new Mejores(k);
+            for (int i = primeraMayorOIgual(prefijo); i < claves.length && claves[i].startsWith(prefijo); i++) {
+                mejores.agregar(indiceDeClave[i]);
+            }
+            return mejores.aArreglo();
+        }
+
+        private int primeraMayorOIgual(String prefijo) {
+            int bajo = 0;
+            int alto = claves.length;
+            while (bajo < alto) {
+                int medio = (bajo + alto) >>> 1;
+                if (claves[medio].compareTo(prefijo) < 0) {
+                    bajo = medio + 1;
+                } else {
+                    alto = medio;
+                }
+            }
+            return bajo;
+        }
+    }
+
+    /**
+     * Los k indices distintos mas bajos vistos, en orden; un indice mas bajo es una sugerencia de mayor peso.
+     */
+    private static final class Mejores {
+        private final int[] indices;
+        private int cantidad;
+
+        private Mejores(int k) {
+            this.indices = new int[k];
+        }
+
+        private void agregar(int indice) {
+            if (cantidad == indices.length && indice >= indices[cantidad - 1]) {
+                return;
+            }
+            int pos = Arrays.binarySearch(indices, 0, cantidad, indice);
+            if (pos >= 0) {
+                return;
+            }
+            pos = -pos - 1;
+            int mover = Math.min(cantidad, indices.length - 1) - pos;
+            System.arraycopy(indices, pos, indices, pos + 1, mover);
+            indices[pos] = indice;
+            cantidad = Math.min(cantidad + 1, indices.length);
+        }
+
+        private int[] aArreglo() {
+            return Arrays.copyOf(indices, cantidad);
+        }
+    }
+}
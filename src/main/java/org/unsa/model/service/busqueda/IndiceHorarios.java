@@ -0,0 +1,264 @@
+package org.unsa.model.service.busqueda;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.unsa.model.domain.restaurantes.HorarioSemanal;
+import org.unsa.model.domain.restaurantes.RestauranteCambiado;
+import org.unsa.model.repository.RestauranteRepository;
+import org.unsa.model.service.Interfaces.IFuenteMetricas;
+
+import java.time.Instant;
+import java.time.ZoneId;
+import java.time.ZonedDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeSet;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Indice global de restaurantes abiertos por minuto de la semana.
+ * Cada restaurante con horario tiene su {@link HorarioSemanal} y una posicion fija. La semana se parte en
+ * tramos entre los minutos en que algun restaurante abre o cierra; dentro de un tramo el conjunto de
+ * abiertos no cambia y se guarda como un mapa de bits por posicion. Responder "quien esta abierto en T"
+ * es una busqueda binaria del tramo y un recorrido de sus palabras de 64 bits.
+ * Al cambiar el horario de un restaurante solo se parten los tramos que hagan falta y se copian los mapas
+ * de bits de los tramos donde su bit cambia; los demas se comparten con la version anterior. Un mapa de
+ * bits publicado no vuelve a modificarse: las escrituras se serializan y publican los tramos con una
+ * escritura volatil, asi que las consultas no bloquean y siempre leen una version completa.
+ */
+@Component
+public class IndiceHorarios implements IFuenteMetricas {
+
+    private static final Logger logger = LoggerFactory.getLogger(IndiceHorarios.class);
+
+    private final RestauranteRepository restauranteRepository;
+    private final TransactionTemplate transaccionLectura;
+    private final ZoneId zona;
+
+    // Solo se usan con el monitor tomado
+    private final Map<Integer, Integer> posicionPorId = new HashMap<>();
+    private final List<HorarioSemanal> semanas = new ArrayList<>();
+
+    private volatile Tramos tramos = Tramos.sinTramos(64);
+
+    private final AtomicLong consultas = new AtomicLong();
+    private final AtomicLong actualizaciones = new AtomicLong();
+    private final AtomicLong ultimaLatenciaNanos = new AtomicLong();
+
+    public IndiceHorarios(RestauranteRepository restauranteRepository,
+                          PlatformTransactionManager transactionManager,
+                          @Value("${app.horarios.zona:America/Lima}") String zona) {
+        this.restauranteRepository = restauranteRepository;
+        this.transaccionLectura = new TransactionTemplate(transactionManager);
+        this.transaccionLectura.setReadOnly(true);
+        this.zona = ZoneId.of(zona);
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void construir() {
+        long inicio = System.nanoTime();
+        List<RestauranteRepository.HorarioDeRestaurante> filas = transaccionLectura.execute(estado -> restauranteRepository.buscarTodosLosHorarios());
+        Map<Integer, HorarioSemanal> porRestaurante = new HashMap<>();
+        for (RestauranteRepository.HorarioDeRestaurante f : filas) {
+            porRestaurante.computeIfAbsent(f.getIdRestaurante(), id -> new HorarioSemanal())
+                    .agregar(f.getDiaSemana(), f.getHoraApertura(), f.getHoraCierre());
+        }
+        synchronized (this) {
+            porRestaurante.forEach((id, semana) -> {
+                Integer posicion = posicionPorId.putIfAbsent(id, semanas.size());
+                if (posicion == null) {
+                    semanas.add(semana);
+                }
+            });
+            reconstruirTramos(Math.max(64, semanas.size() * 2));
+        }
+        logger.info("Indice de horarios construido: {} restaurantes con horario, {} tramos en {} ms",
+                porRestaurante.size(), tramos.inicios().length, TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - inicio));
+    }
+
+    /**
+     * Relee el horario confirmado del restaurante; si ya no existe o no tiene horario, deja de figurar como abierto.
+     */
+    @TransactionalEventListener(fallbackExecution = true)
+    public void alCambiarRestaurante(RestauranteCambiado cambio) {
+        HorarioSemanal semana = new HorarioSemanal();
+        for (RestauranteRepository.HorarioDeRestaurante f : restauranteRepository.buscarHorarios(cambio.getIdRestaurante())) {
+            semana.agregar(f.getDiaSemana(), f.getHoraApertura(), f.getHoraCierre());
+        }
+        actualizar(cambio.getIdRestaurante(), semana);
+    }
+
+    /**
+     * Reemplaza el horario semanal de un restaurante.
+     */
+    public synchronized void actualizar(Integer idRestaurante, HorarioSemanal semana) {
+        int[] cambios = semana.cambios();
+        Integer posicion = posicionPorId.get(idRestaurante);
+        if (posicion == null) {
+            if (cambios.length == 0 && !semana.estaAbierto(0)) {
+                return; // Nunca abre y no estaba en el indice
+            }
+            posicion = semanas.size();
+            posicionPorId.put(idRestaurante, posicion);
+            semanas.add(semana);
+        } else {
+            semanas.set(posicion, semana);
+        }
+        actualizaciones.incrementAndGet();
+
+        Tramos actuales = tramos;
+        if (posicion >= actuales.capacidad()) {
+            reconstruirTramos(actuales.capacidad() * 2);
+            return;
+        }
+
+        // Parte los tramos en los minutos donde este restaurante cambia y ningun tramo empezaba
+        int[] inicios = actuales.inicios();
+        long[][] abiertos = actuales.abiertos().clone();
+        int[] nuevos = Arrays.stream(cambios).filter(m -> Arrays.binarySearch(actuales.inicios(), m) < 0).toArray();
+        if (nuevos.length > 0) {
+            int[] unidos = new int[inicios.length + nuevos.length];
+            long[][] partidos = new long[unidos.length][];
+            int i = 0;
+            int j = 0;
+            for (int k = 0; k < unidos.length; k++) {
+                if (j < nuevos.length && (i == inicios.length || nuevos[j] < inicios[i])) {
+                    // El tramo nuevo empieza con los mismos abiertos que el tramo que lo contenia
+                    unidos[k] = nuevos[j++];
+                    partidos[k] = partidos[k - 1];
+                } else {
+                    unidos[k] = inicios[i];
+                    partidos[k] = abiertos[i++];
+                }
+            }
+            inicios = unidos;
+            abiertos = partidos;
+        }
+
+        int[] ids = actuales.ids();
+        if (ids[posicion] != idRestaurante) {
+            ids = ids.clone();
+            ids[posicion] = idRestaurante;
+        }
+        // Copia en escritura: solo los tramos donde el bit cambia reciben un arreglo nuevo
+        for (int t = 0; t < inicios.length; t++) {
+            boolean abierto = semana.estaAbierto(inicios[t]);
+            if (estaMarcado(abiertos[t], posicion) != abierto) {
+                abiertos[t] = abiertos[t].clone();
+                marcar(abiertos[t], posicion, abierto);
+            }
+        }
+        tramos = new Tramos(inicios, abiertos, ids, actuales.capacidad());
+    }
+
+    /**
+     * @return Los IDs de los restaurantes abiertos en el instante dado.
+     */
+    public int[] abiertosEn(Instant instante) {
+        long inicio = System.nanoTime();
+        ZonedDateTime local = instante.atZone(zona);
+        int minuto = HorarioSemanal.minutoDeLaSemana(local.getDayOfWeek(), local.toLocalTime());
+        Tramos actuales = tramos;
+        int tramo = Arrays.binarySearch(actuales.inicios(), minuto);
+        if (tramo < 0) {
+            tramo = -tramo - 2; // El tramo que empezo antes del minuto
+        }
+        long[] bits = actuales.abiertos()[tramo];
+        int cantidad = 0;
+        for (long palabra : bits) {
+            cantidad += Long.bitCount(palabra);
+        }
+        int[] resultado = new int[cantidad];
+        int n = 0;
+        for (int w = 0; w < bits.length; w++) {
+            long palabra = bits[w];
+            while (palabra != 0 && n < cantidad) {
+                resultado[n++] = actuales.ids()[(w << 6) + Long.numberOfTrailingZeros(palabra)];
+                palabra &= palabra - 1;
+            }
+        }
+        consultas.incrementAndGet();
+        ultimaLatenciaNanos.set(System.nanoTime() - inicio);
+        return n == cantidad ? resultado : Arrays.copyOf(resultado, n);
+    }
+
+    /**
+     * Recalcula todos los tramos desde los horarios semanales; solo al arrancar o al crecer la capacidad.
+     */
+    private void reconstruirTramos(int capacidad) {
+        TreeSet<Integer> minutos = new TreeSet<>();
+        minutos.add(0);
+        for (HorarioSemanal semana : semanas) {
+            for (int m : semana.cambios()) {
+                minutos.add(m);
+            }
+        }
+        int[] inicios = minutos.stream().mapToInt(Integer::intValue).toArray();
+        long[][] abiertos = new long[inicios.length][(capacidad + 63) / 64];
+        int[] ids = new int[capacidad];
+        posicionPorId.forEach((id, posicion) -> ids[posicion] = id);
+        for (int p = 0; p < semanas.size(); p++) {
+            HorarioSemanal semana = semanas.get(p);
+            for (int t = 0; t < inicios.length; t++) {
+                marcar(abiertos[t], p, semana.estaAbierto(inicios[t]));
+            }
+        }
+        tramos = new Tramos(inicios, abiertos, ids, capacidad);
+    }
+
+    private static boolean estaMarcado(long[] bits, int posicion) {
+        return (bits[posicion >>> 6] & (1L << posicion)) != 0;
+    }
+
+    private static void marcar(long[] bits, int posicion, boolean abierto) {
+        if (abierto) {
+            bits[posicion >>> 6] |= 1L << posicion;
+        } else {
+            bits[posicion >>> 6] &= ~(1L << posicion);
+        }
+    }
+
+    @Override
+    public String getNombreMetricas() {
+        return "restaurantes.horarios";
+    }
+
+    @Override
+    public Map<String, Number> getMetricas() {
+        Tramos actuales = tramos;
+        Map<String, Number> metricas = new LinkedHashMap<>();
+        synchronized (this) {
+            metricas.put("posiciones", semanas.size());
+        }
+        metricas.put("tramos", actuales.inicios().length);
+        metricas.put("capacidad", actuales.capacidad());
+        metricas.put("actualizaciones", actualizaciones.get());
+        metricas.put("consultas", consultas.get());
+        metricas.put("ultimaLatenciaNanos", ultimaLatenciaNanos.get());
+        return metricas;
+    }
+
+    /**
+     * @param inicios Minuto de la semana en que empieza cada tramo; el primero siempre es 0.
+     * @param abiertos Por tramo, un bit por posicion de restaurante.
+     * @param ids ID del restaurante de cada posicion.
+     */
+    private record Tramos(int[] inicios, long[][] abiertos, int[] ids, int capacidad) {
+
+        private static Tramos sinTramos(int capacidad) {
+            return new Tramos(new int[]{0}, new long[][]{new long[(capacidad + 63) / 64]}, new int[capacidad], capacidad);
+        }
+    }
+}
@@ -0,0 +1,598 @@
+package org.unsa.model.service.busqueda;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.unsa.model.domain.restaurantes.Plato;
+import org.unsa.model.dtos.ResultadoBusquedaPlato;
+import org.unsa.model.repository.PlatoRepository;
+import org.unsa.model.service.Interfaces.IFuenteMetricas;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableSet;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListSet;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Stream;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Indice invertido en memoria sobre el nombre y la descripcion de los platos, para que el buscador no
+ * recorra la tabla con LIKE '%x%' en cada tecla.
+ * Cada raiz (ver {@link NormalizadorTexto}) apunta, por campo, a un arreglo ordenado con los ids de los platos
+ * que la contienen. Una palabra de la consulta coincide con una raiz exacta, con las raices del vocabulario que
+ * empiezan por ella o, si es suficientemente larga, con las que estan a un error de tipeo (una letra de mas, de
+ * menos, cambiada o dos vecinas intercambiadas); estas ultimas se encuentran con un indice de borrados de una
+ * letra, sin recorrer el vocabulario. Todas las palabras deben coincidir; el puntaje suma, por palabra, el mejor
+ * peso de campo x tipo de coincidencia x idf.
+ * Las escrituras se serializan y reemplazan el arreglo de cada termino por una copia (copy-on-write): un arreglo
+ * publicado no vuelve a modificarse, asi que las busquedas lo recorren sin bloquear.
+ */
+@Component
+public class IndicePlatos implements IFuenteMetricas {
+
+    private static final Logger logger = LoggerFactory.getLogger(IndicePlatos.class);
+
+    private static final double PESO_NOMBRE = 3.0;
+    private static final double PESO_DESCRIPCION = 1.0;
+    private static final double PESO_EXACTA = 1.0;
+    private static final double PESO_PREFIJO = 0.7;
+    private static final double PESO_TIPEO = 0.5;
+    private static final int[] SIN_IDS = new int[0];
+
+    private final PlatoRepository platoRepository;
+    private final TransactionTemplate transaccionLectura;
+
+    private final Map<Integer, Documento> documentos = new ConcurrentHashMap<>();
+    private final Map<String, int[]> porNombre = new ConcurrentHashMap<>();
+    private final Map<String, int[]> porDescripcion = new ConcurrentHashMap<>();
+    private final NavigableSet<String> vocabulario = new ConcurrentSkipListSet<>();
+    // Cada termino, y cada variante suya con una letra borrada, apunta al termino: dos terminos a un error comparten una clave
+    private final Map<String, Set<String>> borrados = new ConcurrentHashMap<>();
+    private volatile boolean listo;
+
+    private final AtomicLong busquedas = new AtomicLong();
+    private final AtomicLong busquedasSinResultados = new AtomicLong();
+    private final AtomicLong actualizaciones = new AtomicLong();
+    private final AtomicLong ultimaLatenciaMicros = new AtomicLong();
+    private final AtomicLong maxLatenciaMicros = new AtomicLong();
+
+    @Value("${app.busqueda.min-prefijo:2}")
+    private int minPrefijo;
+
+    @Value("${app.busqueda.min-tipeo:4}")
+    private int minTipeo;
+
+    @Value("${app.busqueda.max-expansiones:50}")
+    private int maxExpansiones;
+
+    @Value("${app.busqueda.max-resultados:100}")
+    private int maxResultados;
+
+    public IndicePlatos(PlatoRepository platoRepository, PlatformTransactionManager transactionManager) {
+        this.platoRepository = platoRepository;
+        this.transaccionLectura = new TransactionTemplate(transactionManager);
+        this.transaccionLectura.setReadOnly(true);
+    }
+
+    /**
+     * Construye el indice al arrancar recorriendo la tabla de platos como cursor, sin cargar entidades.
+     * Los arreglos de cada termino se arman aparte y se publican juntos al final, para no copiarlos una vez
+     * por plato; hasta entonces las busquedas solo ven los platos guardados despues del arranque.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void construir() {
+        long inicio = System.nanoTime();
+        Map<Integer, Documento> leidos = new TreeMap<>();
+        transaccionLectura.executeWithoutResult(estado -> {
+            try (Stream<PlatoRepository.PlatoIndexable> platos = platoRepository.transmitirParaIndice()) {
+                platos.forEach(p -> leidos.put(p.getIdPlato(), documento(p.getIdRestaurante(), p.getNombre(),
+                        p.getDescripcion(), Boolean.TRUE.equals(p.getDisponible()))));
+            }
+        });
+        publicar(leidos);
+        listo = true;
+        logger.info("Indice de platos construido: {} platos, {} terminos en {} ms",
+                documentos.size(), vocabulario.size(), TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - inicio));
+    }
+
+    private synchronized void publicar(Map<Integer, Documento> leidos) {
+        // Un plato indexado mientras se leia la tabla ya tiene una version mas reciente que la del cursor
+        leidos.keySet().removeAll(documentos.keySet());
+        Map<String, ListaIds> nombres = new HashMap<>();
+        Map<String, ListaIds> descripciones = new HashMap<>();
+        for (Map.Entry<Integer, Documento> e : leidos.entrySet()) { // En orden de id: cada lista sale ordenada
+            for (String termino : e.getValue().terminosNombre()) {
+                nombres.computeIfAbsent(termino, t -> new ListaIds()).agregar(e.getKey());
+            }
+            for (String termino : e.getValue().terminosDescripcion()) {
+                descripciones.computeIfAbsent(termino, t -> new ListaIds()).agregar(e.getKey());
+            }
+        }
+        documentos.putAll(leidos);
+        nombres.forEach((termino, ids) -> fusionar(porNombre, termino, ids.aArreglo()));
+        descripciones.forEach((termino, ids) -> fusionar(porDescripcion, termino, ids.aArreglo()));
+    }
+
+    private void fusionar(Map<String, int[]> indice, String termino, int[] ids) {
+        indice.merge(termino, ids, IndicePlatos::unir);
+        agregarAlVocabulario(termino);
+    }
+
+    /**
+     * Agrega o reemplaza un plato ya guardado.
+     */
+    public void indexar(Plato plato) {
+        indexar(plato.getIdPlato(), documento(plato.getRestaurante().getId(), plato.getNombre(), plato.getDescripcion(),
+                plato.isDisponible()));
+    }
+
+    private static Documento documento(Integer idRestaurante, String nombre, String descripcion, boolean disponible) {
+        return new Documento(idRestaurante, nombre, disponible,
+                Set.copyOf(NormalizadorTexto.terminos(nombre)), Set.copyOf(NormalizadorTexto.terminos(descripcion)));
+    }
+
+    private synchronized void indexar(int idPlato, Documento nuevo) {
+        // El documento se publica antes que sus terminos: quien lo encuentre en un posting ya puede leerlo
+        Documento anterior = documentos.put(idPlato, nuevo);
+        if (anterior != null) {
+            quitar(porNombre, anterior.terminosNombre(), nuevo.terminosNombre(), idPlato);
+            quitar(porDescripcion, anterior.terminosDescripcion(), nuevo.terminosDescripcion(), idPlato);
+        }
+        agregar(porNombre, nuevo.terminosNombre(), idPlato);
+        agregar(porDescripcion, nuevo.terminosDescripcion(), idPlato);
+        actualizaciones.incrementAndGet();
+    }
+
+    /**
+     * Quita un plato del indice; no hace nada si no estaba.
+     */
+    public synchronized void eliminar(Integer idPlato) {
+        Documento anterior = documentos.remove(idPlato);
+        if (anterior != null) {
+            quitar(porNombre, anterior.terminosNombre(), Set.of(), idPlato);
+            quitar(porDescripcion, anterior.terminosDescripcion(), Set.of(), idPlato);
+            actualizaciones.incrementAndGet();
+        }
+    }
+
+    /**
+     * Busca platos cuyo nombre o descripcion contengan todas las palabras de la consulta.
+     * Las palabras de al menos app.busqueda.min-prefijo letras tambien coinciden como prefijo; una ultima
+     * palabra mas corta se ignora, porque el cliente aun la esta escribiendo.
+     * @param consulta Texto libre tal como lo escribio el cliente.
+     * @param limite Cantidad maxima de resultados (acotada por app.busqueda.max-resultados).
+     * @return Los platos encontrados, del mas al menos relevante.
+     */
+    public List<ResultadoBusquedaPlato> buscar(String consulta, int limite) {
+        long inicio = System.nanoTime();
+        List<String> palabras = NormalizadorTexto.palabras(consulta);
+        if (!palabras.isEmpty() && palabras.getLast().length() < minPrefijo) {
+            palabras.removeLast(); // Una letra suelta al final todavia no filtra nada util
+        }
+
+        double total = Math.max(1, documentos.size());
+        List<Postings> porPalabra = new ArrayList<>(palabras.size());
+        for (String palabra : palabras) {
+            porPalabra.add(postings(expandir(palabra), total));
+        }
+        List<ResultadoBusquedaPlato> resultado = porPalabra.isEmpty()
+                ? List.of()
+                : mejores(puntuar(porPalabra), Math.max(1, Math.min(limite, maxResultados)));
+
+        busquedas.incrementAndGet();
+        if (resultado.isEmpty()) {
+            busquedasSinResultados.incrementAndGet();
+        }
+        long micros = TimeUnit.NANOSECONDS.toMicros(System.nanoTime() - inicio);
+        ultimaLatenciaMicros.set(micros);
+        maxLatenciaMicros.accumulateAndGet(micros, Math::max);
+        return resultado;
+    }
+
+    /**
+     * @return Los terminos del indice con los que puede coincidir la palabra, y el peso de cada tipo de coincidencia.
+     */
+    private Map<String, Double> expandir(String palabra) {
+        Map<String, Double> expansiones = new HashMap<>();
+        String raiz = NormalizadorTexto.raiz(palabra);
+        if (vocabulario.contains(raiz)) {
+            expansiones.put(raiz, PESO_EXACTA);
+        }
+        if (raiz.length() >= minPrefijo) {
+            int agregadas = 0;
+            for (String termino : vocabulario.tailSet(raiz, false)) {
+                if (!termino.startsWith(raiz) || agregadas++ >= maxExpansiones) {
+                    break;
+                }
+                expansiones.put(termino, PESO_PREFIJO);
+            }
+        }
+        if (raiz.length() >= minTipeo) {
+            for (String clave : clavesDeBorrado(raiz)) {
+                Set<String> vecinos = borrados.get(clave);
+                if (vecinos == null) {
+                    continue;
+                }
+                for (String termino : vecinos) {
+                    if (!expansiones.containsKey(termino) && aUnError(raiz, termino)) {
+                        expansiones.put(termino, PESO_TIPEO);
+                    }
+                }
+            }
+        }
+        return expansiones;
+    }
+
+    /**
+     * Toma una sola vez los arreglos de los terminos expandidos, con el puntaje (campo x coincidencia x idf)
+     * que aporta cada uno; toda la busqueda trabaja sobre esa foto aunque el indice cambie mientras tanto.
+     */
+    private Postings postings(Map<String, Double> expansiones, double total) {
+        List<int[]> listas = new ArrayList<>(expansiones.size() * 2);
+        double[] puntajes = new double[expansiones.size() * 2];
+        long frecuencia = 0;
+        for (Map.Entry<String, Double> e : expansiones.entrySet()) {
+            for (int campo = 0; campo < 2; campo++) {
+                int[] ids = (campo == 0 ? porNombre : porDescripcion).get(e.getKey());
+                if (ids != null) {
+                    double peso = (campo == 0 ? PESO_NOMBRE : PESO_DESCRIPCION) * e.getValue();
+                    puntajes[listas.size()] = peso * Math.log(1 + total / ids.length);
+                    listas.add(ids);
+                    frecuencia += ids.length;
+                }
+            }
+        }
+        return new Postings(listas.toArray(int[][]::new), Arrays.copyOf(puntajes, listas.size()), frecuencia);
+    }
+
+    /**
+     * Interseccion puntuada: los candidatos salen de la palabra con menos platos y las siguientes solo se
+     * evaluan sobre los que quedan. Ids y puntajes viven en arreglos paralelos que se compactan en el sitio.
+     */
+    private Candidatos puntuar(List<Postings> palabras) {
+        palabras.sort(Comparator.comparingLong(Postings::frecuencia));
+        int[] ids = union(palabras.getFirst().listas());
+        double[] puntajes = new double[ids.length];
+        int n = ids.length;
+        double[] dePalabra = new double[n];
+        for (Postings palabra : palabras) {
+            Arrays.fill(dePalabra, 0, n, 0.0);
+            for (int i = 0; i < palabra.listas().length; i++) {
+                acumular(ids, n, dePalabra, palabra.listas()[i], palabra.puntajes()[i]);
+            }
+            int quedan = 0;
+            for (int i = 0; i < n; i++) {
+                if (dePalabra[i] > 0) {
+                    ids[quedan] = ids[i];
+                    puntajes[quedan++] = puntajes[i] + dePalabra[i];
+                }
+            }
+            n = quedan;
+            if (n == 0) {
+                break;
+            }
+        }
+        return new Candidatos(ids, puntajes, n);
+    }
+
+    /**
+     * Para cada candidato presente en el posting conserva el mejor puntaje de la palabra. Busca en binario
+     * los elementos del arreglo mas corto dentro del mas largo; ambos estan ordenados.
+     */
+    private static void acumular(int[] candidatos, int n, double[] dePalabra, int[] ids, double puntaje) {
+        if (ids.length < n) {
+            int desde = 0;
+            for (int id : ids) {
+                int i = Arrays.binarySearch(candidatos, desde, n, id);
+                if (i >= 0) {
+                    dePalabra[i] = Math.max(dePalabra[i], puntaje);
+                    desde = i + 1;
+                } else {
+                    desde = -i - 1;
+                }
+                if (desde == n) {
+                    break;
+                }
+            }
+        } else {
+            int desde = 0;
+            for (int i = 0; i < n && desde < ids.length; i++) {
+                int j = Arrays.binarySearch(ids, desde, ids.length, candidatos[i]);
+                if (j >= 0) {
+                    dePalabra[i] = Math.max(dePalabra[i], puntaje);
+                    desde = j + 1;
+                } else {
+                    desde = -j - 1;
+                }
+            }
+        }
+    }
+
+    private List<ResultadoBusquedaPlato> mejores(Candidatos candidatos, int k) {
+        int[] orden = candidatos.mejores(k);
+        List<ResultadoBusquedaPlato> resultado = new ArrayList<>(orden.length);
+        for (int i : orden) {
+            int idPlato = candidatos.ids()[i];
+            Documento d = documentos.get(idPlato);
+            if (d != null) { // Pudo eliminarse mientras se buscaba
+                resultado.add(new ResultadoBusquedaPlato(idPlato, d.idRestaurante(), d.nombre(), d.disponible(),
+                        candidatos.puntajes()[i]));
+            }
+        }
+        return resultado;
+    }
+
+    private void agregar(Map<String, int[]> indice, Set<String> terminos, int idPlato) {
+        for (String termino : terminos) {
+            indice.put(termino, conId(indice.getOrDefault(termino, SIN_IDS), idPlato));
+            agregarAlVocabulario(termino);
+        }
+    }
+
+    private void agregarAlVocabulario(String termino) {
+        if (vocabulario.add(termino) && termino.length() >= minTipeo - 1) {
+            for (String clave : clavesDeBorrado(termino)) {
+                borrados.computeIfAbsent(clave, c -> ConcurrentHashMap.newKeySet()).add(termino);
+            }
+        }
+    }
+
+    private void quitar(Map<String, int[]> indice, Set<String> terminos, Set<String> conservar, int idPlato) {
+        for (String termino : terminos) {
+            if (conservar.contains(termino)) {
+                continue;
+            }
+            int[] ids = indice.get(termino);
+            int posicion = ids == null ? -1 : Arrays.binarySearch(ids, idPlato);
+            if (posicion < 0) {
+                continue;
+            }
+            if (ids.length > 1) {
+                indice.put(termino, sinPosicion(ids, posicion));
+                continue;
+            }
+            indice.remove(termino);
+            if (!porNombre.containsKey(termino) && !porDescripcion.containsKey(termino) && vocabulario.remove(termino)) {
+                for (String clave : clavesDeBorrado(termino)) {
+                    Set<String> vecinos = borrados.get(clave);
+                    if (vecinos != null && vecinos.remove(termino) && vecinos.isEmpty()) {
+                        borrados.remove(clave);
+                    }
+                }
+            }
+        }
+    }
+
+    /**
+     * @return Una copia ordenada del arreglo con el id, o el mismo arreglo si ya lo tenia.
+     */
+    static int[] conId(int[] ids, int id) {
+        int posicion = Arrays.binarySearch(ids, id);
+        if (posicion >= 0) {
+            return ids;
+        }
+        posicion = -posicion - 1;
+        int[] copia = new int[ids.length + 1];
+        System.arraycopy(ids, 0, copia, 0, posicion);
+        copia[posicion] = id;
+        System.arraycopy(ids, posicion, copia, posicion + 1, ids.length - posicion);
+        return copia;
+    }
+
+    private static int[] sinPosicion(int[] ids, int posicion) {
+        int[] copia = new int[ids.length - 1];
+        System.arraycopy(ids, 0, copia, 0, posicion);
+        System.arraycopy(ids, posicion + 1, copia, posicion, ids.length - posicion - 1);
+        return copia;
+    }
+
+    /**
+     * @return La union ordenada y sin repetidos de dos arreglos ordenados.
+     */
+    static int[] unir(int[] a, int[] b) {
+        int[] union = new int[a.length + b.length];
+        int i = 0;
+        int j = 0;
+        int n = 0;
+        while (i < a.length || j < b.length) {
+            int siguiente = j == b.length || (i < a.length && a[i] <= b[j]) ? a[i++] : b[j++];
+            if (n == 0 || union[n - 1] != siguiente) {
+                union[n++] = siguiente;
+            }
+        }
+        return n == union.length ? union : Arrays.copyOf(union, n);
+    }
+
+    private static int[] union(int[][] listas) {
+        int total = 0;
+        for (int[] ids : listas) {
+            total += ids.length;
+        }
+        int[] union = new int[total];
+        int n = 0;
+        for (int[] ids : listas) {
+            System.arraycopy(ids, 0, union, n, ids.length);
+            n += ids.length;
+        }
+        Arrays.sort(union);
+        int unicos = 0;
+        for (int i = 0; i < n; i++) {
+            if (unicos == 0 || union[unicos - 1] != union[i]) {
+                union[unicos++] = union[i];
+            }
+        }
+        return Arrays.copyOf(union, unicos);
+    }
+
+    /**
+     * @return El termino y todas sus variantes con una letra borrada.
+     */
+    private static List<String> clavesDeBorrado(String termino) {
+        List<String> claves = new ArrayList<>(termino.length() + 1);
+        claves.add(termino);
+        for (int i = 0; i < termino.length(); i++) {
+            claves.add(termino.substring(0, i) + termino.substring(i + 1));
+        }
+        return claves;
+    }
+
+    /**
+     * @return true si b se obtiene de a con a lo sumo una insercion, borrado, sustitucion o transposicion de vecinas.
+     */
+    static boolean aUnError(String a, String b) {
+        int la = a.length();
+        int lb = b.length();
+        if (Math.abs(la - lb) > 1) {
+            return false;
+        }
+        int i = 0;
+        while (i < la && i < lb && a.charAt(i) == b.charAt(i)) {
+            i++;
+        }
+        if (i == la || i == lb) {
+            return true;
+        }
+        if (la > lb) {
+            return a.regionMatches(i + 1, b, i, lb - i);
+        }
+        if (lb > la) {
+            return b.regionMatches(i + 1, a, i, la - i);
+        }
+        if (a.regionMatches(i + 1, b, i + 1, la - i - 1)) {
+            return true;
+        }
+        return i + 1 < la && a.charAt(i) == b.charAt(i + 1) && a.charAt(i + 1) == b.charAt(i)
+                && a.regionMatches(i + 2, b, i + 2, la - i - 2);
+    }
+
+    @Override
+    public String getNombreMetricas() {
+        return "platillos.busqueda";
+    }
+
+    @Override
+    public Map<String, Number> getMetricas() {
+        Map<String, Number> metricas = new LinkedHashMap<>();
+        metricas.put("listo", listo ? 1 : 0);
+        metricas.put("platosIndexados", documentos.size());
+        metricas.put("terminos", vocabulario.size());
+        metricas.put("actualizaciones", actualizaciones.get());
+        metricas.put("busquedas", busquedas.get());
+        metricas.put("busquedasSinResultados", busquedasSinResultados.get());
+        metricas.put("ultimaLatenciaMicros", ultimaLatenciaMicros.get());
+        metricas.put("maxLatenciaMicros", maxLatenciaMicros.get());
+        return metricas;
+    }
+
+    private record Documento(Integer idRestaurante, String nombre, boolean disponible,
+                             Set<String> terminosNombre, Set<String> terminosDescripcion) {
+    }
+
+    /**
+     * Los arreglos de todos los terminos con los que coincide una palabra, el puntaje de cada uno y
+     * la cantidad total de ids, que decide el orden de la interseccion.
+     */
+    private record Postings(int[][] listas, double[] puntajes, long frecuencia) {
+    }
+
+    /**
+     * Los primeros n ids ordenados que sobrevivieron a la interseccion y su puntaje acumulado.
+     */
+    private record Candidatos(int[] ids, double[] puntajes, int n) {
+
+        /**
+         * @return Las posiciones de los k mejores, de mayor a menor puntaje; a igual puntaje, el plato mas antiguo.
+         */
+        int[] mejores(int k) {
+            // Monticulo de posiciones de tamano k con el peor a la cabeza
+            int[] monticulo = new int[Math.min(k, n)];
+            int tamano = 0;
+            for (int i = 0; i < n; i++) {
+                if (tamano < monticulo.length) {
+                    monticulo[tamano] = i;
+                    subir(monticulo, tamano++);
+                } else if (mejor(i, monticulo[0])) {
+                    monticulo[0] = i;
+                    bajar(monticulo, tamano);
+                }
+            }
+            // Sacar siempre al peor llena el resultado de atras hacia adelante
+            int[] orden = new int[tamano];
+            for (int j = tamano - 1; j >= 0; j--) {
+                orden[j] = monticulo[0];
+                monticulo[0] = monticulo[--tamano];
+                bajar(monticulo, tamano);
+            }
+            return orden;
+        }
+
+        private boolean mejor(int a, int b) {
+            return puntajes[a] > puntajes[b] || (puntajes[a] == puntajes[b] && ids[a] < ids[b]);
+        }
+
+        private void subir(int[] monticulo, int i) {
+            while (i > 0) {
+                int padre = (i - 1) / 2;
+                if (!mejor(monticulo[padre], monticulo[i])) {
+                    return;
+                }
+                intercambiar(monticulo, padre, i);
+                i = padre;
+            }
+        }
+
+        private void bajar(int[] monticulo, int tamano) {
+            int i = 0;
+            while (2 * i + 1 < tamano) {
+                int peor = 2 * i + 1;
+                if (peor + 1 < tamano && mejor(monticulo[peor], monticulo[peor + 1])) {
+                    peor++;
+                }
+                if (!mejor(monticulo[i], monticulo[peor])) {
+                    return;
+                }
+                intercambiar(monticulo, i, peor);
+                i = peor;
+            }
+        }
+
+        private static void intercambiar(int[] monticulo, int a, int b) {
+            int temporal = monticulo[a];
+            monticulo[a] = monticulo[b];
+            monticulo[b] = temporal;
+        }
+    }
+
+    /**
+     * Lista de ids que crece por duplicacion; solo se usa al construir el indice, antes de publicar.
+     */
+    private static final class ListaIds {
+        private int[] ids = new int[4];
+        private int n;
+
+        void agregar(int id) {
+            if (n == ids.length) {
+                ids = Arrays.copyOf(ids, n * 2);
+            }
+            ids[n++] = id;
+        }
+
+        int[] aArreglo() {
+            return Arrays.copyOf(ids, n);
+        }
+    }
+}
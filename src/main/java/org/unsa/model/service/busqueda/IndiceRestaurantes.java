@@ -0,0 +1,354 @@
+package org.unsa.model.service.busqueda;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.unsa.model.domain.restaurantes.RestauranteCambiado;
+import org.unsa.model.dtos.ResumenRestaurante;
+import org.unsa.model.repository.RestauranteRepository;
+import org.unsa.model.service.Interfaces.IFuenteMetricas;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Indice de trigramas sobre el texto ya normalizado de cada restaurante (nombre, direccion y tipo de cocina).
+ * Cada restaurante ocupa una posicion fija; cada trigrama apunta a un arreglo ordenado de posiciones. Una
+ * consulta intersecta los arreglos de sus trigramas y confirma cada candidato con un contains sobre el texto
+ * precalculado, sin crear objetos por candidato. Cada posicion guarda un {@link ResumenRestaurante} inmutable,
+ * leido sin cargar la entidad: el indice no retiene entidades ni toca su horario perezoso fuera de una transaccion.
+ * Los arreglos se reemplazan completos al cambiar un restaurante (copia en escritura), asi que las consultas
+ * no bloquean; las escrituras se serializan. El indice se actualiza con {@link RestauranteCambiado} despues
+ * de confirmada la transaccion que guardo o elimino el restaurante.
+ */
+@Component
+public class IndiceRestaurantes implements IFuenteMetricas {
+
+    private static final Logger logger = LoggerFactory.getLogger(IndiceRestaurantes.class);
+
+    // Alfabeto del texto normalizado: espacio, a-z y 0-9
+    private static final int SIMBOLOS = 37;
+    private static final int TRIGRAMAS = SIMBOLOS * SIMBOLOS * SIMBOLOS;
+    private static final int[] VACIO = new int[0];
+    // Los campos se unen con dos espacios, que una consulta normalizada nunca contiene: no hay coincidencias entre campos
+    private static final String SEPARADOR = "  ";
+
+    // Orden de relevancia: nombre identico, nombre que empieza con la consulta, nombre que la contiene, otro campo
+    private static final int NOMBRE_EXACTO = 0;
+    private static final int NOMBRE_PREFIJO = 1;
+    private static final int NOMBRE_CONTIENE = 2;
+    private static final int OTRO_CAMPO = 3;
+
+    private final RestauranteRepository restauranteRepository;
+
+    private final AtomicReferenceArray<int[]> posiciones = new AtomicReferenceArray<>(TRIGRAMAS);
+    private volatile AtomicReferenceArray<Ficha> fichas = new AtomicReferenceArray<>(1024);
+    // Solo se usan con el monitor tomado
+    private final Map<Integer, Integer> posicionPorId = new HashMap<>();
+    private int siguientePosicion;
+
+    private final AtomicLong busquedas = new AtomicLong();
+    private final AtomicLong actualizaciones = new AtomicLong();
+    private final AtomicLong ultimaLatenciaMicros = new AtomicLong();
+    private final AtomicLong maxLatenciaMicros = new AtomicLong();
+    private final AtomicLong ultimosCandidatos = new AtomicLong();
+
+    @Value("${app.busqueda.max-resultados:100}")
+    private int maxResultados;
+
+    public IndiceRestaurantes(RestauranteRepository restauranteRepository) {
+        this.restauranteRepository = restauranteRepository;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void construir() {
+        long inicio = System.nanoTime();
+        List<ResumenRestaurante> restaurantes = restauranteRepository.buscarResumenes();
+        for (ResumenRestaurante restaurante : restaurantes) {
+            indexar(restaurante);
+        }
+        logger.info("Indice de restaurantes construido: {} restaurantes en {} ms",
+                restaurantes.size(), TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - inicio));
+    }
+
+    /**
+     * Relee el restaurante confirmado y lo reindexa, o lo quita si ya no existe.
+     */
+    @TransactionalEventListener(fallbackExecution = true)
+    public void alCambiarRestaurante(RestauranteCambiado cambio) {
+        restauranteRepository.buscarResumen(cambio.getIdRestaurante())
+                .ifPresentOrElse(this::indexar, () -> eliminar(cambio.getIdRestaurante()));
+    }
+
+    /**
+     * Agrega o reemplaza un restaurante.
+     */
+    public synchronized void indexar(ResumenRestaurante restaurante) {
+        Integer posicion = posicionPorId.get(restaurante.getIdRestaurante());
+        Ficha anterior = null;
+        if (posicion == null) {
+            posicion = siguientePosicion++;
+            posicionPorId.put(restaurante.getIdRestaurante(), posicion);
+            asegurarCapacidad(posicion);
+        } else {
+            anterior = fichas.get(posicion);
+        }
+        Ficha nueva = new Ficha(restaurante,
+                NormalizadorTexto.normalizar(restaurante.getNombre()),
+                NormalizadorTexto.normalizar(restaurante.getNombre()) + SEPARADOR
+                        + NormalizadorTexto.normalizar(restaurante.getDireccion()) + SEPARADOR
+                        + NormalizadorTexto.normalizar(restaurante.getTipoCocina() != null ? restaurante.getTipoCocina().name() : null));
+        fichas.set(posicion, nueva);
+        int[] antes = anterior == null ? VACIO : trigramas(anterior.texto());
+        int[] despues = trigramas(nueva.texto());
+        for (int t : antes) {
+            if (Arrays.binarySearch(despues, t) < 0) {
+                posiciones.set(t, quitar(posiciones.get(t), posicion));
+            }
+        }
+        for (int t : despues) {
+            if (Arrays.binarySearch(antes, t) < 0) {
+                posiciones.set(t, agregar(posiciones.get(t), posicion));
+            }
+        }
+        actualizaciones.incrementAndGet();
+    }
+
+    /**
+     * Quita un restaurante del indice; su posicion no se reutiliza.
+     */
+    public synchronized void eliminar(Integer idRestaurante) {
+        Integer posicion = posicionPorId.remove(idRestaurante);
+        if (posicion == null) {
+            return;
+        }
+        Ficha anterior = fichas.get(posicion);
+        fichas.set(posicion, null);
+        for (int t : trigramas(anterior.texto())) {
+            posiciones.set(t, quitar(posiciones.get(t), posicion));
+        }
+        actualizaciones.incrementAndGet();
+    }
+
+    /**
+     * Busca restaurantes cuyo nombre, direccion o tipo de cocina contengan el texto (sin distinguir mayusculas
+     * ni tildes); un texto vacio coincide con todos.
+     * @param limite Cantidad maxima de resultados (acotada por app.busqueda.max-resultados).
+     * @return Los restaurantes encontrados: primero los de nombre identico, luego los que empiezan por el texto,
+     * los que lo contienen en el nombre y al final los que lo contienen en otro campo; a igual relevancia, en
+     * el orden en que se indexaron.
+     */
+    public List<ResumenRestaurante> buscar(String texto, int limite) {
+        long inicio = System.nanoTime();
+        String consulta = NormalizadorTexto.normalizar(texto);
+        AtomicReferenceArray<Ficha> actuales = fichas;
+
+        // Posiciones candidatas: la interseccion de los trigramas de la consulta, o todas si es mas corta que un trigrama
+        int[] candidatos;
+        int cantidad;
+        if (consulta.length() < 3) {
+            cantidad = actuales.length();
+            candidatos = null;
+        } else {
+            int[][] listas = listasDeTrigramas(consulta);
+            candidatos = listas[0].clone();
+            cantidad = candidatos.length;
+            for (int i = 1; i < listas.length && cantidad > 0; i++) {
+                cantidad = intersectar(candidatos, cantidad, listas[i]);
+            }
+        }
+
+        // Cada coincidencia se codifica como (relevancia, posicion) en un long, para ordenar sin objetos intermedios
+        long[] coincidencias = new long[Math.min(cantidad, 1024)];
+        int encontradas = 0;
+        for (int i = 0; i < cantidad; i++) {
+            int posicion = candidatos == null ? i : candidatos[i];
+            // Una posicion agregada despues de leer las fichas puede quedar fuera del arreglo leido
+            Ficha ficha = posicion < actuales.length() ? actuales.get(posicion) : null;
+            if (ficha == null) {
+                continue;
+            }
+            int relevancia = relevancia(ficha, consulta);
+            if (relevancia < 0) {
+                continue;
+            }
+            if (encontradas == coincidencias.length) {
+                coincidencias = Arrays.copyOf(coincidencias, Math.max(16, encontradas * 2));
+            }
+            coincidencias[encontradas++] = ((long) relevancia << 32) | posicion;
+        }
+        Arrays.sort(coincidencias, 0, encontradas);
+
+        int devolver = Math.min(encontradas, Math.max(1, Math.min(limite, maxResultados)));
+        List<ResumenRestaurante> resultado = new ArrayList<>(devolver);
+        for (int i = 0; i < devolver; i++) {
+            Ficha ficha = actuales.get((int) coincidencias[i]);
+            if (ficha != null) {
+                resultado.add(ficha.restaurante());
+            }
+        }
+
+        busquedas.incrementAndGet();
+        ultimosCandidatos.set(cantidad);
+        long micros = TimeUnit.NANOSECONDS.toMicros(System.nanoTime() - inicio);
+        ultimaLatenciaMicros.set(micros);
+        maxLatenciaMicros.accumulateAndGet(micros, Math::max);
+        return resultado;
+    }
+
+    /**
+     * @return La relevancia de la ficha para la consulta, o -1 si no la contiene.
+     */
+    private static int relevancia(Ficha ficha, String consulta) {
+        if (consulta.isEmpty()) {
+            return OTRO_CAMPO;
+        }
+        String nombre = ficha.nombre();
+        if (nombre.equals(consulta)) {
+            return NOMBRE_EXACTO;
+        }
+        if (nombre.startsWith(consulta)) {
+            return NOMBRE_PREFIJO;
+        }
+        if (nombre.contains(consulta)) {
+            return NOMBRE_CONTIENE;
+        }
+        // El texto empieza con el nombre, asi que basta buscar despues de el
+        return ficha.texto().indexOf(consulta, nombre.length()) >= 0 ? OTRO_CAMPO : -1;
+    }
+
+    /**
+     * @return Los arreglos de posiciones de los trigramas de la consulta, del mas corto al mas largo.
+     */
+    private int[][] listasDeTrigramas(String consulta) {
+        int[] ts = trigramas(consulta);
+        int[][] listas = new int[ts.length][];
+        for (int i = 0; i < ts.length; i++) {
+            int[] lista = posiciones.get(ts[i]);
+            listas[i] = lista == null ? VACIO : lista;
+        }
+        Arrays.sort(listas, (a, b) -> Integer.compare(a.length, b.length));
+        return listas;
+    }
+
+    /**
+     * Deja en los primeros elementos de candidatos los que tambien estan en lista (ambos ordenados).
+     * @return La cantidad de candidatos que quedan.
+     */
+    private static int intersectar(int[] candidatos, int cantidad, int[] lista) {
+        int quedan = 0;
+        int j = 0;
+        for (int i = 0; i < cantidad && j < lista.length; i++) {
+            int c = candidatos[i];
+            while (j < lista.length && lista[j] < c) {
+                j++;
+            }
+            if (j < lista.length && lista[j] == c) {
+                candidatos[quedan++] = c;
+            }
+        }
+        return quedan;
+    }
+
+    /**
+     * @return Los trigramas distintos del texto normalizado, codificados y ordenados.
+     */
+    private static int[] trigramas(String texto) {
+        if (texto.length() < 3) {
+            return VACIO;
+        }
+        int[] ts = new int[texto.length() - 2];
+        for (int i = 0; i < ts.length; i++) {
+            ts[i] = (simbolo(texto.charAt(i)) * SIMBOLOS + simbolo(texto.charAt(i + 1))) * SIMBOLOS + simbolo(texto.charAt(i + 2));
+        }
+        return Arrays.stream(ts).sorted().distinct().toArray();
+    }
+
+    private static int simbolo(char c) {
+        if (c >= 'a' && c <= 'z') {
+            return 1 + c - 'a';
+        }
+        if (c >= '0' && c <= '9') {
+            return 27 + c - '0';
+        }
+        return 0;
+    }
+
+    private static int[] agregar(int[] lista, int posicion) {
+        if (lista == null) {
+            return new int[]{posicion};
+        }
+        int i = Arrays.binarySearch(lista, posicion);
+        if (i >= 0) {
+            return lista;
+        }
+        int punto = -i - 1;
+        int[] nueva = new int[lista.length + 1];
+        System.arraycopy(lista, 0, nueva, 0, punto);
+        nueva[punto] = posicion;
+        System.arraycopy(lista, punto, nueva, punto + 1, lista.length - punto);
+        return nueva;
+    }
+
+    private static int[] quitar(int[] lista, int posicion) {
+        int i = lista == null ? -1 : Arrays.binarySearch(lista, posicion);
+        if (i < 0) {
+            return lista;
+        }
+        if (lista.length == 1) {
+            return null;
+        }
+        int[] nueva = new int[lista.length - 1];
+        System.arraycopy(lista, 0, nueva, 0, i);
+        System.arraycopy(lista, i + 1, nueva, i, lista.length - i - 1);
+        return nueva;
+    }
+
+    private void asegurarCapacidad(int posicion) {
+        AtomicReferenceArray<Ficha> actuales = fichas;
+        if (posicion < actuales.length()) {
+            return;
+        }
+        AtomicReferenceArray<Ficha> mayor = new AtomicReferenceArray<>(actuales.length() * 2);
+        for (int i = 0; i < actuales.length(); i++) {
+            mayor.set(i, actuales.get(i));
+        }
+        fichas = mayor;
+    }
+
+    @Override
+    public String getNombreMetricas() {
+        return "restaurantes.busqueda";
+    }
+
+    @Override
+    public Map<String, Number> getMetricas() {
+        Map<String, Number> metricas = new LinkedHashMap<>();
+        synchronized (this) {
+            metricas.put("restaurantesIndexados", posicionPorId.size());
+        }
+        metricas.put("actualizaciones", actualizaciones.get());
+        metricas.put("busquedas", busquedas.get());
+        metricas.put("ultimosCandidatos", ultimosCandidatos.get());
+        metricas.put("ultimaLatenciaMicros", ultimaLatenciaMicros.get());
+        metricas.put("maxLatenciaMicros", maxLatenciaMicros.get());
+        return metricas;
+    }
+
+    /**
+     * Restaurante con su nombre y su texto completo ya normalizados; texto empieza con el nombre.
+     */
+    private record Ficha(ResumenRestaurante restaurante, String nombre, String texto) {
+    }
+}
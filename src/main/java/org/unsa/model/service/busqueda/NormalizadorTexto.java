@@ -0,0 +1,99 @@
+package org.unsa.model.service.busqueda;
+
+import java.text.Normalizer;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.regex.Pattern;
+
+/**
+ * Normalizacion de texto en espanol para los indices de busqueda: minusculas, sin tildes ni dieresis
+ * (la ene se conserva como "n"), solo letras y digitos, sin palabras vacias y con una reduccion ligera
+ * de plurales. Indice y consulta usan la misma normalizacion, asi que "Ceviches" y "cebiche" comparten raiz.
+ */
+public final class NormalizadorTexto {
+
+    private static final Pattern MARCAS = Pattern.compile("\\p{M}+");
+    private static final Pattern NO_ALFANUMERICO = Pattern.compile("[^a-z0-9]+");
+    private static final Set<String> PALABRAS_VACIAS = Set.of(
+            "a", "al", "con", "de", "del", "el", "en", "la", "las", "lo", "los", "o", "para", "por", "sin", "su", "un", "una", "y");
+
+    private NormalizadorTexto() {
+    }
+
+    /**
+     * @return El texto en minusculas, sin acentos y con cualquier otro caracter reemplazado por un espacio.
+     */
+    public static String normalizar(String texto) {
+        if (texto == null || texto.isEmpty()) {
+            return "";
+        }
+        String sinMarcas = MARCAS.matcher(Normalizer.normalize(texto.toLowerCase(), Normalizer.Form.NFD)).replaceAll("");
+        return NO_ALFANUMERICO.matcher(sinMarcas).replaceAll(" ").trim();
+    }
+
+    /**
+     * @return Las palabras normalizadas del texto, sin palabras vacias y sin reducir.
+     */
+    public static List<String> palabras(String texto) {
+        String normalizado = normalizar(texto);
+        List<String> resultado = new ArrayList<>();
+        if (normalizado.isEmpty()) {
+            return resultado;
+        }
+        for (String palabra : normalizado.split(" ")) {
+            if (!palabra.isEmpty() && !PALABRAS_VACIAS.contains(palabra)) {
+                resultado.add(palabra);
+            }
+        }
+        return resultado;
+    }
+
+    /**
+     * @return true si la palabra normalizada es un articulo, preposicion o conjuncion que no se indexa.
+     */
+    public static boolean esPalabraVacia(String palabra) {
+        return PALABRAS_VACIAS.contains(palabra);
+    }
+
+    /**
+     * @return Las raices de las palabras del texto (ver {@link #raiz(String)}).
+     */
+    public static List<String> terminos(String texto) {
+        List<String> palabras = palabras(texto);
+        palabras.replaceAll(NormalizadorTexto::raiz);
+        return palabras;
+    }
+
+    /**
+     * Reduccion ligera de una palabra ya normalizada: quita plurales y unifica grafias frecuentes.
+     * No es un stemmer completo; solo agrupa variantes que un cliente escribiria indistintamente.
+     */
+    public static String raiz(String palabra) {
+        String r = palabra;
+        int n = r.length();
+        if (n > 4 && r.endsWith("ces")) {
+            r = r.substring(0, n - 3) + "z"; // nueces -> nuez
+        } else if (n > 4 && r.endsWith("es") && esConsonante(r.charAt(n - 3))) {
+            r = r.substring(0, n - 2); // tallarines -> tallarin, postres -> postr
+        } else if (n > 3 && r.endsWith("s") && !r.endsWith("ss")) {
+            r = r.substring(0, n - 1); // papas -> papa
+        }
+        // Sin la e final, el singular coincide con la raiz del plural: postre -> postr
+        if (r.length() > 4 && r.endsWith("e")) {
+            r = r.substring(0, r.length() - 1);
+        }
+        return unificarGrafia(r);
+    }
+
+    /**
+     * Unifica letras que se confunden al escribir (v/b, z/s), para que "cebiche" y "ceviche" coincidan.
+     */
+    public static String unificarGrafia(String palabra) {
+        return palabra.replace('v', 'b').replace('z', 's');
+    }
+
+    private static boolean esConsonante(char c) {
+        return c >= 'a' && c <= 'z' && "aeiou".indexOf(c) < 0;
+    }
+}
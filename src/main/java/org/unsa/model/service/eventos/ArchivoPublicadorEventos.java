@@ -0,0 +1,43 @@
+package org.unsa.model.service.eventos;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+import org.unsa.model.domain.pedidos.EventoPedido;
+import org.unsa.model.service.Interfaces.IPublicadorEventos;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.List;
+
+/**
+ * Publicador que agrega cada lote de eventos a un archivo NDJSON local, pensado para pruebas
+ * y para inspeccionar el flujo de eventos sin un broker.
+ */
+@Component
+@ConditionalOnProperty(name = "app.outbox.sink", havingValue = "archivo")
+public class ArchivoPublicadorEventos implements IPublicadorEventos {
+
+    private final ObjectMapper objectMapper;
+    private final Path archivo;
+
+    public ArchivoPublicadorEventos(ObjectMapper objectMapper,
+                                    @Value("${app.outbox.archivo:eventos-pedido.ndjson}") String archivo) {
+        this.objectMapper = objectMapper;
+        this.archivo = Path.of(archivo);
+    }
+
+    @Override
+    public void publicar(List<EventoPedido> eventos) throws IOException {
+        try (OutputStream salida = Files.newOutputStream(archivo, StandardOpenOption.CREATE, StandardOpenOption.APPEND)) {
+            for (EventoPedido evento : eventos) {
+                salida.write(objectMapper.writeValueAsBytes(evento));
+                salida.write('\n');
+            }
+        }
+    }
+}
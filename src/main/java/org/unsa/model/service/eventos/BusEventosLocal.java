@@ -0,0 +1,31 @@
+package org.unsa.model.service.eventos;
+
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.stereotype.Component;
+import org.unsa.model.domain.pedidos.EventoPedido;
+import org.unsa.model.service.Interfaces.IPublicadorEventos;
+
+import java.util.List;
+
+/**
+ * Publicador por defecto: entrega cada evento a los {@code @EventListener(EventoPedido.class)} de la aplicacion,
+ * en el hilo del relevo y en orden.
+ */
+@Component
+@ConditionalOnProperty(name = "app.outbox.sink", havingValue = "local", matchIfMissing = true)
+public class BusEventosLocal implements IPublicadorEventos {
+
+    private final ApplicationEventPublisher publicador;
+
+    public BusEventosLocal(ApplicationEventPublisher publicador) {
+        this.publicador = publicador;
+    }
+
+    @Override
+    public void publicar(List<EventoPedido> eventos) {
+        for (EventoPedido evento : eventos) {
+            publicador.publishEvent(evento);
+        }
+    }
+}
@@ -0,0 +1,223 @@
+package org.unsa.model.service.eventos;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.Limit;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.unsa.model.domain.pedidos.EventoPedido;
+import org.unsa.model.repository.EventoPedidoRepository;
+import org.unsa.model.service.Interfaces.IFuenteMetricas;
+import org.unsa.model.service.Interfaces.IPublicadorEventos;
+
+import java.util.Date;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReentrantLock;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Relevo del outbox de eventos de pedidos.
+ * Periodicamente lee los eventos pendientes en lotes, avanzando un cursor por ID, entrega cada lote completo al
+ * {@link IPublicadorEventos} configurado y marca los entregados con una sola sentencia (al menos una vez).
+ * Si el lote falla se entrega evento por evento para aislar al culpable: al que falla se le suma un intento y los
+ * eventos siguientes de su pedido se saltan en esta ejecucion, para conservar el orden por pedido, pero los demas
+ * pedidos siguen publicandose. Al llegar a {@code app.outbox.max-intentos} el evento se estaciona y deja de
+ * bloquear a su pedido.
+ * Las metricas se calculan en memoria durante cada ejecucion, sin consultar la tabla.
+ * Esta pensado para una sola instancia activa del relevo.
+ */
+@Service
+public class RelevoOutboxService implements IFuenteMetricas {
+
+    private static final Logger logger = LoggerFactory.getLogger(RelevoOutboxService.class);
+
+    private final EventoPedidoRepository eventoRepository;
+    private final IPublicadorEventos publicador;
+    private final TransactionTemplate transaccion;
+    private final ReentrantLock ejecutando = new ReentrantLock();
+
+    private final AtomicLong eventosPublicados = new AtomicLong();
+    private final AtomicLong lotesPublicados = new AtomicLong();
+    private final AtomicLong fallosPublicacion = new AtomicLong();
+    private final AtomicLong eventosEstacionados = new AtomicLong();
+    private final AtomicLong pendientes = new AtomicLong();
+    // Creacion del evento pendiente mas antiguo visto en la ultima ejecucion; 0 si no quedo ninguno
+    private final AtomicLong pendienteMasAntiguoMs = new AtomicLong();
+    private final AtomicLong ultimaDuracionMs = new AtomicLong();
+    private final AtomicLong ultimosEventosPorSegundo = new AtomicLong();
+
+    @Value("${app.outbox.tamano-lote:200}")
+    private int tamanoLote;
+
+    @Value("${app.outbox.retencion-horas:72}")
+    private long retencionHoras;
+
+    @Value("${app.outbox.max-intentos:10}")
+    private int maxIntentos;
+
+    public RelevoOutboxService(EventoPedidoRepository eventoRepository,
+                               IPublicadorEventos publicador,
+                               PlatformTransactionManager transactionManager) {
+        this.eventoRepository = eventoRepository;
+        this.publicador = publicador;
+        this.transaccion = new TransactionTemplate(transactionManager);
+    }
+
+    /**
+     * Publica todos los eventos pendientes, lote por lote.
+     * @return Cantidad de eventos publicados en esta ejecucion.
+     */
+    @Scheduled(fixedDelayString = "${app.outbox.intervalo-ms:500}")
+    public long relevar() {
+        if (!ejecutando.tryLock()) {
+            return 0;
+        }
+        try {
+            long inicio = System.nanoTime();
+            long publicados = 0;
+            long sinPublicar = 0;
+            long masAntiguoSinPublicar = 0;
+            // Pedidos con un evento fallido en esta ejecucion: sus eventos posteriores esperan a la siguiente
+            Set<Long> pedidosDetenidos = new HashSet<>();
+            long cursor = Long.MIN_VALUE;
+            while (true) {
+                List<EventoPedido> lote = eventoRepository.buscarPendientes(cursor, Limit.of(tamanoLote));
+                if (lote.isEmpty()) {
+                    break;
+                }
+                Set<Long> entregados = publicar(lote, pedidosDetenidos);
+                if (!entregados.isEmpty()) {
+                    transaccion.executeWithoutResult(estado -> eventoRepository.marcarPublicados(entregados));
+                    publicados += entregados.size();
+                }
+                for (EventoPedido evento : lote) {
+                    // Lo no entregado queda pendiente salvo que se haya estacionado, y eso no detiene a su pedido
+                    if (!entregados.contains(evento.getId()) && pedidosDetenidos.contains(evento.getIdPedido())) {
+                        sinPublicar++;
+                        if (masAntiguoSinPublicar == 0) {
+                            masAntiguoSinPublicar = evento.getFechaCreacion().getTime();
+                        }
+                    }
+                }
+                lotesPublicados.incrementAndGet();
+                cursor = lote.getLast().getId();
+                if (lote.size() < tamanoLote) {
+                    break;
+                }
+            }
+            pendientes.set(sinPublicar);
+            pendienteMasAntiguoMs.set(masAntiguoSinPublicar);
+            if (publicados > 0) {
+                long duracionNs = Math.max(1, System.nanoTime() - inicio);
+                eventosPublicados.addAndGet(publicados);
+                ultimaDuracionMs.set(TimeUnit.NANOSECONDS.toMillis(duracionNs));
+                ultimosEventosPorSegundo.set(publicados * TimeUnit.SECONDS.toNanos(1) / duracionNs);
+                logger.debug("Relevo del outbox: {} eventos publicados", publicados);
+            }
+            return publicados;
+        } finally {
+            ejecutando.unlock();
+        }
+    }
+
+    /**
+     * Entrega los eventos del lote que no pertenecen a un pedido detenido, en una sola llamada al publicador.
+     * Si esa llamada falla, los entrega uno por uno: el primer fallo de cada pedido registra un intento (o estaciona
+     * el evento) y detiene a ese pedido hasta la siguiente ejecucion.
+     * @return IDs de los eventos entregados.
+     */
+    private Set<Long> publicar(List<EventoPedido> lote, Set<Long> pedidosDetenidos) {
+        List<EventoPedido> candidatos = lote.stream()
+                .filter(evento -> !pedidosDetenidos.contains(evento.getIdPedido()))
+                .toList();
+        Set<Long> entregados = new HashSet<>();
+        if (candidatos.isEmpty()) {
+            return entregados;
+        }
+        try {
+            publicador.publicar(candidatos);
+            candidatos.forEach(evento -> entregados.add(evento.getId()));
+            return entregados;
+        } catch (Exception e) {
+            fallosPublicacion.incrementAndGet();
+            logger.warn("Fallo la publicacion de {} eventos desde el ID {}; se entregaran uno por uno: {}",
+                    candidatos.size(), candidatos.getFirst().getId(), e.getMessage());
+        }
+
+        for (EventoPedido evento : candidatos) {
+            if (pedidosDetenidos.contains(evento.getIdPedido())) {
+                continue;
+            }
+            try {
+                publicador.publicar(List.of(evento));
+                entregados.add(evento.getId());
+            } catch (Exception e) {
+                if (!registrarFallo(evento, e)) {
+                    pedidosDetenidos.add(evento.getIdPedido());
+                }
+            }
+        }
+        return entregados;
+    }
+
+    /**
+     * Suma un intento al evento y lo estaciona al llegar al maximo.
+     * @return true si el evento quedo estacionado.
+     */
+    private boolean registrarFallo(EventoPedido evento, Exception e) {
+        fallosPublicacion.incrementAndGet();
+        int intentos = evento.getIntentos() + 1;
+        boolean estacionar = intentos >= maxIntentos;
+        transaccion.executeWithoutResult(estado -> eventoRepository.registrarFallo(evento.getId(), intentos, estacionar));
+        if (estacionar) {
+            eventosEstacionados.incrementAndGet();
+            logger.error("Evento {} del pedido {} estacionado tras {} intentos: {}",
+                    evento.getId(), evento.getIdPedido(), intentos, e.getMessage());
+        } else {
+            logger.warn("Fallo la publicacion del evento {} del pedido {} (intento {}); se reintentara: {}",
+                    evento.getId(), evento.getIdPedido(), intentos, e.getMessage());
+        }
+        return estacionar;
+    }
+
+    /**
+     * Elimina los eventos publicados mas antiguos que la retencion configurada.
+     */
+    @Scheduled(fixedDelayString = "${app.outbox.limpieza-ms:3600000}")
+    public void limpiar() {
+        Date limite = new Date(System.currentTimeMillis() - TimeUnit.HOURS.toMillis(retencionHoras));
+        Integer eliminados = transaccion.execute(estado -> eventoRepository.eliminarPublicadosAnterioresA(limite));
+        if (eliminados != null && eliminados > 0) {
+            logger.info("Se eliminaron {} eventos de pedido ya publicados", eliminados);
+        }
+    }
+
+    @Override
+    public String getNombreMetricas() {
+        return "pedidos.outbox";
+    }
+
+    @Override
+    public Map<String, Number> getMetricas() {
+        Map<String, Number> metricas = new LinkedHashMap<>();
+        metricas.put("eventosPublicados", eventosPublicados.get());
+        metricas.put("lotesPublicados", lotesPublicados.get());
+        metricas.put("fallosPublicacion", fallosPublicacion.get());
+        metricas.put("eventosEstacionados", eventosEstacionados.get());
+        metricas.put("ultimaDuracionMs", ultimaDuracionMs.get());
+        metricas.put("ultimosEventosPorSegundo", ultimosEventosPorSegundo.get());
+        // Segun la ultima ejecucion del relevo
+        metricas.put("pendientes", pendientes.get());
+        long masAntiguo = pendienteMasAntiguoMs.get();
+        metricas.put("retrasoMs", masAntiguo == 0 ? 0 : System.currentTimeMillis() - masAntiguo);
+        return metricas;
+    }
+}
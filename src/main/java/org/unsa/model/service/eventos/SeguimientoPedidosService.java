@@ -0,0 +1,325 @@
+package org.unsa.model.service.eventos;
+
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.event.EventListener;
+import org.springframework.http.MediaType;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+import org.unsa.model.domain.pedidos.EventoPedido;
+import org.unsa.model.domain.pedidos.PedidoCambiado;
+import org.unsa.model.domain.pedidos.RepartidorAsignado;
+import org.unsa.model.dtos.EstadoSeguimiento;
+import org.unsa.model.exceptions.CapacidadExcedidaException;
+import org.unsa.model.repository.EntregaRepository;
+import org.unsa.model.repository.PedidoRepository;
+import org.unsa.model.service.Interfaces.IFuenteMetricas;
+import org.unsa.model.service.logistica.PosicionEntrega;
+import org.unsa.model.service.logistica.UbicacionesEntregaService;
+
+import java.io.IOException;
+import java.util.Date;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Seguimiento en vivo de pedidos por Server-Sent Events.
+ * Cada conexion es un {@link SseEmitter} asincrono, asi que una conexion inactiva no ocupa un hilo.
+ * Los cambios de estado y las asignaciones llegan por los eventos de dominio que emite el outbox al confirmarse
+ * cada cambio, sin pasar por el relevo, asi que funcionan con cualquier destino configurado para el outbox;
+ * las posiciones llegan por los pings de la entrega.
+ * El reparto a los suscriptores nunca bloquea al productor: cada suscriptor tiene una cola acotada de
+ * estados y una sola posicion pendiente que se reemplaza, de modo que un cliente lento recibe la posicion
+ * mas reciente y no todas las intermedias. Un solo envio por suscriptor a la vez, en un hilo virtual.
+ */
+@Service
+public class SeguimientoPedidosService implements IFuenteMetricas {
+
+    private static final Logger logger = LoggerFactory.getLogger(SeguimientoPedidosService.class);
+
+    private final PedidoRepository pedidoRepository;
+    private final EntregaRepository entregaRepository;
+    private final UbicacionesEntregaService ubicaciones;
+    private final ExecutorService envios = Executors.newVirtualThreadPerTaskExecutor();
+
+    private final Map<Long, Set<Suscriptor>> suscriptores = new ConcurrentHashMap<>();
+    // Entrega seguida de cada pedido con suscriptores, para enrutar las posiciones sin consultar la base de datos
+    private final Map<Long, Long> pedidoPorEntrega = new ConcurrentHashMap<>();
+    private final Map<Long, Long> entregaPorPedido = new ConcurrentHashMap<>();
+    private final AtomicInteger conexiones = new AtomicInteger();
+
+    private final AtomicLong estadosEnviados = new AtomicLong();
+    private final AtomicLong posicionesEnviadas = new AtomicLong();
+    private final AtomicLong posicionesCombinadas = new AtomicLong();
+    private final AtomicLong estadosDescartados = new AtomicLong();
+    private final AtomicLong rechazadas = new AtomicLong();
+    private final AtomicLong desconexiones = new AtomicLong();
+
+    @Value("${app.seguimiento.max-conexiones:50000}")
+    private int maxConexiones;
+
+    @Value("${app.seguimiento.timeout-ms:1800000}")
+    private long timeoutMs;
+
+    @Value("${app.seguimiento.buffer-estados:16}")
+    private int bufferEstados;
+
+    public SeguimientoPedidosService(PedidoRepository pedidoRepository,
+                                     EntregaRepository entregaRepository,
+                                     UbicacionesEntregaService ubicaciones) {
+        this.pedidoRepository = pedidoRepository;
+        this.entregaRepository = entregaRepository;
+        this.ubicaciones = ubicaciones;
+    }
+
+    /**
+     * Abre el seguimiento de un pedido. El primer evento es su estado actual, seguido de la ultima
+     * posicion conocida de su entrega si la hay. El suscriptor se registra antes de leer esa instantanea,
+     * asi que ningun cambio confirmado despues de la lectura se pierde; un cambio confirmado justo antes de la
+     * instantanea puede llegar despues de ella, y se distingue por su fecha.
+     * @throws IllegalArgumentException Si el pedido no existe.
+     * @throws CapacidadExcedidaException Si se alcanzo el maximo de conexiones abiertas.
+     */
+    public SseEmitter suscribir(Long idPedido) {
+        if (conexiones.incrementAndGet() > maxConexiones) {
+            conexiones.decrementAndGet();
+            rechazadas.incrementAndGet();
+            throw new CapacidadExcedidaException("Se alcanzo el maximo de " + maxConexiones + " conexiones de seguimiento.");
+        }
+
+        Suscriptor suscriptor = new Suscriptor(idPedido, new SseEmitter(timeoutMs));
+        suscriptor.emisor.onCompletion(() -> quitar(suscriptor));
+        suscriptor.emisor.onTimeout(() -> quitar(suscriptor));
+        suscriptor.emisor.onError(e -> quitar(suscriptor));
+        // Se agrega dentro de compute: quitar() no puede descartar el grupo entre la busqueda y el agregado
+        suscriptores.compute(idPedido, (id, grupo) -> {
+            Set<Suscriptor> destino = grupo != null ? grupo : ConcurrentHashMap.newKeySet();
+            destino.add(suscriptor);
+            return destino;
+        });
+
+        PedidoRepository.EstadoActual actual;
+        Long idEntrega;
+        try {
+            actual = pedidoRepository.buscarEstadoActual(idPedido)
+                    .orElseThrow(() -> new IllegalArgumentException("Pedido con ID " + idPedido + " no encontrado."));
+            idEntrega = resolverEntrega(idPedido);
+        } catch (RuntimeException e) {
+            quitar(suscriptor);
+            throw e;
+        }
+        suscriptor.encolarEstado(new EstadoSeguimiento(idPedido, "ESTADO_ACTUAL", actual.getEstado(), null, new Date()));
+        if (idEntrega != null) {
+            PosicionEntrega posicion = ubicaciones.obtenerActual(idEntrega);
+            if (posicion != null) {
+                suscriptor.encolarPosicion(posicion);
+            }
+        }
+        logger.debug("Nuevo seguimiento del pedido {} ({} conexiones)", idPedido, conexiones.get());
+        return suscriptor.emisor;
+    }
+
+    /**
+     * Reparte un cambio de estado a los suscriptores del pedido, una vez confirmado.
+     */
+    @TransactionalEventListener(fallbackExecution = true)
+    public void alCambiarPedido(PedidoCambiado cambio) {
+        repartir(new EstadoSeguimiento(cambio.getIdPedido(), EventoPedido.ESTADO_CAMBIADO, cambio.getEstado(),
+                null, cambio.getFecha()));
+    }
+
+    /**
+     * Reparte la asignacion de un repartidor, una vez confirmada, y empieza a seguir la posicion de su entrega.
+     */
+    @TransactionalEventListener(fallbackExecution = true)
+    public void alAsignarRepartidor(RepartidorAsignado asignacion) {
+        if (!suscriptores.containsKey(asignacion.getIdPedido())) {
+            return;
+        }
+        resolverEntrega(asignacion.getIdPedido());
+        repartir(new EstadoSeguimiento(asignacion.getIdPedido(), EventoPedido.REPARTIDOR_ASIGNADO, asignacion.getEstado(),
+                asignacion.getIdRepartidor(), asignacion.getFecha()));
+    }
+
+    private void repartir(EstadoSeguimiento estado) {
+        Set<Suscriptor> destino = suscriptores.get(estado.getIdPedido());
+        if (destino == null) {
+            return;
+        }
+        for (Suscriptor s : destino) {
+            s.encolarEstado(estado);
+        }
+    }
+
+    /**
+     * Reparte una posicion a los suscriptores del pedido de la entrega; se ignora si nadie la sigue.
+     */
+    @EventListener
+    public void alMoverseEntrega(PosicionEntrega posicion) {
+        Long idPedido = pedidoPorEntrega.get(posicion.idEntrega());
+        if (idPedido == null) {
+            return;
+        }
+        Set<Suscriptor> destino = suscriptores.get(idPedido);
+        if (destino == null) {
+            return;
+        }
+        for (Suscriptor s : destino) {
+            s.encolarPosicion(posicion);
+        }
+    }
+
+    /**
+     * Envia un comentario a cada conexion para que los proxies no la cierren por inactividad
+     * y para detectar clientes que ya se desconectaron.
+     */
+    @Scheduled(fixedDelayString = "${app.seguimiento.heartbeat-ms:15000}")
+    public void latir() {
+        for (Set<Suscriptor> grupo : suscriptores.values()) {
+            for (Suscriptor s : grupo) {
+                s.latidoPendiente.set(true);
+                s.programar();
+            }
+        }
+    }
+
+    private Long resolverEntrega(Long idPedido) {
+        Long idEntrega = entregaRepository.buscarIdPorPedido(idPedido).orElse(null);
+        if (idEntrega != null) {
+            pedidoPorEntrega.put(idEntrega, idPedido);
+            entregaPorPedido.put(idPedido, idEntrega);
+        }
+        return idEntrega;
+    }
+
+    private void quitar(Suscriptor suscriptor) {
+        if (!suscriptor.cerrado.compareAndSet(false, true)) {
+            return;
+        }
+        conexiones.decrementAndGet();
+        desconexiones.incrementAndGet();
+        suscriptores.computeIfPresent(suscriptor.idPedido, (id, grupo) -> {
+            grupo.remove(suscriptor);
+            if (grupo.isEmpty()) {
+                Long idEntrega = entregaPorPedido.remove(id);
+                if (idEntrega != null) {
+                    pedidoPorEntrega.remove(idEntrega, id);
+                }
+                return null;
+            }
+            return grupo;
+        });
+    }
+
+    @PreDestroy
+    void detener() {
+        for (Set<Suscriptor> grupo : suscriptores.values()) {
+            for (Suscriptor s : grupo) {
+                s.emisor.complete();
+            }
+        }
+        envios.shutdown();
+        logger.info("Seguimiento en vivo detenido; se cerraron {} conexiones", conexiones.get());
+    }
+
+    @Override
+    public String getNombreMetricas() {
+        return "pedidos.seguimiento";
+    }
+
+    @Override
+    public Map<String, Number> getMetricas() {
+        Map<String, Number> metricas = new LinkedHashMap<>();
+        metricas.put("conexiones", conexiones.get());
+        metricas.put("pedidosSeguidos", suscriptores.size());
+        metricas.put("estadosEnviados", estadosEnviados.get());
+        metricas.put("posicionesEnviadas", posicionesEnviadas.get());
+        metricas.put("posicionesCombinadas", posicionesCombinadas.get());
+        metricas.put("estadosDescartados", estadosDescartados.get());
+        metricas.put("rechazadas", rechazadas.get());
+        metricas.put("desconexiones", desconexiones.get());
+        return metricas;
+    }
+
+    private final class Suscriptor {
+        private final Long idPedido;
+        private final SseEmitter emisor;
+        private final BlockingQueue<EstadoSeguimiento> estados;
+        private final AtomicReference<PosicionEntrega> posicion = new AtomicReference<>();
+        private final AtomicBoolean latidoPendiente = new AtomicBoolean();
+        private final AtomicBoolean programado = new AtomicBoolean();
+        private final AtomicBoolean cerrado = new AtomicBoolean();
+
+        private Suscriptor(Long idPedido, SseEmitter emisor) {
+            this.idPedido = idPedido;
+            this.emisor = emisor;
+            this.estados = new ArrayBlockingQueue<>(bufferEstados);
+        }
+
+        private void encolarEstado(EstadoSeguimiento estado) {
+            // Con la cola llena se descarta el estado mas antiguo: al cliente le importa el ultimo
+            while (!estados.offer(estado)) {
+                if (estados.poll() != null) {
+                    estadosDescartados.incrementAndGet();
+                }
+            }
+            programar();
+        }
+
+        private void encolarPosicion(PosicionEntrega nueva) {
+            if (posicion.getAndSet(nueva) != null) {
+                posicionesCombinadas.incrementAndGet();
+            }
+            programar();
+        }
+
+        private void programar() {
+            if (!cerrado.get() && programado.compareAndSet(false, true)) {
+                envios.execute(this::enviarPendientes);
+            }
+        }
+
+        private void enviarPendientes() {
+            try {
+                EstadoSeguimiento estado;
+                while ((estado = estados.poll()) != null) {
+                    emisor.send(SseEmitter.event().name("estado").data(estado, MediaType.APPLICATION_JSON));
+                    estadosEnviados.incrementAndGet();
+                }
+                PosicionEntrega ultima = posicion.getAndSet(null);
+                if (ultima != null) {
+                    emisor.send(SseEmitter.event().name("posicion").data(ultima, MediaType.APPLICATION_JSON));
+                    posicionesEnviadas.incrementAndGet();
+                }
+                if (latidoPendiente.getAndSet(false)) {
+                    emisor.send(SseEmitter.event().comment("latido"));
+                }
+            } catch (IOException | IllegalStateException e) {
+                // El cliente se fue o la conexion ya estaba cerrada
+                emisor.completeWithError(e);
+                quitar(this);
+                return;
+            } finally {
+                programado.set(false);
+            }
+            // Lo que llego mientras se enviaba y no alcanzo a programar otro envio
+            if (!estados.isEmpty() || posicion.get() != null) {
+                programar();
+            }
+        }
+    }
+}
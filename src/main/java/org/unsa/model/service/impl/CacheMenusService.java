@@ -0,0 +1,153 @@
+package org.unsa.model.service.impl;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.unsa.model.domain.restaurantes.Plato;
+import org.unsa.model.dtos.MenuRestaurante;
+import org.unsa.model.repository.PlatoRepository;
+import org.unsa.model.service.Interfaces.IFuenteMetricas;
+
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Cache de menus por restaurante, con su JSON ya serializado.
+ * Cada restaurante tiene una version que sube con cada escritura de sus platos; una entrada solo se
+ * sirve si fue cargada con la version vigente, asi que invalidar es incrementar un contador y no hay
+ * ventana en la que una carga concurrente deje un menu viejo. Las entradas expiran por tiempo y, al
+ * superar el maximo, se desalojan en orden de carga.
+ */
+@Service
+public class CacheMenusService implements IFuenteMetricas {
+
+    private static final Logger logger = LoggerFactory.getLogger(CacheMenusService.class);
+
+    private final PlatoRepository platoRepository;
+    private final ObjectMapper objectMapper;
+
+    private final Map<Integer, Entrada> menus = new ConcurrentHashMap<>();
+    private final Map<Integer, AtomicLong> versiones = new ConcurrentHashMap<>();
+    private final Queue<Map.Entry<Integer, Entrada>> ordenCarga = new ConcurrentLinkedQueue<>();
+    // Las versiones empiezan en cero en cada arranque; el prefijo evita repetir un ETag de una ejecucion anterior
+    private final String epoca = Long.toString(System.currentTimeMillis(), 36);
+
+    private final AtomicLong aciertos = new AtomicLong();
+    private final AtomicLong fallos = new AtomicLong();
+    private final AtomicLong desalojos = new AtomicLong();
+    private final AtomicLong expiraciones = new AtomicLong();
+    private final AtomicLong invalidaciones = new AtomicLong();
+
+    @Value("${app.menus.cache.habilitada:true}")
+    private boolean habilitada;
+
+    @Value("${app.menus.cache.max-restaurantes:5000}")
+    private int maxRestaurantes;
+
+    @Value("${app.menus.cache.ttl-segundos:300}")
+    private long ttlSegundos;
+
+    public CacheMenusService(PlatoRepository platoRepository, ObjectMapper objectMapper) {
+        this.platoRepository = platoRepository;
+        this.objectMapper = objectMapper;
+    }
+
+    /**
+     * @return El menu vigente del restaurante, desde la cache o recien cargado.
+     */
+    public MenuRestaurante obtener(Integer idRestaurante) {
+        long versionActual = version(idRestaurante).get();
+        long ahora = System.nanoTime();
+        Entrada entrada = habilitada ? menus.get(idRestaurante) : null;
+        if (entrada != null) {
+            if (entrada.menu.getVersion() == versionActual && !entrada.vencida(ahora)) {
+                aciertos.incrementAndGet();
+                return entrada.menu;
+            }
+            if (menus.remove(idRestaurante, entrada) && entrada.menu.getVersion() == versionActual) {
+                expiraciones.incrementAndGet();
+            }
+        }
+        fallos.incrementAndGet();
+        MenuRestaurante menu = cargar(idRestaurante, versionActual);
+        if (habilitada && version(idRestaurante).get() == versionActual) {
+            Entrada nueva = new Entrada(menu, ahora + TimeUnit.SECONDS.toNanos(ttlSegundos));
+            menus.put(idRestaurante, nueva);
+            ordenCarga.add(Map.entry(idRestaurante, nueva));
+            desalojar();
+        }
+        return menu;
+    }
+
+    /**
+     * Invalida el menu del restaurante; la siguiente lectura lo vuelve a cargar.
+     */
+    public void invalidar(Integer idRestaurante) {
+        version(idRestaurante).incrementAndGet();
+        menus.remove(idRestaurante);
+        invalidaciones.incrementAndGet();
+        logger.debug("Menu del restaurante {} invalidado", idRestaurante);
+    }
+
+    private MenuRestaurante cargar(Integer idRestaurante, long version) {
+        List<Plato> platos = List.copyOf(platoRepository.findByRestauranteId(idRestaurante));
+        try {
+            byte[] json = objectMapper.writeValueAsBytes(platos);
+            return new MenuRestaurante(idRestaurante, version, "\"" + epoca + "-" + idRestaurante + "-" + version + "\"", platos, json);
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("No se pudo serializar el menu del restaurante " + idRestaurante, e);
+        }
+    }
+
+    private void desalojar() {
+        Map.Entry<Integer, Entrada> cabeza;
+        while (menus.size() > maxRestaurantes && (cabeza = ordenCarga.poll()) != null) {
+            if (menus.remove(cabeza.getKey(), cabeza.getValue())) {
+                desalojos.incrementAndGet();
+            }
+        }
+        // Descarta de la cola las entradas que ya fueron reemplazadas o invalidadas
+        while ((cabeza = ordenCarga.peek()) != null && menus.get(cabeza.getKey()) != cabeza.getValue()) {
+            ordenCarga.remove(cabeza);
+        }
+    }
+
+    private AtomicLong version(Integer idRestaurante) {
+        return versiones.computeIfAbsent(idRestaurante, id -> new AtomicLong());
+    }
+
+    @Override
+    public String getNombreMetricas() {
+        return "platillos.menus";
+    }
+
+    @Override
+    public Map<String, Number> getMetricas() {
+        Map<String, Number> metricas = new LinkedHashMap<>();
+        long a = aciertos.get();
+        long f = fallos.get();
+        metricas.put("menusEnCache", menus.size());
+        metricas.put("aciertos", a);
+        metricas.put("fallos", f);
+        metricas.put("tasaAciertos", a + f == 0 ? 0.0 : (double) a / (a + f));
+        metricas.put("desalojos", desalojos.get());
+        metricas.put("expiraciones", expiraciones.get());
+        metricas.put("invalidaciones", invalidaciones.get());
+        return metricas;
+    }
+
+    private record Entrada(MenuRestaurante menu, long venceEn) {
+        private boolean vencida(long ahora) {
+            return ahora - venceEn > 0;
+        }
+    }
+}
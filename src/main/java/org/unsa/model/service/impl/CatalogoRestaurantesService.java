@@ -1,60 +1,46 @@
 // file: src/main/java/org/unsa/service/restaurantes/CatalogoRestaurantesService.java
 package org.unsa.model.service.impl;
 
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
 import org.unsa.model.domain.restaurantes.Restaurante;
-import org.unsa.model.domain.restaurantes.TipoCocina;
+import org.unsa.model.dtos.ResumenRestaurante;
+import org.unsa.model.repository.RestauranteRepository;
+import org.unsa.model.service.busqueda.IndiceRestaurantes;
 
-import java.util.ArrayList;
 import java.util.List;
 import java.util.logging.Logger;
-import java.util.stream.Collectors;
 
 /**
  * Clase de servicio para la gestion y consulta del catalogo de restaurantes.
  * Se encarga de la logica de negocio relacionada con la busqueda y obtencion de restaurantes.
+ * Las busquedas por texto se responden desde {@link IndiceRestaurantes}, que guarda el texto de cada
+ * restaurante ya normalizado y se actualiza cuando un restaurante se guarda o elimina.
  */
+@Service
 public class CatalogoRestaurantesService {
 
     private static final Logger logger = Logger.getLogger(CatalogoRestaurantesService.class.getName());
 
-    // SIMULACION: Lista de restaurantes para propositos de demostracion.
-    // En una aplicacion real, esto interactuaria con un RestauranteRepository.
-    private final List<Restaurante> restaurantesSimulados;
+    private final RestauranteRepository restauranteRepository;
+    private final IndiceRestaurantes indiceRestaurantes;
 
-    /**
-     * Constructor por defecto para la clase CatalogoRestaurantesService.
-     * Inicializa una lista de restaurantes de ejemplo.
-     */
-    public CatalogoRestaurantesService() {
-        this.restaurantesSimulados = new ArrayList<>();
-        // Añadir algunos restaurantes de ejemplo
-        restaurantesSimulados.add(new Restaurante(1, "Pizzeria La Delicia", "Av. Principal 123", "987654321", TipoCocina.ITALIANA));
-        restaurantesSimulados.add(new Restaurante(2, "Antojitos Peruanos", "Calle Falsa 456", "999888777", TipoCocina.PERUANA));
-        restaurantesSimulados.add(new Restaurante(3, "Sushi Master", "Jr. Paz 789", "911223344", TipoCocina.JAPONESA));
-        restaurantesSimulados.add(new Restaurante(4, "El Sabor Mexicano", "Av. Sol 101", "955667788", TipoCocina.MEXICANA));
-
-        logger.info(() -> "Servicio de CatalogoRestaurantesService inicializado con " + restaurantesSimulados.size() + " restaurantes simulados.");
+    public CatalogoRestaurantesService(RestauranteRepository restauranteRepository, IndiceRestaurantes indiceRestaurantes) {
+        this.restauranteRepository = restauranteRepository;
+        this.indiceRestaurantes = indiceRestaurantes;
+        logger.info(() -> "Servicio de CatalogoRestaurantesService inicializado con RestauranteRepository.");
     }
 
     /**
      * Busca restaurantes por un texto dado en su nombre, direccion o tipo de cocina.
-     * @param texto El texto a buscar (puede ser nulo o vacio para obtener todos).
-     * @return Una lista de restaurantes que coinciden con el criterio de busqueda.
+     * @param texto El texto a buscar (puede ser nulo o vacio para obtener los primeros del catalogo).
+     * @param limite Cantidad maxima de resultados.
+     * @return Una lista de restaurantes que coinciden con el criterio de busqueda, con las coincidencias
+     * exactas del nombre primero.
      */
-    public List<Restaurante> buscarPorTexto(String texto) {
-        if (texto == null || texto.trim().isEmpty()) {
-            logger.info(() -> "Busqueda de restaurantes sin texto. Obteniendo todos.");
-            return obtenerTodos();
-        }
-
-        String textoLowerCase = texto.toLowerCase();
-        List<Restaurante> resultados = restaurantesSimulados.stream()
-                .filter(r -> r.getNombre().toLowerCase().contains(textoLowerCase) ||
-                        r.getDireccion().toLowerCase().contains(textoLowerCase) ||
-                        r.getTipoCocina().name().toLowerCase().contains(textoLowerCase)) // Compara con el nombre del enum
-                .collect(Collectors.toList());
-
-        logger.info(() -> "Busqueda por texto '" + texto + "' resulto en " + resultados.size() + " restaurantes.");
+    public List<ResumenRestaurante> buscarPorTexto(String texto, int limite) {
+        List<ResumenRestaurante> resultados = indiceRestaurantes.buscar(texto, limite);
+        logger.fine(() -> "Busqueda por texto '" + texto + "' resulto en " + resultados.size() + " restaurantes.");
         return resultados;
     }
 
@@ -62,9 +48,11 @@ public class CatalogoRestaurantesService {
      * Obtiene una lista de todos los restaurantes disponibles en el catalogo.
      * @return Una lista de todos los objetos Restaurante.
      */
+    @Transactional(readOnly = true)
     public List<Restaurante> obtenerTodos() {
-        logger.info(() -> "Obteniendo todos los " + restaurantesSimulados.size() + " restaurantes.");
-        return new ArrayList<>(restaurantesSimulados); // Retorna una copia para evitar modificacion externa
+        List<Restaurante> restaurantes = restauranteRepository.findAll();
+        logger.info(() -> "Obteniendo todos los " + restaurantes.size() + " restaurantes.");
+        return restaurantes;
     }
 
     // NOTA: Los metodos como 'asignarRepartidorAPedido', 'actualizarEstadoEntrega' y 'crearNuevoPedido'
@@ -0,0 +1,112 @@
+package org.unsa.model.service.impl;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.Limit;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import org.unsa.model.dtos.DetallePedido;
+import org.unsa.model.dtos.PaginaPedidos;
+import org.unsa.model.dtos.ResumenPedido;
+import org.unsa.model.repository.PedidoRepository;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.stream.Stream;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Servicio de consultas de pedidos que devuelve modelos de lectura en lugar de entidades.
+ * Cada caso de uso tiene su propia proyeccion JPQL, de modo que se leen solo las columnas necesarias
+ * y la serializacion no dispara cargas perezosas.
+ * El historial de un cliente se pagina por clave sobre (fechaHoraCreacion, idPedido), apoyado en el indice
+ * (cliente_id, fecha_hora_creacion, id_pedido), de modo que cada pagina cuesta lo mismo sin importar cuan atras este.
+ * El modo de transmision recorre el historial completo con un cursor de base de datos y memoria constante.
+ */
+@Service
+public class ConsultaPedidosService {
+
+    private static final Logger logger = LoggerFactory.getLogger(ConsultaPedidosService.class);
+    private static final byte[] SALTO_LINEA = {'\n'};
+
+    private final PedidoRepository pedidoRepository;
+    private final ObjectMapper objectMapper;
+
+    @Value("${app.pedidos.historial.tamano-maximo:100}")
+    private int tamanoMaximo;
+
+    public ConsultaPedidosService(PedidoRepository pedidoRepository, ObjectMapper objectMapper) {
+        this.pedidoRepository = pedidoRepository;
+        this.objectMapper = objectMapper;
+    }
+
+    /**
+     * Obtiene el detalle de un pedido con dos consultas: la cabecera y sus lineas.
+     * @param idPedido ID del pedido.
+     * @return El detalle, o null si el pedido no existe.
+     */
+    @Transactional(readOnly = true)
+    public DetallePedido obtenerDetalle(Long idPedido) {
+        DetallePedido detalle = pedidoRepository.buscarDetalle(idPedido).orElse(null);
+        if (detalle != null) {
+            detalle.setItems(pedidoRepository.buscarLineasDetalle(idPedido));
+        }
+        return detalle;
+    }
+
+    /**
+     * Obtiene una pagina del historial, del pedido mas reciente al mas antiguo.
+     * @param idCliente ID del cliente.
+     * @param cursor Token devuelto por la pagina anterior, o null para la primera.
+     * @param tamano Cantidad de pedidos por pagina (se acota a app.pedidos.historial.tamano-maximo).
+     * @throws IllegalArgumentException Si el cursor o el tamano no son validos.
+     */
+    @Transactional(readOnly = true)
+    public PaginaPedidos obtenerPagina(Integer idCliente, String cursor, int tamano) {
+        if (tamano <= 0) {
+            throw new IllegalArgumentException("El tamano de pagina debe ser positivo.");
+        }
+        int limite = Math.min(tamano, tamanoMaximo);
+        // Se pide un pedido de mas para saber si hay otra pagina sin hacer un COUNT
+        List<ResumenPedido> pedidos;
+        if (cursor == null || cursor.isBlank()) {
+            pedidos = pedidoRepository.buscarHistorial(idCliente, Limit.of(limite + 1));
+        } else {
+            CursorPedidos posicion = CursorPedidos.decodificar(cursor);
+            pedidos = pedidoRepository.buscarHistorialDespuesDe(idCliente,
+                    posicion.fechaHoraCreacion(), posicion.idPedido(), Limit.of(limite + 1));
+        }
+
+        String siguiente = null;
+        if (pedidos.size() > limite) {
+            pedidos = new ArrayList<>(pedidos.subList(0, limite));
+            siguiente = CursorPedidos.despuesDe(pedidos.getLast()).codificar();
+        }
+        return new PaginaPedidos(pedidos, siguiente);
+    }
+
+    /**
+     * Escribe el historial completo del cliente en formato NDJSON (un resumen de pedido por linea).
+     * @return Cantidad de pedidos escritos.
+     */
+    @Transactional(readOnly = true)
+    public long transmitir(Integer idCliente, OutputStream salida) throws IOException {
+        long escritos = 0;
+        // Las proyecciones no quedan en el contexto de persistencia, asi que la memoria no crece con el historial
+        try (Stream<ResumenPedido> pedidos = pedidoRepository.transmitirHistorial(idCliente)) {
+            Iterator<ResumenPedido> it = pedidos.iterator();
+            while (it.hasNext()) {
+                salida.write(objectMapper.writeValueAsBytes(it.next()));
+                salida.write(SALTO_LINEA);
+                escritos++;
+            }
+        }
+        salida.flush();
+        logger.info("Historial de cliente {} transmitido: {} pedidos", idCliente, escritos);
+        return escritos;
+    }
+}
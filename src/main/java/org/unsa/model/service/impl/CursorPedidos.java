@@ -0,0 +1,37 @@
+package org.unsa.model.service.impl;
+
+import org.unsa.model.dtos.ResumenPedido;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+import java.util.Date;
+
+/**
+ * Posicion de paginacion por clave (keyset) sobre (fechaHoraCreacion, idPedido).
+ * Se codifica como un token opaco en Base64 URL para que el cliente no dependa de su formato.
+ */
+record CursorPedidos(Date fechaHoraCreacion, Long idPedido) {
+
+    static CursorPedidos despuesDe(ResumenPedido pedido) {
+        return new CursorPedidos(pedido.getFechaHoraCreacion(), pedido.getIdPedido());
+    }
+
+    String codificar() {
+        String texto = fechaHoraCreacion.getTime() + ":" + idPedido;
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(texto.getBytes(StandardCharsets.US_ASCII));
+    }
+
+    /**
+     * @throws IllegalArgumentException Si el token no es un cursor valido.
+     */
+    static CursorPedidos decodificar(String token) {
+        try {
+            String texto = new String(Base64.getUrlDecoder().decode(token), StandardCharsets.US_ASCII);
+            int separador = texto.indexOf(':');
+            return new CursorPedidos(new Date(Long.parseLong(texto.substring(0, separador))),
+                    Long.parseLong(texto.substring(separador + 1)));
+        } catch (RuntimeException e) {
+            throw new IllegalArgumentException("Cursor de paginacion invalido: " + token);
+        }
+    }
+}
@@ -0,0 +1,191 @@
+package org.unsa.model.service.impl;
+
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.unsa.model.domain.pedidos.Entrega;
+import org.unsa.model.domain.pedidos.EntregaCambiada;
+import org.unsa.model.domain.pedidos.EstadoEntrega;
+import org.unsa.model.domain.pedidos.EstadoPedido;
+import org.unsa.model.domain.pedidos.EventoPedido;
+import org.unsa.model.domain.pedidos.MaquinaEstadosPedido;
+import org.unsa.model.domain.usuarios.Repartidor;
+import org.unsa.model.dtos.ResumenEntrega;
+import org.unsa.model.repository.EntregaRepository;
+import org.unsa.model.repository.EventoPedidoRepository;
+import org.unsa.model.repository.PedidoRepository;
+import org.unsa.model.repository.RepartidorRepository;
+import org.unsa.model.service.logistica.EntregasActivasService;
+import org.unsa.model.service.logistica.PosicionEntrega;
+import org.unsa.model.service.logistica.UbicacionesEntregaService;
+
+import java.util.Date;
+import java.util.List;
+import java.util.function.Consumer;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Servicio de gestion de entregas.
+ * El pedido sigue a su entrega: al recogerse pasa de LISTO_PARA_RECOGER a EN_CAMINO y al completarse a
+ * ENTREGADO, con la misma actualizacion condicional y el mismo evento de outbox que un cambio de estado del pedido.
+ */
+@Service
+public class GestionEntregasService {
+
+    private static final Logger logger = LoggerFactory.getLogger(GestionEntregasService.class);
+
+    private final UbicacionesEntregaService ubicaciones;
+    private final EntregasActivasService entregasActivas;
+    private final EntregaRepository entregaRepository;
+    private final RepartidorRepository repartidorRepository;
+    private final PedidoRepository pedidoRepository;
+    private final EventoPedidoRepository eventoRepository;
+    private final ApplicationEventPublisher publicador;
+    private final ReintentosConcurrencia reintentos;
+    private final TransactionTemplate transaccion;
+
+    public GestionEntregasService(UbicacionesEntregaService ubicaciones,
+                                  EntregasActivasService entregasActivas,
+                                  EntregaRepository entregaRepository,
+                                  RepartidorRepository repartidorRepository,
+                                  PedidoRepository pedidoRepository,
+                                  EventoPedidoRepository eventoRepository,
+                                  ApplicationEventPublisher publicador,
+                                  ReintentosConcurrencia reintentos,
+                                  PlatformTransactionManager transactionManager) {
+        this.ubicaciones = ubicaciones;
+        this.entregasActivas = entregasActivas;
+        this.entregaRepository = entregaRepository;
+        this.repartidorRepository = repartidorRepository;
+        this.pedidoRepository = pedidoRepository;
+        this.eventoRepository = eventoRepository;
+        this.publicador = publicador;
+        this.reintentos = reintentos;
+        this.transaccion = new TransactionTemplate(transactionManager);
+    }
+
+    /**
+     * Registra la posicion actual del repartidor de una entrega.
+     * No carga la entidad: la posicion queda en memoria, se propaga al indice de despacho y se escribe
+     * en la tabla entregas en el siguiente volcado por lotes.
+     * @throws IllegalArgumentException Si la entrega no existe o las coordenadas no son validas.
+     */
+    public PosicionEntrega actualizarUbicacion(Long idEntrega, double latitud, double longitud) {
+        return ubicaciones.registrar(idEntrega, latitud, longitud);
+    }
+
+    /**
+     * Igual que {@link #actualizarUbicacion(Long, double, double)} con coordenadas en texto "latitud,longitud".
+     */
+    public PosicionEntrega actualizarUbicacion(Long idEntrega, String coordenadas) {
+        return ubicaciones.registrar(idEntrega, coordenadas);
+    }
+
+    /**
+     * @return La ultima posicion conocida del repartidor de la entrega, o null si no hay una reciente.
+     */
+    public PosicionEntrega obtenerUbicacion(Long idEntrega) {
+        return ubicaciones.obtenerActual(idEntrega);
+    }
+
+    /**
+     * @return Las entregas activas del repartidor, servidas desde la cache por repartidor.
+     */
+    public List<ResumenEntrega> obtenerEntregasActivas(Integer idRepartidor) {
+        return entregasActivas.obtener(idRepartidor);
+    }
+
+    /**
+     * @return Las entregas de un pedido, la mas antigua primero.
+     */
+    public List<ResumenEntrega> obtenerEntregasDePedido(Long idPedido) {
+        return entregaRepository.buscarPorPedido(idPedido);
+    }
+
+    /**
+     * Asigna (o reasigna) el repartidor de una entrega.
+     * @throws IllegalArgumentException Si la entrega o el repartidor no existen.
+     */
+    public void asignarRepartidor(Long idEntrega, Integer idRepartidor) {
+        Repartidor repartidor = repartidorRepository.findById(idRepartidor)
+                .orElseThrow(() -> new IllegalArgumentException("Repartidor con ID " + idRepartidor + " no encontrado."));
+        modificar(idEntrega, entrega -> entrega.asignarRepartidor(repartidor));
+    }
+
+    /**
+     * @throws IllegalArgumentException Si la entrega no existe.
+     * @throws IllegalStateException Si la entrega no esta asignada.
+     */
+    public void registrarRecojo(Long idEntrega) {
+        modificar(idEntrega, Entrega::registrarRecojo);
+    }
+
+    /**
+     * @throws IllegalArgumentException Si la entrega no existe.
+     * @throws IllegalStateException Si la entrega no fue recogida.
+     */
+    public void registrarEntrega(Long idEntrega) {
+        modificar(idEntrega, Entrega::registrarEntrega);
+    }
+
+    /**
+     * Avanza la entrega a la siguiente fase (ASIGNADO a RECOGIDO, o RECOGIDO a PROPORCIONADO) con una
+     * actualizacion condicional, sin leer la entidad; lo usan las geocercas, que pueden competir con la app
+     * del repartidor. El {@link EntregaCambiada} se publica en la misma transaccion, como al guardar la entidad.
+     * @return true si se aplico; false si la entrega ya no estaba en la fase indicada.
+     */
+    public boolean avanzarFase(Long idEntrega, EstadoEntrega fase) {
+        if (fase != EstadoEntrega.ASIGNADO && fase != EstadoEntrega.RECOGIDO) {
+            throw new IllegalArgumentException("La fase " + fase + " no tiene una siguiente.");
+        }
+        EstadoEntrega siguiente = fase == EstadoEntrega.ASIGNADO ? EstadoEntrega.RECOGIDO : EstadoEntrega.PROPORCIONADO;
+        return transaccion.execute(estado -> {
+            Date ahora = new Date();
+            int filas = fase == EstadoEntrega.ASIGNADO
+                    ? entregaRepository.marcarRecogida(idEntrega, ahora)
+                    : entregaRepository.marcarEntregada(idEntrega, ahora);
+            if (filas == 0) {
+                return false;
+            }
+            EntregaRepository.DatosCambio datos = entregaRepository.buscarDatosCambio(idEntrega).orElseThrow();
+            publicador.publishEvent(new EntregaCambiada(idEntrega, datos.getIdPedido(), datos.getIdRepartidor(),
+                    datos.getIdRepartidor(), siguiente, datos.getFechaHoraAsignacion(), datos.getFechaHoraRecojo()));
+            propagarAlPedido(datos.getIdPedido(), siguiente);
+            return true;
+        });
+    }
+
+    // Guardar con el repositorio publica los EntregaCambiada de la entidad; si otro cambio subio la version
+    // entre la lectura y el guardado, se relee la entrega y se vuelve a validar el cambio
+    private void modificar(Long idEntrega, Consumer<Entrega> cambio) {
+        reintentos.ejecutar("modificarEntrega", () -> transaccion.executeWithoutResult(estado -> {
+            Entrega entrega = entregaRepository.findById(idEntrega)
+                    .orElseThrow(() -> new IllegalArgumentException("Entrega con ID " + idEntrega + " no encontrada."));
+            cambio.accept(entrega);
+            entregaRepository.save(entrega);
+            propagarAlPedido(entrega.getPedido().getIdPedido(), entrega.getEstado());
+        }));
+    }
+
+    /**
+     * Lleva el pedido al estado que corresponde a la fase de su entrega. Cada paso es condicional al estado
+     * de origen del pedido: si ya avanzo, o aun no estaba listo, no se toca.
+     */
+    private void propagarAlPedido(Long idPedido, EstadoEntrega fase) {
+        if (fase == EstadoEntrega.RECOGIDO || fase == EstadoEntrega.PROPORCIONADO) {
+            transicionarPedido(idPedido, EstadoPedido.EN_CAMINO);
+        }
+        if (fase == EstadoEntrega.PROPORCIONADO) {
+            transicionarPedido(idPedido, EstadoPedido.ENTREGADO);
+        }
+    }
+
+    private void transicionarPedido(Long idPedido, EstadoPedido destino) {
+        if (pedidoRepository.transicionarConRepartidor(idPedido, destino, MaquinaEstadosPedido.origenes(destino)) == 1) {
+            eventoRepository.save(new EventoPedido(idPedido, EventoPedido.ESTADO_CAMBIADO, destino, null));
+            logger.info("Pedido {} pasa a {} con su entrega", idPedido, destino);
+        }
+    }
+}
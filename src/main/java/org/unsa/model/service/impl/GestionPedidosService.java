@@ -3,25 +3,36 @@ package org.unsa.model.service.impl;
 
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
 import org.unsa.model.domain.pedidos.Pedido;
+import org.unsa.model.domain.pedidos.Entrega;
+import org.unsa.model.domain.pedidos.EventoPedido;
 import org.unsa.model.domain.pedidos.ItemPedido;
+import org.unsa.model.domain.pedidos.MaquinaEstadosPedido;
 import org.unsa.model.domain.usuarios.Cliente;
 import org.unsa.model.domain.restaurantes.Restaurante;
-import org.unsa.model.domain.restaurantes.Plato;
-import org.unsa.model.domain.usuarios.Repartidor;
 import org.unsa.model.domain.pedidos.DatosPlatoPedido;
 import org.unsa.model.domain.pedidos.EstadoPedido;
+import org.unsa.model.domain.pedidos.PedidoData;
 import org.unsa.model.domain.usuarios.Direccion;
+import org.unsa.model.exceptions.TransicionInvalidaException;
 import org.unsa.model.service.Interfaces.IPedidoServicio;
+import org.unsa.model.repository.EntregaRepository;
+import org.unsa.model.repository.EventoPedidoRepository;
 import org.unsa.model.repository.PedidoRepository;
 import org.unsa.model.repository.ClienteRepository;
 import org.unsa.model.repository.RestauranteRepository;
 import org.unsa.model.repository.PlatoRepository;
 import org.unsa.model.repository.RepartidorRepository;
 
+import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.List;
-import java.util.Optional;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -38,6 +49,11 @@ public class GestionPedidosService implements IPedidoServicio {
     private final RestauranteRepository restauranteRepository;
     private final PlatoRepository platoRepository;
     private final RepartidorRepository repartidorRepository;
+    private final ResolutorCarrito resolutorCarrito;
+    private final EventoPedidoRepository eventoRepository;
+    private final EntregaRepository entregaRepository;
+    private final ReintentosConcurrencia reintentos;
+    private final TransactionTemplate transaccion;
 
     /**
      * Constructor por defecto para la clase GestionPedidosService.
@@ -48,12 +64,22 @@ public class GestionPedidosService implements IPedidoServicio {
                                  RepartidorRepository repartidorRepository,
                                  ClienteRepository clienteRepository,
                                  RestauranteRepository restauranteRepository,
-                                 PlatoRepository platoRepository) {
+                                 PlatoRepository platoRepository,
+                                 ResolutorCarrito resolutorCarrito,
+                                 EventoPedidoRepository eventoRepository,
+                                 EntregaRepository entregaRepository,
+                                 ReintentosConcurrencia reintentos,
+                                 PlatformTransactionManager transactionManager) {
         this.pedidoRepository = pedidoRepository;
         this.repartidorRepository = repartidorRepository;
         this.clienteRepository = clienteRepository;
         this.restauranteRepository = restauranteRepository;
         this.platoRepository = platoRepository;
+        this.resolutorCarrito = resolutorCarrito;
+        this.eventoRepository = eventoRepository;
+        this.entregaRepository = entregaRepository;
+        this.reintentos = reintentos;
+        this.transaccion = new TransactionTemplate(transactionManager);
         logger.info("Servicio de GestionPedidosService inicializado con repositorios.");
     }
 
@@ -66,6 +92,7 @@ public class GestionPedidosService implements IPedidoServicio {
      * @param instruccionesEspeciales Instrucciones adicionales para el pedido (puede ser nulo).
      * @return El objeto Pedido recien creado.
      * @throws IllegalArgumentException Si los datos proporcionados son invalidos.
+     * @throws org.unsa.model.exceptions.CarritoInvalidoException Si alguna linea del carrito es invalida.
      */
     @Override
     @Transactional // Esto es muy importante para métodos que modifican la DB
@@ -84,25 +111,17 @@ public class GestionPedidosService implements IPedidoServicio {
             Restaurante restaurante = restauranteRepository.findById(idRestaurante)
                     .orElseThrow(() -> new IllegalArgumentException("Restaurante no encontrado con ID: " + idRestaurante));
 
-            Pedido nuevoPedido = new Pedido();
-            nuevoPedido.setCliente(cliente);
-            nuevoPedido.setRestaurante(restaurante);
-            nuevoPedido.setDireccionEntrega(direccionEntrega);
-            nuevoPedido.setInstruccionesEspeciales(instruccionesEspeciales);
-            nuevoPedido.setEstado(EstadoPedido.PENDIENTE);
+            // Todas las lineas del carrito se validan contra una unica consulta de platos
+            List<ItemPedido> items = resolutorCarrito.resolver(restaurante, itemsCarrito);
 
-            for (DatosPlatoPedido itemDto : itemsCarrito) {
-                Plato plato = platoRepository.findById(itemDto.getIdPlato())
-                        .orElseThrow(() -> new IllegalArgumentException("Plato no encontrado con ID: " + itemDto.getIdPlato()));
-
-                ItemPedido item = new ItemPedido();
-                item.setPlato(plato);
-                item.setCantidad(itemDto.getCantidad());
+            PedidoData info = new PedidoData(cliente, restaurante, direccionEntrega, instruccionesEspeciales, new ArrayList<>(items));
+            Pedido nuevoPedido = new Pedido(info, null);
+            for (ItemPedido item : items) {
                 item.setPedido(nuevoPedido);
-                nuevoPedido.getItems().add(item);
             }
 
             Pedido pedidoGuardado = pedidoRepository.save(nuevoPedido);
+            eventoRepository.save(new EventoPedido(pedidoGuardado.getIdPedido(), EventoPedido.PEDIDO_CREADO, pedidoGuardado.getEstado(), null));
 
             logger.info("Pedido creado exitosamente con ID: {}", pedidoGuardado.getIdPedido());
             return pedidoGuardado;
@@ -123,68 +142,133 @@ public class GestionPedidosService implements IPedidoServicio {
         logger.info("Obteniendo pedidos para cliente con ID: {}", idCliente);
         return pedidoRepository.findByCliente_Id(idCliente);
     }
+
+    /**
+     * Carga los pedidos indicados respetando el orden de la lista (por ejemplo, el de una pagina del historial).
+     * Los IDs que no existen se omiten.
+     */
     @Override
-    @Transactional
-    public void actualizarEstadoPedido(Integer idPedido, EstadoPedido nuevoEstado) {
-        logger.info("Actualizando estado del pedido {} a: {}", idPedido, nuevoEstado);
-        Pedido pedido = pedidoRepository.findById(idPedido)
-                .orElseThrow(() -> new IllegalArgumentException("Pedido con ID " + idPedido + " no encontrado."));
-        pedido.actualizarEstado(nuevoEstado); // Asume que este método en Pedido valida la transición
-        pedidoRepository.save(pedido); // Guarda los cambios
-        logger.info("Estado de pedido {} actualizado a {} .", idPedido, nuevoEstado);
+    @Transactional(readOnly = true)
+    public List<Pedido> obtenerPedidosPorIds(List<Long> idsPedidos) {
+        Map<Long, Pedido> porId = new HashMap<>();
+        pedidoRepository.findAllById(idsPedidos).forEach(pedido -> porId.put(pedido.getIdPedido(), pedido));
+        return idsPedidos.stream().map(porId::get).filter(Objects::nonNull).toList();
     }
 
+    /**
+     * Las transiciones sin guardas se aplican con una sola sentencia UPDATE condicionada al estado actual
+     * (ver {@link MaquinaEstadosPedido#origenes}); si no afecta filas, la transicion era ilegal o perdio la carrera.
+     * Las que tienen guardas cargan el pedido y dependen del bloqueo optimista sobre su version,
+     * reintentandose completas si otra transaccion lo modifico antes.
+     * En ambos casos el evento del cambio se agrega al outbox (eventos_pedido) en la misma transaccion.
+     */
     @Override
-    @Transactional
-    public void asignarRepartidorAPedido(Integer idPedido, Integer idRepartidor) {
-        Optional<Pedido> pedidoOpt = pedidoRepository.findById(idPedido);
-        Optional<Repartidor> repartidorOpt = repartidorRepository.findById(idRepartidor);
-
-        if (pedidoOpt.isEmpty()) {
-            throw new IllegalArgumentException("Pedido con ID " + idPedido + " no encontrado.");
+    public void actualizarEstadoPedido(Long idPedido, EstadoPedido nuevoEstado) {
+        logger.info("Actualizando estado del pedido {} a: {}", idPedido, nuevoEstado);
+        if (MaquinaEstadosPedido.tieneGuardas(nuevoEstado)) {
+            reintentos.ejecutar("actualizarEstadoPedido", () -> transaccion.executeWithoutResult(estado -> {
+                Pedido pedido = pedidoRepository.findById(idPedido)
+                        .orElseThrow(() -> new IllegalArgumentException("Pedido con ID " + idPedido + " no encontrado."));
+                pedido.actualizarEstado(nuevoEstado); // Valida la transicion y sus guardas
+                pedidoRepository.save(pedido); // Guarda los cambios
+                eventoRepository.save(new EventoPedido(idPedido, EventoPedido.ESTADO_CAMBIADO, nuevoEstado, null));
+            }));
+        } else {
+            transicionar(idPedido, null, nuevoEstado);
         }
+        logger.info("Estado de pedido {} actualizado a {} .", idPedido, nuevoEstado);
+    }
 
-        if (repartidorOpt.isEmpty()) {
-            throw new IllegalArgumentException("Repartidor con ID " + idRepartidor + " no encontrado.");
+    /**
+     * Aplica una transicion sin guardas con una actualizacion condicional.
+     * @param idCliente Si no es nulo, la transicion solo se aplica si el pedido pertenece a este cliente.
+     * @throws IllegalArgumentException Si el pedido no existe o no pertenece al cliente.
+     * @throws TransicionInvalidaException Si el estado actual no permite la transicion.
+     */
+    private void transicionar(Long idPedido, Integer idCliente, EstadoPedido destino) {
+        Set<EstadoPedido> origenes = MaquinaEstadosPedido.origenes(destino);
+        int filas = origenes.isEmpty() ? 0 : transaccion.execute(estado -> {
+            int actualizadas = idCliente == null
+                    ? pedidoRepository.transicionar(idPedido, destino, origenes)
+                    : pedidoRepository.transicionarDeCliente(idPedido, idCliente, destino, origenes);
+            if (actualizadas == 1) {
+                eventoRepository.save(new EventoPedido(idPedido, EventoPedido.ESTADO_CAMBIADO, destino, null));
+            }
+            return actualizadas;
+        });
+        if (filas == 1) {
+            return;
         }
+        // No se aplico: se consulta solo lo necesario para explicar el motivo
+        PedidoRepository.EstadoActual actual = pedidoRepository.buscarEstadoActual(idPedido)
+                .orElseThrow(() -> new IllegalArgumentException("Pedido con ID " + idPedido + " no encontrado."));
+        if (idCliente != null && !idCliente.equals(actual.getIdCliente())) {
+            throw new IllegalArgumentException("El usuario " + idCliente + " no tiene permiso para modificar el pedido " + idPedido + " (no es el cliente asociado).");
+        }
+        throw new TransicionInvalidaException("El pedido " + idPedido + " no puede pasar de " + actual.getEstado() + " a " + destino + ".");
+    }
 
-        Pedido pedido = pedidoOpt.get();
-        Repartidor repartidor = repartidorOpt.get();
+    /**
+     * Asigna el repartidor con una actualizacion condicional (el pedido debe seguir sin repartidor y en un estado
+     * de {@link MaquinaEstadosPedido#ADMITEN_REPARTIDOR}) y crea su {@link Entrega} asignada en la misma transaccion.
+     * @throws IllegalArgumentException Si el pedido o el repartidor no existen.
+     * @throws TransicionInvalidaException Si el pedido ya tiene repartidor o su estado no admite uno.
+     */
+    @Override
+    public void asignarRepartidorAPedido(Long idPedido, Integer idRepartidor) {
+        transaccion.executeWithoutResult(estado -> {
+            if (!repartidorRepository.existsById(idRepartidor)) {
+                throw new IllegalArgumentException("Repartidor con ID " + idRepartidor + " no encontrado.");
+            }
+            int filas = pedidoRepository.asignarRepartidor(idPedido, repartidorRepository.getReferenceById(idRepartidor),
+                    MaquinaEstadosPedido.ADMITEN_REPARTIDOR);
+            PedidoRepository.EstadoActual actual = pedidoRepository.buscarEstadoActual(idPedido)
+                    .orElseThrow(() -> new IllegalArgumentException("Pedido con ID " + idPedido + " no encontrado."));
+            if (filas == 0) {
+                throw new TransicionInvalidaException("El pedido " + idPedido + " ya tiene repartidor o su estado ("
+                        + actual.getEstado() + ") no admite asignarle uno.");
+            }
+            // La actualizacion limpio el contexto: las referencias se obtienen despues
+            Entrega entrega = new Entrega(pedidoRepository.getReferenceById(idPedido));
+            entrega.asignarRepartidor(repartidorRepository.getReferenceById(idRepartidor));
+            entregaRepository.save(entrega);
+            eventoRepository.save(new EventoPedido(idPedido, EventoPedido.REPARTIDOR_ASIGNADO, actual.getEstado(), idRepartidor));
+        });
+        logger.info("Repartidor {} asignado al pedido {}", idRepartidor, idPedido);
+    }
 
-        pedido.setRepartidor(repartidor);
-        pedidoRepository.save(pedido);
+    /**
+     * Deja el pedido sin repartidor para volver a despacharlo, solo si aun lo tiene el repartidor indicado
+     * y su estado admite asignar otro. Sus entregas anteriores no se tocan.
+     * @return true si se quito el repartidor.
+     */
+    @Override
+    public boolean quitarRepartidorDePedido(Long idPedido, Integer idRepartidor) {
+        int filas = transaccion.execute(estado ->
+                pedidoRepository.quitarRepartidor(idPedido, idRepartidor, MaquinaEstadosPedido.ADMITEN_REPARTIDOR));
+        if (filas > 0) {
+            logger.info("Repartidor {} quitado del pedido {}", idRepartidor, idPedido);
+        }
+        return filas > 0;
     }
 
     @Override
-    @Transactional
-    public void cancelarPedido(Integer idPedido, Integer idUsuario) {
+    public void cancelarPedido(Long idPedido, Integer idUsuario) {
         logger.info("Cancelando pedido {} por usuario {}", idPedido, idUsuario);
-        Pedido pedido = pedidoRepository.findById(idPedido)
-                .orElseThrow(() -> new IllegalArgumentException("Pedido con ID " + idPedido + " no encontrado para cancelar."));
-        if (pedido.getCliente() == null) {
-            throw new IllegalStateException("El pedido con ID " + idPedido + " no tiene un cliente asociado.");
-        }
-        if (!pedido.getCliente().getId().equals(idUsuario)) {
-            throw new IllegalArgumentException("El usuario " + idUsuario + " no tiene permiso para cancelar el pedido " + idPedido + " (no es el cliente asociado).");
-        }
-        pedido.actualizarEstado(EstadoPedido.CANCELADO);
-        pedidoRepository.save(pedido);
+        transicionar(idPedido, idUsuario, EstadoPedido.CANCELADO);
         logger.info("Pedido {} cancelado por usuario {}.", idPedido, idUsuario);
     }
 
     @Override
-    @Transactional
-    public void confirmarEntrega(Integer idPedido) {
+    public void confirmarEntrega(Long idPedido) {
         logger.info("Confirmando entrega del pedido {}", idPedido);
-        Pedido pedido = pedidoRepository.findById(idPedido)
-                .orElseThrow(() -> new IllegalArgumentException("Pedido con ID " + idPedido + " no encontrado para confirmar entrega."));
-        pedido.actualizarEstado(EstadoPedido.ENTREGADO); // Asume que este método en Pedido actualiza a ENTREGADO
-        pedidoRepository.save(pedido);
+        actualizarEstadoPedido(idPedido, EstadoPedido.ENTREGADO);
         logger.info("Pedido {} confirmado como ENTREGADO.", idPedido);
     }
+
     @Override
     @Transactional(readOnly = true)
-    public Pedido obtenerPedidoPorId(Integer idPedido) {
+    public Pedido obtenerPedidoPorId(Long idPedido) {
         logger.info("Obteniendo pedido con ID: {}", idPedido);
         // Asegúrate de que la lógica no esté comentada o malformada
         return pedidoRepository.findById(idPedido).orElse(null);
@@ -4,8 +4,11 @@ package org.unsa.model.service.impl;
 import org.unsa.model.domain.restaurantes.Plato;
 import org.unsa.model.domain.restaurantes.Dinero;
 import org.unsa.model.domain.restaurantes.Restaurante;
+import org.unsa.model.dtos.MenuRestaurante;
+import org.unsa.model.dtos.ResultadoBusquedaPlato;
 import org.unsa.model.repository.PlatoRepository;
 import org.unsa.model.repository.RestauranteRepository;
+import org.unsa.model.service.busqueda.IndicePlatos;
 import org.unsa.service.interfaces.IPlatilloServicio;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
@@ -25,6 +28,12 @@ public class GestionPlatillosService implements IPlatilloServicio {
     @Autowired
     private RestauranteRepository restauranteRepository;
 
+    @Autowired
+    private CacheMenusService cacheMenus;
+
+    @Autowired
+    private IndicePlatos indicePlatos;
+
     @Override
     public Plato crearPlatillo(Integer idRestaurante, String nombre, String descripcion, Dinero precio) {
         var restaurante = restauranteRepository.findById(idRestaurante)
@@ -37,17 +46,35 @@ public class GestionPlatillosService implements IPlatilloServicio {
         plato.setRestaurante(restaurante);
 
         Plato guardado = platoRepository.save(plato);
+        cacheMenus.invalidar(idRestaurante);
+        indicePlatos.indexar(guardado);
         logger.info("Platillo creado con ID {} para restaurante {}", guardado.getIdPlato(), idRestaurante);
         return guardado;
     }
 
     @Override
     public List<Plato> listarPlatillosPorRestaurante(Integer idRestaurante) {
-        List<Plato> platos = platoRepository.findByRestauranteId(idRestaurante);
-        logger.info("Se listaron {} platillos para el restaurante {}", platos.size(), idRestaurante);
+        List<Plato> platos = cacheMenus.obtener(idRestaurante).getPlatos();
+        logger.debug("Se listaron {} platillos para el restaurante {}", platos.size(), idRestaurante);
         return platos;
     }
 
+    /**
+     * @return El menu del restaurante con su JSON serializado y su ETag, desde la cache de menus.
+     */
+    @Override
+    public MenuRestaurante obtenerMenu(Integer idRestaurante) {
+        return cacheMenus.obtener(idRestaurante);
+    }
+
+    /**
+     * @return Los platos que coinciden con la consulta, desde el indice en memoria y ordenados por relevancia.
+     */
+    @Override
+    public List<ResultadoBusquedaPlato> buscarPlatillos(String consulta, int limite) {
+        return indicePlatos.buscar(consulta, limite);
+    }
+
     @Override
     public Plato verDetallePlatillo(Integer idPlatillo) {
         return platoRepository.findById(idPlatillo)
@@ -71,18 +98,23 @@ public class GestionPlatillosService implements IPlatilloServicio {
         plato.setDisponible(disponible);
 
         Plato actualizado = platoRepository.save(plato);
+        cacheMenus.invalidar(actualizado.getRestaurante().getId());
+        indicePlatos.indexar(actualizado);
         logger.info("Platillo ID {} actualizado: nombre='{}', disponible={}", idPlatillo, nombre, disponible);
         return actualizado;
     }
 
     @Override
     public void eliminarPlatillo(Integer idPlatillo) {
-        if (!platoRepository.existsById(idPlatillo)) {
-            logger.warn("Intento de eliminar platillo inexistente con ID {}", idPlatillo);
-            throw new IllegalArgumentException("Platillo no encontrado");
-        }
+        var plato = platoRepository.findById(idPlatillo)
+                .orElseThrow(() -> {
+                    logger.warn("Intento de eliminar platillo inexistente con ID {}", idPlatillo);
+                    return new IllegalArgumentException("Platillo no encontrado");
+                });
 
-        platoRepository.deleteById(idPlatillo);
+        platoRepository.delete(plato);
+        cacheMenus.invalidar(plato.getRestaurante().getId());
+        indicePlatos.eliminar(idPlatillo);
         logger.info("Platillo con ID {} eliminado", idPlatillo);
     }
 
@@ -95,7 +127,9 @@ public class GestionPlatillosService implements IPlatilloServicio {
                 });
 
         plato.setDisponible(disponible);
-        platoRepository.save(plato);
+        Plato guardado = platoRepository.save(plato);
+        cacheMenus.invalidar(plato.getRestaurante().getId());
+        indicePlatos.indexar(guardado);
         logger.info("Platillo '{}' marcado como {}", plato.getNombre(), disponible ? "disponible" : "no disponible");
     }
 }
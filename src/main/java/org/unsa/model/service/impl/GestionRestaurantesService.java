@@ -0,0 +1,156 @@
+package org.unsa.model.service.impl;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import org.unsa.model.domain.restaurantes.HorarioAtencion;
+import org.unsa.model.domain.restaurantes.Restaurante;
+import org.unsa.model.domain.restaurantes.TipoCocina;
+import org.unsa.model.dtos.PaginaRestaurantes;
+import org.unsa.model.dtos.ResumenRestaurante;
+import org.unsa.model.repository.RestauranteRepository;
+import org.unsa.model.service.busqueda.IndiceHorarios;
+import org.unsa.service.interfaces.IRestauranteServicio;
+
+import java.time.Instant;
+import java.util.Arrays;
+import java.util.List;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Clase de servicio para la gestion de restaurantes.
+ * Cada guardado o eliminacion publica un RestauranteCambiado, con el que los indices de busqueda y de
+ * horarios se actualizan despues de confirmada la transaccion.
+ */
+@Service
+public class GestionRestaurantesService implements IRestauranteServicio {
+
+    private static final Logger logger = LoggerFactory.getLogger(GestionRestaurantesService.class);
+
+    private final RestauranteRepository restauranteRepository;
+    private final CatalogoRestaurantesService catalogo;
+    private final IndiceHorarios indiceHorarios;
+
+    @Value("${app.horarios.tamano-maximo:100}")
+    private int tamanoMaximo;
+
+    public GestionRestaurantesService(RestauranteRepository restauranteRepository,
+                                      CatalogoRestaurantesService catalogo,
+                                      IndiceHorarios indiceHorarios) {
+        this.restauranteRepository = restauranteRepository;
+        this.catalogo = catalogo;
+        this.indiceHorarios = indiceHorarios;
+    }
+
+    @Override
+    @Transactional
+    public Restaurante registrarRestaurante(String nombre, String direccion, String telefono, TipoCocina tipoCocina) {
+        Restaurante guardado = restauranteRepository.save(new Restaurante(null, nombre, direccion, telefono, tipoCocina));
+        logger.info("Restaurante registrado con ID {}", guardado.getId());
+        return guardado;
+    }
+
+    @Override
+    public List<ResumenRestaurante> buscarRestaurantes(String query, int limite) {
+        return catalogo.buscarPorTexto(query, limite);
+    }
+
+    @Override
+    public List<Restaurante> obtenerTodosRestaurantes() {
+        return catalogo.obtenerTodos();
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public Restaurante verDetalleRestaurante(String idRestaurante) {
+        return buscar(idRestaurante);
+    }
+
+    @Override
+    @Transactional
+    public Restaurante actualizarRestaurante(String idRestaurante, String nombre, String direccion, String telefono, TipoCocina tipoCocina) {
+        Restaurante restaurante = buscar(idRestaurante);
+        if (nombre != null && !nombre.trim().isEmpty()) {
+            restaurante.setNombre(nombre);
+        }
+        restaurante.setDireccion(direccion);
+        restaurante.setTelefono(telefono);
+        if (tipoCocina != null) {
+            restaurante.setTipoCocina(tipoCocina);
+        }
+        Restaurante actualizado = restauranteRepository.save(restaurante);
+        logger.info("Restaurante {} actualizado", idRestaurante);
+        return actualizado;
+    }
+
+    @Override
+    @Transactional
+    public void eliminarRestaurante(String idRestaurante) {
+        restauranteRepository.delete(buscar(idRestaurante));
+        logger.info("Restaurante {} eliminado", idRestaurante);
+    }
+
+    /**
+     * Reemplaza el horario del dia indicado. El indice de restaurantes abiertos se actualiza solo para
+     * este restaurante al confirmarse la transaccion.
+     */
+    @Override
+    @Transactional
+    public void actualizarHorarioRestaurante(String idRestaurante, HorarioAtencion horario) {
+        Restaurante restaurante = buscar(idRestaurante);
+        restaurante.actualizarHorario(horario);
+        restauranteRepository.save(restaurante);
+        logger.info("Horario del restaurante {} actualizado: {}", idRestaurante, horario);
+    }
+
+    /**
+     * Obtiene una pagina de los restaurantes abiertos en este momento, segun el indice de horarios.
+     * Solo los IDs de la pagina se consultan en la base de datos.
+     * @param cursor Token devuelto por la pagina anterior, o null para la primera.
+     * @param tamano Cantidad de restaurantes por pagina (se acota a app.horarios.tamano-maximo).
+     * @throws IllegalArgumentException Si el cursor o el tamano no son validos.
+     */
+    @Override
+    @Transactional(readOnly = true)
+    public PaginaRestaurantes obtenerRestaurantesAbiertos(String cursor, int tamano) {
+        if (tamano <= 0) {
+            throw new IllegalArgumentException("El tamano de pagina debe ser positivo.");
+        }
+        int despuesDe;
+        try {
+            despuesDe = cursor == null || cursor.isBlank() ? Integer.MIN_VALUE : Integer.parseInt(cursor);
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("Cursor invalido: " + cursor);
+        }
+        int[] ids = indiceHorarios.abiertosEn(Instant.now());
+        Arrays.sort(ids);
+        logger.debug("{} restaurantes abiertos ahora", ids.length);
+
+        // El cursor es el ultimo ID de la pagina anterior; la pagina sigue desde el primero mayor
+        int desde = Arrays.binarySearch(ids, despuesDe);
+        desde = desde >= 0 ? desde + 1 : -desde - 1;
+        int hasta = Math.min(ids.length, desde + Math.min(tamano, tamanoMaximo));
+        if (desde >= hasta) {
+            return new PaginaRestaurantes(List.of(), null);
+        }
+        List<ResumenRestaurante> restaurantes = restauranteRepository.buscarResumenes(
+                Arrays.stream(ids, desde, hasta).boxed().toList());
+        String siguiente = hasta < ids.length ? String.valueOf(ids[hasta - 1]) : null;
+        return new PaginaRestaurantes(restaurantes, siguiente);
+    }
+
+    private Restaurante buscar(String idRestaurante) {
+        Integer id;
+        try {
+            id = Integer.valueOf(idRestaurante);
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("ID de restaurante invalido: " + idRestaurante);
+        }
+        return restauranteRepository.findById(id)
+                .orElseThrow(() -> {
+                    logger.warn("Restaurante con ID {} no encontrado", idRestaurante);
+                    return new IllegalArgumentException("Restaurante no encontrado");
+                });
+    }
+}
@@ -0,0 +1,281 @@
+package org.unsa.model.service.impl;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.unsa.model.domain.pedidos.ClaveIdempotencia;
+import org.unsa.model.domain.pedidos.Pedido;
+import org.unsa.model.exceptions.ClaveIdempotenciaReutilizadaException;
+import org.unsa.model.exceptions.OperacionEnCursoException;
+import org.unsa.model.repository.ClaveIdempotenciaRepository;
+import org.unsa.model.repository.PedidoRepository;
+
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Date;
+import java.util.HexFormat;
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.function.Supplier;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Servicio que hace idempotente la creacion de pedidos a partir del encabezado Idempotency-Key.
+ * Usa una cache concurrente acotada y con expiracion (clave a resultado); los reintentos concurrentes
+ * de una clave en curso esperan el resultado del primero. Para claves que ya salieron de la cache,
+ * o que llegan a otra instancia, la tabla claves_idempotencia actua como respaldo mediante su clave unica.
+ * Cada clave guarda la huella (SHA-256) del cuerpo original; un reintento con otro cuerpo se rechaza.
+ * La espera de un reintento concurrente esta acotada, y una reserva que nunca recibio su pedido
+ * (la instancia fallo a mitad de la creacion) se libera despues de {@code app.idempotencia.reserva-max-segundos}.
+ */
+@Service
+public class IdempotenciaPedidosService {
+
+    private static final Logger logger = LoggerFactory.getLogger(IdempotenciaPedidosService.class);
+
+    // Claves en curso que se reencolan en cada desalojo como maximo, para no recorrer toda la cola
+    private static final int MAX_REENCOLADAS = 64;
+
+    private final ClaveIdempotenciaRepository claveRepository;
+    private final PedidoRepository pedidoRepository;
+    private final ObjectMapper objectMapper;
+    private final TransactionTemplate transaccion;
+    private final TransactionTemplate transaccionNueva;
+
+    private final Map<String, Entrada> cache = new ConcurrentHashMap<>();
+    // Orden de insercion; como el TTL es uniforme tambien es el orden de expiracion
+    private final Queue<Map.Entry<String, Entrada>> ordenInsercion = new ConcurrentLinkedQueue<>();
+
+    @Value("${app.idempotencia.cache.max-entradas:100000}")
+    private int maxEntradas;
+
+    @Value("${app.idempotencia.cache.ttl-segundos:600}")
+    private long ttlCacheSegundos;
+
+    @Value("${app.idempotencia.tabla.ttl-horas:24}")
+    private long ttlTablaHoras;
+
+    @Value("${app.idempotencia.espera-max-ms:10000}")
+    private long esperaMaxMs;
+
+    @Value("${app.idempotencia.reserva-max-segundos:60}")
+    private long reservaMaxSegundos;
+
+    public IdempotenciaPedidosService(ClaveIdempotenciaRepository claveRepository,
+                                      PedidoRepository pedidoRepository,
+                                      ObjectMapper objectMapper,
+                                      PlatformTransactionManager transactionManager) {
+        this.claveRepository = claveRepository;
+        this.pedidoRepository = pedidoRepository;
+        this.objectMapper = objectMapper;
+        this.transaccion = new TransactionTemplate(transactionManager);
+        this.transaccionNueva = new TransactionTemplate(transactionManager);
+        this.transaccionNueva.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+    }
+
+    /**
+     * Ejecuta la creacion de un pedido una sola vez por clave.
+     * @param clave Clave de idempotencia (ya acotada al cliente que la envia).
+     * @param solicitud Cuerpo de la peticion; su huella debe coincidir con la del primer uso de la clave.
+     * @param creacion Operacion que crea el pedido.
+     * @return El pedido creado por la primera ejecucion con esta clave.
+     * @throws OperacionEnCursoException Si otra ejecucion con la misma clave sigue en curso.
+     * @throws ClaveIdempotenciaReutilizadaException Si la clave ya se uso con otro cuerpo.
+     */
+    public Pedido ejecutar(String clave, Object solicitud, Supplier<Pedido> creacion) {
+        String huella = huellaDe(solicitud);
+        long ahora = System.nanoTime();
+        Entrada existente = cache.get(clave);
+        if (existente != null && existente.vencida(ahora) && existente.resultado.isDone()) {
+            cache.remove(clave, existente);
+            existente = null;
+        }
+        if (existente != null) {
+            logger.info("Clave de idempotencia {} encontrada en cache; se reutiliza el resultado", clave);
+            return esperar(clave, huella, existente);
+        }
+
+        Entrada nueva = new Entrada(huella, ahora + TimeUnit.SECONDS.toNanos(ttlCacheSegundos));
+        Entrada anterior = cache.putIfAbsent(clave, nueva);
+        if (anterior != null) {
+            logger.info("Clave de idempotencia {} en curso; se espera el primer resultado", clave);
+            return esperar(clave, huella, anterior);
+        }
+        ordenInsercion.add(Map.entry(clave, nueva));
+        desalojar(ahora);
+
+        try {
+            Pedido pedido = ejecutarConRespaldo(clave, huella, creacion);
+            nueva.resultado.complete(pedido);
+            return pedido;
+        } catch (RuntimeException e) {
+            // Un fallo no se recuerda: el siguiente reintento vuelve a intentar la creacion
+            cache.remove(clave, nueva);
+            nueva.resultado.completeExceptionally(e);
+            throw e;
+        }
+    }
+
+    private Pedido ejecutarConRespaldo(String clave, String huella, Supplier<Pedido> creacion) {
+        ClaveIdempotencia registrada = reservar(clave, huella);
+        if (registrada != null) {
+            // Las claves registradas antes de guardar huellas no la tienen y se aceptan
+            if (registrada.getHuella() != null && !registrada.getHuella().equals(huella)) {
+                throw reutilizada(clave);
+            }
+            if (registrada.getIdPedido() == null) {
+                throw new OperacionEnCursoException("Ya se esta procesando un pedido con la clave de idempotencia " + clave);
+            }
+            logger.info("Clave de idempotencia {} encontrada en la tabla; pedido {}", clave, registrada.getIdPedido());
+            return pedidoRepository.findById(registrada.getIdPedido())
+                    .orElseThrow(() -> new IllegalStateException("Pedido " + registrada.getIdPedido() + " de la clave " + clave + " no existe."));
+        }
+
+        try {
+            // El pedido y la asociacion con la clave se confirman en la misma transaccion
+            return transaccion.execute(estado -> {
+                Pedido pedido = creacion.get();
+                claveRepository.asignarPedido(clave, pedido.getIdPedido());
+                return pedido;
+            });
+        } catch (RuntimeException e) {
+            transaccionNueva.executeWithoutResult(estado -> claveRepository.deleteById(clave));
+            throw e;
+        }
+    }
+
+    /**
+     * Inserta la clave en su propia transaccion. Si la clave esta reservada sin pedido desde hace mas de
+     * {@code reservaMaxSegundos}, la reserva se considera abandonada: se libera y se vuelve a intentar una vez.
+     * @return null si la clave quedo reservada para esta ejecucion, o el registro existente si ya estaba usada.
+     */
+    private ClaveIdempotencia reservar(String clave, String huella) {
+        ClaveIdempotencia existente = null;
+        for (int intento = 0; intento < 2; intento++) {
+            try {
+                transaccionNueva.executeWithoutResult(estado -> claveRepository.saveAndFlush(new ClaveIdempotencia(clave, huella)));
+                return null;
+            } catch (DataIntegrityViolationException e) {
+                existente = transaccionNueva.execute(estado -> claveRepository.findById(clave).orElse(null));
+            }
+            Date limite = limiteReservas();
+            if (existente == null || existente.getIdPedido() != null || !existente.getFechaCreacion().before(limite)) {
+                break;
+            }
+            Integer liberadas = transaccionNueva.execute(estado -> claveRepository.liberarReservaVencida(clave, limite));
+            logger.warn("Reserva abandonada de la clave de idempotencia {} liberada ({} filas)", clave, liberadas);
+        }
+        return existente;
+    }
+
+    private Pedido esperar(String clave, String huella, Entrada entrada) {
+        if (!entrada.huella.equals(huella)) {
+            throw reutilizada(clave);
+        }
+        try {
+            return entrada.resultado.get(esperaMaxMs, TimeUnit.MILLISECONDS);
+        } catch (TimeoutException e) {
+            throw new OperacionEnCursoException("El pedido con la clave de idempotencia " + clave + " sigue en proceso");
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new OperacionEnCursoException("Se interrumpio la espera del pedido con la clave de idempotencia " + clave);
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof RuntimeException causa) {
+                throw causa;
+            }
+            throw new CompletionException(e.getCause());
+        }
+    }
+
+    private static ClaveIdempotenciaReutilizadaException reutilizada(String clave) {
+        return new ClaveIdempotenciaReutilizadaException("La clave de idempotencia " + clave + " ya se uso con otro contenido");
+    }
+
+    /**
+     * Desaloja por antiguedad las entradas vencidas o que exceden el maximo. Las que siguen en curso no se
+     * desalojan, porque sus reintentos deben esperar el resultado en lugar de ir a la tabla y recibir 409;
+     * se reencolan al final.
+     */
+    private void desalojar(long ahora) {
+        int reencoladas = 0;
+        Map.Entry<String, Entrada> cabeza;
+        while ((cabeza = ordenInsercion.peek()) != null
+                && (cache.size() > maxEntradas || cabeza.getValue().vencida(ahora))) {
+            if (!ordenInsercion.remove(cabeza)) {
+                continue;
+            }
+            if (cabeza.getValue().resultado.isDone()) {
+                cache.remove(cabeza.getKey(), cabeza.getValue());
+            } else {
+                ordenInsercion.add(cabeza);
+                if (++reencoladas >= MAX_REENCOLADAS) {
+                    break;
+                }
+            }
+        }
+    }
+
+    private Date limiteReservas() {
+        return new Date(System.currentTimeMillis() - TimeUnit.SECONDS.toMillis(reservaMaxSegundos));
+    }
+
+    /**
+     * @return SHA-256 en hexadecimal del cuerpo serializado con el ObjectMapper de la aplicacion.
+     */
+    private String huellaDe(Object solicitud) {
+        try {
+            byte[] cuerpo = objectMapper.writeValueAsBytes(solicitud);
+            return HexFormat.of().formatHex(MessageDigest.getInstance("SHA-256").digest(cuerpo));
+        } catch (JsonProcessingException e) {
+            throw new IllegalArgumentException("No se pudo calcular la huella de la solicitud: " + e.getOriginalMessage(), e);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 no disponible", e);
+        }
+    }
+
+    /**
+     * Limpia periodicamente la cache y las claves vencidas de la tabla de respaldo.
+     */
+    @Scheduled(fixedDelayString = "${app.idempotencia.limpieza-ms:60000}")
+    public void limpiar() {
+        desalojar(System.nanoTime());
+        Date limite = new Date(System.currentTimeMillis() - TimeUnit.HOURS.toMillis(ttlTablaHoras));
+        Integer eliminadas = transaccion.execute(estado -> claveRepository.eliminarAnterioresA(limite));
+        if (eliminadas != null && eliminadas > 0) {
+            logger.info("Se eliminaron {} claves de idempotencia vencidas", eliminadas);
+        }
+        Integer liberadas = transaccion.execute(estado -> claveRepository.liberarReservasVencidas(limiteReservas()));
+        if (liberadas != null && liberadas > 0) {
+            logger.warn("Se liberaron {} reservas de idempotencia abandonadas", liberadas);
+        }
+    }
+
+    private static final class Entrada {
+        private final CompletableFuture<Pedido> resultado = new CompletableFuture<>();
+        private final String huella;
+        private final long venceEn;
+
+        private Entrada(String huella, long venceEn) {
+            this.huella = huella;
+            this.venceEn = venceEn;
+        }
+
+        private boolean vencida(long ahora) {
+            return ahora - venceEn > 0;
+        }
+    }
+}
@@ -0,0 +1,386 @@
+package org.unsa.model.service.impl;
+
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.unsa.model.domain.pedidos.DatosPlatoPedido;
+import org.unsa.model.domain.pedidos.EventoPedido;
+import org.unsa.model.domain.pedidos.ItemPedido;
+import org.unsa.model.domain.pedidos.Pedido;
+import org.unsa.model.domain.pedidos.PedidoData;
+import org.unsa.model.domain.restaurantes.Dinero;
+import org.unsa.model.domain.restaurantes.Plato;
+import org.unsa.model.domain.restaurantes.Restaurante;
+import org.unsa.model.domain.usuarios.Cliente;
+import org.unsa.model.domain.usuarios.Direccion;
+import org.unsa.model.dtos.CrearPedidoRequest;
+import org.unsa.model.dtos.ResultadoLineaPedido;
+import org.unsa.model.ids.GeneradorIdTemporal;
+import org.unsa.model.repository.ClienteRepository;
+import org.unsa.model.repository.RestauranteRepository;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.io.PushbackInputStream;
+import java.nio.charset.StandardCharsets;
+import java.sql.PreparedStatement;
+import java.sql.Timestamp;
+import java.sql.Types;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Servicio para la carga masiva de pedidos enviada por sistemas externos.
+ * Lee el cuerpo como un flujo (NDJSON o arreglo JSON), valida las lineas por bloques
+ * y persiste cada bloque con inserciones JDBC en lote dentro de una sola transaccion.
+ * Los IDs se asignan con {@link GeneradorIdTemporal}, sin leer claves generadas por la base de datos.
+ * El driver solo reescribe cada lote en un INSERT de varias filas si la URL de conexion incluye
+ * {@code rewriteBatchedStatements=true}; sin ese parametro cada fila viaja como una sentencia aparte.
+ * Los resultados se escriben linea por linea a medida que cada bloque se confirma,
+ * por lo que nunca se mantiene todo el contenido en memoria.
+ */
+@Service
+public class IngestaPedidosLoteService {
+
+    private static final Logger logger = LoggerFactory.getLogger(IngestaPedidosLoteService.class);
+
+    private static final String INSERT_PEDIDO =
+            "INSERT INTO pedidos (id_pedido, version, fecha_hora_creacion, estado, cliente_id, restaurante_id, direccion_calle, direccion_ciudad, "
+                    + "distrito, direccion_referencia, direccion_latitud, direccion_longitud, instrucciones_especiales, "
+                    + "monto_total_centimos, monto_total_moneda) "
+                    + "VALUES (?, 0, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?)";
+    private static final String INSERT_ITEM =
+            "INSERT INTO items_pedido (id, pedido_id, plato_id, cantidad, subtotal_centimos, subtotal_moneda) VALUES (?, ?, ?, ?, ?, ?)";
+    // Mismo evento que registra GestionPedidosService al crear un pedido, para que el relevo del outbox lo publique
+    private static final String INSERT_EVENTO =
+            "INSERT INTO eventos_pedido (id, id_pedido, tipo, estado, fecha_creacion, publicado, intentos, estacionado) "
+                    + "VALUES (?, ?, ?, ?, ?, false, 0, false)";
+
+    private final ObjectMapper objectMapper;
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final ClienteRepository clienteRepository;
+    private final RestauranteRepository restauranteRepository;
+    private final ResolutorCarrito resolutorCarrito;
+    private final GeneradorIdTemporal generadorId;
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    @Value("${app.pedidos.lote.tamano:500}")
+    private int tamanoBloque;
+
+    public IngestaPedidosLoteService(ObjectMapper objectMapper,
+                                     JdbcTemplate jdbcTemplate,
+                                     PlatformTransactionManager transactionManager,
+                                     ClienteRepository clienteRepository,
+                                     RestauranteRepository restauranteRepository,
+                                     ResolutorCarrito resolutorCarrito,
+                                     GeneradorIdTemporal generadorId) {
+        this.objectMapper = objectMapper;
+        this.jdbcTemplate = jdbcTemplate;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.clienteRepository = clienteRepository;
+        this.restauranteRepository = restauranteRepository;
+        this.resolutorCarrito = resolutorCarrito;
+        this.generadorId = generadorId;
+    }
+
+    /**
+     * Procesa una carga masiva de pedidos.
+     * @param entrada Cuerpo de la peticion: NDJSON (un pedido por linea) o un arreglo JSON de pedidos.
+     * @param salida Flujo donde se escribe un {@link ResultadoLineaPedido} en formato NDJSON por cada linea leida.
+     * @return Cantidad de pedidos creados.
+     * @throws IOException Si falla la lectura de la entrada o la escritura de la salida.
+     */
+    public int procesar(InputStream entrada, OutputStream salida) throws IOException {
+        PushbackInputStream flujo = new PushbackInputStream(entrada, 1);
+        int primero = saltarEspacios(flujo);
+        if (primero == -1) {
+            return 0;
+        }
+        flujo.unread(primero);
+
+        Procesador procesador = new Procesador(salida);
+        if (primero == '[') {
+            leerArreglo(flujo, procesador);
+        } else {
+            leerNdjson(flujo, procesador);
+        }
+        procesador.vaciar();
+
+        logger.info("Carga masiva finalizada: {} lineas leidas, {} pedidos creados", procesador.lineasLeidas, procesador.creados);
+        return procesador.creados;
+    }
+
+    private void leerArreglo(InputStream flujo, Procesador procesador) throws IOException {
+        try (JsonParser parser = objectMapper.getFactory().createParser(flujo)) {
+            parser.nextToken(); // START_ARRAY
+            int numero = 0;
+            JsonToken token;
+            while ((token = parser.nextToken()) != null && token != JsonToken.END_ARRAY) {
+                numero++;
+                LineaLote linea;
+                try {
+                    linea = new LineaLote(numero, objectMapper.readValue(parser, CrearPedidoRequest.class), null);
+                } catch (IOException | IllegalArgumentException e) {
+                    // Un elemento mal formado dentro del arreglo no permite continuar leyendo de forma confiable
+                    procesador.agregar(new LineaLote(numero, null, "JSON invalido: " + e.getMessage()));
+                    break;
+                }
+                procesador.agregar(linea);
+            }
+        }
+    }
+
+    private void leerNdjson(InputStream flujo, Procesador procesador) throws IOException {
+        BufferedReader lector = new BufferedReader(new InputStreamReader(flujo, StandardCharsets.UTF_8));
+        String texto;
+        int numero = 0;
+        while ((texto = lector.readLine()) != null) {
+            if (texto.isBlank()) {
+                continue;
+            }
+            numero++;
+            LineaLote linea;
+            try {
+                linea = new LineaLote(numero, objectMapper.readValue(texto, CrearPedidoRequest.class), null);
+            } catch (IOException | IllegalArgumentException e) {
+                linea = new LineaLote(numero, null, "JSON invalido: " + e.getMessage());
+            }
+            procesador.agregar(linea);
+        }
+    }
+
+    private static int saltarEspacios(InputStream flujo) throws IOException {
+        int c;
+        do {
+            c = flujo.read();
+        } while (c != -1 && Character.isWhitespace(c));
+        return c;
+    }
+
+    /**
+     * Acumula lineas hasta completar un bloque y luego lo valida, persiste y reporta.
+     */
+    private final class Procesador {
+        private final OutputStream salida;
+        private final List<LineaLote> bloque = new ArrayList<>();
+        private int lineasLeidas;
+        private int creados;
+
+        private Procesador(OutputStream salida) {
+            this.salida = salida;
+        }
+
+        private void agregar(LineaLote linea) throws IOException {
+            lineasLeidas++;
+            bloque.add(linea);
+            if (bloque.size() >= tamanoBloque) {
+                vaciar();
+            }
+        }
+
+        private void vaciar() throws IOException {
+            if (bloque.isEmpty()) {
+                return;
+            }
+            List<ResultadoLineaPedido> resultados = procesarBloque(bloque);
+            for (ResultadoLineaPedido resultado : resultados) {
+                if (ResultadoLineaPedido.CREADO.equals(resultado.getEstado())) {
+                    creados++;
+                }
+                salida.write(objectMapper.writeValueAsBytes(resultado));
+                salida.write('\n');
+            }
+            salida.flush();
+            bloque.clear();
+            // Con open-in-view el contexto de persistencia vive toda la peticion; se limpia por bloque
+            entityManager.clear();
+        }
+    }
+
+    private List<ResultadoLineaPedido> procesarBloque(List<LineaLote> bloque) {
+        List<ResultadoLineaPedido> resultados = new ArrayList<>(bloque.size());
+        try {
+            transactionTemplate.executeWithoutResult(estado -> resultados.addAll(validarYPersistir(bloque)));
+        } catch (RuntimeException e) {
+            logger.error("Fallo al persistir bloque de {} pedidos: {}", bloque.size(), e.getMessage(), e);
+            resultados.clear();
+            for (LineaLote linea : bloque) {
+                resultados.add(linea.errorParseo != null
+                        ? ResultadoLineaPedido.rechazado(linea.numero, List.of(linea.errorParseo))
+                        : ResultadoLineaPedido.error(linea.numero, "Error al persistir el bloque: " + e.getMessage()));
+            }
+        }
+        return resultados;
+    }
+
+    private List<ResultadoLineaPedido> validarYPersistir(List<LineaLote> bloque) {
+        Set<Integer> idsClientes = new HashSet<>();
+        Set<Integer> idsRestaurantes = new HashSet<>();
+        List<List<DatosPlatoPedido>> carritos = new ArrayList<>();
+        for (LineaLote linea : bloque) {
+            if (linea.errorParseo == null && validarSolicitud(linea.solicitud) == null) {
+                idsClientes.add(linea.solicitud.getIdCliente());
+                idsRestaurantes.add(linea.solicitud.getIdRestaurante());
+                carritos.add(linea.solicitud.getItemsCarrito());
+            }
+        }
+
+        // Una consulta por tipo de entidad para todo el bloque
+        Map<Integer, Cliente> clientes = new HashMap<>();
+        clienteRepository.findAllById(idsClientes).forEach(c -> clientes.put(c.getId(), c));
+        Map<Integer, Restaurante> restaurantes = new HashMap<>();
+        restauranteRepository.findAllById(idsRestaurantes).forEach(r -> restaurantes.put(r.getId(), r));
+        Map<Integer, Plato> platos = resolutorCarrito.cargarPlatos(carritos);
+
+        ResultadoLineaPedido[] resultados = new ResultadoLineaPedido[bloque.size()];
+        List<Pedido> pedidos = new ArrayList<>();
+        List<Integer> posiciones = new ArrayList<>();
+        for (int i = 0; i < bloque.size(); i++) {
+            LineaLote linea = bloque.get(i);
+            if (linea.errorParseo != null) {
+                resultados[i] = ResultadoLineaPedido.rechazado(linea.numero, List.of(linea.errorParseo));
+                continue;
+            }
+            String errorSolicitud = validarSolicitud(linea.solicitud);
+            if (errorSolicitud != null) {
+                resultados[i] = ResultadoLineaPedido.rechazado(linea.numero, List.of(errorSolicitud));
+                continue;
+            }
+
+            List<String> errores = new ArrayList<>();
+            Cliente cliente = clientes.get(linea.solicitud.getIdCliente());
+            Restaurante restaurante = restaurantes.get(linea.solicitud.getIdRestaurante());
+            if (cliente == null) {
+                errores.add("Cliente no encontrado con ID: " + linea.solicitud.getIdCliente());
+            }
+            if (restaurante == null) {
+                errores.add("Restaurante no encontrado con ID: " + linea.solicitud.getIdRestaurante());
+            }
+            List<ItemPedido> items = restaurante == null ? List.of()
+                    : resolutorCarrito.resolver(restaurante, linea.solicitud.getItemsCarrito(), platos, errores);
+            if (!errores.isEmpty()) {
+                resultados[i] = ResultadoLineaPedido.rechazado(linea.numero, errores);
+                continue;
+            }
+
+            Pedido pedido;
+            try {
+                PedidoData info = new PedidoData(cliente, restaurante, linea.solicitud.getDireccionEntrega(),
+                        linea.solicitud.getInstruccionesEspeciales(), new ArrayList<>(items));
+                pedido = new Pedido(info, generadorId.siguienteId());
+            } catch (IllegalArgumentException | ArithmeticException e) {
+                // Un pedido que el dominio no acepta (montos en distinta moneda, desborde) solo rechaza su linea
+                resultados[i] = ResultadoLineaPedido.rechazado(linea.numero, List.of(e.getMessage()));
+                continue;
+            }
+            for (ItemPedido item : items) {
+                item.setId(generadorId.siguienteId());
+            }
+            pedidos.add(pedido);
+            posiciones.add(i);
+        }
+
+        insertarPedidos(pedidos);
+        for (int j = 0; j < pedidos.size(); j++) {
+            int i = posiciones.get(j);
+            resultados[i] = ResultadoLineaPedido.creado(bloque.get(i).numero, pedidos.get(j).getIdPedido());
+        }
+        return List.of(resultados);
+    }
+
+    private static String validarSolicitud(CrearPedidoRequest solicitud) {
+        if (solicitud.getIdCliente() == null || solicitud.getIdCliente() <= 0 ||
+                solicitud.getIdRestaurante() == null || solicitud.getIdRestaurante() <= 0 ||
+                solicitud.getItemsCarrito() == null || solicitud.getItemsCarrito().isEmpty() ||
+                solicitud.getDireccionEntrega() == null) {
+            return "Datos de creacion de pedido incompletos o invalidos.";
+        }
+        return null;
+    }
+
+    /**
+     * Inserta los pedidos, sus items y un evento PEDIDO_CREADO por pedido con tres lotes JDBC sobre la
+     * conexion de la transaccion actual. Los pedidos y sus items ya deben tener el ID asignado.
+     * Los montos se escriben en centimos en las columnas BIGINT, igual que los mapea {@link Dinero}.
+     */
+    private void insertarPedidos(List<Pedido> pedidos) {
+        if (pedidos.isEmpty()) {
+            return;
+        }
+        jdbcTemplate.execute((ConnectionCallback<Void>) conexion -> {
+            try (PreparedStatement ps = conexion.prepareStatement(INSERT_PEDIDO)) {
+                for (Pedido pedido : pedidos) {
+                    PedidoData info = pedido.getInfo();
+                    Direccion direccion = info.getDireccionEntrega();
+                    ps.setLong(1, pedido.getIdPedido());
+                    ps.setTimestamp(2, new Timestamp(pedido.getFechaHoraCreacion().getTime()));
+                    ps.setString(3, pedido.getEstado().name());
+                    ps.setInt(4, info.getCliente().getId());
+                    ps.setInt(5, info.getRestaurante().getId());
+                    ps.setString(6, direccion.getCalle());
+                    ps.setString(7, direccion.getCiudad());
+                    ps.setString(8, direccion.getDistrito());
+                    ps.setString(9, direccion.getReferencia());
+                    ps.setObject(10, direccion.getLatitud(), Types.DOUBLE);
+                    ps.setObject(11, direccion.getLongitud(), Types.DOUBLE);
+                    ps.setString(12, info.getInstruccionesEspeciales());
+                    ps.setLong(13, pedido.getMontoTotal().getCentimos());
+                    ps.setString(14, pedido.getMontoTotal().getMoneda().name());
+                    ps.addBatch();
+                }
+                ps.executeBatch();
+            }
+
+            try (PreparedStatement ps = conexion.prepareStatement(INSERT_ITEM)) {
+                for (Pedido pedido : pedidos) {
+                    for (ItemPedido item : pedido.getInfo().getItems()) {
+                        ps.setLong(1, item.getId());
+                        ps.setLong(2, pedido.getIdPedido());
+                        ps.setInt(3, item.getPlato().getIdPlato());
+                        ps.setInt(4, item.getCantidad());
+                        ps.setLong(5, item.getSubtotal().getCentimos());
+                        ps.setString(6, item.getSubtotal().getMoneda().name());
+                        ps.addBatch();
+                    }
+                }
+                ps.executeBatch();
+            }
+
+            try (PreparedStatement ps = conexion.prepareStatement(INSERT_EVENTO)) {
+                for (Pedido pedido : pedidos) {
+                    ps.setLong(1, generadorId.siguienteId());
+                    ps.setLong(2, pedido.getIdPedido());
+                    ps.setString(3, EventoPedido.PEDIDO_CREADO);
+                    ps.setString(4, pedido.getEstado().name());
+                    ps.setTimestamp(5, new Timestamp(System.currentTimeMillis()));
+                    ps.addBatch();
+                }
+                ps.executeBatch();
+            }
+            return null;
+        });
+    }
+
+    private record LineaLote(int numero, CrearPedidoRequest solicitud, String errorParseo) {
+    }
+}
@@ -0,0 +1,335 @@
+package org.unsa.model.service.impl;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.Limit;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.unsa.model.domain.pedidos.Pedido;
+import org.unsa.model.domain.pedidos.SolicitudPedidoAsincrona;
+import org.unsa.model.dtos.CrearPedidoRequest;
+import org.unsa.model.dtos.TicketPedido;
+import org.unsa.model.exceptions.CapacidadExcedidaException;
+import org.unsa.model.exceptions.OperacionEnCursoException;
+import org.unsa.model.repository.SolicitudPedidoAsincronaRepository;
+import org.unsa.model.service.Interfaces.IFuenteMetricas;
+import org.unsa.model.service.Interfaces.IPedidoServicio;
+
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Servicio de recepcion asincrona de pedidos.
+ * El controlador valida la solicitud, la registra en solicitudes_pedido_async (una insercion pequena, sin
+ * resolver platos ni calcular montos) y la encola; el 202 solo se devuelve con la solicitud ya persistida.
+ * Un grupo de hilos virtuales drena la cola en micro-lotes; cada micro-lote se persiste en una sola transaccion
+ * junto con el cambio de sus solicitudes a COMPLETADO y, si falla, se reintenta pedido por pedido para aislar
+ * al culpable. Las solicitudes que siguen pendientes despues de {@code app.pedidos.async.recuperacion-minutos}
+ * (por ejemplo, tras un reinicio) se vuelven a encolar; como el cambio a COMPLETADO es condicional, una
+ * solicitud nunca genera dos pedidos.
+ */
+@Service
+public class RecepcionAsincronaPedidosService implements IFuenteMetricas {
+
+    private static final Logger logger = LoggerFactory.getLogger(RecepcionAsincronaPedidosService.class);
+
+    private static final int MAX_LARGO_ERROR = 500;
+
+    private final IPedidoServicio pedidoServicio;
+    private final SolicitudPedidoAsincronaRepository solicitudRepository;
+    private final ObjectMapper objectMapper;
+    private final TransactionTemplate transaccion;
+    private final BlockingQueue<SolicitudEncolada> cola;
+    private final Map<String, TicketPedido> tickets = new ConcurrentHashMap<>();
+    private final List<Thread> trabajadores = new ArrayList<>();
+    private volatile boolean activo;
+
+    private final AtomicLong encolados = new AtomicLong();
+    private final AtomicLong rechazadosPorCapacidad = new AtomicLong();
+    private final AtomicLong lotesProcesados = new AtomicLong();
+    private final AtomicLong pedidosCompletados = new AtomicLong();
+    private final AtomicLong pedidosRechazados = new AtomicLong();
+    private final AtomicLong solicitudesRecuperadas = new AtomicLong();
+    private final AtomicLong ultimoTamanoLote = new AtomicLong();
+    private final AtomicLong ultimaLatenciaDrenadoMs = new AtomicLong();
+    private final AtomicLong maxLatenciaDrenadoMs = new AtomicLong();
+
+    @Value("${app.pedidos.async.tamano-lote:50}")
+    private int tamanoLote;
+
+    @Value("${app.pedidos.async.trabajadores:4}")
+    private int cantidadTrabajadores;
+
+    @Value("${app.pedidos.async.ticket-ttl-minutos:30}")
+    private long ticketTtlMinutos;
+
+    @Value("${app.pedidos.async.recuperacion-minutos:5}")
+    private long recuperacionMinutos;
+
+    public RecepcionAsincronaPedidosService(IPedidoServicio pedidoServicio,
+                                            SolicitudPedidoAsincronaRepository solicitudRepository,
+                                            ObjectMapper objectMapper,
+                                            PlatformTransactionManager transactionManager,
+                                            @Value("${app.pedidos.async.capacidad:10000}") int capacidad) {
+        this.pedidoServicio = pedidoServicio;
+        this.solicitudRepository = solicitudRepository;
+        this.objectMapper = objectMapper;
+        this.transaccion = new TransactionTemplate(transactionManager);
+        this.cola = new ArrayBlockingQueue<>(capacidad);
+    }
+
+    @PostConstruct
+    void iniciar() {
+        activo = true;
+        for (int i = 0; i < cantidadTrabajadores; i++) {
+            trabajadores.add(Thread.ofVirtual().name("pedidos-async-" + i).start(this::drenar));
+        }
+        logger.info("Recepcion asincrona de pedidos iniciada con {} trabajadores y lotes de {}", cantidadTrabajadores, tamanoLote);
+    }
+
+    @PreDestroy
+    void detener() throws InterruptedException {
+        activo = false;
+        for (Thread trabajador : trabajadores) {
+            trabajador.join(TimeUnit.SECONDS.toMillis(10));
+        }
+        logger.info("Recepcion asincrona de pedidos detenida con {} solicitudes pendientes", cola.size());
+    }
+
+    /**
+     * Registra y encola una solicitud de pedido ya validada.
+     * @param solicitud Datos del pedido.
+     * @return El ticket con el que se consulta el resultado; la solicitud ya esta persistida.
+     * @throws CapacidadExcedidaException Si la cola esta llena.
+     */
+    public TicketPedido encolar(CrearPedidoRequest solicitud) {
+        if (cola.remainingCapacity() == 0) {
+            rechazadosPorCapacidad.incrementAndGet();
+            throw new CapacidadExcedidaException("La cola de pedidos asincronos esta llena.");
+        }
+        TicketPedido ticket = new TicketPedido(UUID.randomUUID().toString());
+        solicitudRepository.save(new SolicitudPedidoAsincrona(ticket, serializar(solicitud)));
+        tickets.put(ticket.getId(), ticket);
+        if (!cola.offer(new SolicitudEncolada(ticket, solicitud, System.nanoTime()))) {
+            // Ya esta registrada: la recuperacion periodica la encolara cuando haya espacio
+            tickets.remove(ticket.getId());
+            logger.warn("Cola llena al encolar la solicitud {}; queda pendiente para la recuperacion", ticket.getId());
+        } else {
+            encolados.incrementAndGet();
+        }
+        return ticket;
+    }
+
+    /**
+     * @param idTicket ID del ticket.
+     * @return El ticket, o null si no existe o ya expiro. Si no esta en memoria (otra instancia, reinicio) se lee de la tabla.
+     */
+    public TicketPedido obtenerTicket(String idTicket) {
+        TicketPedido ticket = tickets.get(idTicket);
+        if (ticket != null) {
+            return ticket;
+        }
+        return solicitudRepository.findById(idTicket).map(SolicitudPedidoAsincrona::aTicket).orElse(null);
+    }
+
+    private void drenar() {
+        List<SolicitudEncolada> lote = new ArrayList<>(tamanoLote);
+        while (activo || !cola.isEmpty()) {
+            try {
+                SolicitudEncolada primera = cola.poll(500, TimeUnit.MILLISECONDS);
+                if (primera == null) {
+                    continue;
+                }
+                lote.add(primera);
+                cola.drainTo(lote, tamanoLote - 1);
+                procesarLote(lote);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            } catch (RuntimeException e) {
+                logger.error("Error inesperado al procesar lote asincrono: {}", e.getMessage(), e);
+            } finally {
+                lote.clear();
+            }
+        }
+    }
+
+    private void procesarLote(List<SolicitudEncolada> lote) {
+        List<Pedido> creados;
+        try {
+            creados = transaccion.execute(estado -> {
+                List<Pedido> pedidos = new ArrayList<>(lote.size());
+                for (SolicitudEncolada s : lote) {
+                    pedidos.add(crearYCompletar(s));
+                }
+                return pedidos;
+            });
+        } catch (RuntimeException e) {
+            logger.warn("Fallo el lote de {} pedidos ({}); se reintenta uno por uno", lote.size(), e.getMessage());
+            creados = null;
+        }
+
+        if (creados != null) {
+            for (int i = 0; i < lote.size(); i++) {
+                completar(lote.get(i), creados.get(i));
+            }
+        } else {
+            for (SolicitudEncolada s : lote) {
+                try {
+                    completar(s, transaccion.execute(estado -> crearYCompletar(s)));
+                } catch (RuntimeException e) {
+                    rechazar(s, e.getMessage());
+                }
+            }
+        }
+
+        lotesProcesados.incrementAndGet();
+        ultimoTamanoLote.set(lote.size());
+        long latenciaMs = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - lote.getFirst().recibidaEn());
+        ultimaLatenciaDrenadoMs.set(latenciaMs);
+        maxLatenciaDrenadoMs.accumulateAndGet(latenciaMs, Math::max);
+    }
+
+    /**
+     * Crea el pedido y marca la solicitud como completada; debe ejecutarse dentro de una transaccion.
+     * @throws OperacionEnCursoException Si la solicitud ya fue resuelta por otro trabajador; revierte el pedido.
+     */
+    private Pedido crearYCompletar(SolicitudEncolada s) {
+        CrearPedidoRequest solicitud = s.solicitud();
+        Pedido pedido = pedidoServicio.crearPedido(
+                solicitud.getIdCliente(),
+                solicitud.getIdRestaurante(),
+                solicitud.getItemsCarrito(),
+                solicitud.getDireccionEntrega(),
+                solicitud.getInstruccionesEspeciales());
+        if (solicitudRepository.completar(s.ticket().getId(), pedido.getIdPedido(), new Date()) != 1) {
+            throw new OperacionEnCursoException("La solicitud " + s.ticket().getId() + " ya fue resuelta");
+        }
+        return pedido;
+    }
+
+    private void completar(SolicitudEncolada solicitud, Pedido pedido) {
+        solicitud.ticket().completar(pedido.getIdPedido());
+        pedidosCompletados.incrementAndGet();
+    }
+
+    private void rechazar(SolicitudEncolada s, String error) {
+        String mensaje = error == null ? "Error desconocido" : error.substring(0, Math.min(error.length(), MAX_LARGO_ERROR));
+        Integer filas = transaccion.execute(estado -> solicitudRepository.rechazar(s.ticket().getId(), mensaje, new Date()));
+        if (filas != null && filas == 1) {
+            s.ticket().rechazar(mensaje);
+            pedidosRechazados.incrementAndGet();
+            return;
+        }
+        // Otro trabajador la resolvio primero: se toma el estado registrado
+        solicitudRepository.findById(s.ticket().getId()).ifPresent(registrada -> {
+            if (registrada.getEstado() == TicketPedido.Estado.COMPLETADO) {
+                s.ticket().completar(registrada.getIdPedido());
+            } else if (registrada.getEstado() == TicketPedido.Estado.RECHAZADO) {
+                s.ticket().rechazar(registrada.getError());
+            }
+        });
+    }
+
+    /**
+     * Vuelve a encolar las solicitudes registradas que siguen pendientes despues del tiempo de recuperacion
+     * y que esta instancia no tiene en cola: las de una instancia que se detuvo o las que no cupieron en la cola.
+     */
+    @Scheduled(fixedDelayString = "${app.pedidos.async.recuperacion-ms:60000}")
+    public void recuperarPendientes() {
+        int espacio = cola.remainingCapacity();
+        if (espacio == 0) {
+            return;
+        }
+        Date limite = new Date(System.currentTimeMillis() - TimeUnit.MINUTES.toMillis(recuperacionMinutos));
+        int recuperadas = 0;
+        for (SolicitudPedidoAsincrona registrada : solicitudRepository.buscarPendientesAnterioresA(limite, Limit.of(espacio))) {
+            TicketPedido enMemoria = tickets.get(registrada.getId());
+            if (enMemoria != null && enMemoria.getEstado() == TicketPedido.Estado.PENDIENTE) {
+                continue; // Esta instancia la tiene en cola o procesandose
+            }
+            TicketPedido ticket = registrada.aTicket();
+            CrearPedidoRequest solicitud;
+            try {
+                solicitud = objectMapper.readValue(registrada.getCuerpo(), CrearPedidoRequest.class);
+            } catch (JsonProcessingException | IllegalArgumentException e) {
+                rechazar(new SolicitudEncolada(ticket, null, System.nanoTime()), "Solicitud ilegible: " + e.getMessage());
+                continue;
+            }
+            if (!cola.offer(new SolicitudEncolada(ticket, solicitud, System.nanoTime()))) {
+                break;
+            }
+            tickets.put(ticket.getId(), ticket);
+            recuperadas++;
+        }
+        if (recuperadas > 0) {
+            solicitudesRecuperadas.addAndGet(recuperadas);
+            logger.warn("Se volvieron a encolar {} solicitudes asincronas pendientes", recuperadas);
+        }
+    }
+
+    private String serializar(CrearPedidoRequest solicitud) {
+        try {
+            return objectMapper.writeValueAsString(solicitud);
+        } catch (JsonProcessingException e) {
+            throw new IllegalArgumentException("No se pudo registrar la solicitud: " + e.getOriginalMessage(), e);
+        }
+    }
+
+    /**
+     * Elimina los tickets resueltos mas antiguos que el TTL configurado, en memoria y en la tabla.
+     */
+    @Scheduled(fixedDelayString = "${app.pedidos.async.limpieza-ms:60000}")
+    public void limpiarTickets() {
+        long limite = System.currentTimeMillis() - TimeUnit.MINUTES.toMillis(ticketTtlMinutos);
+        tickets.values().removeIf(t -> t.getEstado() != TicketPedido.Estado.PENDIENTE
+                && t.getFechaRecepcion().getTime() < limite);
+        Integer eliminadas = transaccion.execute(estado -> solicitudRepository.eliminarResueltasAnterioresA(new Date(limite)));
+        if (eliminadas != null && eliminadas > 0) {
+            logger.info("Se eliminaron {} solicitudes asincronas resueltas", eliminadas);
+        }
+    }
+
+    @Override
+    public String getNombreMetricas() {
+        return "pedidos.async";
+    }
+
+    @Override
+    public Map<String, Number> getMetricas() {
+        Map<String, Number> metricas = new LinkedHashMap<>();
+        metricas.put("profundidadCola", cola.size());
+        metricas.put("capacidadRestante", cola.remainingCapacity());
+        metricas.put("encolados", encolados.get());
+        metricas.put("rechazadosPorCapacidad", rechazadosPorCapacidad.get());
+        metricas.put("lotesProcesados", lotesProcesados.get());
+        metricas.put("ultimoTamanoLote", ultimoTamanoLote.get());
+        long lotes = lotesProcesados.get();
+        metricas.put("tamanoLotePromedio", lotes == 0 ? 0.0 : (double) (pedidosCompletados.get() + pedidosRechazados.get()) / lotes);
+        metricas.put("pedidosCompletados", pedidosCompletados.get());
+        metricas.put("pedidosRechazados", pedidosRechazados.get());
+        metricas.put("solicitudesRecuperadas", solicitudesRecuperadas.get());
+        metricas.put("ultimaLatenciaDrenadoMs", ultimaLatenciaDrenadoMs.get());
+        metricas.put("maxLatenciaDrenadoMs", maxLatenciaDrenadoMs.get());
+        return metricas;
+    }
+
+    private record SolicitudEncolada(TicketPedido ticket, CrearPedidoRequest solicitud, long recibidaEn) {
+    }
+}
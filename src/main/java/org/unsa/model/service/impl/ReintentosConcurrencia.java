@@ -0,0 +1,108 @@
+package org.unsa.model.service.impl;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.stereotype.Component;
+import org.unsa.model.service.Interfaces.IFuenteMetricas;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Supplier;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Politica de reintentos para operaciones con bloqueo optimista.
+ * Cuando una transaccion pierde la carrera por la columna de version, se vuelve a ejecutar completa
+ * (lectura, modificacion y guardado) hasta un numero acotado de intentos, esperando entre cada uno
+ * un tiempo exponencial con jitter completo para que los competidores no choquen de nuevo.
+ * La accion debe abrir su propia transaccion; no debe llamarse dentro de una transaccion existente.
+ */
+@Component
+public class ReintentosConcurrencia implements IFuenteMetricas {
+
+    private static final Logger logger = LoggerFactory.getLogger(ReintentosConcurrencia.class);
+
+    private final int maxIntentos;
+    private final long esperaBaseMs;
+    private final long esperaMaxMs;
+
+    private final LongAdder conflictos = new LongAdder();
+    private final LongAdder reintentos = new LongAdder();
+    private final LongAdder agotados = new LongAdder();
+
+    public ReintentosConcurrencia(@Value("${app.concurrencia.max-intentos:5}") int maxIntentos,
+                                  @Value("${app.concurrencia.espera-base-ms:10}") long esperaBaseMs,
+                                  @Value("${app.concurrencia.espera-max-ms:200}") long esperaMaxMs) {
+        if (maxIntentos < 1) {
+            throw new IllegalArgumentException("Debe haber al menos un intento.");
+        }
+        this.maxIntentos = maxIntentos;
+        this.esperaBaseMs = esperaBaseMs;
+        this.esperaMaxMs = esperaMaxMs;
+    }
+
+    /**
+     * Ejecuta la accion reintentando ante conflictos de version.
+     * @param operacion Nombre de la operacion, para los logs.
+     * @param accion Accion transaccional completa.
+     * @return El resultado de la accion.
+     * @throws OptimisticLockingFailureException Si se agotan los intentos.
+     */
+    public <T> T ejecutar(String operacion, Supplier<T> accion) {
+        for (int intento = 1; ; intento++) {
+            try {
+                return accion.get();
+            } catch (OptimisticLockingFailureException e) {
+                conflictos.increment();
+                if (intento >= maxIntentos) {
+                    agotados.increment();
+                    logger.warn("Conflicto de concurrencia en {}: se agotaron los {} intentos", operacion, maxIntentos);
+                    throw e;
+                }
+                reintentos.increment();
+                logger.debug("Conflicto de concurrencia en {} (intento {}); se reintenta", operacion, intento);
+                esperar(intento);
+            }
+        }
+    }
+
+    /**
+     * Variante para acciones sin resultado.
+     */
+    public void ejecutar(String operacion, Runnable accion) {
+        ejecutar(operacion, () -> {
+            accion.run();
+            return null;
+        });
+    }
+
+    private void esperar(int intento) {
+        long tope = Math.min(esperaMaxMs, esperaBaseMs << Math.min(intento - 1, 20));
+        if (tope <= 0) {
+            return;
+        }
+        try {
+            Thread.sleep(ThreadLocalRandom.current().nextLong(tope + 1));
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Reintento interrumpido.", e);
+        }
+    }
+
+    @Override
+    public String getNombreMetricas() {
+        return "concurrencia.pedidos";
+    }
+
+    @Override
+    public Map<String, Number> getMetricas() {
+        Map<String, Number> metricas = new LinkedHashMap<>();
+        metricas.put("conflictos", conflictos.sum());
+        metricas.put("reintentos", reintentos.sum());
+        metricas.put("agotados", agotados.sum());
+        return metricas;
+    }
+}
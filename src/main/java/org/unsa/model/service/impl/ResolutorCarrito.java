@@ -0,0 +1,110 @@
+package org.unsa.model.service.impl;
+
+import org.springframework.stereotype.Component;
+import org.unsa.model.domain.pedidos.DatosPlatoPedido;
+import org.unsa.model.domain.pedidos.ItemPedido;
+import org.unsa.model.domain.restaurantes.Plato;
+import org.unsa.model.domain.restaurantes.Restaurante;
+import org.unsa.model.exceptions.CarritoInvalidoException;
+import org.unsa.model.repository.PlatoRepository;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Convierte las lineas de un carrito en items de pedido.
+ * Carga todos los platos referenciados en una sola consulta y valida en la misma pasada
+ * que existan, pertenezcan al restaurante del pedido y esten disponibles.
+ */
+@Component
+public class ResolutorCarrito {
+
+    private static final Logger logger = LoggerFactory.getLogger(ResolutorCarrito.class);
+
+    private final PlatoRepository platoRepository;
+
+    public ResolutorCarrito(PlatoRepository platoRepository) {
+        this.platoRepository = platoRepository;
+    }
+
+    /**
+     * Resuelve las lineas del carrito contra el catalogo del restaurante.
+     * @param restaurante Restaurante al que se hace el pedido.
+     * @param itemsCarrito Lineas del carrito (id de plato y cantidad).
+     * @return Los items del pedido, en el mismo orden que las lineas del carrito.
+     * @throws CarritoInvalidoException Si alguna linea es invalida; incluye todas las lineas con error.
+     */
+    public List<ItemPedido> resolver(Restaurante restaurante, List<DatosPlatoPedido> itemsCarrito) {
+        List<String> errores = new ArrayList<>();
+        List<ItemPedido> items = resolver(restaurante, itemsCarrito, cargarPlatos(List.of(itemsCarrito)), errores);
+        if (!errores.isEmpty()) {
+            logger.warn("Carrito con {} lineas invalidas para restaurante {}", errores.size(), restaurante.getId());
+            throw new CarritoInvalidoException(errores);
+        }
+        return items;
+    }
+
+    /**
+     * Carga en una sola consulta todos los platos referenciados por uno o varios carritos.
+     * @param carritos Carritos cuyos platos se deben cargar.
+     * @return Mapa de id de plato a Plato, con su restaurante ya cargado.
+     */
+    public Map<Integer, Plato> cargarPlatos(List<List<DatosPlatoPedido>> carritos) {
+        Set<Integer> idsPlatos = new LinkedHashSet<>();
+        for (List<DatosPlatoPedido> carrito : carritos) {
+            for (DatosPlatoPedido linea : carrito) {
+                if (linea != null) {
+                    idsPlatos.add(linea.getIdPlato());
+                }
+            }
+        }
+
+        Map<Integer, Plato> platos = new HashMap<>(idsPlatos.size() * 2);
+        if (idsPlatos.isEmpty()) {
+            return platos;
+        }
+        for (Plato plato : platoRepository.findAllConRestauranteByIdPlatoIn(idsPlatos)) {
+            platos.put(plato.getIdPlato(), plato);
+        }
+        return platos;
+    }
+
+    /**
+     * Resuelve un carrito contra platos ya cargados, sin consultar la base de datos.
+     * @param restaurante Restaurante al que se hace el pedido.
+     * @param itemsCarrito Lineas del carrito.
+     * @param platos Platos precargados con {@link #cargarPlatos(List)}.
+     * @param errores Lista donde se agregan los errores de cada linea invalida.
+     * @return Los items validos; si {@code errores} no queda vacia el carrito debe rechazarse.
+     */
+    public List<ItemPedido> resolver(Restaurante restaurante, List<DatosPlatoPedido> itemsCarrito,
+                                     Map<Integer, Plato> platos, List<String> errores) {
+        List<ItemPedido> items = new ArrayList<>(itemsCarrito.size());
+        for (int i = 0; i < itemsCarrito.size(); i++) {
+            DatosPlatoPedido linea = itemsCarrito.get(i);
+            if (linea == null) {
+                errores.add("Linea " + (i + 1) + ": linea vacia");
+                continue;
+            }
+            Plato plato = platos.get(linea.getIdPlato());
+            if (plato == null) {
+                errores.add("Linea " + (i + 1) + ": plato no encontrado con ID " + linea.getIdPlato());
+            } else if (!restaurante.getId().equals(plato.getRestaurante().getId())) {
+                errores.add("Linea " + (i + 1) + ": el plato " + linea.getIdPlato() + " no pertenece al restaurante " + restaurante.getId());
+            } else if (!plato.isDisponible()) {
+                errores.add("Linea " + (i + 1) + ": el plato " + linea.getIdPlato() + " no esta disponible");
+            } else if (linea.getCantidad() <= 0) {
+                errores.add("Linea " + (i + 1) + ": la cantidad debe ser mayor a cero (" + linea.getCantidad() + ")");
+            } else {
+                items.add(new ItemPedido(plato, linea.getCantidad()));
+            }
+        }
+        return items;
+    }
+}
@@ -0,0 +1,374 @@
+package org.unsa.model.service.logistica;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.Limit;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.unsa.model.domain.pedidos.EstadoPedido;
+import org.unsa.model.domain.pedidos.EventoPedido;
+import org.unsa.model.domain.pedidos.PedidoCambiado;
+import org.unsa.model.domain.pedidos.Viaje;
+import org.unsa.model.domain.usuarios.Repartidor;
+import org.unsa.model.repository.EventoPedidoRepository;
+import org.unsa.model.repository.PedidoRepository;
+import org.unsa.model.repository.RepartidorRepository;
+import org.unsa.model.repository.RestauranteRepository;
+import org.unsa.model.repository.ViajeRepository;
+import org.unsa.model.service.Interfaces.IFuenteMetricas;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.EnumSet;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReentrantLock;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Agrupa en viajes de varias paradas los pedidos listos para recoger del mismo restaurante cuyas
+ * direcciones de entrega estan cerca. Es incremental: cada pedido entra por el {@link PedidoCambiado} confirmado
+ * que lo pasa a LISTO_PARA_RECOGER (sin depender del relevo ni del destino del outbox) y espera en memoria, junto a los demas de su restaurante, hasta completar
+ * un viaje o agotar su tiempo de espera; solo se consultan los pedidos nuevos, nunca la tabla completa.
+ * Al cerrar un grupo se reclama el repartidor disponible mas cercano al restaurante y, en una transaccion,
+ * se le asigna cada pedido con la misma actualizacion condicional del despacho (sigue listo y sin
+ * repartidor); los pedidos que ya no la cumplen quedan fuera del viaje. Con los asignados se crea el
+ * {@link Viaje} con su repartidor y una {@link org.unsa.model.domain.pedidos.Entrega} por pedido, en el
+ * orden de paradas calculado por {@link OrdenParadas}; todo el viaje ocupa una unidad de la carga del
+ * repartidor. Si no hay repartidor cerca el grupo sigue esperando. Mientras un pedido espera,
+ * {@link #retiene} lo excluye de la asignacion por lotes.
+ */
+@Service
+public class AgrupacionViajesService implements IFuenteMetricas {
+
+    private static final Logger logger = LoggerFactory.getLogger(AgrupacionViajesService.class);
+
+    private final PedidoRepository pedidoRepository;
+    private final RestauranteRepository restauranteRepository;
+    private final ViajeRepository viajeRepository;
+    private final RepartidorRepository repartidorRepository;
+    private final EventoPedidoRepository eventoRepository;
+    private final DespachoService despacho;
+    private final TransactionTemplate transaccion;
+
+    private final Queue<Long> nuevos = new ConcurrentLinkedQueue<>();
+    // Pedidos en espera por restaurante; solo los toca el hilo programado, bajo el candado
+    private final Map<Integer, List<PedidoEnEspera>> enEspera = new HashMap<>();
+    private final ReentrantLock agrupando = new ReentrantLock();
+    // Pedidos recibidos que aun no salieron de la agrupacion (en cola o en espera); se lee desde otros hilos
+    private final Set<Long> retenidos = ConcurrentHashMap.newKeySet();
+
+    private final AtomicLong viajesCreados = new AtomicLong();
+    private final AtomicLong pedidosAgrupados = new AtomicLong();
+    private final AtomicLong viajesMultiples = new AtomicLong();
+    private final AtomicLong pedidosDescartados = new AtomicLong();
+    private final AtomicLong sinRepartidor = new AtomicLong();
+    private final AtomicLong fallidos = new AtomicLong();
+
+    @Value("${app.viajes.max-pedidos:3}")
+    private int maxPedidos;
+
+    @Value("${app.viajes.radio-km:1.5}")
+    private double radioKm;
+
+    @Value("${app.viajes.espera-max-segundos:120}")
+    private long esperaMaxSegundos;
+
+    public AgrupacionViajesService(PedidoRepository pedidoRepository,
+                                   RestauranteRepository restauranteRepository,
+                                   ViajeRepository viajeRepository,
+                                   RepartidorRepository repartidorRepository,
+                                   EventoPedidoRepository eventoRepository,
+                                   DespachoService despacho,
+                                   PlatformTransactionManager transactionManager) {
+        this.pedidoRepository = pedidoRepository;
+        this.restauranteRepository = restauranteRepository;
+        this.viajeRepository = viajeRepository;
+        this.repartidorRepository = repartidorRepository;
+        this.eventoRepository = eventoRepository;
+        this.despacho = despacho;
+        this.transaccion = new TransactionTemplate(transactionManager);
+    }
+
+    /**
+     * Retoma los pedidos listos que quedaron sin entrega antes de un reinicio.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void retomarPendientes() {
+        List<PedidoRepository.PedidoParaViaje> pendientes =
+                pedidoRepository.buscarSinEntrega(EstadoPedido.LISTO_PARA_RECOGER, Limit.of(10_000));
+        agrupando.lock();
+        try {
+            pendientes.forEach(this::poner);
+        } finally {
+            agrupando.unlock();
+        }
+        logger.info("Agrupacion de viajes: {} pedidos listos retomados", pendientes.size());
+    }
+
+    /**
+     * Registra los pedidos que pasan a LISTO_PARA_RECOGER, una vez confirmado el cambio; se procesan en la
+     * siguiente ronda.
+     */
+    @TransactionalEventListener(fallbackExecution = true)
+    public void alCambiarPedido(PedidoCambiado cambio) {
+        if (cambio.getEstado() == EstadoPedido.LISTO_PARA_RECOGER) {
+            retenidos.add(cambio.getIdPedido());
+            nuevos.add(cambio.getIdPedido());
+        }
+    }
+
+    /**
+     * @return true si el pedido esta esperando formar un viaje; la asignacion por lotes no debe tomarlo.
+     */
+    public boolean retiene(Long idPedido) {
+        return retenidos.contains(idPedido);
+    }
+
+    /**
+     * Incorpora los pedidos nuevos y crea los viajes de los grupos completos o con espera agotada.
+     * @return Cantidad de viajes creados.
+     */
+    @Scheduled(fixedDelayString = "${app.viajes.intervalo-ms:5000}")
+    public int agrupar() {
+        if (!agrupando.tryLock()) {
+            return 0;
+        }
+        try {
+            incorporarNuevos();
+            long limite = System.currentTimeMillis() - TimeUnit.SECONDS.toMillis(esperaMaxSegundos);
+            int creados = 0;
+            for (var it = enEspera.entrySet().iterator(); it.hasNext(); ) {
+                var restaurante = it.next();
+                creados += cerrarGrupos(restaurante.getKey(), restaurante.getValue(), limite);
+                if (restaurante.getValue().isEmpty()) {
+                    it.remove();
+                }
+            }
+            return creados;
+        } finally {
+            agrupando.unlock();
+        }
+    }
+
+    private void incorporarNuevos() {
+        List<Long> ids = new ArrayList<>();
+        Long id;
+        while ((id = nuevos.poll()) != null) {
+            ids.add(id);
+        }
+        if (!ids.isEmpty()) {
+            List<PedidoRepository.PedidoParaViaje> encontrados = pedidoRepository.buscarParaViaje(ids);
+            encontrados.forEach(this::poner);
+            // Los que ya tenian repartidor no entran en la espera
+            ids.removeAll(encontrados.stream().map(PedidoRepository.PedidoParaViaje::getIdPedido).toList());
+            ids.forEach(retenidos::remove);
+        }
+    }
+
+    private void poner(PedidoRepository.PedidoParaViaje pedido) {
+        List<PedidoEnEspera> grupo = enEspera.computeIfAbsent(pedido.getIdRestaurante(), r -> new ArrayList<>());
+        if (grupo.stream().noneMatch(p -> p.idPedido().equals(pedido.getIdPedido()))) {
+            grupo.add(new PedidoEnEspera(pedido, System.currentTimeMillis()));
+            retenidos.add(pedido.getIdPedido());
+        }
+    }
+
+    /**
+     * Forma grupos desde el pedido que mas espera: suma los mas cercanos a su direccion dentro del radio.
+     * Un grupo se cierra si se lleno o si su primer pedido agoto la espera; si no, sigue esperando.
+     * Sin repartidor cerca del restaurante, el grupo y los que siguen esperan a la siguiente ronda.
+     */
+    private int cerrarGrupos(Integer idRestaurante, List<PedidoEnEspera> pendientes, long limite) {
+        pendientes.sort(Comparator.comparingLong(PedidoEnEspera::llegada));
+        List<PedidoEnEspera> libres = new ArrayList<>(pendientes);
+        int creados = 0;
+        while (!libres.isEmpty()) {
+            PedidoEnEspera semilla = libres.removeFirst();
+            List<PedidoEnEspera> grupo = new ArrayList<>(maxPedidos);
+            grupo.add(semilla);
+            if (semilla.tieneUbicacion()) {
+                libres.stream()
+                        .filter(PedidoEnEspera::tieneUbicacion)
+                        .filter(p -> distancia(semilla, p) <= radioKm)
+                        .sorted(Comparator.comparingDouble(p -> distancia(semilla, p)))
+                        .limit(maxPedidos - 1L)
+                        .forEach(grupo::add);
+            }
+            libres.removeAll(grupo);
+            if (grupo.size() < maxPedidos && semilla.llegada() > limite) {
+                continue; // Puede sumar mas pedidos en las siguientes rondas
+            }
+            Resultado resultado = crearViaje(idRestaurante, grupo);
+            if (resultado == Resultado.SIN_REPARTIDOR) {
+                break;
+            }
+            if (resultado == Resultado.CREADO) {
+                creados++;
+            }
+            pendientes.removeAll(grupo);
+            grupo.forEach(p -> retenidos.remove(p.idPedido()));
+        }
+        return creados;
+    }
+
+    private Resultado crearViaje(Integer idRestaurante, List<PedidoEnEspera> grupo) {
+        List<PedidoEnEspera> paradas = ordenar(grupo);
+        List<Long> ids = paradas.stream().map(PedidoEnEspera::idPedido).toList();
+        PedidoEnEspera primero = paradas.getFirst();
+        if (!primero.tieneOrigen()) {
+            // Sin ubicacion no se puede buscar repartidor; los pedidos quedan para la asignacion manual
+            fallidos.incrementAndGet();
+            logger.warn("El restaurante {} no tiene ubicacion; los pedidos {} salen de la agrupacion sin viaje", idRestaurante, ids);
+            return Resultado.FALLIDO;
+        }
+        CandidatoRepartidor candidato = despacho.reclamarCercano(primero.latitudRestaurante(), primero.longitudRestaurante());
+        if (candidato == null) {
+            sinRepartidor.incrementAndGet();
+            return Resultado.SIN_REPARTIDOR;
+        }
+        List<PedidoEnEspera> asignadas = new ArrayList<>(paradas.size());
+        Long idViaje;
+        try {
+            idViaje = transaccion.execute(estado -> {
+                Repartidor repartidor = repartidorRepository.getReferenceById(candidato.idRepartidor());
+                for (PedidoEnEspera p : paradas) {
+                    // Un pedido cancelado o asignado mientras esperaba no afecta filas y queda fuera del viaje
+                    if (pedidoRepository.asignarRepartidor(p.idPedido(), repartidor, EnumSet.of(EstadoPedido.LISTO_PARA_RECOGER)) == 1) {
+                        asignadas.add(p);
+                    }
+                }
+                if (asignadas.isEmpty()) {
+                    return null;
+                }
+                // Las actualizaciones limpiaron el contexto: las referencias se obtienen despues
+                Viaje viaje = new Viaje(restauranteRepository.getReferenceById(idRestaurante));
+                for (PedidoEnEspera p : asignadas) {
+                    viaje.agregarParada(pedidoRepository.getReferenceById(p.idPedido()));
+                }
+                viaje.asignarRepartidor(repartidorRepository.getReferenceById(candidato.idRepartidor()));
+                viaje.setDistanciaEstimadaKm(distanciaRecorrido(asignadas));
+                viajeRepository.save(viaje); // Las entregas se insertan en cascada
+                for (PedidoEnEspera p : asignadas) {
+                    eventoRepository.save(new EventoPedido(p.idPedido(), EventoPedido.REPARTIDOR_ASIGNADO,
+                            EstadoPedido.LISTO_PARA_RECOGER, candidato.idRepartidor()));
+                }
+                return viaje.getId();
+            });
+        } catch (RuntimeException e) {
+            // Los pedidos salen de la espera igual: sin entrega se retoman al reiniciar
+            despacho.devolver(candidato);
+            fallidos.incrementAndGet();
+            logger.warn("No se pudo crear el viaje de los pedidos {}: {}", ids, e.getMessage());
+            return Resultado.FALLIDO;
+        }
+        pedidosDescartados.addAndGet(paradas.size() - asignadas.size());
+        if (idViaje == null) {
+            despacho.devolver(candidato);
+            logger.info("Ningun pedido de {} seguia disponible para un viaje", ids);
+            return Resultado.FALLIDO;
+        }
+        List<Long> idsAsignados = asignadas.stream().map(PedidoEnEspera::idPedido).toList();
+        despacho.confirmarViaje(idsAsignados, candidato);
+        viajesCreados.incrementAndGet();
+        pedidosAgrupados.addAndGet(asignadas.size());
+        if (asignadas.size() > 1) {
+            viajesMultiples.incrementAndGet();
+        }
+        logger.info("Viaje {} creado en restaurante {} con {} paradas para el repartidor {}", idViaje, idRestaurante,
+                asignadas.size(), candidato.idRepartidor());
+        return Resultado.CREADO;
+    }
+
+    private List<PedidoEnEspera> ordenar(List<PedidoEnEspera> grupo) {
+        PedidoEnEspera primero = grupo.getFirst();
+        if (grupo.size() < 2 || !primero.tieneOrigen()) {
+            return grupo;
+        }
+        double[][] coordenadas = grupo.stream().map(PedidoEnEspera::destino).toArray(double[][]::new);
+        int[] orden = OrdenParadas.ordenar(primero.origen(), coordenadas);
+        List<PedidoEnEspera> ordenados = new ArrayList<>(grupo.size());
+        for (int i : orden) {
+            ordenados.add(grupo.get(i));
+        }
+        return ordenados;
+    }
+
+    private static Double distanciaRecorrido(List<PedidoEnEspera> paradas) {
+        PedidoEnEspera primero = paradas.getFirst();
+        if (!primero.tieneOrigen() || paradas.stream().anyMatch(p -> !p.tieneUbicacion())) {
+            return null;
+        }
+        double[][] coordenadas = paradas.stream().map(PedidoEnEspera::destino).toArray(double[][]::new);
+        int[] enOrden = new int[coordenadas.length];
+        for (int i = 0; i < enOrden.length; i++) {
+            enOrden[i] = i;
+        }
+        return OrdenParadas.distanciaKm(primero.origen(), coordenadas, enOrden);
+    }
+
+    private static double distancia(PedidoEnEspera a, PedidoEnEspera b) {
+        return Geo.distanciaKm(a.latitudEntrega(), a.longitudEntrega(), b.latitudEntrega(), b.longitudEntrega());
+    }
+
+    @Override
+    public String getNombreMetricas() {
+        return "viajes";
+    }
+
+    @Override
+    public Map<String, Number> getMetricas() {
+        Map<String, Number> metricas = new LinkedHashMap<>();
+        metricas.put("pedidosNuevos", nuevos.size());
+        metricas.put("pedidosRetenidos", retenidos.size());
+        metricas.put("viajesCreados", viajesCreados.get());
+        metricas.put("viajesMultiples", viajesMultiples.get());
+        metricas.put("pedidosAgrupados", pedidosAgrupados.get());
+        long viajes = viajesCreados.get();
+        metricas.put("pedidosPorViaje", viajes == 0 ? 0.0 : (double) pedidosAgrupados.get() / viajes);
+        metricas.put("pedidosDescartados", pedidosDescartados.get());
+        metricas.put("sinRepartidor", sinRepartidor.get());
+        metricas.put("fallidos", fallidos.get());
+        return metricas;
+    }
+
+    private enum Resultado { CREADO, SIN_REPARTIDOR, FALLIDO }
+
+    private record PedidoEnEspera(Long idPedido, Double latitudRestaurante, Double longitudRestaurante,
+                                  Double latitudEntrega, Double longitudEntrega, long llegada) {
+
+        private PedidoEnEspera(PedidoRepository.PedidoParaViaje p, long llegada) {
+            this(p.getIdPedido(), p.getLatitudRestaurante(), p.getLongitudRestaurante(),
+                    p.getLatitudEntrega(), p.getLongitudEntrega(), llegada);
+        }
+
+        private boolean tieneUbicacion() {
+            return latitudEntrega != null && longitudEntrega != null;
+        }
+
+        private boolean tieneOrigen() {
+            return latitudRestaurante != null && longitudRestaurante != null;
+        }
+
+        private double[] origen() {
+            return new double[]{latitudRestaurante, longitudRestaurante};
+        }
+
+        private double[] destino() {
+            return new double[]{latitudEntrega, longitudEntrega};
+        }
+    }
+}
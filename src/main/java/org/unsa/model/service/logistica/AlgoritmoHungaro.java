@@ -0,0 +1,97 @@
+package org.unsa.model.service.logistica;
+
+import java.util.Arrays;
+
+/**
+ * Algoritmo hungaro (Kuhn-Munkres) con potenciales para el problema de asignacion rectangular.
+ * Complejidad O(n^2 * m) con n filas y m columnas, n <= m; si hay mas filas que columnas se resuelve la traspuesta.
+ */
+public final class AlgoritmoHungaro {
+
+    private AlgoritmoHungaro() {
+    }
+
+    /**
+     * Encuentra la asignacion de costo total minimo.
+     * @param costo Matriz de costos no vacia [filas][columnas].
+     * @return Para cada fila, la columna asignada, o -1 si quedo sin asignar (solo cuando hay mas filas que columnas).
+     */
+    public static int[] resolver(double[][] costo) {
+        int filas = costo.length;
+        int columnas = costo[0].length;
+        if (filas <= columnas) {
+            return resolverAncho(costo, filas, columnas);
+        }
+        double[][] traspuesta = new double[columnas][filas];
+        for (int i = 0; i < filas; i++) {
+            for (int j = 0; j < columnas; j++) {
+                traspuesta[j][i] = costo[i][j];
+            }
+        }
+        int[] porColumna = resolverAncho(traspuesta, columnas, filas);
+        int[] porFila = new int[filas];
+        Arrays.fill(porFila, -1);
+        for (int j = 0; j < columnas; j++) {
+            porFila[porColumna[j]] = j;
+        }
+        return porFila;
+    }
+
+    // Indices 1..n y 1..m; la columna 0 es ficticia
+    private static int[] resolverAncho(double[][] a, int n, int m) {
+        double[] u = new double[n + 1];
+        double[] v = new double[m + 1];
+        int[] p = new int[m + 1];
+        int[] camino = new int[m + 1];
+        double[] minimo = new double[m + 1];
+        boolean[] usada = new boolean[m + 1];
+
+        for (int i = 1; i <= n; i++) {
+            p[0] = i;
+            int j0 = 0;
+            Arrays.fill(minimo, Double.POSITIVE_INFINITY);
+            Arrays.fill(usada, false);
+            do {
+                usada[j0] = true;
+                int i0 = p[j0];
+                double delta = Double.POSITIVE_INFINITY;
+                int j1 = 0;
+                for (int j = 1; j <= m; j++) {
+                    if (!usada[j]) {
+                        double actual = a[i0 - 1][j - 1] - u[i0] - v[j];
+                        if (actual < minimo[j]) {
+                            minimo[j] = actual;
+                            camino[j] = j0;
+                        }
+                        if (minimo[j] < delta) {
+                            delta = minimo[j];
+                            j1 = j;
+                        }
+                    }
+                }
+                for (int j = 0; j <= m; j++) {
+                    if (usada[j]) {
+                        u[p[j]] += delta;
+                        v[j] -= delta;
+                    } else {
+                        minimo[j] -= delta;
+                    }
+                }
+                j0 = j1;
+            } while (p[j0] != 0);
+            do {
+                int j1 = camino[j0];
+                p[j0] = p[j1];
+                j0 = j1;
+            } while (j0 != 0);
+        }
+
+        int[] asignacion = new int[n];
+        for (int j = 1; j <= m; j++) {
+            if (p[j] != 0) {
+                asignacion[p[j] - 1] = j - 1;
+            }
+        }
+        return asignacion;
+    }
+}
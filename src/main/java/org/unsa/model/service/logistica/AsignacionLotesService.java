@@ -0,0 +1,209 @@
+package org.unsa.model.service.logistica;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.Limit;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.unsa.model.domain.pedidos.EstadoPedido;
+import org.unsa.model.repository.PedidoRepository;
+import org.unsa.model.service.Interfaces.IFuenteMetricas;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.stream.IntStream;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Asignacion periodica por lotes de repartidores a los pedidos que aun no tienen uno.
+ * En cada ronda toma los pedidos sin repartidor listos para recoger que no estan esperando formar un viaje
+ * en {@link AgrupacionViajesService} (los pedidos en preparacion tampoco se toman: asignarlos antes impediria
+ * agruparlos), arma la matriz de costos (distancia restaurante-repartidor) con los repartidores cercanos a
+ * alguno de ellos y la resuelve con el {@link AlgoritmoHungaro}, que minimiza la distancia total en vez de
+ * atender cada pedido por separado con el repartidor mas cercano. Las asignaciones se registran con la misma
+ * semantica que {@link DespachoService#despachar}: reclamo atomico en el indice y el registro, asignacion
+ * condicional del pedido (si otra via ya le asigno repartidor, falla) y devolucion del repartidor si falla.
+ */
+@Service
+public class AsignacionLotesService implements IFuenteMetricas {
+
+    private static final Logger logger = LoggerFactory.getLogger(AsignacionLotesService.class);
+    private static final List<EstadoPedido> ESTADOS_POR_ASIGNAR = List.of(EstadoPedido.LISTO_PARA_RECOGER);
+    // Costo de un par fuera del radio de despacho; el algoritmo lo evita si hay alternativa y luego se descarta
+    private static final double COSTO_INFACTIBLE = 1_000_000.0;
+
+    private final PedidoRepository pedidoRepository;
+    private final IndiceEspacialRepartidores indice;
+    private final DespachoService despachoService;
+    private final AgrupacionViajesService agrupacion;
+    private final ReentrantLock enCurso = new ReentrantLock();
+
+    private final AtomicLong rondas = new AtomicLong();
+    private final AtomicLong asignados = new AtomicLong();
+    private final AtomicLong reclamosPerdidos = new AtomicLong();
+    private final AtomicLong fallidos = new AtomicLong();
+    private final AtomicLong ultimosPedidos = new AtomicLong();
+    private final AtomicLong ultimosRepartidores = new AtomicLong();
+    private final AtomicLong ultimoCostosMicros = new AtomicLong();
+    private final AtomicLong ultimaResolucionMicros = new AtomicLong();
+    private final AtomicLong maxResolucionMicros = new AtomicLong();
+    private final AtomicLong maxCeldasMatriz = new AtomicLong();
+
+    @Value("${app.despacho.lote.habilitado:true}")
+    private boolean habilitado;
+
+    @Value("${app.despacho.lote.max-pedidos:200}")
+    private int maxPedidos;
+
+    @Value("${app.despacho.lote.candidatos-por-pedido:10}")
+    private int candidatosPorPedido;
+
+    @Value("${app.despacho.radio-km:5}")
+    private double radioKm;
+
+    public AsignacionLotesService(PedidoRepository pedidoRepository,
+                                  IndiceEspacialRepartidores indice,
+                                  DespachoService despachoService,
+                                  AgrupacionViajesService agrupacion) {
+        this.pedidoRepository = pedidoRepository;
+        this.indice = indice;
+        this.despachoService = despachoService;
+        this.agrupacion = agrupacion;
+    }
+
+    /**
+     * Ejecuta una ronda de asignacion; se omite si la anterior sigue en curso.
+     * @return Cantidad de pedidos asignados en la ronda.
+     */
+    @Scheduled(fixedDelayString = "${app.despacho.lote.intervalo-ms:5000}")
+    public int asignarPendientes() {
+        if (!habilitado || indice.cantidadDisponibles() == 0 || !enCurso.tryLock()) {
+            return 0;
+        }
+        try {
+            List<PedidoRepository.PedidoPorAsignar> pedidos = pedidoRepository.buscarPorAsignar(ESTADOS_POR_ASIGNAR, Limit.of(maxPedidos))
+                    .stream()
+                    .filter(p -> !agrupacion.retiene(p.getIdPedido()))
+                    .toList();
+            if (pedidos.isEmpty()) {
+                return 0;
+            }
+            return asignar(pedidos);
+        } finally {
+            enCurso.unlock();
+        }
+    }
+
+    private int asignar(List<PedidoRepository.PedidoPorAsignar> pedidos) {
+        long inicioCostos = System.nanoTime();
+        List<CandidatoRepartidor> repartidores = candidatos(pedidos);
+        if (repartidores.isEmpty()) {
+            return 0;
+        }
+        double[][] costos = matrizCostos(pedidos, repartidores);
+        long inicioResolucion = System.nanoTime();
+        int[] asignacion = AlgoritmoHungaro.resolver(costos);
+        long finResolucion = System.nanoTime();
+
+        int realizadas = 0;
+        for (int i = 0; i < asignacion.length; i++) {
+            int j = asignacion[i];
+            if (j < 0 || costos[i][j] >= COSTO_INFACTIBLE) {
+                continue;
+            }
+            if (registrar(pedidos.get(i).getIdPedido(), repartidores.get(j), costos[i][j])) {
+                realizadas++;
+            }
+        }
+
+        registrarRonda(pedidos.size(), repartidores.size(), inicioResolucion - inicioCostos, finResolucion - inicioResolucion);
+        logger.info("Ronda de asignacion por lotes: {} pedidos x {} repartidores, {} asignados (costos {} us, resolucion {} us)",
+                pedidos.size(), repartidores.size(), realizadas, ultimoCostosMicros.get(), ultimaResolucionMicros.get());
+        return realizadas;
+    }
+
+    /**
+     * Une los repartidores mas cercanos a cada pedido: la matriz tiene a lo sumo n * candidatosPorPedido columnas,
+     * sin importar cuantos repartidores haya conectados. La resolucion es O(n^2 m), cubica en el tamano de la
+     * ronda; app.despacho.lote.max-pedidos acota ese costo.
+     */
+    private List<CandidatoRepartidor> candidatos(List<PedidoRepository.PedidoPorAsignar> pedidos) {
+        Map<Integer, CandidatoRepartidor> unicos = new LinkedHashMap<>();
+        pedidos.parallelStream()
+                .map(p -> indice.buscarCercanos(p.getLatitud(), p.getLongitud(), candidatosPorPedido, radioKm))
+                .toList()
+                .forEach(cercanos -> cercanos.forEach(c -> unicos.putIfAbsent(c.idRepartidor(), c)));
+        return new ArrayList<>(unicos.values());
+    }
+
+    private double[][] matrizCostos(List<PedidoRepository.PedidoPorAsignar> pedidos, List<CandidatoRepartidor> repartidores) {
+        double[][] costos = new double[pedidos.size()][repartidores.size()];
+        IntStream.range(0, pedidos.size()).parallel().forEach(i -> {
+            PedidoRepository.PedidoPorAsignar pedido = pedidos.get(i);
+            double[] fila = costos[i];
+            for (int j = 0; j < fila.length; j++) {
+                CandidatoRepartidor r = repartidores.get(j);
+                double distancia = Geo.distanciaKm(pedido.getLatitud(), pedido.getLongitud(), r.latitud(), r.longitud());
+                fila[j] = distancia <= radioKm ? distancia : COSTO_INFACTIBLE;
+            }
+        });
+        return costos;
+    }
+
+    private boolean registrar(Long idPedido, CandidatoRepartidor repartidor, double distanciaKm) {
+        // Entre la instantanea y este punto el repartidor pudo ser despachado por otra via
+        if (!despachoService.reclamar(repartidor)) {
+            reclamosPerdidos.incrementAndGet();
+            return false;
+        }
+        try {
+            despachoService.asignar(idPedido, repartidor);
+        } catch (RuntimeException e) {
+            fallidos.incrementAndGet();
+            logger.warn("No se pudo asignar el repartidor {} al pedido {}: {}", repartidor.idRepartidor(), idPedido, e.getMessage());
+            return false;
+        }
+        asignados.incrementAndGet();
+        logger.debug("Pedido {} asignado por lote al repartidor {} a {} km", idPedido, repartidor.idRepartidor(),
+                String.format("%.2f", distanciaKm));
+        return true;
+    }
+
+    private void registrarRonda(int pedidos, int repartidores, long costosNs, long resolucionNs) {
+        rondas.incrementAndGet();
+        ultimosPedidos.set(pedidos);
+        ultimosRepartidores.set(repartidores);
+        ultimoCostosMicros.set(TimeUnit.NANOSECONDS.toMicros(costosNs));
+        long resolucionMicros = TimeUnit.NANOSECONDS.toMicros(resolucionNs);
+        ultimaResolucionMicros.set(resolucionMicros);
+        maxResolucionMicros.accumulateAndGet(resolucionMicros, Math::max);
+        maxCeldasMatriz.accumulateAndGet((long) pedidos * repartidores, Math::max);
+    }
+
+    @Override
+    public String getNombreMetricas() {
+        return "despacho.lotes";
+    }
+
+    @Override
+    public Map<String, Number> getMetricas() {
+        Map<String, Number> metricas = new LinkedHashMap<>();
+        metricas.put("rondas", rondas.get());
+        metricas.put("asignados", asignados.get());
+        metricas.put("reclamosPerdidos", reclamosPerdidos.get());
+        metricas.put("fallidos", fallidos.get());
+        // Tamano del ultimo problema junto a sus tiempos, para seguir el costo O(n^2 m) de la resolucion
+        metricas.put("ultimosPedidos", ultimosPedidos.get());
+        metricas.put("ultimosRepartidores", ultimosRepartidores.get());
+        metricas.put("ultimoCostosMicros", ultimoCostosMicros.get());
+        metricas.put("ultimaResolucionMicros", ultimaResolucionMicros.get());
+        metricas.put("maxResolucionMicros", maxResolucionMicros.get());
+        metricas.put("maxCeldasMatriz", maxCeldasMatriz.get());
+        return metricas;
+    }
+}
@@ -0,0 +1,195 @@
+package org.unsa.model.service.logistica;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.data.domain.Limit;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.unsa.model.domain.pedidos.EntregaEstancada;
+import org.unsa.model.domain.pedidos.EstadoEntrega;
+import org.unsa.model.repository.EntregaRepository;
+import org.unsa.model.service.Interfaces.IFuenteMetricas;
+
+import java.util.Date;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReentrantLock;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Barrido periodico de entregas estancadas: las que siguen ASIGNADO o RECOGIDO pasado el tiempo maximo
+ * de cada estado se pasan a INCIDENCIA y se emiten como {@link EntregaEstancada} para volver a despacharlas.
+ * Las candidatas se leen por paginas de (fecha, id) sobre los indices de estado y fecha, sin tocar la tabla;
+ * cada pagina se escala con un UPDATE condicional en su propia transaccion, que sube la version de cada
+ * entrega para que un guardado con una lectura anterior no deshaga la escalada. Cada ejecucion procesa a lo sumo
+ * app.barrido.max-lotes paginas con una pausa entre ellas, y guarda su cursor para continuar en la siguiente.
+ */
+@Service
+public class BarridoEntregasService implements IFuenteMetricas {
+
+    private static final Logger logger = LoggerFactory.getLogger(BarridoEntregasService.class);
+    private static final Date INICIO = new Date(0);
+
+    private final EntregaRepository entregaRepository;
+    private final ApplicationEventPublisher publicador;
+    private final TransactionTemplate transaccion;
+    private final ReentrantLock enCurso = new ReentrantLock();
+
+    private final Cursor cursorAsignadas = new Cursor();
+    private final Cursor cursorRecogidas = new Cursor();
+
+    private final AtomicLong ejecuciones = new AtomicLong();
+    private final AtomicLong revisadas = new AtomicLong();
+    private final AtomicLong escaladas = new AtomicLong();
+    private final AtomicLong ultimaDuracionMs = new AtomicLong();
+
+    @Value("${app.barrido.asignado-minutos:30}")
+    private long asignadoMinutos;
+
+    @Value("${app.barrido.recogido-minutos:90}")
+    private long recogidoMinutos;
+
+    @Value("${app.barrido.tamano-lote:200}")
+    private int tamanoLote;
+
+    @Value("${app.barrido.max-lotes:5}")
+    private int maxLotes;
+
+    @Value("${app.barrido.pausa-ms:100}")
+    private long pausaMs;
+
+    public BarridoEntregasService(EntregaRepository entregaRepository,
+                                  ApplicationEventPublisher publicador,
+                                  PlatformTransactionManager transactionManager) {
+        this.entregaRepository = entregaRepository;
+        this.publicador = publicador;
+        this.transaccion = new TransactionTemplate(transactionManager);
+    }
+
+    /**
+     * Ejecuta una pasada acotada sobre ambos estados.
+     * @return Cantidad de entregas escaladas a INCIDENCIA.
+     */
+    @Scheduled(fixedDelayString = "${app.barrido.intervalo-ms:60000}")
+    public int barrer() {
+        if (!enCurso.tryLock()) {
+            return 0;
+        }
+        try {
+            long inicio = System.nanoTime();
+            long ahora = System.currentTimeMillis();
+            Date limiteAsignadas = new Date(ahora - TimeUnit.MINUTES.toMillis(asignadoMinutos));
+            Date limiteRecogidas = new Date(ahora - TimeUnit.MINUTES.toMillis(recogidoMinutos));
+            int total = 0;
+            int lotes = 0;
+            boolean quedanAsignadas = true;
+            boolean quedanRecogidas = true;
+            // Alterna los estados para que ninguno acapare el presupuesto de la pasada
+            while (lotes < maxLotes && (quedanAsignadas || quedanRecogidas)) {
+                if (quedanAsignadas) {
+                    quedanAsignadas = procesarLote(EstadoEntrega.ASIGNADO, limiteAsignadas, cursorAsignadas);
+                    total += cursorAsignadas.ultimasEscaladas;
+                    lotes++;
+                }
+                if (quedanRecogidas && lotes < maxLotes) {
+                    quedanRecogidas = procesarLote(EstadoEntrega.RECOGIDO, limiteRecogidas, cursorRecogidas);
+                    total += cursorRecogidas.ultimasEscaladas;
+                    lotes++;
+                }
+                boolean quedan = quedanAsignadas || quedanRecogidas;
+                if (quedan && lotes < maxLotes && !pausar()) {
+                    break;
+                }
+            }
+            ejecuciones.incrementAndGet();
+            ultimaDuracionMs.set(TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - inicio));
+            if (total > 0) {
+                logger.warn("Barrido de entregas: {} entregas estancadas pasadas a INCIDENCIA", total);
+            }
+            return total;
+        } finally {
+            enCurso.unlock();
+        }
+    }
+
+    /**
+     * Lee y escala una pagina desde el cursor del estado.
+     * @return true si la pagina vino llena y puede haber mas; false si se llego al final (el cursor vuelve al inicio).
+     */
+    private boolean procesarLote(EstadoEntrega estado, Date limite, Cursor cursor) {
+        cursor.ultimasEscaladas = 0;
+        List<EntregaRepository.ClaveBarrido> claves = estado == EstadoEntrega.ASIGNADO
+                ? entregaRepository.buscarAsignadasAntesDe(estado, limite, cursor.fecha, cursor.id, Limit.of(tamanoLote))
+                : entregaRepository.buscarRecogidasAntesDe(estado, limite, cursor.fecha, cursor.id, Limit.of(tamanoLote));
+        if (claves.isEmpty()) {
+            cursor.reiniciar();
+            return false;
+        }
+        revisadas.addAndGet(claves.size());
+        List<Long> ids = claves.stream().map(EntregaRepository.ClaveBarrido::getId).toList();
+
+        List<EntregaRepository.EntregaEscalada> escaladasLote = transaccion.execute(tx -> {
+            int filas = estado == EstadoEntrega.ASIGNADO
+                    ? entregaRepository.escalarAsignadas(ids, limite)
+                    : entregaRepository.escalarRecogidas(ids, limite);
+            return filas == 0 ? List.<EntregaRepository.EntregaEscalada>of() : entregaRepository.buscarEscaladas(ids);
+        });
+        for (EntregaRepository.EntregaEscalada e : escaladasLote) {
+            publicador.publishEvent(new EntregaEstancada(e.getIdEntrega(), e.getIdPedido(), e.getIdRepartidor(), estado));
+        }
+        cursor.ultimasEscaladas = escaladasLote.size();
+        escaladas.addAndGet(escaladasLote.size());
+
+        EntregaRepository.ClaveBarrido ultima = claves.getLast();
+        if (claves.size() < tamanoLote) {
+            cursor.reiniciar();
+            return false;
+        }
+        cursor.fecha = ultima.getFecha();
+        cursor.id = ultima.getId();
+        return true;
+    }
+
+    private boolean pausar() {
+        try {
+            Thread.sleep(pausaMs);
+            return true;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return false;
+        }
+    }
+
+    @Override
+    public String getNombreMetricas() {
+        return "entregas.barrido";
+    }
+
+    @Override
+    public Map<String, Number> getMetricas() {
+        Map<String, Number> metricas = new LinkedHashMap<>();
+        metricas.put("ejecuciones", ejecuciones.get());
+        metricas.put("revisadas", revisadas.get());
+        metricas.put("escaladas", escaladas.get());
+        metricas.put("ultimaDuracionMs", ultimaDuracionMs.get());
+        return metricas;
+    }
+
+    // Posicion (fecha, id) de la ultima entrega revisada; solo la usa el hilo del barrido
+    private static final class Cursor {
+        private Date fecha = INICIO;
+        private Long id = Long.MIN_VALUE;
+        private int ultimasEscaladas;
+
+        private void reiniciar() {
+            fecha = INICIO;
+            id = Long.MIN_VALUE;
+        }
+    }
+}
@@ -0,0 +1,7 @@
+package org.unsa.model.service.logistica;
+
+/**
+ * Repartidor disponible encontrado por el indice espacial, con su distancia al punto buscado.
+ */
+public record CandidatoRepartidor(Integer idRepartidor, double latitud, double longitud, double distanciaKm) {
+}
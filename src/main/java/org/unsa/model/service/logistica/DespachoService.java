@@ -0,0 +1,251 @@
+package org.unsa.model.service.logistica;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+import org.unsa.model.domain.pedidos.EntregaEstancada;
+import org.unsa.model.domain.pedidos.EstadoEntrega;
+import org.unsa.model.exceptions.SinRepartidorDisponibleException;
+import org.unsa.model.repository.PedidoRepository;
+import org.unsa.model.service.Interfaces.IFuenteMetricas;
+import org.unsa.model.service.Interfaces.IPedidoServicio;
+
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Servicio de despacho: asigna a cada pedido el repartidor disponible mas cercano a su restaurante.
+ * Las posiciones de los repartidores disponibles viven en {@link IndiceEspacialRepartidores}; el reclamo
+ * en el indice es atomico, asi que dos pedidos despachados a la vez nunca obtienen el mismo repartidor.
+ * La disponibilidad y la carga viven en {@link RegistroDisponibilidadRepartidores}, que las escribe en la
+ * base de datos en segundo plano; el despacho no consulta ni escribe la disponibilidad en la base de datos.
+ * La asignacion del pedido es una actualizacion condicional que crea su entrega en la misma transaccion
+ * (ver {@link IPedidoServicio#asignarRepartidorAPedido}): un pedido que ya tiene repartidor no recibe otro.
+ * Si la asignacion del pedido falla, el repartidor se devuelve al registro y al indice.
+ */
+@Service
+public class DespachoService implements IFuenteMetricas {
+
+    private static final Logger logger = LoggerFactory.getLogger(DespachoService.class);
+    private static final int CANDIDATOS_POR_INTENTO = 8;
+    private static final int MAX_INTENTOS = 5;
+
+    private final IndiceEspacialRepartidores indice;
+    private final IPedidoServicio pedidoServicio;
+    private final PedidoRepository pedidoRepository;
+    private final RegistroDisponibilidadRepartidores registro;
+
+    private final AtomicLong despachos = new AtomicLong();
+    private final AtomicLong sinCandidatos = new AtomicLong();
+    private final AtomicLong reclamosPerdidos = new AtomicLong();
+    private final AtomicLong redespachos = new AtomicLong();
+    private final AtomicLong busquedas = new AtomicLong();
+    private final AtomicLong tiempoBusquedaNs = new AtomicLong();
+
+    @Value("${app.despacho.radio-km:5}")
+    private double radioKm;
+
+    public DespachoService(IndiceEspacialRepartidores indice,
+                           IPedidoServicio pedidoServicio,
+                           PedidoRepository pedidoRepository,
+                           RegistroDisponibilidadRepartidores registro) {
+        this.indice = indice;
+        this.pedidoServicio = pedidoServicio;
+        this.pedidoRepository = pedidoRepository;
+        this.registro = registro;
+    }
+
+    /**
+     * Registra al repartidor como disponible en la posicion dada.
+     * @throws IllegalArgumentException Si el repartidor no existe o las coordenadas no son validas.
+     */
+    public void registrarDisponible(Integer idRepartidor, double latitud, double longitud) {
+        Geo.validar(latitud, longitud);
+        registro.conectar(idRepartidor);
+        if (registro.estaDisponible(idRepartidor)) {
+            indice.marcarDisponible(idRepartidor, latitud, longitud);
+        }
+        logger.info("Repartidor {} disponible en {},{}", idRepartidor, latitud, longitud);
+    }
+
+    /**
+     * Retira al repartidor del despacho.
+     */
+    public void retirar(Integer idRepartidor) {
+        registro.desconectar(idRepartidor);
+        indice.retirar(idRepartidor);
+        logger.info("Repartidor {} retirado del despacho", idRepartidor);
+    }
+
+    /**
+     * Actualiza la posicion de un repartidor disponible; se ignora si no esta disponible.
+     * Un repartidor disponible que aun no esta en el indice (tras reiniciar o liberar carga) entra con esta posicion.
+     */
+    public void actualizarPosicion(Integer idRepartidor, double latitud, double longitud) {
+        if (!indice.actualizarPosicion(idRepartidor, latitud, longitud) && registro.estaDisponible(idRepartidor)) {
+            indice.marcarDisponible(idRepartidor, latitud, longitud);
+        }
+    }
+
+    /**
+     * @return Hasta k repartidores disponibles mas cercanos al punto, dentro del radio de despacho.
+     */
+    public List<CandidatoRepartidor> buscarCercanos(double latitud, double longitud, int k) {
+        long inicio = System.nanoTime();
+        List<CandidatoRepartidor> candidatos = indice.buscarCercanos(latitud, longitud, k, radioKm);
+        busquedas.incrementAndGet();
+        tiempoBusquedaNs.addAndGet(System.nanoTime() - inicio);
+        return candidatos;
+    }
+
+    /**
+     * Asigna al pedido el repartidor disponible mas cercano a su restaurante.
+     * @return El ID del repartidor asignado.
+     * @throws IllegalArgumentException Si el pedido no existe o su restaurante no tiene ubicacion.
+     * @throws SinRepartidorDisponibleException Si no hay repartidores disponibles en el radio.
+     * @throws org.unsa.model.exceptions.TransicionInvalidaException Si el pedido ya tiene repartidor o su estado no admite uno.
+     */
+    public Integer despachar(Long idPedido) {
+        PedidoRepository.UbicacionRestaurante origen = pedidoRepository.buscarUbicacionRestaurante(idPedido)
+                .orElseThrow(() -> new IllegalArgumentException("Pedido con ID " + idPedido + " no encontrado."));
+        if (origen.getLatitud() == null || origen.getLongitud() == null) {
+            throw new IllegalArgumentException("El restaurante del pedido " + idPedido + " no tiene ubicacion registrada.");
+        }
+
+        CandidatoRepartidor candidato = reclamarCercano(origen.getLatitud(), origen.getLongitud());
+        if (candidato == null) {
+            throw new SinRepartidorDisponibleException("No hay repartidores disponibles a menos de " + radioKm + " km del pedido " + idPedido + ".");
+        }
+        asignar(idPedido, candidato);
+        despachos.incrementAndGet();
+        logger.info("Pedido {} despachado al repartidor {} a {} km", idPedido, candidato.idRepartidor(),
+                String.format("%.2f", candidato.distanciaKm()));
+        return candidato.idRepartidor();
+    }
+
+    /**
+     * Reclama el repartidor disponible mas cercano al punto, dentro del radio de despacho.
+     * @return El candidato reclamado, o null si no hay ninguno; quien lo recibe debe confirmarlo o devolverlo.
+     */
+    CandidatoRepartidor reclamarCercano(double latitud, double longitud) {
+        for (int intento = 0; intento < MAX_INTENTOS; intento++) {
+            List<CandidatoRepartidor> candidatos = buscarCercanos(latitud, longitud, CANDIDATOS_POR_INTENTO);
+            if (candidatos.isEmpty()) {
+                break;
+            }
+            for (CandidatoRepartidor candidato : candidatos) {
+                if (reclamar(candidato)) {
+                    return candidato;
+                }
+            }
+        }
+        sinCandidatos.incrementAndGet();
+        return null;
+    }
+
+    /**
+     * Reacciona a una entrega estancada: el repartidor deja de recibir pedidos (su app probablemente fallo)
+     * y, si aun no habia recogido el pedido, se despacha a otro repartidor. Antes se le quita el pedido con
+     * una actualizacion condicional (solo si aun lo tiene), para que la asignacion condicional del nuevo
+     * repartidor lo acepte; el nuevo despacho crea una entrega de reemplazo y la estancada queda en INCIDENCIA.
+     */
+    @EventListener
+    public void alEstancarseEntrega(EntregaEstancada estancada) {
+        Integer estancado = estancada.getIdRepartidor();
+        if (estancado != null) {
+            retirar(estancado);
+        }
+        if (estancada.getEstadoAnterior() != EstadoEntrega.ASIGNADO || estancado == null) {
+            return; // El pedido ya esta con el repartidor; la incidencia se atiende fuera del despacho
+        }
+        if (!pedidoServicio.quitarRepartidorDePedido(estancada.getIdPedido(), estancado)) {
+            logger.info("El pedido {} de la entrega estancada {} ya no esta con el repartidor {}; no se vuelve a despachar",
+                    estancada.getIdPedido(), estancada.getIdEntrega(), estancado);
+            return;
+        }
+        registro.liberarPedido(estancada.getIdPedido());
+        try {
+            despachar(estancada.getIdPedido());
+            redespachos.incrementAndGet();
+        } catch (RuntimeException e) {
+            logger.warn("No se pudo volver a despachar el pedido {} de la entrega estancada {}: {}",
+                    estancada.getIdPedido(), estancada.getIdEntrega(), e.getMessage());
+        }
+    }
+
+    /**
+     * Reclama al candidato en el indice y una unidad de su carga en el registro, ambos sin bloquear.
+     * @return false si otro despacho lo tomo primero o ya no tiene capacidad.
+     */
+    boolean reclamar(CandidatoRepartidor candidato) {
+        if (!indice.reclamar(candidato.idRepartidor())) {
+            reclamosPerdidos.incrementAndGet(); // Otro despacho lo tomo primero
+            return false;
+        }
+        if (!registro.reclamar(candidato.idRepartidor())) {
+            reclamosPerdidos.incrementAndGet(); // Se desconecto o lleno su carga; queda fuera del indice
+            return false;
+        }
+        return true;
+    }
+
+    /**
+     * Registra la asignacion de un repartidor ya reclamado; si falla, lo devuelve al registro y al indice.
+     */
+    void asignar(Long idPedido, CandidatoRepartidor candidato) {
+        try {
+            pedidoServicio.asignarRepartidorAPedido(idPedido, candidato.idRepartidor());
+        } catch (RuntimeException e) {
+            devolver(candidato);
+            throw e;
+        }
+        confirmarViaje(List.of(idPedido), candidato);
+    }
+
+    /**
+     * Asocia el reclamo del candidato con los pedidos asignados; todos juntos ocupan una unidad de su carga.
+     */
+    void confirmarViaje(Collection<Long> idsPedido, CandidatoRepartidor candidato) {
+        registro.confirmarViaje(idsPedido, candidato.idRepartidor());
+        devolverAlIndice(candidato); // Si aun tiene capacidad puede recibir mas pedidos
+    }
+
+    /**
+     * Deshace el reclamo de una asignacion que no quedo registrada: el repartidor vuelve a estar disponible donde estaba.
+     */
+    void devolver(CandidatoRepartidor candidato) {
+        registro.liberar(candidato.idRepartidor());
+        devolverAlIndice(candidato);
+    }
+
+    private void devolverAlIndice(CandidatoRepartidor candidato) {
+        if (registro.estaDisponible(candidato.idRepartidor())) {
+            indice.marcarDisponible(candidato.idRepartidor(), candidato.latitud(), candidato.longitud());
+        }
+    }
+
+    @Override
+    public String getNombreMetricas() {
+        return "despacho";
+    }
+
+    @Override
+    public Map<String, Number> getMetricas() {
+        Map<String, Number> metricas = new LinkedHashMap<>();
+        metricas.put("repartidoresDisponibles", indice.cantidadDisponibles());
+        metricas.put("despachos", despachos.get());
+        metricas.put("sinCandidatos", sinCandidatos.get());
+        metricas.put("reclamosPerdidos", reclamosPerdidos.get());
+        metricas.put("redespachos", redespachos.get());
+        long total = busquedas.get();
+        metricas.put("busquedas", total);
+        metricas.put("busquedaPromedioMicros", total == 0 ? 0.0 : TimeUnit.NANOSECONDS.toMicros(tiempoBusquedaNs.get()) / (double) total);
+        return metricas;
+    }
+}
@@ -0,0 +1,156 @@
+package org.unsa.model.service.logistica;
+
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.unsa.model.domain.pedidos.EntregaCambiada;
+import org.unsa.model.domain.pedidos.EntregaEstancada;
+import org.unsa.model.domain.pedidos.EstadoEntrega;
+import org.unsa.model.dtos.ResumenEntrega;
+import org.unsa.model.repository.EntregaRepository;
+import org.unsa.model.service.Interfaces.IFuenteMetricas;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.EnumSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Entregas activas (asignadas, recogidas o en ruta) de cada repartidor, servidas desde memoria.
+ * El conjunto de un repartidor se carga de la base de datos la primera vez que se pide y luego se
+ * mantiene con los eventos {@link EntregaCambiada} que emiten asignarRepartidor, registrarRecojo y
+ * registrarEntrega, aplicados despues del commit. Cada cambio sube la version del repartidor, y una
+ * carga que se solapa con un cambio no se guarda (o se retira si el cambio llego justo despues de guardarla),
+ * para no dejar en cache una lectura anterior al commit.
+ */
+@Service
+public class EntregasActivasService implements IFuenteMetricas {
+
+    public static final Set<EstadoEntrega> ESTADOS_ACTIVOS = EnumSet.of(EstadoEntrega.ASIGNADO, EstadoEntrega.RECOGIDO, EstadoEntrega.ENRUTA);
+    private static final Comparator<ResumenEntrega> POR_ASIGNACION = Comparator.comparing(ResumenEntrega::getFechaHoraAsignacion,
+            Comparator.nullsLast(Comparator.naturalOrder()));
+
+    private final EntregaRepository entregaRepository;
+    private final Map<Integer, Map<Long, ResumenEntrega>> activas = new ConcurrentHashMap<>();
+    private final Map<Integer, AtomicLong> versiones = new ConcurrentHashMap<>();
+
+    private final AtomicLong aciertos = new AtomicLong();
+    private final AtomicLong cargas = new AtomicLong();
+    private final AtomicLong cambiosAplicados = new AtomicLong();
+    private final AtomicLong descartadas = new AtomicLong();
+
+    public EntregasActivasService(EntregaRepository entregaRepository) {
+        this.entregaRepository = entregaRepository;
+    }
+
+    /**
+     * @return Las entregas activas del repartidor, de la asignacion mas antigua a la mas reciente.
+     */
+    public List<ResumenEntrega> obtener(Integer idRepartidor) {
+        Map<Long, ResumenEntrega> conjunto = activas.get(idRepartidor);
+        if (conjunto != null) {
+            aciertos.incrementAndGet();
+        } else {
+            conjunto = cargar(idRepartidor);
+        }
+        List<ResumenEntrega> resultado = new ArrayList<>(conjunto.values());
+        resultado.sort(POR_ASIGNACION);
+        return resultado;
+    }
+
+    private Map<Long, ResumenEntrega> cargar(Integer idRepartidor) {
+        long version = version(idRepartidor).get();
+        Map<Long, ResumenEntrega> conjunto = new ConcurrentHashMap<>();
+        for (ResumenEntrega e : entregaRepository.buscarPorRepartidorYEstados(idRepartidor, ESTADOS_ACTIVOS)) {
+            conjunto.put(e.getIdEntrega(), e);
+        }
+        cargas.incrementAndGet();
+        if (version(idRepartidor).get() != version) {
+            return conjunto;
+        }
+        Map<Long, ResumenEntrega> previo = activas.putIfAbsent(idRepartidor, conjunto);
+        if (previo != null) {
+            return previo;
+        }
+        // Un cambio entre la comprobacion y el put no encontro el conjunto (aun no estaba) y no se aplico:
+        // alCambiarEntrega sube la version antes de buscarlo, asi que releerla aqui lo detecta
+        if (version(idRepartidor).get() != version) {
+            activas.remove(idRepartidor, conjunto);
+            descartadas.incrementAndGet();
+        }
+        return conjunto;
+    }
+
+    /**
+     * Aplica un cambio confirmado de una entrega al conjunto de su repartidor (y del anterior, si se reasigno).
+     */
+    @TransactionalEventListener(fallbackExecution = true)
+    public void alCambiarEntrega(EntregaCambiada cambio) {
+        Integer anterior = cambio.getIdRepartidorAnterior();
+        if (anterior != null && !anterior.equals(cambio.getIdRepartidor())) {
+            version(anterior).incrementAndGet();
+            Map<Long, ResumenEntrega> conjuntoAnterior = activas.get(anterior);
+            if (conjuntoAnterior != null) {
+                conjuntoAnterior.remove(cambio.getIdEntrega());
+            }
+        }
+        Integer idRepartidor = cambio.getIdRepartidor();
+        if (idRepartidor == null) {
+            return;
+        }
+        version(idRepartidor).incrementAndGet();
+        Map<Long, ResumenEntrega> conjunto = activas.get(idRepartidor);
+        if (conjunto != null) {
+            if (ESTADOS_ACTIVOS.contains(cambio.getEstado())) {
+                conjunto.put(cambio.getIdEntrega(), new ResumenEntrega(cambio.getIdEntrega(), cambio.getIdPedido(),
+                        cambio.getEstado(), cambio.getFechaHoraAsignacion(), cambio.getFechaHoraRecojo()));
+            } else {
+                conjunto.remove(cambio.getIdEntrega());
+            }
+        }
+        cambiosAplicados.incrementAndGet();
+    }
+
+    /**
+     * El barrido cambia el estado con un UPDATE masivo, sin eventos de la entidad: se recarga el conjunto.
+     */
+    @EventListener
+    public void alEstancarseEntrega(EntregaEstancada estancada) {
+        if (estancada.getIdRepartidor() != null) {
+            invalidar(estancada.getIdRepartidor());
+        }
+    }
+
+    /**
+     * Descarta el conjunto del repartidor; se vuelve a cargar en la siguiente consulta.
+     */
+    public void invalidar(Integer idRepartidor) {
+        version(idRepartidor).incrementAndGet();
+        activas.remove(idRepartidor);
+    }
+
+    private AtomicLong version(Integer idRepartidor) {
+        return versiones.computeIfAbsent(idRepartidor, id -> new AtomicLong());
+    }
+
+    @Override
+    public String getNombreMetricas() {
+        return "entregas.activas";
+    }
+
+    @Override
+    public Map<String, Number> getMetricas() {
+        Map<String, Number> metricas = new LinkedHashMap<>();
+        metricas.put("repartidoresEnCache", activas.size());
+        metricas.put("aciertos", aciertos.get());
+        metricas.put("cargas", cargas.get());
+        metricas.put("cambiosAplicados", cambiosAplicados.get());
+        metricas.put("cargasDescartadas", descartadas.get());
+        return metricas;
+    }
+}
@@ -0,0 +1,33 @@
+package org.unsa.model.service.logistica;
+
+/**
+ * Utilidades geograficas para distancias cortas (dentro de una ciudad).
+ */
+public final class Geo {
+
+    /** Kilometros por grado de latitud. */
+    public static final double KM_POR_GRADO = 111.32;
+
+    private Geo() {
+    }
+
+    /**
+     * Distancia aproximada en kilometros con la proyeccion equirectangular; a escala urbana el error
+     * frente a haversine es despreciable y evita funciones trigonometricas inversas.
+     */
+    public static double distanciaKm(double lat1, double lon1, double lat2, double lon2) {
+        double x = (lon2 - lon1) * Math.cos(Math.toRadians((lat1 + lat2) / 2));
+        double y = lat2 - lat1;
+        return Math.sqrt(x * x + y * y) * KM_POR_GRADO;
+    }
+
+    /**
+     * @throws IllegalArgumentException Si las coordenadas estan fuera de rango.
+     */
+    public static void validar(double latitud, double longitud) {
+        if (Double.isNaN(latitud) || latitud < -90 || latitud > 90
+                || Double.isNaN(longitud) || longitud < -180 || longitud > 180) {
+            throw new IllegalArgumentException("Coordenadas invalidas: " + latitud + "," + longitud);
+        }
+    }
+}
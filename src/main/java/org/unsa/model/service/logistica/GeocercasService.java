@@ -0,0 +1,203 @@
+package org.unsa.model.service.logistica;
+
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.unsa.model.domain.pedidos.EntregaCambiada;
+import org.unsa.model.domain.pedidos.EntregaEstancada;
+import org.unsa.model.domain.pedidos.EstadoEntrega;
+import org.unsa.model.repository.EntregaRepository;
+import org.unsa.model.service.Interfaces.IFuenteMetricas;
+import org.unsa.model.service.impl.GestionEntregasService;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Deteccion automatica de recojo y entrega por geocercas.
+ * Cada entrega activa tiene dos cercas circulares: el restaurante y la direccion del cliente. Un ping solo
+ * se compara con la cerca de la fase actual de su propia entrega (una busqueda en un mapa y una distancia),
+ * asi que el costo por ping es constante sin importar cuantas entregas haya. Tras varios pings seguidos
+ * dentro de la cerca se registra el recojo o la entrega en un hilo virtual, fuera del hilo del ping, con una
+ * actualizacion condicional sobre la fase (ver {@link GestionEntregasService#avanzarFase}): si la app del
+ * repartidor ya la movio, no afecta filas. Al completarse la entrega, el pedido pasa a ENTREGADO.
+ */
+@Service
+public class GeocercasService implements IFuenteMetricas {
+
+    private static final Logger logger = LoggerFactory.getLogger(GeocercasService.class);
+
+    private final EntregaRepository entregaRepository;
+    private final GestionEntregasService gestionEntregas;
+    private final ExecutorService transiciones = Executors.newVirtualThreadPerTaskExecutor();
+
+    private final Map<Long, Geocercas> porEntrega = new ConcurrentHashMap<>();
+
+    private final AtomicLong evaluados = new AtomicLong();
+    private final AtomicLong recojosAutomaticos = new AtomicLong();
+    private final AtomicLong entregasAutomaticas = new AtomicLong();
+    private final AtomicLong fallidas = new AtomicLong();
+
+    @Value("${app.geocercas.radio-m:60}")
+    private double radioM;
+
+    @Value("${app.geocercas.pings-confirmacion:2}")
+    private int pingsConfirmacion;
+
+    public GeocercasService(EntregaRepository entregaRepository, GestionEntregasService gestionEntregas) {
+        this.entregaRepository = entregaRepository;
+        this.gestionEntregas = gestionEntregas;
+    }
+
+    /**
+     * Evalua un ping contra la cerca de la fase actual de su entrega.
+     */
+    @EventListener
+    public void alMoverseEntrega(PosicionEntrega posicion) {
+        Geocercas cercas = obtener(posicion.idEntrega());
+        if (cercas == null) {
+            return;
+        }
+        evaluados.incrementAndGet();
+        EstadoEntrega fase = cercas.fase;
+        double[] punto = fase == EstadoEntrega.ASIGNADO ? cercas.recojo : fase == EstadoEntrega.RECOGIDO ? cercas.destino : null;
+        if (punto == null) {
+            return;
+        }
+        boolean dentro = Geo.distanciaKm(posicion.latitud(), posicion.longitud(), punto[0], punto[1]) * 1000 <= radioM;
+        if (cercas.registrarPing(dentro) >= pingsConfirmacion && cercas.enTransicion.compareAndSet(false, true)) {
+            transiciones.execute(() -> transicionar(posicion.idEntrega(), cercas, fase));
+        }
+    }
+
+    private void transicionar(Long idEntrega, Geocercas cercas, EstadoEntrega fase) {
+        try {
+            if (!gestionEntregas.avanzarFase(idEntrega, fase)) {
+                // Otro camino ya la movio: se recarga en el siguiente ping
+                fallidas.incrementAndGet();
+                porEntrega.remove(idEntrega, cercas);
+                logger.debug("Geocerca: la entrega {} ya no estaba en {}", idEntrega, fase);
+                return;
+            }
+            if (fase == EstadoEntrega.ASIGNADO) {
+                recojosAutomaticos.incrementAndGet();
+            } else {
+                entregasAutomaticas.incrementAndGet();
+            }
+            logger.info("Geocerca: entrega {} pasa de {} automaticamente", idEntrega, fase);
+        } catch (RuntimeException e) {
+            fallidas.incrementAndGet();
+            porEntrega.remove(idEntrega, cercas);
+            logger.warn("Geocerca: no se pudo avanzar la entrega {}: {}", idEntrega, e.getMessage());
+        } finally {
+            cercas.enTransicion.set(false);
+        }
+    }
+
+    /**
+     * Sigue los cambios de fase hechos por cualquier camino (app del repartidor o geocerca).
+     */
+    @TransactionalEventListener(fallbackExecution = true)
+    public void alCambiarEntrega(EntregaCambiada cambio) {
+        Geocercas cercas = porEntrega.get(cambio.getIdEntrega());
+        if (cercas == null) {
+            return;
+        }
+        if (cercas == Geocercas.SIN_CERCAS) {
+            porEntrega.remove(cambio.getIdEntrega(), cercas); // Se vuelve a consultar en el siguiente ping
+            return;
+        }
+        if (cambio.getEstado() == EstadoEntrega.ASIGNADO || cambio.getEstado() == EstadoEntrega.RECOGIDO) {
+            cercas.cambiarFase(cambio.getEstado());
+        } else {
+            porEntrega.remove(cambio.getIdEntrega());
+        }
+    }
+
+    @EventListener
+    public void alEstancarseEntrega(EntregaEstancada estancada) {
+        porEntrega.remove(estancada.getIdEntrega());
+    }
+
+    private Geocercas obtener(Long idEntrega) {
+        Geocercas cercas = porEntrega.get(idEntrega);
+        if (cercas != null) {
+            return cercas.fase == null ? null : cercas;
+        }
+        // Una consulta por entrega; las que no tienen coordenadas quedan registradas sin fase
+        Geocercas cargadas = entregaRepository.buscarPuntos(idEntrega).map(Geocercas::new).orElse(Geocercas.SIN_CERCAS);
+        Geocercas previas = porEntrega.putIfAbsent(idEntrega, cargadas);
+        Geocercas vigentes = previas != null ? previas : cargadas;
+        return vigentes.fase == null ? null : vigentes;
+    }
+
+    @PreDestroy
+    void detener() {
+        transiciones.shutdown();
+    }
+
+    @Override
+    public String getNombreMetricas() {
+        return "entregas.geocercas";
+    }
+
+    @Override
+    public Map<String, Number> getMetricas() {
+        Map<String, Number> metricas = new LinkedHashMap<>();
+        metricas.put("entregasSeguidas", porEntrega.size());
+        metricas.put("pingsEvaluados", evaluados.get());
+        metricas.put("recojosAutomaticos", recojosAutomaticos.get());
+        metricas.put("entregasAutomaticas", entregasAutomaticas.get());
+        metricas.put("fallidas", fallidas.get());
+        return metricas;
+    }
+
+    private static final class Geocercas {
+        private static final Geocercas SIN_CERCAS = new Geocercas();
+
+        private final double[] recojo;
+        private final double[] destino;
+        private final AtomicBoolean enTransicion = new AtomicBoolean();
+        private volatile EstadoEntrega fase;
+        private int pingsDentro;
+
+        private Geocercas() {
+            this.recojo = null;
+            this.destino = null;
+            this.fase = null;
+        }
+
+        private Geocercas(EntregaRepository.PuntosEntrega puntos) {
+            this.recojo = punto(puntos.getLatitudRestaurante(), puntos.getLongitudRestaurante());
+            this.destino = punto(puntos.getLatitudDestino(), puntos.getLongitudDestino());
+            EstadoEntrega estado = puntos.getEstado();
+            this.fase = estado == EstadoEntrega.ASIGNADO || estado == EstadoEntrega.RECOGIDO ? estado : null;
+        }
+
+        private static double[] punto(Double latitud, Double longitud) {
+            return latitud == null || longitud == null ? null : new double[]{latitud, longitud};
+        }
+
+        // Pings consecutivos dentro de la cerca actual; uno fuera reinicia la cuenta
+        private synchronized int registrarPing(boolean dentro) {
+            pingsDentro = dentro ? pingsDentro + 1 : 0;
+            return pingsDentro;
+        }
+
+        private synchronized void cambiarFase(EstadoEntrega nueva) {
+            if (fase != nueva) {
+                fase = nueva;
+                pingsDentro = 0;
+            }
+        }
+    }
+}
@@ -0,0 +1,208 @@
+package org.unsa.model.service.logistica;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Indice espacial en memoria de los repartidores disponibles, basado en una grilla uniforme.
+ * Cada repartidor esta en la celda que contiene su ultima posicion; buscar los k mas cercanos
+ * recorre anillos de celdas alrededor del punto hasta que ninguna celda sin revisar puede tener
+ * uno mas cercano, asi que el costo depende de la densidad local y no del total de repartidores.
+ * Reclamar un repartidor es atomico: solo un llamador logra quitarlo de {@code disponibles}.
+ */
+@Component
+public class IndiceEspacialRepartidores {
+
+    private final double tamanoCelda;
+    private final Map<Integer, Entrada> disponibles = new ConcurrentHashMap<>();
+    private final Map<Long, Set<Entrada>> celdas = new ConcurrentHashMap<>();
+
+    public IndiceEspacialRepartidores(@Value("${app.despacho.celda-grados:0.01}") double tamanoCelda) {
+        if (tamanoCelda <= 0) {
+            throw new IllegalArgumentException("El tamano de celda debe ser positivo.");
+        }
+        this.tamanoCelda = tamanoCelda;
+    }
+
+    /**
+     * Agrega al repartidor como disponible en la posicion dada, o lo mueve si ya estaba.
+     */
+    public void marcarDisponible(Integer idRepartidor, double latitud, double longitud) {
+        Geo.validar(latitud, longitud);
+        Entrada entrada = disponibles.computeIfAbsent(idRepartidor, Entrada::new);
+        mover(entrada, latitud, longitud);
+    }
+
+    /**
+     * Actualiza la posicion de un repartidor si esta disponible; si no, no hace nada.
+     * @return true si el repartidor estaba en el indice.
+     */
+    public boolean actualizarPosicion(Integer idRepartidor, double latitud, double longitud) {
+        Geo.validar(latitud, longitud);
+        Entrada entrada = disponibles.get(idRepartidor);
+        if (entrada == null) {
+            return false;
+        }
+        mover(entrada, latitud, longitud);
+        return true;
+    }
+
+    /**
+     * Reclama al repartidor para una asignacion; lo quita del indice.
+     * @return true si este llamador lo reclamo, false si ya no estaba disponible.
+     */
+    public boolean reclamar(Integer idRepartidor) {
+        Entrada entrada = disponibles.remove(idRepartidor);
+        if (entrada == null) {
+            return false;
+        }
+        synchronized (entrada) {
+            quitarDeCelda(entrada);
+            entrada.retirada = true;
+        }
+        return true;
+    }
+
+    /**
+     * Quita al repartidor del indice sin asignarlo (por ejemplo, al desconectarse).
+     */
+    public void retirar(Integer idRepartidor) {
+        reclamar(idRepartidor);
+    }
+
+    public boolean estaDisponible(Integer idRepartidor) {
+        return disponibles.containsKey(idRepartidor);
+    }
+
+    public int cantidadDisponibles() {
+        return disponibles.size();
+    }
+
+    /**
+     * Busca los repartidores disponibles mas cercanos a un punto.
+     * @param k Cantidad maxima de resultados.
+     * @param radioMaxKm Distancia maxima de busqueda.
+     * @return Hasta k candidatos ordenados por distancia creciente.
+     */
+    public List<CandidatoRepartidor> buscarCercanos(double latitud, double longitud, int k, double radioMaxKm) {
+        Geo.validar(latitud, longitud);
+        if (k <= 0) {
+            return List.of();
+        }
+        // Cota inferior de la distancia cubierta por cada anillo (el lado mas corto de una celda)
+        double kmPorAnillo = tamanoCelda * Geo.KM_POR_GRADO * Math.max(0.01, Math.cos(Math.toRadians(Math.abs(latitud) + tamanoCelda)));
+        int anilloMax = (int) Math.ceil(radioMaxKm / kmPorAnillo) + 1;
+        long fila = indice(latitud);
+        long columna = indice(longitud);
+
+        // Max-heap de tamano k: la cabeza es el peor de los mejores
+        PriorityQueue<CandidatoRepartidor> mejores = new PriorityQueue<>(k,
+                Comparator.comparingDouble(CandidatoRepartidor::distanciaKm).reversed());
+        for (int anillo = 0; anillo <= anilloMax; anillo++) {
+            for (long f = fila - anillo; f <= fila + anillo; f++) {
+                boolean borde = f == fila - anillo || f == fila + anillo;
+                long paso = borde ? 1 : 2L * anillo;
+                for (long c = columna - anillo; c <= columna + anillo; c += Math.max(1, paso)) {
+                    revisarCelda(clave(f, c), latitud, longitud, k, radioMaxKm, mejores);
+                }
+            }
+            // Cualquier celda fuera de este anillo esta a mas de anillo * kmPorAnillo
+            if (mejores.size() == k && mejores.peek().distanciaKm() <= anillo * kmPorAnillo) {
+                break;
+            }
+        }
+        List<CandidatoRepartidor> resultado = new ArrayList<>(mejores);
+        resultado.sort(Comparator.comparingDouble(CandidatoRepartidor::distanciaKm));
+        return resultado;
+    }
+
+    private void revisarCelda(long clave, double latitud, double longitud, int k, double radioMaxKm,
+                              PriorityQueue<CandidatoRepartidor> mejores) {
+        Set<Entrada> celda = celdas.get(clave);
+        if (celda == null) {
+            return;
+        }
+        for (Entrada e : celda) {
+            double lat = e.latitud;
+            double lon = e.longitud;
+            if (e.retirada) {
+                continue;
+            }
+            double distancia = Geo.distanciaKm(latitud, longitud, lat, lon);
+            if (distancia > radioMaxKm) {
+                continue;
+            }
+            if (mejores.size() < k) {
+                mejores.add(new CandidatoRepartidor(e.idRepartidor, lat, lon, distancia));
+            } else if (distancia < mejores.peek().distanciaKm()) {
+                mejores.poll();
+                mejores.add(new CandidatoRepartidor(e.idRepartidor, lat, lon, distancia));
+            }
+        }
+    }
+
+    private void mover(Entrada entrada, double latitud, double longitud) {
+        long nuevaCelda = clave(indice(latitud), indice(longitud));
+        synchronized (entrada) {
+            if (entrada.retirada) {
+                return;
+            }
+            entrada.latitud = latitud;
+            entrada.longitud = longitud;
+            if (entrada.ubicada && entrada.celda == nuevaCelda) {
+                return;
+            }
+            if (entrada.ubicada) {
+                quitarDeCelda(entrada);
+            }
+            entrada.celda = nuevaCelda;
+            entrada.ubicada = true;
+            // Altas y bajas de una celda se hacen dentro de compute para no agregar a un conjunto ya descartado
+            celdas.compute(nuevaCelda, (c, miembros) -> {
+                Set<Entrada> destino = miembros != null ? miembros : ConcurrentHashMap.newKeySet();
+                destino.add(entrada);
+                return destino;
+            });
+        }
+    }
+
+    private void quitarDeCelda(Entrada entrada) {
+        if (!entrada.ubicada) {
+            return;
+        }
+        celdas.computeIfPresent(entrada.celda, (c, miembros) -> {
+            miembros.remove(entrada);
+            return miembros.isEmpty() ? null : miembros;
+        });
+        entrada.ubicada = false;
+    }
+
+    private long indice(double grados) {
+        return (long) Math.floor(grados / tamanoCelda);
+    }
+
+    private static long clave(long fila, long columna) {
+        return (fila << 32) ^ (columna & 0xFFFFFFFFL);
+    }
+
+    private static final class Entrada {
+        private final Integer idRepartidor;
+        private volatile double latitud;
+        private volatile double longitud;
+        private volatile boolean retirada;
+        private long celda;
+        private boolean ubicada;
+
+        private Entrada(Integer idRepartidor) {
+            this.idRepartidor = idRepartidor;
+        }
+    }
+}
@@ -0,0 +1,93 @@
+package org.unsa.model.service.logistica;
+
+/**
+ * Orden de visita de las paradas de un viaje que sale de un origen fijo y no regresa.
+ * Parte del vecino mas cercano y lo mejora con 2-opt (invertir tramos mientras acorte el recorrido);
+ * con los pocos pedidos de un viaje el resultado es optimo o casi.
+ */
+final class OrdenParadas {
+
+    private OrdenParadas() {
+    }
+
+    /**
+     * @param origen Coordenadas {latitud, longitud} del punto de partida.
+     * @param paradas Coordenadas {latitud, longitud} de cada parada.
+     * @return Indices de las paradas en el orden de visita.
+     */
+    static int[] ordenar(double[] origen, double[][] paradas) {
+        int n = paradas.length;
+        int[] orden = vecinoMasCercano(origen, paradas);
+        boolean mejoro = true;
+        while (mejoro) {
+            mejoro = false;
+            for (int i = 0; i < n - 1; i++) {
+                double[] anterior = i == 0 ? origen : paradas[orden[i - 1]];
+                for (int j = i + 1; j < n; j++) {
+                    // Invertir orden[i..j]: cambian la arista de entrada al tramo y la de salida (si existe)
+                    double antes = distancia(anterior, paradas[orden[i]]);
+                    double despues = distancia(anterior, paradas[orden[j]]);
+                    if (j + 1 < n) {
+                        double[] siguiente = paradas[orden[j + 1]];
+                        antes += distancia(paradas[orden[j]], siguiente);
+                        despues += distancia(paradas[orden[i]], siguiente);
+                    }
+                    if (despues + 1e-9 < antes) {
+                        invertir(orden, i, j);
+                        mejoro = true;
+                    }
+                }
+            }
+        }
+        return orden;
+    }
+
+    /**
+     * @return Distancia del recorrido origen -> paradas en el orden dado.
+     */
+    static double distanciaKm(double[] origen, double[][] paradas, int[] orden) {
+        double total = 0;
+        double[] actual = origen;
+        for (int indice : orden) {
+            total += distancia(actual, paradas[indice]);
+            actual = paradas[indice];
+        }
+        return total;
+    }
+
+    private static int[] vecinoMasCercano(double[] origen, double[][] paradas) {
+        int n = paradas.length;
+        int[] orden = new int[n];
+        boolean[] visitada = new boolean[n];
+        double[] actual = origen;
+        for (int k = 0; k < n; k++) {
+            int mejor = -1;
+            double mejorDistancia = Double.POSITIVE_INFINITY;
+            for (int i = 0; i < n; i++) {
+                if (!visitada[i]) {
+                    double d = distancia(actual, paradas[i]);
+                    if (d < mejorDistancia) {
+                        mejorDistancia = d;
+                        mejor = i;
+                    }
+                }
+            }
+            visitada[mejor] = true;
+            orden[k] = mejor;
+            actual = paradas[mejor];
+        }
+        return orden;
+    }
+
+    private static double distancia(double[] a, double[] b) {
+        return Geo.distanciaKm(a[0], a[1], b[0], b[1]);
+    }
+
+    private static void invertir(int[] orden, int desde, int hasta) {
+        while (desde < hasta) {
+            int t = orden[desde];
+            orden[desde++] = orden[hasta];
+            orden[hasta--] = t;
+        }
+    }
+}
@@ -0,0 +1,12 @@
+package org.unsa.model.service.logistica;
+
+import com.fasterxml.jackson.databind.annotation.JsonSerialize;
+import com.fasterxml.jackson.databind.ser.std.ToStringSerializer;
+
+/**
+ * Ultima posicion conocida del repartidor de una entrega.
+ * @param idRepartidor Puede ser nulo si la entrega aun no tiene repartidor.
+ * @param instante Momento de recepcion, en milisegundos desde la epoca.
+ */
+public record PosicionEntrega(@JsonSerialize(using = ToStringSerializer.class) Long idEntrega, Integer idRepartidor, double latitud, double longitud, long instante) {
+}
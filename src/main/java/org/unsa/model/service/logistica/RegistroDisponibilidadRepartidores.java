@@ -0,0 +1,363 @@
+package org.unsa.model.service.logistica;
+
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.unsa.model.domain.pedidos.EstadoPedido;
+import org.unsa.model.domain.pedidos.EntregaCambiada;
+import org.unsa.model.domain.pedidos.EstadoEntrega;
+import org.unsa.model.domain.pedidos.PedidoCambiado;
+import org.unsa.model.repository.PedidoRepository;
+import org.unsa.model.repository.RepartidorRepository;
+import org.unsa.model.service.Interfaces.IFuenteMetricas;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.EnumSet;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.UnaryOperator;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Registro en memoria de la disponibilidad y la carga de cada repartidor.
+ * El estado de cada repartidor es un valor inmutable en una {@link AtomicReference}: conectarse,
+ * desconectarse, reclamar y liberar son compare-and-set, asi que el despacho nunca espera a la base
+ * de datos ni a un candado. Las entradas y salidas de turno se escriben despues en
+ * repartidor.disponible_para_entregas, en lotes JDBC (write-behind); al arrancar el registro se
+ * reconstruye desde esa columna y los pedidos en curso con repartidor. Se persiste el turno y no la
+ * disponibilidad derivada (turno y capacidad libre): la carga se recalcula desde los pedidos, y guardar la
+ * disponibilidad dejaria fuera de turno, tras un reinicio, a quien estaba ocupado al detenerse.
+ * La carga de un repartidor es la cantidad de asignaciones en curso: un pedido suelto o un viaje con
+ * varios pedidos ocupan una unidad cada uno. Un pedido deja de ocuparla al confirmarse su entrega
+ * completada o el {@link PedidoCambiado} que lo lleva a entregado o cancelado; la unidad de un viaje se
+ * libera cuando termina su ultimo pedido.
+ */
+@Component
+public class RegistroDisponibilidadRepartidores implements IFuenteMetricas {
+
+    private static final Logger logger = LoggerFactory.getLogger(RegistroDisponibilidadRepartidores.class);
+    private static final Set<EstadoPedido> ESTADOS_EN_CURSO = EnumSet.of(EstadoPedido.PENDIENTE, EstadoPedido.EN_PREPARACION,
+            EstadoPedido.LISTO_PARA_RECOGER, EstadoPedido.EN_CAMINO);
+    private static final String UPDATE_EN_TURNO = "UPDATE repartidor SET disponible_para_entregas = ? WHERE id = ?";
+
+    private final RepartidorRepository repartidorRepository;
+    private final PedidoRepository pedidoRepository;
+    private final JdbcTemplate jdbcTemplate;
+
+    private final Map<Integer, AtomicReference<Estado>> estados = new ConcurrentHashMap<>();
+    // Asignacion de cada pedido en curso; los pedidos de un viaje comparten la misma
+    private final Map<Long, Asignacion> pedidosAsignados = new ConcurrentHashMap<>();
+    // Repartidores que entraron o salieron de turno desde el ultimo volcado; se escribe su turno al momento del volcado
+    private final Set<Integer> pendientes = ConcurrentHashMap.newKeySet();
+    private final ReentrantLock volcando = new ReentrantLock();
+
+    private final AtomicLong reclamos = new AtomicLong();
+    private final AtomicLong reclamosFallidos = new AtomicLong();
+    private final AtomicLong conflictosCas = new AtomicLong();
+    private final AtomicLong escritas = new AtomicLong();
+
+    @Value("${app.repartidores.max-carga:1}")
+    private int maxCarga;
+
+    @Value("${app.repartidores.tamano-lote:500}")
+    private int tamanoLote;
+
+    public RegistroDisponibilidadRepartidores(RepartidorRepository repartidorRepository,
+                                              PedidoRepository pedidoRepository,
+                                              JdbcTemplate jdbcTemplate) {
+        this.repartidorRepository = repartidorRepository;
+        this.pedidoRepository = pedidoRepository;
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    /**
+     * Reconstruye el registro desde la base de datos al arrancar.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void reconstruir() {
+        for (RepartidorRepository.Disponibilidad d : repartidorRepository.buscarDisponibilidades()) {
+            // La columna guarda el turno; la carga sale de los pedidos en curso
+            estados.put(d.getId(), new AtomicReference<>(new Estado(d.getDisponibleParaEntregas(), 0)));
+        }
+        Map<Long, Asignacion> viajes = new HashMap<>();
+        for (PedidoRepository.AsignacionActiva a : pedidoRepository.buscarAsignacionesActivas(ESTADOS_EN_CURSO)) {
+            AtomicReference<Estado> estado = estados.get(a.getIdRepartidor());
+            if (estado == null) {
+                continue;
+            }
+            Asignacion asignacion = a.getIdViaje() == null ? null : viajes.get(a.getIdViaje());
+            if (asignacion == null) {
+                asignacion = new Asignacion(a.getIdRepartidor(), new AtomicInteger());
+                estado.set(new Estado(estado.get().enTurno(), estado.get().carga() + 1));
+                if (a.getIdViaje() != null) {
+                    viajes.put(a.getIdViaje(), asignacion);
+                }
+            }
+            asignacion.pedidos().incrementAndGet();
+            pedidosAsignados.put(a.getIdPedido(), asignacion);
+        }
+        logger.info("Registro de disponibilidad reconstruido: {} repartidores, {} disponibles", estados.size(), cantidadDisponibles());
+    }
+
+    /**
+     * Pone al repartidor en turno.
+     * @throws IllegalArgumentException Si el repartidor no existe.
+     */
+    public void conectar(Integer idRepartidor) {
+        actualizar(estadoDe(idRepartidor), e -> new Estado(true, e.carga()), idRepartidor);
+    }
+
+    /**
+     * Saca al repartidor de turno; sus entregas en curso siguen contando como carga.
+     */
+    public void desconectar(Integer idRepartidor) {
+        AtomicReference<Estado> estado = estados.get(idRepartidor);
+        if (estado != null) {
+            actualizar(estado, e -> new Estado(false, e.carga()), idRepartidor);
+        }
+    }
+
+    /**
+     * Reclama una unidad de carga del repartidor para una asignacion.
+     * @return true si estaba en turno y con capacidad; false si no, sin modificar nada.
+     */
+    public boolean reclamar(Integer idRepartidor) {
+        AtomicReference<Estado> estado = estados.get(idRepartidor);
+        if (estado == null) {
+            reclamosFallidos.incrementAndGet();
+            return false;
+        }
+        while (true) {
+            Estado actual = estado.get();
+            if (!actual.enTurno() || actual.carga() >= maxCarga) {
+                reclamosFallidos.incrementAndGet();
+                return false;
+            }
+            Estado nuevo = new Estado(true, actual.carga() + 1);
+            if (estado.compareAndSet(actual, nuevo)) {
+                reclamos.incrementAndGet();
+                marcarSiCambio(idRepartidor, actual, nuevo);
+                return true;
+            }
+            conflictosCas.incrementAndGet();
+        }
+    }
+
+    /**
+     * Devuelve una unidad de carga (entrega terminada o asignacion que no se concreto).
+     */
+    public void liberar(Integer idRepartidor) {
+        AtomicReference<Estado> estado = estados.get(idRepartidor);
+        if (estado != null) {
+            actualizar(estado, e -> new Estado(e.enTurno(), Math.max(0, e.carga() - 1)), idRepartidor);
+        }
+    }
+
+    /**
+     * Asocia un reclamo ya hecho con el pedido asignado, para liberarlo cuando el pedido termine.
+     */
+    public void confirmar(Long idPedido, Integer idRepartidor) {
+        confirmarViaje(List.of(idPedido), idRepartidor);
+    }
+
+    /**
+     * Asocia un unico reclamo ya hecho con todos los pedidos de un viaje; se libera al terminar el ultimo.
+     */
+    public void confirmarViaje(Collection<Long> idsPedido, Integer idRepartidor) {
+        Asignacion asignacion = new Asignacion(idRepartidor, new AtomicInteger(idsPedido.size()));
+        for (Long idPedido : idsPedido) {
+            Asignacion anterior = pedidosAsignados.put(idPedido, asignacion);
+            if (anterior != null) {
+                soltar(anterior); // Reasignacion: la asignacion anterior deja de cargar con el pedido
+            }
+        }
+    }
+
+    /**
+     * Libera la carga de un pedido al entregarse o cancelarse, una vez confirmado el cambio.
+     * Escucha el evento de dominio y no el del relevo del outbox, que solo llega con el destino local.
+     */
+    @TransactionalEventListener(fallbackExecution = true)
+    public void alCambiarPedido(PedidoCambiado cambio) {
+        if (!ESTADOS_EN_CURSO.contains(cambio.getEstado())) {
+            liberarPedido(cambio.getIdPedido());
+        }
+    }
+
+    /**
+     * Libera la carga al completarse la entrega, sin esperar a que el pedido pase a ENTREGADO.
+     */
+    @TransactionalEventListener(fallbackExecution = true)
+    public void alCambiarEntrega(EntregaCambiada cambio) {
+        if (cambio.getEstado() == EstadoEntrega.PROPORCIONADO && cambio.getIdPedido() != null) {
+            liberarPedido(cambio.getIdPedido());
+        }
+    }
+
+    /**
+     * Deja de contar el pedido en la carga de su repartidor; solo libera si aun la ocupaba, asi que
+     * entregar y luego cerrar el pedido libera una sola vez.
+     */
+    void liberarPedido(Long idPedido) {
+        Asignacion asignacion = pedidosAsignados.remove(idPedido);
+        if (asignacion != null) {
+            soltar(asignacion);
+        }
+    }
+
+    private void soltar(Asignacion asignacion) {
+        if (asignacion.pedidos().decrementAndGet() == 0) {
+            liberar(asignacion.idRepartidor());
+        }
+    }
+
+    /**
+     * @return true si el repartidor esta en turno y puede recibir otra entrega. No consulta la base de datos.
+     */
+    public boolean estaDisponible(Integer idRepartidor) {
+        AtomicReference<Estado> estado = estados.get(idRepartidor);
+        return estado != null && estado.get().disponible(maxCarga);
+    }
+
+    private boolean estaEnTurno(Integer idRepartidor) {
+        AtomicReference<Estado> estado = estados.get(idRepartidor);
+        return estado != null && estado.get().enTurno();
+    }
+
+    /**
+     * @return Entregas en curso del repartidor segun el registro.
+     */
+    public int carga(Integer idRepartidor) {
+        AtomicReference<Estado> estado = estados.get(idRepartidor);
+        return estado == null ? 0 : estado.get().carga();
+    }
+
+    public long cantidadDisponibles() {
+        return estados.values().stream().filter(e -> e.get().disponible(maxCarga)).count();
+    }
+
+    private AtomicReference<Estado> estadoDe(Integer idRepartidor) {
+        AtomicReference<Estado> estado = estados.get(idRepartidor);
+        if (estado != null) {
+            return estado;
+        }
+        // Repartidor registrado despues del arranque: se verifica una sola vez
+        if (!repartidorRepository.existsById(idRepartidor)) {
+            throw new IllegalArgumentException("Repartidor con ID " + idRepartidor + " no encontrado.");
+        }
+        return estados.computeIfAbsent(idRepartidor, id -> new AtomicReference<>(new Estado(false, 0)));
+    }
+
+    private void actualizar(AtomicReference<Estado> estado, UnaryOperator<Estado> cambio, Integer idRepartidor) {
+        while (true) {
+            Estado actual = estado.get();
+            Estado nuevo = cambio.apply(actual);
+            if (estado.compareAndSet(actual, nuevo)) {
+                marcarSiCambio(idRepartidor, actual, nuevo);
+                return;
+            }
+            conflictosCas.incrementAndGet();
+        }
+    }
+
+    private void marcarSiCambio(Integer idRepartidor, Estado anterior, Estado nuevo) {
+        if (anterior.enTurno() != nuevo.enTurno()) {
+            pendientes.add(idRepartidor);
+        }
+    }
+
+    /**
+     * Escribe en la base de datos el turno de los repartidores que cambiaron.
+     * @return Cantidad de filas actualizadas.
+     */
+    @Scheduled(fixedDelayString = "${app.repartidores.flush-ms:2000}")
+    public int volcar() {
+        if (!volcando.tryLock()) {
+            return 0;
+        }
+        try {
+            int total = 0;
+            List<Integer> lote = new ArrayList<>(tamanoLote);
+            for (Integer id : pendientes) {
+                if (pendientes.remove(id)) {
+                    lote.add(id);
+                }
+                if (lote.size() == tamanoLote) {
+                    total += escribir(lote);
+                    lote.clear();
+                }
+            }
+            if (!lote.isEmpty()) {
+                total += escribir(lote);
+            }
+            return total;
+        } finally {
+            volcando.unlock();
+        }
+    }
+
+    private int escribir(List<Integer> lote) {
+        try {
+            // Se escribe el estado vigente, no el del momento del cambio: varios cambios se combinan en uno
+            jdbcTemplate.batchUpdate(UPDATE_EN_TURNO, lote, lote.size(), (ps, id) -> {
+                ps.setBoolean(1, estaEnTurno(id));
+                ps.setInt(2, id);
+            });
+            escritas.addAndGet(lote.size());
+            return lote.size();
+        } catch (RuntimeException e) {
+            pendientes.addAll(lote);
+            logger.warn("Fallo el volcado del turno de {} repartidores; se reintentara: {}", lote.size(), e.getMessage());
+            return 0;
+        }
+    }
+
+    @PreDestroy
+    void detener() {
+        logger.info("Turnos volcados al detener: {}", volcar());
+    }
+
+    @Override
+    public String getNombreMetricas() {
+        return "repartidores.disponibilidad";
+    }
+
+    @Override
+    public Map<String, Number> getMetricas() {
+        Map<String, Number> metricas = new LinkedHashMap<>();
+        metricas.put("repartidores", estados.size());
+        metricas.put("disponibles", cantidadDisponibles());
+        metricas.put("pedidosAsignados", pedidosAsignados.size());
+        metricas.put("reclamos", reclamos.get());
+        metricas.put("reclamosFallidos", reclamosFallidos.get());
+        metricas.put("conflictosCas", conflictosCas.get());
+        metricas.put("pendientesDeEscribir", pendientes.size());
+        metricas.put("escritas", escritas.get());
+        return metricas;
+    }
+
+    // Unidad de carga de un repartidor y cuantos de sus pedidos siguen en curso
+    private record Asignacion(Integer idRepartidor, AtomicInteger pedidos) {
+    }
+
+    private record Estado(boolean enTurno, int carga) {
+        private boolean disponible(int maxCarga) {
+            return enTurno && carga < maxCarga;
+        }
+    }
+}
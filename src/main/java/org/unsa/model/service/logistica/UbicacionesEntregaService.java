@@ -0,0 +1,254 @@
+package org.unsa.model.service.logistica;
+
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.context.event.EventListener;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.unsa.model.domain.pedidos.EntregaCambiada;
+import org.unsa.model.domain.pedidos.EntregaEstancada;
+import org.unsa.model.repository.EntregaRepository;
+import org.unsa.model.service.Interfaces.IFuenteMetricas;
+
+import java.sql.Timestamp;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReentrantLock;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Ingesta de ubicaciones de repartidores a alta frecuencia.
+ * Cada ping reemplaza la ultima posicion de su entrega en un mapa concurrente (sin cargar la entidad),
+ * y solo las posiciones que cambiaron desde la ultima escritura se vuelcan a la base de datos en un
+ * lote JDBC cada app.ubicaciones.flush-ms. Varios pings de la misma entrega entre dos volcados se
+ * combinan en una sola fila actualizada. Las lecturas de la posicion actual se sirven desde memoria.
+ * Cada posicion se publica tambien como evento de la aplicacion para el seguimiento en vivo.
+ * Las columnas de ubicacion de la tabla entregas solo las escribe este volcado; la entidad las mapea
+ * como de solo lectura. El repartidor de cada entrega se guarda en cache, se actualiza con cada
+ * {@link EntregaCambiada} y se descarta cuando el barrido escala la entrega.
+ */
+@Service
+public class UbicacionesEntregaService implements IFuenteMetricas {
+
+    private static final Logger logger = LoggerFactory.getLogger(UbicacionesEntregaService.class);
+    private static final String UPDATE_UBICACION =
+            "UPDATE entregas SET latitud_actual = ?, longitud_actual = ?, ubicacion_actual_repartidor = ?, fecha_hora_ubicacion = ? WHERE id = ?";
+
+    private final EntregaRepository entregaRepository;
+    private final JdbcTemplate jdbcTemplate;
+    private final DespachoService despacho;
+    private final ApplicationEventPublisher publicador;
+
+    private final Map<Long, PosicionEntrega> actuales = new ConcurrentHashMap<>();
+    private final Map<Long, PosicionEntrega> pendientes = new ConcurrentHashMap<>();
+    // Repartidor de cada entrega, para no consultarlo en cada ping
+    private final Map<Long, Optional<Integer>> repartidores = new ConcurrentHashMap<>();
+    private final ReentrantLock volcando = new ReentrantLock();
+
+    private final AtomicLong recibidas = new AtomicLong();
+    private final AtomicLong escritas = new AtomicLong();
+    private final AtomicLong volcados = new AtomicLong();
+    private final AtomicLong ultimoVolcadoMs = new AtomicLong();
+
+    @Value("${app.ubicaciones.tamano-lote:500}")
+    private int tamanoLote;
+
+    @Value("${app.ubicaciones.retencion-minutos:60}")
+    private long retencionMinutos;
+
+    public UbicacionesEntregaService(EntregaRepository entregaRepository,
+                                     JdbcTemplate jdbcTemplate,
+                                     DespachoService despacho,
+                                     ApplicationEventPublisher publicador) {
+        this.entregaRepository = entregaRepository;
+        this.jdbcTemplate = jdbcTemplate;
+        this.despacho = despacho;
+        this.publicador = publicador;
+    }
+
+    /**
+     * Registra la posicion actual del repartidor de una entrega.
+     * @throws IllegalArgumentException Si la entrega no existe o las coordenadas no son validas.
+     */
+    public PosicionEntrega registrar(Long idEntrega, double latitud, double longitud) {
+        Geo.validar(latitud, longitud);
+        Optional<Integer> repartidor = repartidorDe(idEntrega);
+        PosicionEntrega posicion = new PosicionEntrega(idEntrega, repartidor.orElse(null), latitud, longitud, System.currentTimeMillis());
+        actuales.put(idEntrega, posicion);
+        pendientes.put(idEntrega, posicion);
+        recibidas.incrementAndGet();
+        if (posicion.idRepartidor() != null) {
+            despacho.actualizarPosicion(posicion.idRepartidor(), latitud, longitud);
+        }
+        publicador.publishEvent(posicion);
+        return posicion;
+    }
+
+    /**
+     * Registra una posicion recibida como texto "latitud,longitud".
+     * @throws IllegalArgumentException Si el texto no tiene ese formato.
+     */
+    public PosicionEntrega registrar(Long idEntrega, String coordenadas) {
+        int coma = coordenadas == null ? -1 : coordenadas.indexOf(',');
+        if (coma < 0) {
+            throw new IllegalArgumentException("Coordenadas invalidas, se espera 'latitud,longitud': " + coordenadas);
+        }
+        try {
+            double latitud = Double.parseDouble(coordenadas.substring(0, coma).trim());
+            double longitud = Double.parseDouble(coordenadas.substring(coma + 1).trim());
+            return registrar(idEntrega, latitud, longitud);
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("Coordenadas invalidas, se espera 'latitud,longitud': " + coordenadas);
+        }
+    }
+
+    /**
+     * @return La ultima posicion recibida de la entrega, o null si no hay ninguna reciente.
+     */
+    public PosicionEntrega obtenerActual(Long idEntrega) {
+        return actuales.get(idEntrega);
+    }
+
+    /**
+     * Olvida el repartidor guardado para la entrega, para que el siguiente ping lo vuelva a consultar.
+     * Lo usan los cambios masivos que no publican {@link EntregaCambiada}.
+     */
+    public void invalidarRepartidor(Long idEntrega) {
+        repartidores.remove(idEntrega);
+    }
+
+    /**
+     * El barrido pasa la entrega a INCIDENCIA con un UPDATE masivo, sin {@link EntregaCambiada}.
+     */
+    @EventListener
+    public void alEstancarseEntrega(EntregaEstancada estancada) {
+        invalidarRepartidor(estancada.getIdEntrega());
+    }
+
+    /**
+     * Toma el repartidor confirmado de cada cambio de la entrega (asignacion, reasignacion, recojo o entrega).
+     */
+    @TransactionalEventListener(fallbackExecution = true)
+    public void alCambiarEntrega(EntregaCambiada cambio) {
+        repartidores.put(cambio.getIdEntrega(), Optional.ofNullable(cambio.getIdRepartidor()));
+    }
+
+    /**
+     * Repartidor de la entrega desde la cache; si no esta, se consulta fuera del mapa, para no bloquear
+     * a los pings de otras entregas durante la consulta. Se guarda con putIfAbsent: si mientras tanto
+     * llego un {@link EntregaCambiada}, prevalece el valor del evento.
+     * @throws IllegalArgumentException Si la entrega no existe.
+     */
+    private Optional<Integer> repartidorDe(Long idEntrega) {
+        Optional<Integer> repartidor = repartidores.get(idEntrega);
+        if (repartidor != null) {
+            return repartidor;
+        }
+        Optional<Integer> leido = entregaRepository.buscarRepartidor(idEntrega)
+                .map(r -> Optional.ofNullable(r.getIdRepartidor()))
+                .orElseThrow(() -> new IllegalArgumentException("Entrega con ID " + idEntrega + " no encontrada."));
+        Optional<Integer> anterior = repartidores.putIfAbsent(idEntrega, leido);
+        return anterior != null ? anterior : leido;
+    }
+
+    /**
+     * Escribe en la base de datos las posiciones que cambiaron desde el ultimo volcado.
+     * @return Cantidad de filas actualizadas.
+     */
+    @Scheduled(fixedDelayString = "${app.ubicaciones.flush-ms:5000}")
+    public int volcar() {
+        if (!volcando.tryLock()) {
+            return 0;
+        }
+        try {
+            long inicio = System.nanoTime();
+            int total = 0;
+            List<PosicionEntrega> lote = new ArrayList<>(tamanoLote);
+            for (PosicionEntrega posicion : pendientes.values()) {
+                // Solo se saca si no llego una posicion mas nueva mientras tanto; esa se escribe en el siguiente volcado
+                if (pendientes.remove(posicion.idEntrega(), posicion)) {
+                    lote.add(posicion);
+                }
+                if (lote.size() == tamanoLote) {
+                    total += escribir(lote);
+                    lote.clear();
+                }
+            }
+            if (!lote.isEmpty()) {
+                total += escribir(lote);
+            }
+            expirar();
+            if (total > 0) {
+                volcados.incrementAndGet();
+                escritas.addAndGet(total);
+                ultimoVolcadoMs.set(TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - inicio));
+                logger.debug("Volcado de ubicaciones: {} entregas actualizadas", total);
+            }
+            return total;
+        } finally {
+            volcando.unlock();
+        }
+    }
+
+    private int escribir(List<PosicionEntrega> lote) {
+        try {
+            jdbcTemplate.batchUpdate(UPDATE_UBICACION, lote, lote.size(), (ps, p) -> {
+                ps.setDouble(1, p.latitud());
+                ps.setDouble(2, p.longitud());
+                ps.setString(3, p.latitud() + "," + p.longitud());
+                ps.setTimestamp(4, new Timestamp(p.instante()));
+                ps.setLong(5, p.idEntrega());
+            });
+            return lote.size();
+        } catch (RuntimeException e) {
+            // Se devuelven las posiciones para reintentar, salvo que ya haya llegado una mas nueva
+            for (PosicionEntrega p : lote) {
+                pendientes.putIfAbsent(p.idEntrega(), p);
+            }
+            logger.warn("Fallo el volcado de {} ubicaciones; se reintentara: {}", lote.size(), e.getMessage());
+            return 0;
+        }
+    }
+
+    private void expirar() {
+        long limite = System.currentTimeMillis() - TimeUnit.MINUTES.toMillis(retencionMinutos);
+        actuales.values().removeIf(p -> p.instante() < limite && !pendientes.containsKey(p.idEntrega()));
+        repartidores.keySet().removeIf(id -> !actuales.containsKey(id));
+    }
+
+    @PreDestroy
+    void detener() {
+        int escritasAlCerrar = volcar();
+        logger.info("Ubicaciones volcadas al detener: {}", escritasAlCerrar);
+    }
+
+    @Override
+    public String getNombreMetricas() {
+        return "entregas.ubicaciones";
+    }
+
+    @Override
+    public Map<String, Number> getMetricas() {
+        Map<String, Number> metricas = new LinkedHashMap<>();
+        long r = recibidas.get();
+        long e = escritas.get();
+        metricas.put("recibidas", r);
+        metricas.put("escritas", e);
+        metricas.put("combinadas", Math.max(0, r - e - pendientes.size()));
+        metricas.put("pendientes", pendientes.size());
+        metricas.put("entregasActivas", actuales.size());
+        metricas.put("volcados", volcados.get());
+        metricas.put("ultimoVolcadoMs", ultimoVolcadoMs.get());
+        return metricas;
+    }
+}
@@ -0,0 +1,10 @@
+-- Los IDs de pedidos, items y entregas pasaron de INT autoincremental a BIGINT asignado por la aplicacion
+-- (GeneradorIdTemporal). ddl-auto=update no cambia el tipo de columnas existentes, asi que se amplian aqui.
+-- Es idempotente: sobre una base nueva las columnas ya son BIGINT y el ALTER no cambia nada.
+SET FOREIGN_KEY_CHECKS = 0;
+ALTER TABLE pedidos MODIFY COLUMN id_pedido BIGINT NOT NULL;
+ALTER TABLE items_pedido MODIFY COLUMN id BIGINT NOT NULL;
+ALTER TABLE items_pedido MODIFY COLUMN pedido_id BIGINT NOT NULL;
+ALTER TABLE entregas MODIFY COLUMN id BIGINT NOT NULL;
+ALTER TABLE entregas MODIFY COLUMN pedido_id BIGINT NOT NULL;
+SET FOREIGN_KEY_CHECKS = 1;
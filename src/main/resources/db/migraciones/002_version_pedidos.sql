@@ -0,0 +1,5 @@
+-- La columna version (bloqueo optimista de Pedido) se agrego con ddl-auto=update y quedo NULL en los pedidos
+-- existentes; Hibernate no puede incrementar una version nula, asi que se rellena con 0 y se fija un valor por
+-- defecto para las inserciones que no la indiquen. Es idempotente.
+UPDATE pedidos SET version = 0 WHERE version IS NULL;
+ALTER TABLE pedidos MODIFY COLUMN version BIGINT NOT NULL DEFAULT 0;
@@ -0,0 +1,15 @@
+-- Las columnas *_moneda eran texto libre antes de que Dinero usara el enum Moneda. Se normalizan los simbolos
+-- conocidos y, como antes solo se operaba en soles, cualquier otro valor (o nulo) pasa a PEN. BINARY evita que la
+-- intercalacion sin distincion de mayusculas trate 'pen' como ya normalizado. Es idempotente.
+UPDATE platos SET precio_moneda = 'USD'
+    WHERE UPPER(TRIM(precio_moneda)) IN ('USD', 'US$', '$', 'DOLAR', 'DOLARES') AND BINARY precio_moneda <> 'USD';
+UPDATE platos SET precio_moneda = 'PEN'
+    WHERE precio_moneda IS NULL OR BINARY precio_moneda NOT IN ('PEN', 'USD');
+UPDATE pedidos SET monto_total_moneda = 'USD'
+    WHERE UPPER(TRIM(monto_total_moneda)) IN ('USD', 'US$', '$', 'DOLAR', 'DOLARES') AND BINARY monto_total_moneda <> 'USD';
+UPDATE pedidos SET monto_total_moneda = 'PEN'
+    WHERE monto_total_moneda IS NULL OR BINARY monto_total_moneda NOT IN ('PEN', 'USD');
+UPDATE items_pedido SET subtotal_moneda = 'USD'
+    WHERE UPPER(TRIM(subtotal_moneda)) IN ('USD', 'US$', '$', 'DOLAR', 'DOLARES') AND BINARY subtotal_moneda <> 'USD';
+UPDATE items_pedido SET subtotal_moneda = 'PEN'
+    WHERE subtotal_moneda IS NULL OR BINARY subtotal_moneda NOT IN ('PEN', 'USD');
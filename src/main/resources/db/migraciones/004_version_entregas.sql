@@ -0,0 +1,4 @@
+-- La columna version (bloqueo optimista de Entrega) se agrega con ddl-auto=update y queda NULL en las entregas
+-- existentes; se rellena con 0 y se fija un valor por defecto, igual que en 002_version_pedidos.sql. Es idempotente.
+UPDATE entregas SET version = 0 WHERE version IS NULL;
+ALTER TABLE entregas MODIFY COLUMN version BIGINT NOT NULL DEFAULT 0;
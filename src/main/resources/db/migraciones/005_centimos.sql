@@ -0,0 +1,37 @@
+-- Dinero guardaba sus centimos en las columnas DOUBLE *_valor, siempre divididos entre 100. Ahora los guarda como
+-- enteros en *_centimos (BIGINT), que ddl-auto=update agrega con 0 en las filas existentes. Mientras exista una
+-- columna *_valor se copia a *_centimos con los decimales de la moneda (PEN y USD tienen dos, ver Moneda) y luego se
+-- elimina, porque es NOT NULL y las inserciones ya no la escriben. En una base nueva no existe y cada paso no hace
+-- nada, lo que hace al script idempotente. MySQL no tiene ALTER ... IF EXISTS, de ahi las sentencias preparadas.
+SET @existe = (SELECT COUNT(*) FROM information_schema.columns
+    WHERE table_schema = DATABASE() AND table_name = 'platos' AND column_name = 'precio_valor');
+SET @sentencia = IF(@existe > 0, 'UPDATE platos SET precio_centimos = ROUND(precio_valor * 100)', 'DO 0');
+PREPARE migracion FROM @sentencia;
+EXECUTE migracion;
+DEALLOCATE PREPARE migracion;
+SET @sentencia = IF(@existe > 0, 'ALTER TABLE platos DROP COLUMN precio_valor', 'DO 0');
+PREPARE migracion FROM @sentencia;
+EXECUTE migracion;
+DEALLOCATE PREPARE migracion;
+
+SET @existe = (SELECT COUNT(*) FROM information_schema.columns
+    WHERE table_schema = DATABASE() AND table_name = 'pedidos' AND column_name = 'monto_total_valor');
+SET @sentencia = IF(@existe > 0, 'UPDATE pedidos SET monto_total_centimos = ROUND(monto_total_valor * 100)', 'DO 0');
+PREPARE migracion FROM @sentencia;
+EXECUTE migracion;
+DEALLOCATE PREPARE migracion;
+SET @sentencia = IF(@existe > 0, 'ALTER TABLE pedidos DROP COLUMN monto_total_valor', 'DO 0');
+PREPARE migracion FROM @sentencia;
+EXECUTE migracion;
+DEALLOCATE PREPARE migracion;
+
+SET @existe = (SELECT COUNT(*) FROM information_schema.columns
+    WHERE table_schema = DATABASE() AND table_name = 'items_pedido' AND column_name = 'subtotal_valor');
+SET @sentencia = IF(@existe > 0, 'UPDATE items_pedido SET subtotal_centimos = ROUND(subtotal_valor * 100)', 'DO 0');
+PREPARE migracion FROM @sentencia;
+EXECUTE migracion;
+DEALLOCATE PREPARE migracion;
+SET @sentencia = IF(@existe > 0, 'ALTER TABLE items_pedido DROP COLUMN subtotal_valor', 'DO 0');
+PREPARE migracion FROM @sentencia;
+EXECUTE migracion;
+DEALLOCATE PREPARE migracion;
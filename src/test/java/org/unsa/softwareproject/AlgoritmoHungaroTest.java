@@ -0,0 +1,80 @@
+package org.unsa.softwareproject;
+
+import org.junit.jupiter.api.Test;
+import org.unsa.model.service.logistica.AlgoritmoHungaro;
+
+import java.util.HashSet;
+import java.util.Random;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Compara la asignacion del algoritmo hungaro con el optimo por fuerza bruta en matrices cuadradas y rectangulares.
+ */
+class AlgoritmoHungaroTest {
+
+	@Test
+	void mejoraLaAsignacionVoraz() {
+		// Voraz: la fila 0 toma la columna 0 (1) y la fila 1 queda con la 1 (100); el optimo cruza: 2 + 3
+		double[][] costos = {
+				{1, 2},
+				{3, 100}
+		};
+		assertArrayEquals(new int[]{1, 0}, AlgoritmoHungaro.resolver(costos));
+	}
+
+	@Test
+	void coincideConLaFuerzaBrutaEnMatricesAleatorias() {
+		Random aleatorio = new Random(42);
+		for (int prueba = 0; prueba < 300; prueba++) {
+			int filas = 1 + aleatorio.nextInt(6);
+			int columnas = 1 + aleatorio.nextInt(6);
+			double[][] costos = new double[filas][columnas];
+			for (double[] fila : costos) {
+				for (int j = 0; j < columnas; j++) {
+					fila[j] = aleatorio.nextInt(50);
+				}
+			}
+
+			int[] asignacion = AlgoritmoHungaro.resolver(costos);
+
+			assertEquals(filas, asignacion.length);
+			Set<Integer> usadas = new HashSet<>();
+			int asignadas = 0;
+			double total = 0;
+			for (int i = 0; i < filas; i++) {
+				if (asignacion[i] >= 0) {
+					assertTrue(usadas.add(asignacion[i]), "Columna asignada dos veces");
+					total += costos[i][asignacion[i]];
+					asignadas++;
+				}
+			}
+			assertEquals(Math.min(filas, columnas), asignadas);
+			assertEquals(optimo(costos, 0, new boolean[columnas], 0, Math.min(filas, columnas)), total, 1e-9);
+		}
+	}
+
+	/**
+	 * Costo minimo de asignar {@code objetivo - asignadas} filas mas, desde la fila i, a columnas libres distintas.
+	 */
+	private static double optimo(double[][] costos, int i, boolean[] usadas, int asignadas, int objetivo) {
+		if (asignadas == objetivo) {
+			return 0;
+		}
+		if (costos.length - i < objetivo - asignadas) {
+			return Double.POSITIVE_INFINITY;
+		}
+		double mejor = optimo(costos, i + 1, usadas, asignadas, objetivo); // La fila i queda sin columna
+		for (int j = 0; j < usadas.length; j++) {
+			if (!usadas[j]) {
+				usadas[j] = true;
+				mejor = Math.min(mejor, costos[i][j] + optimo(costos, i + 1, usadas, asignadas + 1, objetivo));
+				usadas[j] = false;
+			}
+		}
+		return mejor;
+	}
+}
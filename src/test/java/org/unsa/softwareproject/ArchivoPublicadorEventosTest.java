@@ -0,0 +1,59 @@
+package org.unsa.softwareproject;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.unsa.model.domain.pedidos.EstadoPedido;
+import org.unsa.model.domain.pedidos.EventoPedido;
+import org.unsa.model.service.eventos.ArchivoPublicadorEventos;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+/**
+ * Escribe lotes de eventos en el archivo NDJSON, sin base de datos: cada lote se agrega al final en el orden
+ * recibido, y un archivo que no se puede abrir hace fallar la publicacion para que el relevo la reintente.
+ */
+class ArchivoPublicadorEventosTest {
+
+	private final ObjectMapper objectMapper = new ObjectMapper();
+
+	@TempDir
+	Path directorio;
+
+	@Test
+	void agregaCadaLoteAlFinalEnOrden() throws Exception {
+		Path archivo = directorio.resolve("eventos.ndjson");
+		ArchivoPublicadorEventos publicador = new ArchivoPublicadorEventos(objectMapper, archivo.toString());
+
+		publicador.publicar(List.of(
+				new EventoPedido(1L, EventoPedido.PEDIDO_CREADO, EstadoPedido.PENDIENTE, null),
+				new EventoPedido(2L, EventoPedido.PEDIDO_CREADO, EstadoPedido.PENDIENTE, null)));
+		publicador.publicar(List.of(new EventoPedido(1L, EventoPedido.REPARTIDOR_ASIGNADO, EstadoPedido.PENDIENTE, 7)));
+
+		List<String> lineas = Files.readAllLines(archivo);
+		assertEquals(3, lineas.size());
+		JsonNode primero = objectMapper.readTree(lineas.get(0));
+		assertEquals("1", primero.get("idPedido").asText());
+		assertEquals(EventoPedido.PEDIDO_CREADO, primero.get("tipo").asText());
+		assertEquals("2", objectMapper.readTree(lineas.get(1)).get("idPedido").asText());
+		JsonNode ultimo = objectMapper.readTree(lineas.get(2));
+		assertEquals(EventoPedido.REPARTIDOR_ASIGNADO, ultimo.get("tipo").asText());
+		assertEquals(7, ultimo.get("idRepartidor").asInt());
+	}
+
+	@Test
+	void unArchivoInaccesibleHaceFallarLaPublicacion() {
+		// Un directorio en lugar de archivo: no se puede abrir para agregar
+		ArchivoPublicadorEventos publicador = new ArchivoPublicadorEventos(objectMapper, directorio.toString());
+
+		assertThrows(IOException.class, () -> publicador.publicar(
+				List.of(new EventoPedido(1L, EventoPedido.PEDIDO_CREADO, EstadoPedido.PENDIENTE, null))));
+	}
+}
@@ -0,0 +1,158 @@
+package org.unsa.softwareproject;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.context.annotation.Import;
+import org.unsa.model.domain.pedidos.ItemPedido;
+import org.unsa.model.domain.pedidos.Pedido;
+import org.unsa.model.domain.pedidos.PedidoData;
+import org.unsa.model.domain.restaurantes.Dinero;
+import org.unsa.model.domain.restaurantes.Plato;
+import org.unsa.model.domain.restaurantes.Restaurante;
+import org.unsa.model.domain.restaurantes.TipoCocina;
+import org.unsa.model.domain.usuarios.Cliente;
+import org.unsa.model.dtos.Sugerencia;
+import org.unsa.model.repository.ClienteRepository;
+import org.unsa.model.repository.PedidoRepository;
+import org.unsa.model.repository.PlatoRepository;
+import org.unsa.model.repository.RestauranteRepository;
+import org.unsa.model.service.busqueda.AutocompletadoService;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Supplier;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Reconstruye el autocompletado sobre restaurantes, platos y pedidos reales: las sugerencias de un prefijo salen
+ * de mayor a menor popularidad, coinciden desde cualquier palabra y agrupan a los restaurantes homonimos.
+ */
+@Import(TestcontainersConfiguration.class)
+@SpringBootTest(properties = {
+		"app.despacho.lote.habilitado=false",
+		"app.autocompletar.intervalo-ms=3600000"
+})
+class AutocompletadoTest {
+
+	@Autowired
+	private AutocompletadoService autocompletado;
+
+	@Autowired
+	private ClienteRepository clienteRepository;
+
+	@Autowired
+	private RestauranteRepository restauranteRepository;
+
+	@Autowired
+	private PlatoRepository platoRepository;
+
+	@Autowired
+	private PedidoRepository pedidoRepository;
+
+	// Texto propio de cada prueba, para no sugerir nombres de otras pruebas
+	private String marca;
+	private Cliente cliente;
+
+	@BeforeEach
+	void crearCliente() {
+		marca = "zq" + System.nanoTime();
+		cliente = clienteRepository.save(new Cliente(null, "Cliente Autocompletado", "autocompletar" + System.nanoTime() + "@test.pe", "999999999", null));
+	}
+
+	private Restaurante restaurante(String nombre) {
+		return restauranteRepository.save(new Restaurante(null, nombre, "Av. Prueba 13", "054000000", TipoCocina.PERUANA));
+	}
+
+	private Plato plato(Restaurante restaurante, String nombre) {
+		return platoRepository.save(new Plato(restaurante, nombre, "Descripcion", new Dinero(10.0, "PEN")));
+	}
+
+	private void pedir(Plato plato, int cantidad) {
+		List<ItemPedido> items = new ArrayList<>(List.of(new ItemPedido(plato, cantidad)));
+		Pedido pedido = new Pedido(new PedidoData(cliente, plato.getRestaurante(), DatosPrueba.direccion(), null, items), null);
+		items.forEach(item -> item.setPedido(pedido));
+		pedidoRepository.save(pedido);
+	}
+
+	@Test
+	void sugiereDeMayorAMenorPopularidadDesdeCualquierPalabra() throws InterruptedException {
+		Restaurante polleria = restaurante("Polleria " + marca);
+		Plato lomo = plato(polleria, "Lomo saltado");
+		pedir(lomo, 1);
+		pedir(lomo, 1);
+		Restaurante chicken = restaurante(marca + " Chicken");
+		pedir(plato(chicken, "Causa " + marca), 4);
+
+		reconstruir();
+
+		List<Sugerencia> sugerencias = autocompletado.sugerir(marca.toUpperCase(), 10);
+		assertEquals(List.of("Causa " + marca, "Polleria " + marca, marca + " Chicken"),
+				sugerencias.stream().map(Sugerencia::getTexto).toList());
+		assertEquals(List.of(5L, 3L, 2L), sugerencias.stream().map(Sugerencia::getPeso).toList());
+		assertEquals(Sugerencia.Tipo.PLATO, sugerencias.get(0).getTipo());
+		assertNull(sugerencias.get(0).getIdRestaurante());
+		assertEquals(polleria.getId(), sugerencias.get(1).getIdRestaurante());
+
+		assertEquals(List.of("Polleria " + marca), autocompletado.sugerir("póllería " + marca, 10).stream().map(Sugerencia::getTexto).toList());
+		assertEquals(2, autocompletado.sugerir(marca, 2).size());
+		assertTrue(autocompletado.sugerir("", 10).isEmpty());
+	}
+
+	@Test
+	void losPrefijosCortosSalenPrecalculadosYOrdenados() throws InterruptedException {
+		restaurante("Picanteria " + marca);
+		reconstruir();
+
+		List<Sugerencia> cortos = autocompletado.sugerir("zq", 10);
+		assertFalse(cortos.isEmpty());
+		for (int i = 1; i < cortos.size(); i++) {
+			assertTrue(cortos.get(i - 1).getPeso() >= cortos.get(i).getPeso());
+		}
+		assertTrue(autocompletado.sugerir("vegan", 10).stream()
+				.anyMatch(s -> s.getTipo() == Sugerencia.Tipo.COCINA && s.getTexto().equals("Vegana")));
+	}
+
+	@Test
+	void losRestaurantesHomonimosSeAgrupanEnElMasPedido() throws InterruptedException {
+		String nombre = "Sangucheria " + marca;
+		restaurante(nombre);
+		Restaurante masPedido = restaurante(nombre);
+		pedir(plato(masPedido, "Butifarra"), 1);
+
+		reconstruir();
+
+		List<Sugerencia> sugerencias = autocompletado.sugerir(nombre, 10);
+		assertEquals(1, sugerencias.size());
+		assertEquals(masPedido.getId(), sugerencias.getFirst().getIdRestaurante());
+		assertEquals(3L, sugerencias.getFirst().getPeso());
+	}
+
+	/**
+	 * La reconstruccion programada del arranque pudo seguir en curso y hacer que la llamada no haga nada;
+	 * se repite hasta que una termine y luego se reconstruye una vez mas, ya con los datos de la prueba.
+	 */
+	private void reconstruir() throws InterruptedException {
+		long antes = autocompletado.getMetricas().get("reconstrucciones").longValue();
+		esperar(() -> {
+			autocompletado.reconstruir();
+			return autocompletado.getMetricas().get("reconstrucciones").longValue() > antes;
+		});
+		autocompletado.reconstruir();
+	}
+
+	private static void esperar(Supplier<Boolean> condicion) throws InterruptedException {
+		long limite = System.currentTimeMillis() + 5_000;
+		while (!condicion.get()) {
+			if (System.currentTimeMillis() > limite) {
+				throw new AssertionError("La condicion no se cumplio a tiempo");
+			}
+			Thread.sleep(20);
+		}
+	}
+}
@@ -0,0 +1,170 @@
+package org.unsa.softwareproject;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.orm.ObjectOptimisticLockingFailureException;
+import org.unsa.model.domain.pedidos.Entrega;
+import org.unsa.model.domain.pedidos.EstadoEntrega;
+import org.unsa.model.domain.pedidos.ItemPedido;
+import org.unsa.model.domain.pedidos.Pedido;
+import org.unsa.model.domain.pedidos.PedidoData;
+import org.unsa.model.domain.restaurantes.Dinero;
+import org.unsa.model.domain.restaurantes.Plato;
+import org.unsa.model.domain.restaurantes.Restaurante;
+import org.unsa.model.domain.restaurantes.TipoCocina;
+import org.unsa.model.domain.usuarios.Cliente;
+import org.unsa.model.domain.usuarios.Repartidor;
+import org.unsa.model.repository.ClienteRepository;
+import org.unsa.model.repository.EntregaRepository;
+import org.unsa.model.repository.PedidoRepository;
+import org.unsa.model.repository.PlatoRepository;
+import org.unsa.model.repository.RepartidorRepository;
+import org.unsa.model.repository.RestauranteRepository;
+import org.unsa.model.service.impl.GestionEntregasService;
+import org.unsa.model.service.logistica.BarridoEntregasService;
+import org.unsa.model.service.logistica.DespachoService;
+import org.unsa.model.service.logistica.RegistroDisponibilidadRepartidores;
+
+import java.sql.Timestamp;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Estanca entregas reales retrasando sus fechas: el barrido las pasa a INCIDENCIA subiendo su version,
+ * y una entrega sin recoger se vuelve a despachar a otro repartidor con una entrega de reemplazo.
+ */
+@Import(TestcontainersConfiguration.class)
+@SpringBootTest(properties = {
+		"app.despacho.lote.habilitado=false",
+		"app.barrido.intervalo-ms=3600000"
+})
+class BarridoEntregasTest {
+
+	@Autowired
+	private BarridoEntregasService barrido;
+
+	@Autowired
+	private DespachoService despachoService;
+
+	@Autowired
+	private RegistroDisponibilidadRepartidores registro;
+
+	@Autowired
+	private GestionEntregasService gestionEntregas;
+
+	@Autowired
+	private ClienteRepository clienteRepository;
+
+	@Autowired
+	private RestauranteRepository restauranteRepository;
+
+	@Autowired
+	private PlatoRepository platoRepository;
+
+	@Autowired
+	private PedidoRepository pedidoRepository;
+
+	@Autowired
+	private RepartidorRepository repartidorRepository;
+
+	@Autowired
+	private EntregaRepository entregaRepository;
+
+	@Autowired
+	private JdbcTemplate jdbcTemplate;
+
+	// Cada prueba trabaja en una zona propia para no ver repartidores de otras pruebas
+	private double latitud;
+	private double longitud;
+	private Long idPedido;
+	private Integer estancado;
+	private Long idEntrega;
+
+	@BeforeEach
+	void despacharPedido() {
+		latitud = -16.0 - Math.random();
+		longitud = -71.0 - Math.random();
+		Cliente cliente = clienteRepository.save(new Cliente(null, "Cliente Barrido", "barrido" + System.nanoTime() + "@test.pe", "999999999", null));
+		Restaurante restaurante = new Restaurante(null, "Restaurante Barrido", "Av. Prueba 9", "054000000", TipoCocina.PERUANA);
+		restaurante.setLatitud(latitud);
+		restaurante.setLongitud(longitud);
+		restaurante = restauranteRepository.save(restaurante);
+		Plato plato = platoRepository.save(new Plato(restaurante, "Plato", "Descripcion", new Dinero(10.0, "PEN")));
+		List<ItemPedido> items = new ArrayList<>(List.of(new ItemPedido(plato, 1)));
+		Pedido pedido = new Pedido(new PedidoData(cliente, restaurante, DatosPrueba.direccion(), null, items), null);
+		items.forEach(item -> item.setPedido(pedido));
+		idPedido = pedidoRepository.save(pedido).getIdPedido();
+
+		estancado = repartidorDisponible();
+		assertEquals(estancado, despachoService.despachar(idPedido));
+		idEntrega = entregaRepository.buscarIdPorPedido(idPedido).orElseThrow();
+	}
+
+	private Integer repartidorDisponible() {
+		Integer id = repartidorRepository.save(new Repartidor(null, "Repartidor", "rep" + System.nanoTime() + "@test.pe", "988888888", "Moto", true)).getId();
+		despachoService.registrarDisponible(id, latitud, longitud);
+		return id;
+	}
+
+	// Se calcula en la JVM, igual que las fechas que escribe Hibernate
+	private void atrasar(String columna, int horas) {
+		Timestamp fecha = new Timestamp(System.currentTimeMillis() - TimeUnit.HOURS.toMillis(horas));
+		jdbcTemplate.update("UPDATE entregas SET " + columna + " = ? WHERE id = ?", fecha, idEntrega);
+	}
+
+	@Test
+	void unaEntregaSinRecogerSeVuelveADespacharConUnaEntregaDeReemplazo() {
+		Integer otro = repartidorDisponible();
+		Entrega vieja = entregaRepository.findById(idEntrega).orElseThrow();
+		atrasar("fecha_hora_asignacion", 2);
+
+		assertTrue(barrido.barrer() >= 1);
+
+		assertEquals(EstadoEntrega.INCIDENCIA, entregaRepository.findById(idEntrega).orElseThrow().getEstado());
+		Long reemplazo = entregaRepository.buscarIdPorPedido(idPedido).orElseThrow();
+		assertNotEquals(idEntrega, reemplazo);
+		assertEquals(EstadoEntrega.ASIGNADO, entregaRepository.findById(reemplazo).orElseThrow().getEstado());
+		assertEquals(otro, jdbcTemplate.queryForObject("SELECT repartidor_id FROM entregas WHERE id = ?", Integer.class, reemplazo));
+		assertEquals(otro, jdbcTemplate.queryForObject("SELECT repartidor_id FROM pedidos WHERE id_pedido = ?", Integer.class, idPedido));
+
+		// El repartidor estancado queda fuera del despacho y sin la carga del pedido
+		assertEquals(0, registro.carga(estancado));
+		assertFalse(registro.estaDisponible(estancado));
+		assertEquals(1, registro.carga(otro));
+
+		// Un guardado con la lectura anterior al barrido no deshace la escalada
+		vieja.setEstado(EstadoEntrega.ASIGNADO);
+		assertThrows(ObjectOptimisticLockingFailureException.class, () -> entregaRepository.save(vieja));
+		assertEquals(EstadoEntrega.INCIDENCIA, entregaRepository.findById(idEntrega).orElseThrow().getEstado());
+	}
+
+	@Test
+	void unaEntregaRecogidaSeEscalaSinCambiarDeRepartidor() {
+		gestionEntregas.registrarRecojo(idEntrega);
+		atrasar("fecha_hora_recojo", 3);
+
+		assertTrue(barrido.barrer() >= 1);
+
+		assertEquals(EstadoEntrega.INCIDENCIA, entregaRepository.findById(idEntrega).orElseThrow().getEstado());
+		assertEquals(idEntrega, entregaRepository.buscarIdPorPedido(idPedido).orElseThrow());
+		assertEquals(estancado, jdbcTemplate.queryForObject("SELECT repartidor_id FROM pedidos WHERE id_pedido = ?", Integer.class, idPedido));
+	}
+
+	@Test
+	void unaEntregaAlDiaNoSeEscala() {
+		barrido.barrer();
+
+		assertEquals(EstadoEntrega.ASIGNADO, entregaRepository.findById(idEntrega).orElseThrow().getEstado());
+	}
+}
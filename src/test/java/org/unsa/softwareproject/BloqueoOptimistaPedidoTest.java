@@ -0,0 +1,148 @@
+package org.unsa.softwareproject;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.orm.ObjectOptimisticLockingFailureException;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.unsa.model.domain.pedidos.EstadoPedido;
+import org.unsa.model.domain.pedidos.ItemPedido;
+import org.unsa.model.domain.pedidos.Pedido;
+import org.unsa.model.domain.pedidos.PedidoData;
+import org.unsa.model.domain.restaurantes.Dinero;
+import org.unsa.model.domain.restaurantes.Plato;
+import org.unsa.model.domain.restaurantes.Restaurante;
+import org.unsa.model.domain.restaurantes.TipoCocina;
+import org.unsa.model.domain.usuarios.Cliente;
+import org.unsa.model.repository.ClienteRepository;
+import org.unsa.model.repository.PedidoRepository;
+import org.unsa.model.repository.PlatoRepository;
+import org.unsa.model.repository.RestauranteRepository;
+import org.unsa.model.service.impl.ReintentosConcurrencia;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CyclicBarrier;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertInstanceOf;
+
+/**
+ * Ejecuta transacciones concurrentes reales sobre la columna @Version de Pedido: dos escrituras que leyeron
+ * la misma version no pueden confirmarse ambas, y con {@link ReintentosConcurrencia} ninguna se pierde.
+ */
+@Import(TestcontainersConfiguration.class)
+@SpringBootTest
+class BloqueoOptimistaPedidoTest {
+
+	@Autowired
+	private ClienteRepository clienteRepository;
+
+	@Autowired
+	private RestauranteRepository restauranteRepository;
+
+	@Autowired
+	private PlatoRepository platoRepository;
+
+	@Autowired
+	private PedidoRepository pedidoRepository;
+
+	@Autowired
+	private PlatformTransactionManager transactionManager;
+
+	private TransactionTemplate transaccion;
+	private Long idPedido;
+
+	@BeforeEach
+	void crearPedido() {
+		transaccion = new TransactionTemplate(transactionManager);
+		Cliente cliente = clienteRepository.save(new Cliente(null, "Cliente Versiones", "versiones" + System.nanoTime() + "@test.pe", "999999999", null));
+		Restaurante restaurante = restauranteRepository.save(new Restaurante(null, "Restaurante Versiones", "Av. Prueba 2", "054000000", TipoCocina.PERUANA));
+		Plato plato = platoRepository.save(new Plato(restaurante, "Plato", "Descripcion", new Dinero(10.0, "PEN")));
+		List<ItemPedido> items = new ArrayList<>(List.of(new ItemPedido(plato, 1)));
+		Pedido pedido = new Pedido(new PedidoData(cliente, restaurante, DatosPrueba.direccion(), null, items), null);
+		items.forEach(item -> item.setPedido(pedido));
+		idPedido = pedidoRepository.save(pedido).getIdPedido();
+	}
+
+	@Test
+	void dosTransaccionesConLaMismaVersionNoConfirmanAmbas() throws Exception {
+		CyclicBarrier ambasLeyeron = new CyclicBarrier(2);
+		ExecutorService ejecutor = Executors.newFixedThreadPool(2);
+		List<Future<?>> tareas = new ArrayList<>();
+		for (int i = 0; i < 2; i++) {
+			tareas.add(ejecutor.submit(() -> transaccion.executeWithoutResult(estado -> {
+				Pedido pedido = pedidoRepository.findById(idPedido).orElseThrow();
+				await(ambasLeyeron);
+				pedido.actualizarEstado(EstadoPedido.EN_PREPARACION);
+				pedidoRepository.saveAndFlush(pedido);
+			})));
+		}
+
+		int fallidas = 0;
+		for (Future<?> tarea : tareas) {
+			try {
+				tarea.get(30, TimeUnit.SECONDS);
+			} catch (ExecutionException e) {
+				assertInstanceOf(ObjectOptimisticLockingFailureException.class, e.getCause());
+				fallidas++;
+			}
+		}
+		ejecutor.shutdown();
+
+		assertEquals(1, fallidas);
+		Pedido guardado = pedidoRepository.findById(idPedido).orElseThrow();
+		assertEquals(EstadoPedido.EN_PREPARACION, guardado.getEstado());
+		assertEquals(1L, guardado.getVersion());
+	}
+
+	@Test
+	void conReintentosNoSePierdenEscrituras() throws Exception {
+		ReintentosConcurrencia reintentos = new ReintentosConcurrencia(50, 1, 20);
+		int hilos = 2;
+		int escriturasPorHilo = 20;
+		long centimosIniciales = pedidoRepository.findById(idPedido).orElseThrow().getMontoTotal().getCentimos();
+
+		CyclicBarrier salida = new CyclicBarrier(hilos);
+		ExecutorService ejecutor = Executors.newFixedThreadPool(hilos);
+		List<Future<?>> tareas = new ArrayList<>();
+		for (int h = 0; h < hilos; h++) {
+			tareas.add(ejecutor.submit(() -> {
+				await(salida);
+				for (int i = 0; i < escriturasPorHilo; i++) {
+					reintentos.ejecutar("prueba", () -> transaccion.executeWithoutResult(estado -> {
+						Pedido pedido = pedidoRepository.findById(idPedido).orElseThrow();
+						Dinero monto = pedido.getMontoTotal();
+						pedido.setMontoTotal(new Dinero(monto.getCentimos() + 1, monto.getMoneda()));
+						pedidoRepository.saveAndFlush(pedido);
+					}));
+				}
+			}));
+		}
+		for (Future<?> tarea : tareas) {
+			tarea.get(60, TimeUnit.SECONDS);
+		}
+		ejecutor.shutdown();
+
+		Pedido guardado = pedidoRepository.findById(idPedido).orElseThrow();
+		assertEquals(centimosIniciales + hilos * escriturasPorHilo, guardado.getMontoTotal().getCentimos());
+		assertEquals((long) hilos * escriturasPorHilo, guardado.getVersion());
+		assertEquals(0, reintentos.getMetricas().get("agotados").longValue());
+	}
+
+	private static void await(CyclicBarrier barrera) {
+		try {
+			barrera.await(10, TimeUnit.SECONDS);
+		} catch (Exception e) {
+			throw new IllegalStateException(e);
+		}
+	}
+}
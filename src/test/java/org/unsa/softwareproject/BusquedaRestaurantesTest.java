@@ -0,0 +1,58 @@
+package org.unsa.softwareproject;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.test.web.servlet.MockMvc;
+import org.unsa.model.domain.restaurantes.HorarioAtencion;
+import org.unsa.model.domain.restaurantes.TipoCocina;
+import org.unsa.service.interfaces.IRestauranteServicio;
+
+import static org.hamcrest.Matchers.hasSize;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * Busca restaurantes reales por el endpoint: el indice se actualiza al confirmarse cada guardado o eliminacion
+ * y responde con resumenes, aunque el restaurante tenga un horario perezoso sin cargar.
+ */
+@Import(TestcontainersConfiguration.class)
+@SpringBootTest
+@AutoConfigureMockMvc
+class BusquedaRestaurantesTest {
+
+	@Autowired
+	private MockMvc mockMvc;
+
+	@Autowired
+	private IRestauranteServicio restauranteServicio;
+
+	@Test
+	void elIndiceSigueLosCambiosDelRestaurante() throws Exception {
+		// Texto propio de esta prueba, para no encontrar restaurantes de otras
+		String marca = "m" + System.nanoTime();
+		String otraMarca = "n" + System.nanoTime();
+		Integer id = restauranteServicio.registrarRestaurante("Picanteria " + marca, "Calle Busqueda 1", "054000000", TipoCocina.PERUANA).getId();
+		restauranteServicio.actualizarHorarioRestaurante(id.toString(), new HorarioAtencion("Lunes", "09:00", "22:00"));
+
+		mockMvc.perform(get("/api/restaurantes/buscar").param("q", "PICANTERÍA " + marca))
+				.andExpect(status().isOk())
+				.andExpect(jsonPath("$", hasSize(1)))
+				.andExpect(jsonPath("$[0].idRestaurante").value(id))
+				.andExpect(jsonPath("$[0].nombre").value("Picanteria " + marca))
+				.andExpect(jsonPath("$[0].tipoCocina").value("PERUANA"));
+
+		restauranteServicio.actualizarRestaurante(id.toString(), "Cevicheria " + otraMarca, "Calle Busqueda 1", "054000000", null);
+		mockMvc.perform(get("/api/restaurantes/buscar").param("q", marca))
+				.andExpect(jsonPath("$", hasSize(0)));
+		mockMvc.perform(get("/api/restaurantes/buscar").param("q", otraMarca))
+				.andExpect(jsonPath("$[0].idRestaurante").value(id));
+
+		restauranteServicio.eliminarRestaurante(id.toString());
+		mockMvc.perform(get("/api/restaurantes/buscar").param("q", otraMarca))
+				.andExpect(jsonPath("$", hasSize(0)));
+	}
+}
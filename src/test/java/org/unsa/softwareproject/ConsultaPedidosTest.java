@@ -0,0 +1,152 @@
+package org.unsa.softwareproject;
+
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+import org.unsa.model.domain.pedidos.ItemPedido;
+import org.unsa.model.domain.pedidos.Pedido;
+import org.unsa.model.domain.pedidos.PedidoData;
+import org.unsa.model.domain.restaurantes.Dinero;
+import org.unsa.model.domain.restaurantes.Plato;
+import org.unsa.model.domain.restaurantes.Restaurante;
+import org.unsa.model.domain.restaurantes.TipoCocina;
+import org.unsa.model.domain.usuarios.Cliente;
+import org.unsa.model.dtos.DetallePedido;
+import org.unsa.model.dtos.PaginaPedidos;
+import org.unsa.model.repository.ClienteRepository;
+import org.unsa.model.repository.PedidoRepository;
+import org.unsa.model.repository.PlatoRepository;
+import org.unsa.model.repository.RestauranteRepository;
+import org.unsa.model.service.impl.ConsultaPedidosService;
+
+import java.io.ByteArrayOutputStream;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.hamcrest.Matchers.hasSize;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * Verifica que cada consulta de pedidos ejecute una cantidad fija de sentencias SQL,
+ * independiente de la cantidad de items y de las relaciones del pedido, y que la ruta original
+ * GET /pedidos/usuario/{id} quede acotada por la pagina por clave.
+ */
+@Import(TestcontainersConfiguration.class)
+@SpringBootTest(properties = "spring.jpa.properties.hibernate.generate_statistics=true")
+@AutoConfigureMockMvc
+class ConsultaPedidosTest {
+
+	@Autowired
+	private MockMvc mockMvc;
+
+	@Autowired
+	private ConsultaPedidosService consultaPedidos;
+
+	@Autowired
+	private ClienteRepository clienteRepository;
+
+	@Autowired
+	private RestauranteRepository restauranteRepository;
+
+	@Autowired
+	private PlatoRepository platoRepository;
+
+	@Autowired
+	private PedidoRepository pedidoRepository;
+
+	@Autowired
+	private EntityManagerFactory entityManagerFactory;
+
+	private Cliente cliente;
+	private Restaurante restaurante;
+	private Pedido pedido;
+
+	@BeforeEach
+	void crearDatos() {
+		cliente = clienteRepository.save(new Cliente(null, "Cliente Consultas", "consultas" + System.nanoTime() + "@test.pe", "999999999", null));
+		restaurante = restauranteRepository.save(new Restaurante(null, "Restaurante Consultas", "Av. Prueba 1", "054000000", TipoCocina.PERUANA));
+		List<ItemPedido> items = new ArrayList<>();
+		for (int i = 0; i < 5; i++) {
+			Plato plato = platoRepository.save(new Plato(restaurante, "Plato " + i, "Descripcion", new Dinero(10.0 + i, "PEN")));
+			items.add(new ItemPedido(plato, i + 1));
+		}
+		pedido = new Pedido(new PedidoData(cliente, restaurante, DatosPrueba.direccion(), "Sin cebolla", items), null);
+		items.forEach(item -> item.setPedido(pedido));
+		pedido = pedidoRepository.save(pedido);
+	}
+
+	private Statistics estadisticas() {
+		Statistics estadisticas = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+		estadisticas.clear();
+		return estadisticas;
+	}
+
+	@Test
+	void detalleUsaDosConsultas() {
+		Statistics estadisticas = estadisticas();
+		DetallePedido detalle = consultaPedidos.obtenerDetalle(pedido.getIdPedido());
+		assertNotNull(detalle);
+		assertEquals(5, detalle.getItems().size());
+		assertEquals(2, estadisticas.getPrepareStatementCount());
+	}
+
+	@Test
+	void paginaDeHistorialUsaUnaConsulta() {
+		Statistics estadisticas = estadisticas();
+		PaginaPedidos pagina = consultaPedidos.obtenerPagina(cliente.getId(), null, 20);
+		assertEquals(1, pagina.getPedidos().size());
+		assertEquals(1, estadisticas.getPrepareStatementCount());
+	}
+
+	@Test
+	void transmisionDeHistorialUsaUnaConsulta() throws Exception {
+		Statistics estadisticas = estadisticas();
+		long escritos = consultaPedidos.transmitir(cliente.getId(), new ByteArrayOutputStream());
+		assertEquals(1, escritos);
+		assertEquals(1, estadisticas.getPrepareStatementCount());
+	}
+
+	@Test
+	void laListaDePedidosDelUsuarioSeEntregaPorPaginas() throws Exception {
+		Plato plato = platoRepository.save(new Plato(restaurante, "Plato extra", "Descripcion", new Dinero(9.0, "PEN")));
+		List<Long> ids = new ArrayList<>(List.of(pedido.getIdPedido()));
+		for (int i = 0; i < 2; i++) {
+			List<ItemPedido> items = new ArrayList<>(List.of(new ItemPedido(plato, 1)));
+			Pedido otro = new Pedido(new PedidoData(cliente, restaurante, DatosPrueba.direccion(), null, items), null);
+			items.forEach(item -> item.setPedido(otro));
+			ids.add(pedidoRepository.save(otro).getIdPedido());
+		}
+
+		// Del mas reciente al mas antiguo, con el token de la siguiente pagina en la cabecera
+		MvcResult primera = mockMvc.perform(get("/pedidos/usuario/{id}", cliente.getId()).param("tamano", "2"))
+				.andExpect(status().isOk())
+				.andExpect(jsonPath("$", hasSize(2)))
+				.andExpect(jsonPath("$[0].idPedido").value(ids.get(2).toString()))
+				.andExpect(jsonPath("$[1].idPedido").value(ids.get(1).toString()))
+				.andExpect(header().exists("X-Siguiente-Cursor"))
+				.andReturn();
+
+		mockMvc.perform(get("/pedidos/usuario/{id}", cliente.getId()).param("tamano", "2")
+						.param("cursor", primera.getResponse().getHeader("X-Siguiente-Cursor")))
+				.andExpect(status().isOk())
+				.andExpect(jsonPath("$", hasSize(1)))
+				.andExpect(jsonPath("$[0].idPedido").value(ids.get(0).toString()))
+				.andExpect(header().doesNotExist("X-Siguiente-Cursor"));
+
+		mockMvc.perform(get("/pedidos/usuario/{id}", cliente.getId()).param("cursor", "no-es-un-cursor"))
+				.andExpect(status().isBadRequest());
+	}
+}
@@ -0,0 +1,34 @@
+package org.unsa.softwareproject;
+
+import org.unsa.model.domain.usuarios.Direccion;
+
+/**
+ * Valores de prueba compartidos por los tests de integracion.
+ * Las direcciones se construyen solo aqui, para que un cambio en los campos de Direccion no rompa cada fixture.
+ */
+final class DatosPrueba {
+
+	private DatosPrueba() {
+	}
+
+	/**
+	 * @return Una direccion sin coordenadas.
+	 */
+	static Direccion direccion() {
+		return direccion(null, null);
+	}
+
+	/**
+	 * @return Una direccion en las coordenadas dadas (grados decimales; pueden ser nulas).
+	 */
+	static Direccion direccion(Double latitud, Double longitud) {
+		Direccion direccion = new Direccion();
+		direccion.setCalle("Calle 1");
+		direccion.setCiudad("Arequipa");
+		direccion.setDistrito("Cercado");
+		direccion.setReferencia("Frente al parque");
+		direccion.setLatitud(latitud);
+		direccion.setLongitud(longitud);
+		return direccion;
+	}
+}
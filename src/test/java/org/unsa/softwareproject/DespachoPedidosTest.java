@@ -0,0 +1,164 @@
+package org.unsa.softwareproject;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.context.annotation.Import;
+import org.unsa.model.domain.pedidos.EstadoEntrega;
+import org.unsa.model.domain.pedidos.ItemPedido;
+import org.unsa.model.domain.pedidos.Pedido;
+import org.unsa.model.domain.pedidos.PedidoData;
+import org.unsa.model.domain.restaurantes.Dinero;
+import org.unsa.model.domain.restaurantes.Plato;
+import org.unsa.model.domain.restaurantes.Restaurante;
+import org.unsa.model.domain.restaurantes.TipoCocina;
+import org.unsa.model.domain.usuarios.Cliente;
+import org.unsa.model.domain.usuarios.Repartidor;
+import org.unsa.model.dtos.ResumenEntrega;
+import org.unsa.model.exceptions.TransicionInvalidaException;
+import org.unsa.model.repository.ClienteRepository;
+import org.unsa.model.repository.EntregaRepository;
+import org.unsa.model.repository.PedidoRepository;
+import org.unsa.model.repository.PlatoRepository;
+import org.unsa.model.repository.RepartidorRepository;
+import org.unsa.model.repository.RestauranteRepository;
+import org.unsa.model.service.Interfaces.IPedidoServicio;
+import org.unsa.model.service.logistica.DespachoService;
+import org.unsa.model.service.logistica.RegistroDisponibilidadRepartidores;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CyclicBarrier;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertInstanceOf;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Despacha pedidos reales: el repartidor mas cercano queda asignado con su entrega, y un pedido que ya
+ * tiene repartidor no recibe otro aunque dos asignaciones compitan por el.
+ */
+@Import(TestcontainersConfiguration.class)
+@SpringBootTest(properties = "app.despacho.lote.habilitado=false")
+class DespachoPedidosTest {
+
+	@Autowired
+	private DespachoService despachoService;
+
+	@Autowired
+	private IPedidoServicio pedidoServicio;
+
+	@Autowired
+	private RegistroDisponibilidadRepartidores registro;
+
+	@Autowired
+	private ClienteRepository clienteRepository;
+
+	@Autowired
+	private RestauranteRepository restauranteRepository;
+
+	@Autowired
+	private PlatoRepository platoRepository;
+
+	@Autowired
+	private PedidoRepository pedidoRepository;
+
+	@Autowired
+	private RepartidorRepository repartidorRepository;
+
+	@Autowired
+	private EntregaRepository entregaRepository;
+
+	// Cada prueba trabaja en una zona propia para no ver repartidores de otras pruebas
+	private double latitud;
+	private double longitud;
+	private Long idPedido;
+
+	@BeforeEach
+	void crearPedido() {
+		latitud = -16.0 - Math.random();
+		longitud = -71.0 - Math.random();
+		Cliente cliente = clienteRepository.save(new Cliente(null, "Cliente Despacho", "despacho" + System.nanoTime() + "@test.pe", "999999999", null));
+		Restaurante restaurante = new Restaurante(null, "Restaurante Despacho", "Av. Prueba 3", "054000000", TipoCocina.PERUANA);
+		restaurante.setLatitud(latitud);
+		restaurante.setLongitud(longitud);
+		restaurante = restauranteRepository.save(restaurante);
+		Plato plato = platoRepository.save(new Plato(restaurante, "Plato", "Descripcion", new Dinero(10.0, "PEN")));
+		List<ItemPedido> items = new ArrayList<>(List.of(new ItemPedido(plato, 1)));
+		Pedido pedido = new Pedido(new PedidoData(cliente, restaurante, DatosPrueba.direccion(latitud + 0.01, longitud), null, items), null);
+		items.forEach(item -> item.setPedido(pedido));
+		idPedido = pedidoRepository.save(pedido).getIdPedido();
+	}
+
+	private Integer repartidorEn(double lat, double lon) {
+		Repartidor repartidor = repartidorRepository.save(new Repartidor(null, "Repartidor", "rep" + System.nanoTime() + "@test.pe", "988888888", "Moto", true));
+		despachoService.registrarDisponible(repartidor.getId(), lat, lon);
+		return repartidor.getId();
+	}
+
+	@Test
+	void asignaAlMasCercanoYCreaSuEntrega() {
+		Integer lejano = repartidorEn(latitud + 0.02, longitud);
+		Integer cercano = repartidorEn(latitud + 0.001, longitud);
+
+		assertEquals(cercano, despachoService.despachar(idPedido));
+
+		assertEquals(cercano, pedidoRepository.findById(idPedido).orElseThrow().getRepartidor().getId());
+		List<ResumenEntrega> entregas = entregaRepository.buscarPorPedido(idPedido);
+		assertEquals(1, entregas.size());
+		assertEquals(EstadoEntrega.ASIGNADO, entregas.getFirst().getEstado());
+		assertEquals(1, registro.carga(cercano));
+		assertEquals(0, registro.carga(lejano));
+	}
+
+	@Test
+	void unPedidoConRepartidorNoSeVuelveADespachar() {
+		Integer primero = repartidorEn(latitud + 0.001, longitud);
+		despachoService.despachar(idPedido);
+		Integer segundo = repartidorEn(latitud + 0.002, longitud);
+
+		assertThrows(TransicionInvalidaException.class, () -> despachoService.despachar(idPedido));
+
+		assertEquals(primero, pedidoRepository.findById(idPedido).orElseThrow().getRepartidor().getId());
+		assertEquals(1, entregaRepository.buscarPorPedido(idPedido).size());
+		// El repartidor reclamado por el segundo intento vuelve a estar libre
+		assertEquals(0, registro.carga(segundo));
+		assertTrue(registro.estaDisponible(segundo));
+	}
+
+	@Test
+	void dosAsignacionesConcurrentesNoConfirmanAmbas() throws Exception {
+		Integer[] repartidores = {repartidorEn(latitud, longitud), repartidorEn(latitud, longitud + 0.001)};
+		CyclicBarrier salida = new CyclicBarrier(2);
+		ExecutorService ejecutor = Executors.newFixedThreadPool(2);
+		List<Future<?>> tareas = new ArrayList<>();
+		for (Integer idRepartidor : repartidores) {
+			tareas.add(ejecutor.submit(() -> {
+				salida.await(10, TimeUnit.SECONDS);
+				pedidoServicio.asignarRepartidorAPedido(idPedido, idRepartidor);
+				return null;
+			}));
+		}
+
+		int fallidas = 0;
+		for (Future<?> tarea : tareas) {
+			try {
+				tarea.get(30, TimeUnit.SECONDS);
+			} catch (ExecutionException e) {
+				assertInstanceOf(TransicionInvalidaException.class, e.getCause());
+				fallidas++;
+			}
+		}
+		ejecutor.shutdown();
+
+		assertEquals(1, fallidas);
+		assertEquals(1, entregaRepository.buscarPorPedido(idPedido).size());
+	}
+}
@@ -0,0 +1,86 @@
+package org.unsa.softwareproject;
+
+import org.junit.jupiter.api.Test;
+import org.unsa.model.domain.restaurantes.Dinero;
+import org.unsa.model.domain.restaurantes.Moneda;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+/**
+ * Opera montos en centimos, sin base de datos: sumas y productos exactos, redondeo al centimo mas cercano al
+ * convertir desde decimales, rechazo de monedas distintas y de desbordes, y la lectura de codigos de moneda.
+ */
+class DineroTest {
+
+	@Test
+	void sumaYMultiplicaSinErrorDeRedondeo() {
+		Dinero diezCentimos = new Dinero(0.10, "PEN");
+		Dinero total = Dinero.cero(Moneda.PEN);
+		for (int i = 0; i < 10; i++) {
+			total = total.sumar(diezCentimos);
+		}
+		// Con double, 0.1 sumado diez veces no da 1.0
+		assertEquals(new Dinero(100L, Moneda.PEN), total);
+		assertEquals(1.0, total.getValor());
+
+		Dinero lomo = new Dinero(25.50, "PEN");
+		assertEquals(7650L, lomo.multiplicar(3).getCentimos());
+		assertEquals(Moneda.PEN, lomo.multiplicar(3).getMoneda());
+		assertEquals(0L, lomo.multiplicar(0).getCentimos());
+
+		long acumulado = 0;
+		for (int i = 0; i < 3; i++) {
+			acumulado = Dinero.sumarCentimos(acumulado, Moneda.PEN, lomo);
+		}
+		assertEquals(7650L, acumulado);
+	}
+
+	@Test
+	void redondeaAlCentimoMasCercano() {
+		assertEquals(2000L, new Dinero(19.999, "PEN").getCentimos());
+		assertEquals(1999L, new Dinero(19.994, "PEN").getCentimos());
+		// 0.125 es exacto en binario: la mitad se redondea hacia arriba
+		assertEquals(13L, new Dinero(0.125, "USD").getCentimos());
+		assertEquals(429L, new Dinero(4.29, "PEN").getCentimos());
+
+		Dinero precio = new Dinero(0L, Moneda.PEN);
+		precio.setValor(12.3451);
+		assertEquals(1235L, precio.getCentimos());
+		assertEquals(12.35, precio.getValor());
+	}
+
+	@Test
+	void rechazaMonedasDistintas() {
+		Dinero soles = new Dinero(10.0, "PEN");
+		Dinero dolares = new Dinero(10.0, "USD");
+
+		assertThrows(IllegalArgumentException.class, () -> soles.sumar(dolares));
+		assertThrows(IllegalArgumentException.class, () -> Dinero.sumarCentimos(0L, Moneda.USD, soles));
+		assertNotEquals(new Dinero(1000L, Moneda.USD), soles);
+	}
+
+	@Test
+	void rechazaLosDesbordes() {
+		Dinero enorme = new Dinero(Long.MAX_VALUE, Moneda.PEN);
+
+		assertThrows(ArithmeticException.class, () -> enorme.sumar(new Dinero(1L, Moneda.PEN)));
+		assertThrows(ArithmeticException.class, () -> enorme.multiplicar(2));
+	}
+
+	@Test
+	void interpretaCodigosDeMoneda() {
+		assertEquals(Moneda.PEN, Moneda.desdeCodigo(" s/. "));
+		assertEquals(Moneda.PEN, Moneda.desdeCodigo("soles"));
+		assertEquals(Moneda.USD, Moneda.desdeCodigo("US$"));
+		assertEquals(Moneda.USD, Moneda.desdeCodigo("usd"));
+		assertThrows(IllegalArgumentException.class, () -> Moneda.desdeCodigo("EUR"));
+		assertThrows(IllegalArgumentException.class, () -> new Dinero(1.0, "EUR"));
+
+		// El factor de cada moneda sale de sus decimales
+		for (Moneda moneda : Moneda.values()) {
+			assertEquals((long) Math.pow(10, moneda.getDecimales()), moneda.getFactor());
+		}
+	}
+}
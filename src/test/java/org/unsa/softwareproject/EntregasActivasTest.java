@@ -0,0 +1,125 @@
+package org.unsa.softwareproject;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.orm.ObjectOptimisticLockingFailureException;
+import org.unsa.model.domain.pedidos.Entrega;
+import org.unsa.model.domain.pedidos.EstadoEntrega;
+import org.unsa.model.domain.pedidos.ItemPedido;
+import org.unsa.model.domain.pedidos.Pedido;
+import org.unsa.model.domain.pedidos.PedidoData;
+import org.unsa.model.domain.restaurantes.Dinero;
+import org.unsa.model.domain.restaurantes.Plato;
+import org.unsa.model.domain.restaurantes.Restaurante;
+import org.unsa.model.domain.restaurantes.TipoCocina;
+import org.unsa.model.domain.usuarios.Cliente;
+import org.unsa.model.domain.usuarios.Repartidor;
+import org.unsa.model.dtos.ResumenEntrega;
+import org.unsa.model.repository.ClienteRepository;
+import org.unsa.model.repository.EntregaRepository;
+import org.unsa.model.repository.PedidoRepository;
+import org.unsa.model.repository.PlatoRepository;
+import org.unsa.model.repository.RepartidorRepository;
+import org.unsa.model.repository.RestauranteRepository;
+import org.unsa.model.service.Interfaces.IPedidoServicio;
+import org.unsa.model.service.impl.GestionEntregasService;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Sigue la cache de entregas activas por repartidor a traves de asignacion, recojo, entrega y reasignacion,
+ * y verifica que la version de Entrega rechace un guardado con una lectura vieja.
+ */
+@Import(TestcontainersConfiguration.class)
+@SpringBootTest(properties = "app.despacho.lote.habilitado=false")
+class EntregasActivasTest {
+
+	@Autowired
+	private GestionEntregasService gestionEntregas;
+
+	@Autowired
+	private IPedidoServicio pedidoServicio;
+
+	@Autowired
+	private ClienteRepository clienteRepository;
+
+	@Autowired
+	private RestauranteRepository restauranteRepository;
+
+	@Autowired
+	private PlatoRepository platoRepository;
+
+	@Autowired
+	private PedidoRepository pedidoRepository;
+
+	@Autowired
+	private RepartidorRepository repartidorRepository;
+
+	@Autowired
+	private EntregaRepository entregaRepository;
+
+	private Integer idRepartidor;
+	private Long idEntrega;
+
+	@BeforeEach
+	void crearEntrega() {
+		Cliente cliente = clienteRepository.save(new Cliente(null, "Cliente Activas", "activas" + System.nanoTime() + "@test.pe", "999999999", null));
+		Restaurante restaurante = restauranteRepository.save(new Restaurante(null, "Restaurante Activas", "Av. Prueba 6", "054000000", TipoCocina.PERUANA));
+		Plato plato = platoRepository.save(new Plato(restaurante, "Plato", "Descripcion", new Dinero(10.0, "PEN")));
+		List<ItemPedido> items = new ArrayList<>(List.of(new ItemPedido(plato, 1)));
+		Pedido pedido = new Pedido(new PedidoData(cliente, restaurante, DatosPrueba.direccion(), null, items), null);
+		items.forEach(item -> item.setPedido(pedido));
+		Long idPedido = pedidoRepository.save(pedido).getIdPedido();
+		idRepartidor = nuevoRepartidor();
+		// Se carga la cache antes de asignar: la entrega debe entrar por el evento, no por una recarga
+		assertTrue(gestionEntregas.obtenerEntregasActivas(idRepartidor).isEmpty());
+		pedidoServicio.asignarRepartidorAPedido(idPedido, idRepartidor);
+		idEntrega = entregaRepository.buscarIdPorPedido(idPedido).orElseThrow();
+	}
+
+	private Integer nuevoRepartidor() {
+		return repartidorRepository.save(new Repartidor(null, "Repartidor", "rep" + System.nanoTime() + "@test.pe", "988888888", "Moto", false)).getId();
+	}
+
+	@Test
+	void laCacheSigueElCicloDeLaEntrega() {
+		List<ResumenEntrega> activas = gestionEntregas.obtenerEntregasActivas(idRepartidor);
+		assertEquals(List.of(idEntrega), activas.stream().map(ResumenEntrega::getIdEntrega).toList());
+		assertEquals(EstadoEntrega.ASIGNADO, activas.getFirst().getEstado());
+
+		gestionEntregas.registrarRecojo(idEntrega);
+		assertEquals(EstadoEntrega.RECOGIDO, gestionEntregas.obtenerEntregasActivas(idRepartidor).getFirst().getEstado());
+
+		gestionEntregas.registrarEntrega(idEntrega);
+		assertTrue(gestionEntregas.obtenerEntregasActivas(idRepartidor).isEmpty());
+	}
+
+	@Test
+	void unaReasignacionMueveLaEntregaDeRepartidor() {
+		Integer otro = nuevoRepartidor();
+		assertTrue(gestionEntregas.obtenerEntregasActivas(otro).isEmpty());
+
+		gestionEntregas.asignarRepartidor(idEntrega, otro);
+
+		assertTrue(gestionEntregas.obtenerEntregasActivas(idRepartidor).isEmpty());
+		assertEquals(List.of(idEntrega), gestionEntregas.obtenerEntregasActivas(otro).stream().map(ResumenEntrega::getIdEntrega).toList());
+	}
+
+	@Test
+	void unGuardadoConUnaVersionViejaFalla() {
+		Entrega vieja = entregaRepository.findById(idEntrega).orElseThrow();
+		gestionEntregas.registrarRecojo(idEntrega);
+
+		vieja.setEstado(EstadoEntrega.INCIDENCIA);
+		assertThrows(ObjectOptimisticLockingFailureException.class, () -> entregaRepository.save(vieja));
+		assertEquals(EstadoEntrega.RECOGIDO, entregaRepository.findById(idEntrega).orElseThrow().getEstado());
+	}
+}
@@ -0,0 +1,180 @@
+package org.unsa.softwareproject;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.orm.ObjectOptimisticLockingFailureException;
+import org.unsa.model.domain.pedidos.Entrega;
+import org.unsa.model.domain.pedidos.EstadoEntrega;
+import org.unsa.model.domain.pedidos.EstadoPedido;
+import org.unsa.model.domain.pedidos.ItemPedido;
+import org.unsa.model.domain.pedidos.Pedido;
+import org.unsa.model.domain.pedidos.PedidoData;
+import org.unsa.model.domain.restaurantes.Dinero;
+import org.unsa.model.domain.restaurantes.Plato;
+import org.unsa.model.domain.restaurantes.Restaurante;
+import org.unsa.model.domain.restaurantes.TipoCocina;
+import org.unsa.model.domain.usuarios.Cliente;
+import org.unsa.model.domain.usuarios.Repartidor;
+import org.unsa.model.repository.ClienteRepository;
+import org.unsa.model.repository.EntregaRepository;
+import org.unsa.model.repository.PedidoRepository;
+import org.unsa.model.repository.PlatoRepository;
+import org.unsa.model.repository.RepartidorRepository;
+import org.unsa.model.repository.RestauranteRepository;
+import org.unsa.model.service.Interfaces.IPedidoServicio;
+import org.unsa.model.service.impl.GestionEntregasService;
+import org.unsa.model.service.logistica.DespachoService;
+import org.unsa.model.service.logistica.GeocercasService;
+import org.unsa.model.service.logistica.RegistroDisponibilidadRepartidores;
+import org.unsa.model.service.logistica.UbicacionesEntregaService;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Supplier;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Mueve un repartidor real por las cercas de su entrega: los pings confirmados en el restaurante y en el
+ * destino avanzan la entrega y el pedido, y un avance que compite con la app del repartidor no pisa su cambio.
+ */
+@Import(TestcontainersConfiguration.class)
+@SpringBootTest(properties = "app.despacho.lote.habilitado=false")
+class GeocercasTest {
+
+	@Autowired
+	private UbicacionesEntregaService ubicaciones;
+
+	@Autowired
+	private GeocercasService geocercas;
+
+	@Autowired
+	private GestionEntregasService gestionEntregas;
+
+	@Autowired
+	private DespachoService despachoService;
+
+	@Autowired
+	private RegistroDisponibilidadRepartidores registro;
+
+	@Autowired
+	private IPedidoServicio pedidoServicio;
+
+	@Autowired
+	private ClienteRepository clienteRepository;
+
+	@Autowired
+	private RestauranteRepository restauranteRepository;
+
+	@Autowired
+	private PlatoRepository platoRepository;
+
+	@Autowired
+	private PedidoRepository pedidoRepository;
+
+	@Autowired
+	private RepartidorRepository repartidorRepository;
+
+	@Autowired
+	private EntregaRepository entregaRepository;
+
+	// Cada prueba trabaja en una zona propia para no ver repartidores de otras pruebas
+	private double latitud;
+	private double longitud;
+	private double latitudDestino;
+	private Long idPedido;
+	private Integer idRepartidor;
+	private Long idEntrega;
+
+	@BeforeEach
+	void despacharPedidoListo() {
+		latitud = -16.0 - Math.random();
+		longitud = -71.0 - Math.random();
+		latitudDestino = latitud + 0.01; // Poco mas de un kilometro al norte
+		Cliente cliente = clienteRepository.save(new Cliente(null, "Cliente Geocercas", "geocercas" + System.nanoTime() + "@test.pe", "999999999", null));
+		Restaurante restaurante = new Restaurante(null, "Restaurante Geocercas", "Av. Prueba 10", "054000000", TipoCocina.PERUANA);
+		restaurante.setLatitud(latitud);
+		restaurante.setLongitud(longitud);
+		restaurante = restauranteRepository.save(restaurante);
+		Plato plato = platoRepository.save(new Plato(restaurante, "Plato", "Descripcion", new Dinero(10.0, "PEN")));
+		List<ItemPedido> items = new ArrayList<>(List.of(new ItemPedido(plato, 1)));
+		Pedido pedido = new Pedido(new PedidoData(cliente, restaurante, DatosPrueba.direccion(latitudDestino, longitud), null, items), null);
+		items.forEach(item -> item.setPedido(pedido));
+		idPedido = pedidoRepository.save(pedido).getIdPedido();
+
+		idRepartidor = repartidorRepository.save(new Repartidor(null, "Repartidor", "rep" + System.nanoTime() + "@test.pe", "988888888", "Moto", true)).getId();
+		despachoService.registrarDisponible(idRepartidor, latitud, longitud);
+		assertEquals(idRepartidor, despachoService.despachar(idPedido));
+		pedidoServicio.actualizarEstadoPedido(idPedido, EstadoPedido.EN_PREPARACION);
+		pedidoServicio.actualizarEstadoPedido(idPedido, EstadoPedido.LISTO_PARA_RECOGER);
+		idEntrega = entregaRepository.buscarIdPorPedido(idPedido).orElseThrow();
+	}
+
+	@Test
+	void losPingsEnLasCercasAvanzanLaEntregaYElPedido() throws InterruptedException {
+		long recojos = metrica("recojosAutomaticos");
+		// Un ping lejos no cuenta; dos seguidos dentro de la cerca del restaurante registran el recojo
+		ubicaciones.registrar(idEntrega, latitudDestino, longitud);
+		ubicaciones.registrar(idEntrega, latitud, longitud);
+		ubicaciones.registrar(idEntrega, latitud, longitud);
+		// La metrica sube cuando la transicion ya se confirmo y la cerca paso a la fase de entrega
+		esperar(() -> metrica("recojosAutomaticos") > recojos);
+		assertEquals(EstadoEntrega.RECOGIDO, estadoEntrega());
+		assertEquals(EstadoPedido.EN_CAMINO, estadoPedido());
+		assertEquals(1, registro.carga(idRepartidor));
+
+		ubicaciones.registrar(idEntrega, latitudDestino, longitud);
+		ubicaciones.registrar(idEntrega, latitudDestino, longitud);
+		esperar(() -> estadoEntrega() == EstadoEntrega.PROPORCIONADO);
+		esperar(() -> estadoPedido() == EstadoPedido.ENTREGADO);
+		esperar(() -> registro.carga(idRepartidor) == 0);
+	}
+
+	@Test
+	void unAvanceQueLlegaTardeNoPisaElCambioDeLaApp() {
+		Entrega leida = entregaRepository.findById(idEntrega).orElseThrow();
+		gestionEntregas.registrarRecojo(idEntrega); // La app se adelanta a la geocerca
+
+		assertFalse(gestionEntregas.avanzarFase(idEntrega, EstadoEntrega.ASIGNADO));
+		assertEquals(EstadoEntrega.RECOGIDO, estadoEntrega());
+		assertEquals(EstadoPedido.EN_CAMINO, estadoPedido());
+
+		assertTrue(gestionEntregas.avanzarFase(idEntrega, EstadoEntrega.RECOGIDO));
+		assertEquals(EstadoEntrega.PROPORCIONADO, estadoEntrega());
+		assertEquals(EstadoPedido.ENTREGADO, estadoPedido());
+		assertEquals(0, registro.carga(idRepartidor));
+
+		// La actualizacion condicional sube la version: una lectura anterior no puede guardarse encima
+		leida.setEstado(EstadoEntrega.INCIDENCIA);
+		assertThrows(ObjectOptimisticLockingFailureException.class, () -> entregaRepository.save(leida));
+	}
+
+	private long metrica(String nombre) {
+		return geocercas.getMetricas().get(nombre).longValue();
+	}
+
+	private EstadoEntrega estadoEntrega() {
+		return entregaRepository.findById(idEntrega).orElseThrow().getEstado();
+	}
+
+	private EstadoPedido estadoPedido() {
+		return pedidoRepository.buscarEstadoActual(idPedido).orElseThrow().getEstado();
+	}
+
+	// La transicion de la geocerca corre en un hilo virtual, fuera del ping
+	private static void esperar(Supplier<Boolean> condicion) throws InterruptedException {
+		long limite = System.currentTimeMillis() + 5_000;
+		while (!condicion.get()) {
+			if (System.currentTimeMillis() > limite) {
+				throw new AssertionError("La condicion no se cumplio a tiempo");
+			}
+			Thread.sleep(20);
+		}
+	}
+}
@@ -0,0 +1,235 @@
+package org.unsa.softwareproject;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.unsa.model.domain.pedidos.ClaveIdempotencia;
+import org.unsa.model.domain.pedidos.DatosPlatoPedido;
+import org.unsa.model.domain.pedidos.Pedido;
+import org.unsa.model.domain.restaurantes.Dinero;
+import org.unsa.model.domain.restaurantes.Plato;
+import org.unsa.model.domain.restaurantes.Restaurante;
+import org.unsa.model.domain.restaurantes.TipoCocina;
+import org.unsa.model.domain.usuarios.Cliente;
+import org.unsa.model.dtos.CrearPedidoRequest;
+import org.unsa.model.exceptions.ClaveIdempotenciaReutilizadaException;
+import org.unsa.model.exceptions.OperacionEnCursoException;
+import org.unsa.model.repository.ClaveIdempotenciaRepository;
+import org.unsa.model.repository.ClienteRepository;
+import org.unsa.model.repository.PedidoRepository;
+import org.unsa.model.repository.PlatoRepository;
+import org.unsa.model.repository.RestauranteRepository;
+import org.unsa.model.service.Interfaces.IPedidoServicio;
+import org.unsa.model.service.impl.IdempotenciaPedidosService;
+
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Crea pedidos con clave de idempotencia contra la tabla de respaldo: la cache vence al instante, asi que cada
+ * reintento secuencial se resuelve en claves_idempotencia. Cubre el reintento con el mismo cuerpo, la clave
+ * reutilizada con otro cuerpo, duplicados concurrentes en una y en dos instancias, y las reservas abandonadas.
+ */
+@Import(TestcontainersConfiguration.class)
+@SpringBootTest(properties = "app.idempotencia.cache.ttl-segundos=0")
+class IdempotenciaPedidosTest {
+
+	@Autowired
+	private IdempotenciaPedidosService idempotencia;
+
+	@Autowired
+	private IPedidoServicio pedidoServicio;
+
+	@Autowired
+	private ClaveIdempotenciaRepository claveRepository;
+
+	@Autowired
+	private ClienteRepository clienteRepository;
+
+	@Autowired
+	private RestauranteRepository restauranteRepository;
+
+	@Autowired
+	private PlatoRepository platoRepository;
+
+	@Autowired
+	private PedidoRepository pedidoRepository;
+
+	@Autowired
+	private ObjectMapper objectMapper;
+
+	@Autowired
+	private PlatformTransactionManager transactionManager;
+
+	private Cliente cliente;
+	private Restaurante restaurante;
+	private Plato plato;
+	private String clave;
+
+	@BeforeEach
+	void crearDatos() {
+		cliente = clienteRepository.save(new Cliente(null, "Cliente Idempotencia", "idempotencia" + System.nanoTime() + "@test.pe", "999999999", null));
+		restaurante = restauranteRepository.save(new Restaurante(null, "Restaurante Idempotencia", "Av. Prueba 19", "054000000", TipoCocina.PERUANA));
+		plato = platoRepository.save(new Plato(restaurante, "Adobo", "Descripcion", new Dinero(20.0, "PEN")));
+		clave = cliente.getId() + ":clave-" + System.nanoTime();
+	}
+
+	private CrearPedidoRequest solicitud(int cantidad) {
+		return new CrearPedidoRequest(cliente.getId(), restaurante.getId(), List.of(new DatosPlatoPedido(plato.getIdPlato(), cantidad)),
+				DatosPrueba.direccion(), null);
+	}
+
+	private Supplier<Pedido> creacion(CrearPedidoRequest solicitud) {
+		return () -> pedidoServicio.crearPedido(solicitud.getIdCliente(), solicitud.getIdRestaurante(), solicitud.getItemsCarrito(),
+				solicitud.getDireccionEntrega(), solicitud.getInstruccionesEspeciales());
+	}
+
+	private int pedidosDelCliente() {
+		return pedidoRepository.findByCliente_Id(cliente.getId()).size();
+	}
+
+	/**
+	 * Otra instancia de la aplicacion: comparte la tabla de respaldo pero no la cache en memoria.
+	 */
+	private IdempotenciaPedidosService otraInstancia() {
+		IdempotenciaPedidosService otra = new IdempotenciaPedidosService(claveRepository, pedidoRepository, objectMapper, transactionManager);
+		ReflectionTestUtils.setField(otra, "maxEntradas", 100);
+		ReflectionTestUtils.setField(otra, "ttlCacheSegundos", 600L);
+		ReflectionTestUtils.setField(otra, "ttlTablaHoras", 24L);
+		ReflectionTestUtils.setField(otra, "esperaMaxMs", 1000L);
+		ReflectionTestUtils.setField(otra, "reservaMaxSegundos", 60L);
+		return otra;
+	}
+
+	@Test
+	void elMismoCuerpoDevuelveElPedidoRegistrado() {
+		CrearPedidoRequest solicitud = solicitud(2);
+		Pedido primero = idempotencia.ejecutar(clave, solicitud, creacion(solicitud));
+		Pedido reintento = idempotencia.ejecutar(clave, solicitud(2), creacion(solicitud));
+
+		assertEquals(primero.getIdPedido(), reintento.getIdPedido());
+		assertEquals(primero.getIdPedido(), claveRepository.findById(clave).orElseThrow().getIdPedido());
+		assertEquals(1, pedidosDelCliente());
+	}
+
+	@Test
+	void otroCuerpoConLaMismaClaveSeRechaza() {
+		CrearPedidoRequest solicitud = solicitud(1);
+		idempotencia.ejecutar(clave, solicitud, creacion(solicitud));
+
+		CrearPedidoRequest otra = solicitud(3);
+		assertThrows(ClaveIdempotenciaReutilizadaException.class, () -> idempotencia.ejecutar(clave, otra, creacion(otra)));
+		assertThrows(ClaveIdempotenciaReutilizadaException.class, () -> otraInstancia().ejecutar(clave, otra, creacion(otra)));
+		assertEquals(1, pedidosDelCliente());
+	}
+
+	@Test
+	void losDuplicadosConcurrentesCreanUnSoloPedido() throws Exception {
+		CrearPedidoRequest solicitud = solicitud(1);
+		CountDownLatch salida = new CountDownLatch(1);
+		ExecutorService hilos = Executors.newFixedThreadPool(8);
+		try {
+			List<Future<Long>> resultados = new ArrayList<>();
+			for (int i = 0; i < 8; i++) {
+				resultados.add(hilos.submit(() -> {
+					salida.await();
+					return idempotencia.ejecutar(clave, solicitud, creacion(solicitud)).getIdPedido();
+				}));
+			}
+			salida.countDown();
+
+			Set<Long> ids = new HashSet<>();
+			for (Future<Long> resultado : resultados) {
+				ids.add(resultado.get(30, TimeUnit.SECONDS));
+			}
+			assertEquals(1, ids.size());
+		} finally {
+			hilos.shutdownNow();
+		}
+		assertEquals(1, pedidosDelCliente());
+	}
+
+	@Test
+	void otraInstanciaVeLaReservaEnCursoYLuegoElPedido() throws Exception {
+		CrearPedidoRequest solicitud = solicitud(1);
+		IdempotenciaPedidosService otra = otraInstancia();
+		CountDownLatch reservada = new CountDownLatch(1);
+		CountDownLatch continuar = new CountDownLatch(1);
+		ExecutorService hilo = Executors.newSingleThreadExecutor();
+		try {
+			Future<Pedido> primero = hilo.submit(() -> idempotencia.ejecutar(clave, solicitud, () -> {
+				reservada.countDown();
+				try {
+					assertTrue(continuar.await(30, TimeUnit.SECONDS));
+				} catch (InterruptedException e) {
+					Thread.currentThread().interrupt();
+					throw new IllegalStateException(e);
+				}
+				return creacion(solicitud).get();
+			}));
+			assertTrue(reservada.await(30, TimeUnit.SECONDS));
+
+			// La clave esta reservada en la tabla pero su pedido aun no se confirma
+			assertThrows(OperacionEnCursoException.class, () -> otra.ejecutar(clave, solicitud, creacion(solicitud)));
+			continuar.countDown();
+			Long idPedido = primero.get(30, TimeUnit.SECONDS).getIdPedido();
+
+			assertEquals(idPedido, otra.ejecutar(clave, solicitud, creacion(solicitud)).getIdPedido());
+		} finally {
+			continuar.countDown();
+			hilo.shutdownNow();
+		}
+		assertEquals(1, pedidosDelCliente());
+	}
+
+	@Test
+	void unaReservaAbandonadaSeLiberaYElReintentoCreaElPedido() {
+		// Reserva de una instancia que fallo antes de asociar su pedido
+		ClaveIdempotencia abandonada = new ClaveIdempotencia(clave, null);
+		abandonada.setFechaCreacion(new Date(System.currentTimeMillis() - TimeUnit.MINUTES.toMillis(5)));
+		claveRepository.saveAndFlush(abandonada);
+
+		CrearPedidoRequest solicitud = solicitud(1);
+		Pedido pedido = idempotencia.ejecutar(clave, solicitud, creacion(solicitud));
+
+		assertEquals(pedido.getIdPedido(), claveRepository.findById(clave).orElseThrow().getIdPedido());
+		assertEquals(1, pedidosDelCliente());
+	}
+
+	@Test
+	void laLimpiezaLiberaSoloLasReservasVencidas() {
+		String vencida = clave + "-vencida";
+		ClaveIdempotencia abandonada = new ClaveIdempotencia(vencida, null);
+		abandonada.setFechaCreacion(new Date(System.currentTimeMillis() - TimeUnit.MINUTES.toMillis(5)));
+		claveRepository.saveAndFlush(abandonada);
+		String reciente = clave + "-reciente";
+		claveRepository.saveAndFlush(new ClaveIdempotencia(reciente, null));
+		CrearPedidoRequest solicitud = solicitud(1);
+		Long idPedido = idempotencia.ejecutar(clave, solicitud, creacion(solicitud)).getIdPedido();
+
+		idempotencia.limpiar();
+
+		assertFalse(claveRepository.existsById(vencida));
+		assertTrue(claveRepository.existsById(reciente));
+		assertEquals(idPedido, claveRepository.findById(clave).orElseThrow().getIdPedido());
+	}
+}
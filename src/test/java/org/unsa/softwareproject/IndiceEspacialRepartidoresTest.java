@@ -0,0 +1,97 @@
+package org.unsa.softwareproject;
+
+import org.junit.jupiter.api.Test;
+import org.unsa.model.service.logistica.CandidatoRepartidor;
+import org.unsa.model.service.logistica.IndiceEspacialRepartidores;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Verifica la busqueda de los k repartidores mas cercanos en la grilla y que el reclamo sea atomico.
+ */
+class IndiceEspacialRepartidoresTest {
+
+	private static final double LATITUD = -16.3989;
+	private static final double LONGITUD = -71.5350;
+
+	@Test
+	void devuelveLosMasCercanosEnOrdenYDentroDelRadio() {
+		IndiceEspacialRepartidores indice = new IndiceEspacialRepartidores(0.01);
+		// Repartidores sobre el mismo meridiano, cada uno ~1.1 km mas lejos que el anterior
+		for (int i = 1; i <= 6; i++) {
+			indice.marcarDisponible(i, LATITUD + i * 0.01, LONGITUD);
+		}
+
+		List<CandidatoRepartidor> cercanos = indice.buscarCercanos(LATITUD, LONGITUD, 3, 10);
+		assertEquals(List.of(1, 2, 3), cercanos.stream().map(CandidatoRepartidor::idRepartidor).toList());
+		for (int i = 1; i < cercanos.size(); i++) {
+			assertTrue(cercanos.get(i - 1).distanciaKm() <= cercanos.get(i).distanciaKm());
+		}
+
+		List<CandidatoRepartidor> enRadio = indice.buscarCercanos(LATITUD, LONGITUD, 10, 3.5);
+		assertEquals(List.of(1, 2, 3), enRadio.stream().map(CandidatoRepartidor::idRepartidor).toList());
+	}
+
+	@Test
+	void unRepartidorMovidoSeBuscaEnSuNuevaCelda() {
+		IndiceEspacialRepartidores indice = new IndiceEspacialRepartidores(0.01);
+		indice.marcarDisponible(1, LATITUD + 0.5, LONGITUD);
+		indice.marcarDisponible(2, LATITUD + 0.02, LONGITUD);
+
+		assertTrue(indice.actualizarPosicion(1, LATITUD, LONGITUD + 0.001));
+
+		assertEquals(1, indice.buscarCercanos(LATITUD, LONGITUD, 1, 5).getFirst().idRepartidor());
+		assertFalse(indice.actualizarPosicion(99, LATITUD, LONGITUD));
+	}
+
+	@Test
+	void unRepartidorReclamadoNoVuelveAAparecer() {
+		IndiceEspacialRepartidores indice = new IndiceEspacialRepartidores(0.01);
+		indice.marcarDisponible(1, LATITUD, LONGITUD);
+		indice.marcarDisponible(2, LATITUD + 0.01, LONGITUD);
+
+		assertTrue(indice.reclamar(1));
+		assertFalse(indice.reclamar(1));
+		assertEquals(List.of(2), indice.buscarCercanos(LATITUD, LONGITUD, 5, 10).stream().map(CandidatoRepartidor::idRepartidor).toList());
+		assertEquals(1, indice.cantidadDisponibles());
+	}
+
+	@Test
+	void soloUnHiloReclamaAlMismoRepartidor() throws Exception {
+		IndiceEspacialRepartidores indice = new IndiceEspacialRepartidores(0.01);
+		int hilos = 8;
+		ExecutorService ejecutor = Executors.newFixedThreadPool(hilos);
+		try {
+			for (int ronda = 0; ronda < 200; ronda++) {
+				indice.marcarDisponible(1, LATITUD, LONGITUD);
+				CountDownLatch salida = new CountDownLatch(1);
+				List<Future<Boolean>> reclamos = new ArrayList<>();
+				for (int h = 0; h < hilos; h++) {
+					reclamos.add(ejecutor.submit(() -> {
+						salida.await();
+						return indice.reclamar(1);
+					}));
+				}
+				salida.countDown();
+				int ganadores = 0;
+				for (Future<Boolean> reclamo : reclamos) {
+					if (reclamo.get()) {
+						ganadores++;
+					}
+				}
+				assertEquals(1, ganadores);
+			}
+		} finally {
+			ejecutor.shutdown();
+		}
+	}
+}
@@ -0,0 +1,142 @@
+package org.unsa.softwareproject;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.unsa.model.domain.restaurantes.HorarioSemanal;
+import org.unsa.model.service.busqueda.IndiceHorarios;
+
+import java.time.DayOfWeek;
+import java.time.Instant;
+import java.time.LocalTime;
+import java.time.ZoneId;
+import java.time.ZonedDateTime;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Random;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * Compila horarios semanales en el indice de abiertos, sin base de datos: rangos que cruzan la medianoche y el
+ * fin de semana, cambios incrementales frente a la consulta bit por bit de cada horario, y que una version
+ * publicada de los mapas de bits no cambia cuando se actualiza un restaurante.
+ */
+class IndiceHorariosTest {
+
+	private static final ZoneId ZONA = ZoneId.of("America/Lima");
+	// Un lunes 00:00 en la zona del indice: el minuto 0 de la semana
+	private static final ZonedDateTime LUNES = ZonedDateTime.of(2026, 10, 12, 0, 0, 0, 0, ZONA);
+
+	private IndiceHorarios indice;
+
+	@BeforeEach
+	void crearIndice() {
+		indice = new IndiceHorarios(null, null, ZONA.getId());
+	}
+
+	private static Instant en(DayOfWeek dia, String hora) {
+		return LUNES.plusMinutes(HorarioSemanal.minutoDeLaSemana(dia, LocalTime.parse(hora))).toInstant();
+	}
+
+	private static HorarioSemanal semana(DayOfWeek dia, String apertura, String cierre) {
+		HorarioSemanal semana = new HorarioSemanal();
+		semana.agregar(dia, LocalTime.parse(apertura), LocalTime.parse(cierre));
+		return semana;
+	}
+
+	private Set<Integer> abiertos(Instant instante) {
+		return Arrays.stream(indice.abiertosEn(instante)).boxed().collect(Collectors.toCollection(TreeSet::new));
+	}
+
+	@Test
+	void losRangosQueCruzanLaMedianocheSiguenEnElDiaSiguiente() {
+		indice.actualizar(1, semana(DayOfWeek.FRIDAY, "20:00", "02:00"));
+		indice.actualizar(2, semana(DayOfWeek.SUNDAY, "22:00", "01:00"));
+
+		assertEquals(Set.of(), abiertos(en(DayOfWeek.FRIDAY, "19:59")));
+		assertEquals(Set.of(1), abiertos(en(DayOfWeek.FRIDAY, "20:00")));
+		assertEquals(Set.of(1), abiertos(en(DayOfWeek.SATURDAY, "01:59")));
+		assertEquals(Set.of(), abiertos(en(DayOfWeek.SATURDAY, "02:00")));
+		// Del domingo pasa al lunes, que es el inicio de la semana
+		assertEquals(Set.of(2), abiertos(en(DayOfWeek.SUNDAY, "23:59")));
+		assertEquals(Set.of(2), abiertos(en(DayOfWeek.MONDAY, "00:30")));
+		assertEquals(Set.of(), abiertos(en(DayOfWeek.MONDAY, "01:00")));
+	}
+
+	@Test
+	void actualizarReemplazaElHorarioDelRestaurante() {
+		indice.actualizar(1, semana(DayOfWeek.MONDAY, "09:00", "17:00"));
+		indice.actualizar(2, semana(DayOfWeek.MONDAY, "12:00", "15:00"));
+		assertEquals(Set.of(1, 2), abiertos(en(DayOfWeek.MONDAY, "13:00")));
+
+		indice.actualizar(1, semana(DayOfWeek.TUESDAY, "09:00", "17:00"));
+		assertEquals(Set.of(2), abiertos(en(DayOfWeek.MONDAY, "13:00")));
+		assertEquals(Set.of(1), abiertos(en(DayOfWeek.TUESDAY, "13:00")));
+
+		// Sin horario deja de figurar como abierto; uno que nunca abre y no estaba no ocupa posicion
+		indice.actualizar(2, new HorarioSemanal());
+		indice.actualizar(3, new HorarioSemanal());
+		assertEquals(Set.of(), abiertos(en(DayOfWeek.MONDAY, "13:00")));
+		assertEquals(2, indice.getMetricas().get("posiciones").intValue());
+	}
+
+	@Test
+	void unaVersionPublicadaNoCambiaAlActualizar() {
+		indice.actualizar(1, semana(DayOfWeek.MONDAY, "09:00", "17:00"));
+		indice.actualizar(2, semana(DayOfWeek.MONDAY, "12:00", "15:00"));
+		Object publicados = ReflectionTestUtils.getField(indice, "tramos");
+		long[][] bits = (long[][]) ReflectionTestUtils.getField(publicados, "abiertos");
+		int[] inicios = (int[]) ReflectionTestUtils.getField(publicados, "inicios");
+		long[][] copia = Arrays.stream(bits).map(long[]::clone).toArray(long[][]::new);
+		int[] copiaInicios = inicios.clone();
+
+		// Un cambio que parte tramos y otro que solo mueve bits en los existentes
+		indice.actualizar(1, semana(DayOfWeek.MONDAY, "10:00", "13:00"));
+		indice.actualizar(2, new HorarioSemanal());
+
+		assertArrayEquals(copiaInicios, inicios);
+		assertEquals(copia.length, bits.length);
+		for (int t = 0; t < copia.length; t++) {
+			assertArrayEquals(copia[t], bits[t]);
+		}
+		assertEquals(Set.of(1), abiertos(en(DayOfWeek.MONDAY, "12:30")));
+	}
+
+	@Test
+	void coincideConLosHorariosBitPorBitTrasCambiosAleatorios() {
+		Random aleatorio = new Random(25);
+		Map<Integer, HorarioSemanal> semanas = new HashMap<>();
+		// Mas de 64 restaurantes obliga a crecer la capacidad a mitad de camino
+		for (int operacion = 0; operacion < 400; operacion++) {
+			int id = 1 + aleatorio.nextInt(150);
+			HorarioSemanal semana = new HorarioSemanal();
+			if (aleatorio.nextInt(8) > 0) {
+				for (DayOfWeek dia : DayOfWeek.values()) {
+					if (aleatorio.nextInt(4) > 0) {
+						semana.agregar(dia, LocalTime.of(aleatorio.nextInt(24), aleatorio.nextInt(60)),
+								LocalTime.of(aleatorio.nextInt(24), aleatorio.nextInt(60)));
+					}
+				}
+			}
+			indice.actualizar(id, semana);
+			semanas.put(id, semana);
+
+			if (operacion % 20 == 0) {
+				for (int consulta = 0; consulta < 50; consulta++) {
+					int minuto = aleatorio.nextInt(HorarioSemanal.MINUTOS_SEMANA);
+					Set<Integer> esperados = semanas.entrySet().stream()
+							.filter(e -> e.getValue().estaAbierto(minuto))
+							.map(Map.Entry::getKey)
+							.collect(Collectors.toCollection(TreeSet::new));
+					assertEquals(esperados, abiertos(LUNES.plusMinutes(minuto).toInstant()));
+				}
+			}
+		}
+	}
+}
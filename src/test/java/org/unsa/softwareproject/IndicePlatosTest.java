@@ -0,0 +1,134 @@
+package org.unsa.softwareproject;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.unsa.model.domain.restaurantes.Dinero;
+import org.unsa.model.domain.restaurantes.Plato;
+import org.unsa.model.domain.restaurantes.Restaurante;
+import org.unsa.model.domain.restaurantes.TipoCocina;
+import org.unsa.model.dtos.ResultadoBusquedaPlato;
+import org.unsa.model.service.busqueda.IndicePlatos;
+import org.unsa.model.service.busqueda.NormalizadorTexto;
+
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Indexa platos en memoria, sin base de datos: coincidencias exactas, por prefijo y con un error de tipeo,
+ * el orden por puntaje, y el contenido de los postings frente a un recorrido por fuerza bruta tras muchas escrituras.
+ */
+class IndicePlatosTest {
+
+	private final Restaurante restaurante = new Restaurante(1, "Restaurante Indice", "Av. Prueba 12", "054000000", TipoCocina.PERUANA);
+
+	private IndicePlatos indice;
+
+	@BeforeEach
+	void crearIndice() {
+		indice = new IndicePlatos(null, null);
+		ReflectionTestUtils.setField(indice, "minPrefijo", 2);
+		ReflectionTestUtils.setField(indice, "minTipeo", 4);
+		ReflectionTestUtils.setField(indice, "maxExpansiones", 50);
+		ReflectionTestUtils.setField(indice, "maxResultados", 1000);
+	}
+
+	private void indexar(int idPlato, String nombre, String descripcion) {
+		Plato plato = new Plato(restaurante, nombre, descripcion, new Dinero(10.0, "PEN"));
+		plato.setIdPlato(idPlato);
+		indice.indexar(plato);
+	}
+
+	private List<Integer> buscar(String consulta) {
+		return indice.buscar(consulta, 1000).stream().map(ResultadoBusquedaPlato::getIdPlato).toList();
+	}
+
+	@Test
+	void coincidePorRaizPrefijoYTipeo() {
+		indexar(1, "Ceviche de pescado", "Con camote y choclo");
+		indexar(2, "Lomo saltado", "Papas fritas y arroz");
+		indexar(3, "Arroz con pollo", "Pollo en culantro");
+
+		assertEquals(List.of(1), buscar("cebiches"));
+		assertEquals(List.of(2), buscar("salt"));
+		assertEquals(List.of(2), buscar("lomo saltdo"));
+		assertEquals(List.of(3, 2), buscar("arroz"));
+		assertEquals(List.of(), buscar("lomo pollo"));
+		// Una ultima letra suelta no filtra
+		assertEquals(List.of(1), buscar("pescado c"));
+	}
+
+	@Test
+	void elNombrePesaMasQueLaDescripcionYLosEmpatesVanPorId() {
+		indexar(7, "Aji de gallina", "Pollo deshilachado");
+		indexar(5, "Pollo a la brasa", "Con papas");
+		for (int id = 20; id > 10; id--) {
+			indexar(id, "Chicha morada", "Bebida");
+		}
+
+		assertEquals(List.of(5, 7), buscar("pollo"));
+		assertEquals(List.of(11, 12, 13), indice.buscar("chicha", 3).stream().map(ResultadoBusquedaPlato::getIdPlato).toList());
+	}
+
+	@Test
+	void reindexarYEliminarActualizanLosTerminos() {
+		indexar(1, "Causa limena", "Papa amarilla");
+		long terminos = indice.getMetricas().get("terminos").longValue();
+
+		indexar(1, "Causa rellena", "Papa amarilla");
+		assertEquals(List.of(), buscar("limena"));
+		assertEquals(List.of(1), buscar("rellena"));
+		assertEquals(terminos, indice.getMetricas().get("terminos").longValue());
+
+		indice.eliminar(1);
+		assertEquals(List.of(), buscar("causa"));
+		assertEquals(0, indice.getMetricas().get("terminos").longValue());
+	}
+
+	@Test
+	void coincideConLaFuerzaBrutaTrasEscriturasAleatorias() {
+		// Palabras sin prefijos comunes ni vecinas a un error, para que solo cuenten las coincidencias exactas
+		String[] palabras = {"papa", "pollo", "arroz", "lomo", "aji", "pisco", "queso", "tacu", "ocopa", "rocoto"};
+		Random aleatorio = new Random(7);
+		Map<Integer, Set<String>> terminos = new HashMap<>();
+		for (int operacion = 0; operacion < 3000; operacion++) {
+			int id = 1 + aleatorio.nextInt(300);
+			if (aleatorio.nextInt(5) == 0) {
+				indice.eliminar(id);
+				terminos.remove(id);
+				continue;
+			}
+			String nombre = palabras[aleatorio.nextInt(palabras.length)] + " " + palabras[aleatorio.nextInt(palabras.length)];
+			String descripcion = palabras[aleatorio.nextInt(palabras.length)];
+			indexar(id, nombre, descripcion);
+			Set<String> delPlato = new HashSet<>(NormalizadorTexto.terminos(nombre));
+			delPlato.addAll(NormalizadorTexto.terminos(descripcion));
+			terminos.put(id, delPlato);
+		}
+
+		for (int consulta = 0; consulta < 200; consulta++) {
+			String a = palabras[aleatorio.nextInt(palabras.length)];
+			String b = palabras[aleatorio.nextInt(palabras.length)];
+			Set<String> buscados = new HashSet<>(List.of(NormalizadorTexto.raiz(a), NormalizadorTexto.raiz(b)));
+			Set<Integer> esperados = terminos.entrySet().stream()
+					.filter(e -> e.getValue().containsAll(buscados))
+					.map(Map.Entry::getKey)
+					.collect(Collectors.toCollection(TreeSet::new));
+
+			List<ResultadoBusquedaPlato> encontrados = indice.buscar(a + " " + b, 1000);
+			assertEquals(esperados, encontrados.stream().map(ResultadoBusquedaPlato::getIdPlato).collect(Collectors.toCollection(TreeSet::new)));
+			for (int i = 1; i < encontrados.size(); i++) {
+				assertTrue(encontrados.get(i - 1).getPuntaje() >= encontrados.get(i).getPuntaje());
+			}
+		}
+	}
+}
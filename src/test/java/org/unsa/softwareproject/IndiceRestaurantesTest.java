@@ -0,0 +1,128 @@
+package org.unsa.softwareproject;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.unsa.model.domain.restaurantes.TipoCocina;
+import org.unsa.model.dtos.ResumenRestaurante;
+import org.unsa.model.service.busqueda.IndiceRestaurantes;
+import org.unsa.model.service.busqueda.NormalizadorTexto;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * Indexa resumenes de restaurantes en memoria, sin base de datos: el orden por relevancia, la normalizacion de
+ * tildes y mayusculas, la actualizacion incremental y las posiciones candidatas frente a un contains por fuerza bruta.
+ */
+class IndiceRestaurantesTest {
+
+	private IndiceRestaurantes indice;
+
+	@BeforeEach
+	void crearIndice() {
+		indice = new IndiceRestaurantes(null);
+		ReflectionTestUtils.setField(indice, "maxResultados", 1000);
+	}
+
+	private void indexar(int id, String nombre, String direccion, TipoCocina tipoCocina) {
+		indice.indexar(new ResumenRestaurante(id, nombre, direccion, "054000000", tipoCocina, null, null));
+	}
+
+	private List<Integer> buscar(String texto) {
+		return indice.buscar(texto, 1000).stream().map(ResumenRestaurante::getIdRestaurante).toList();
+	}
+
+	@Test
+	void ordenaPorNombreExactoPrefijoContenidoYOtroCampo() {
+		indexar(1, "Sangucheria La Lucha", "Av. Ejercito 100", TipoCocina.PERUANA);
+		indexar(4, "Chifa Central", "Calle La Lucha 123", TipoCocina.PERUANA);
+		indexar(3, "La Lucha Miraflores", "Av. Larco 200", TipoCocina.PERUANA);
+		indexar(2, "La Lucha", "Jr. Union 300", TipoCocina.PERUANA);
+		indexar(5, "Pizzeria Roma", "Av. Italia 1", TipoCocina.ITALIANA);
+
+		assertEquals(List.of(2, 3, 1, 4), buscar("la lucha"));
+		assertEquals(List.of(2, 3, 1, 4), buscar("  LÁ LÚCHA "));
+		assertEquals(List.of(5), buscar("italiana"));
+		assertEquals(List.of(), buscar("lucha roma"));
+		// Una consulta corta no usa trigramas y recorre todas las fichas
+		assertEquals(List.of(4, 1, 3, 2), buscar("ch"));
+	}
+
+	@Test
+	void noCoincideEntreCampos() {
+		indexar(1, "Sabor", "Arequipa", TipoCocina.PERUANA);
+
+		assertEquals(List.of(1), buscar("sabor"));
+		assertEquals(List.of(), buscar("sabor arequipa"));
+	}
+
+	@Test
+	void reindexarYEliminarActualizanLasPosiciones() {
+		indexar(1, "Cevicheria Puerto", "Av. Mar 1", TipoCocina.PERUANA);
+		indexar(2, "Cevicheria Bahia", "Av. Mar 2", TipoCocina.PERUANA);
+
+		indexar(1, "Picanteria Sol", "Av. Mar 1", TipoCocina.PERUANA);
+		assertEquals(List.of(2), buscar("cevicheria"));
+		assertEquals(List.of(1), buscar("picanteria"));
+
+		indice.eliminar(2);
+		assertEquals(List.of(), buscar("cevicheria"));
+		assertEquals(List.of(1), buscar(""));
+		assertEquals(1, indice.getMetricas().get("restaurantesIndexados").intValue());
+	}
+
+	@Test
+	void respetaElLimite() {
+		for (int id = 1; id <= 10; id++) {
+			indexar(id, "Polleria " + id, "Av. Brasa " + id, TipoCocina.PERUANA);
+		}
+
+		assertEquals(List.of(1, 2, 3), indice.buscar("polleria", 3).stream().map(ResumenRestaurante::getIdRestaurante).toList());
+		assertEquals(3, indice.buscar("", 3).size());
+	}
+
+	@Test
+	void coincideConUnContainsPorFuerzaBruta() {
+		String[] silabas = {"ca", "sa", "pi", "co", "tu", "ma", "ri", "lo", "ne", "ya"};
+		TipoCocina[] cocinas = TipoCocina.values();
+		Random aleatorio = new Random(11);
+		Map<Integer, String[]> campos = new HashMap<>();
+		for (int operacion = 0; operacion < 4000; operacion++) {
+			int id = 1 + aleatorio.nextInt(500);
+			if (aleatorio.nextInt(6) == 0) {
+				indice.eliminar(id);
+				campos.remove(id);
+				continue;
+			}
+			String nombre = silabas[aleatorio.nextInt(silabas.length)] + silabas[aleatorio.nextInt(silabas.length)]
+					+ " " + silabas[aleatorio.nextInt(silabas.length)] + silabas[aleatorio.nextInt(silabas.length)];
+			String direccion = "Calle " + silabas[aleatorio.nextInt(silabas.length)] + silabas[aleatorio.nextInt(silabas.length)];
+			TipoCocina tipoCocina = cocinas[aleatorio.nextInt(cocinas.length)];
+			indexar(id, nombre, direccion, tipoCocina);
+			campos.put(id, new String[]{NormalizadorTexto.normalizar(nombre), NormalizadorTexto.normalizar(direccion),
+					NormalizadorTexto.normalizar(tipoCocina.name())});
+		}
+
+		for (int consulta = 0; consulta < 300; consulta++) {
+			String texto = silabas[aleatorio.nextInt(silabas.length)] + silabas[aleatorio.nextInt(silabas.length)];
+			if (aleatorio.nextBoolean()) {
+				texto = texto.substring(1);
+			}
+			String buscado = texto;
+			Set<Integer> esperados = campos.entrySet().stream()
+					.filter(e -> e.getValue()[0].contains(buscado) || e.getValue()[1].contains(buscado) || e.getValue()[2].contains(buscado))
+					.map(Map.Entry::getKey)
+					.collect(Collectors.toCollection(TreeSet::new));
+
+			assertEquals(esperados, new TreeSet<>(buscar(texto)));
+		}
+	}
+}
@@ -0,0 +1,176 @@
+package org.unsa.softwareproject;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.http.MediaType;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.unsa.model.domain.pedidos.EstadoPedido;
+import org.unsa.model.domain.pedidos.EventoPedido;
+import org.unsa.model.domain.pedidos.ItemPedido;
+import org.unsa.model.domain.pedidos.Pedido;
+import org.unsa.model.domain.restaurantes.Dinero;
+import org.unsa.model.domain.restaurantes.Moneda;
+import org.unsa.model.domain.restaurantes.Plato;
+import org.unsa.model.domain.restaurantes.Restaurante;
+import org.unsa.model.domain.restaurantes.TipoCocina;
+import org.unsa.model.domain.usuarios.Cliente;
+import org.unsa.model.domain.usuarios.Direccion;
+import org.unsa.model.repository.ClienteRepository;
+import org.unsa.model.repository.EventoPedidoRepository;
+import org.unsa.model.repository.PedidoRepository;
+import org.unsa.model.repository.PlatoRepository;
+import org.unsa.model.repository.RestauranteRepository;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * Carga pedidos en lote en NDJSON y como arreglo JSON y los relee con PedidoRepository: las columnas que escriben
+ * las inserciones JDBC deben coincidir con el mapeo JPA de pedidos, items y eventos del outbox.
+ */
+@Import(TestcontainersConfiguration.class)
+@SpringBootTest
+@AutoConfigureMockMvc
+class IngestaPedidosLoteTest {
+
+	@Autowired
+	private MockMvc mockMvc;
+
+	@Autowired
+	private ObjectMapper objectMapper;
+
+	@Autowired
+	private ClienteRepository clienteRepository;
+
+	@Autowired
+	private RestauranteRepository restauranteRepository;
+
+	@Autowired
+	private PlatoRepository platoRepository;
+
+	@Autowired
+	private PedidoRepository pedidoRepository;
+
+	@Autowired
+	private EventoPedidoRepository eventoRepository;
+
+	@Autowired
+	private PlatformTransactionManager transactionManager;
+
+	private Cliente cliente;
+	private Restaurante restaurante;
+	private Plato lomo;
+	private Plato chicha;
+
+	@BeforeEach
+	void crearCatalogo() {
+		cliente = clienteRepository.save(new Cliente(null, "Cliente Lote", "lote" + System.nanoTime() + "@test.pe", "999999999", null));
+		restaurante = restauranteRepository.save(new Restaurante(null, "Restaurante Lote", "Av. Prueba 18", "054000000", TipoCocina.PERUANA));
+		lomo = platoRepository.save(new Plato(restaurante, "Lomo saltado", "Descripcion", new Dinero(25.5, "PEN")));
+		chicha = platoRepository.save(new Plato(restaurante, "Chicha morada", "Descripcion", new Dinero(4.25, "PEN")));
+	}
+
+	private String solicitud(int cantidadLomo, int cantidadChicha, String instrucciones) {
+		return """
+				{"idCliente": %d, "idRestaurante": %d, "itemsCarrito": [{"idPlato": %d, "cantidad": %d}, {"idPlato": %d, "cantidad": %d}], \
+				"direccionEntrega": {"calle": "Calle Lote", "ciudad": "Arequipa", "distrito": "Yanahuara", "referencia": "Porton verde", \
+				"latitud": -16.39, "longitud": -71.54}, "instruccionesEspeciales": "%s"}""".formatted(
+				cliente.getId(), restaurante.getId(), lomo.getIdPlato(), cantidadLomo, chicha.getIdPlato(), cantidadChicha, instrucciones);
+	}
+
+	/**
+	 * Envia la carga y devuelve los IDs creados, en el orden de las lineas.
+	 */
+	private List<Long> cargar(String cuerpo, MediaType tipo) throws Exception {
+		String respuesta = mockMvc.perform(post("/pedidos/batch").contentType(tipo).content(cuerpo))
+				.andExpect(status().isOk())
+				.andReturn().getResponse().getContentAsString();
+		List<Long> ids = new ArrayList<>();
+		for (String linea : respuesta.split("\n")) {
+			JsonNode resultado = objectMapper.readTree(linea);
+			assertEquals("CREADO", resultado.get("estado").asText(), linea);
+			ids.add(Long.valueOf(resultado.get("idPedido").asText()));
+		}
+		return ids;
+	}
+
+	/**
+	 * Relee el pedido por JPA y compara cada columna escrita por la insercion en lote.
+	 */
+	private void verificar(Long idPedido, int cantidadLomo, int cantidadChicha, String instrucciones) {
+		new TransactionTemplate(transactionManager).executeWithoutResult(estado -> {
+			Pedido pedido = pedidoRepository.findById(idPedido).orElseThrow();
+			assertEquals(EstadoPedido.PENDIENTE, pedido.getEstado());
+			assertEquals(0L, pedido.getVersion());
+			assertNull(pedido.getRepartidor());
+			assertEquals(cliente.getId(), pedido.getInfo().getCliente().getId());
+			assertEquals(restaurante.getId(), pedido.getInfo().getRestaurante().getId());
+			assertEquals(instrucciones, pedido.getInfo().getInstruccionesEspeciales());
+
+			Direccion direccion = pedido.getInfo().getDireccionEntrega();
+			assertEquals("Calle Lote", direccion.getCalle());
+			assertEquals("Arequipa", direccion.getCiudad());
+			assertEquals("Yanahuara", direccion.getDistrito());
+			assertEquals("Porton verde", direccion.getReferencia());
+			assertEquals(-16.39, direccion.getLatitud());
+			assertEquals(-71.54, direccion.getLongitud());
+
+			assertEquals(Moneda.PEN, pedido.getMontoTotal().getMoneda());
+			assertEquals(2550L * cantidadLomo + 425L * cantidadChicha, pedido.getMontoTotal().getCentimos());
+
+			List<ItemPedido> items = new ArrayList<>(pedido.getInfo().getItems());
+			items.sort(Comparator.comparing(item -> item.getPlato().getNombre()));
+			assertEquals(2, items.size());
+			assertEquals(chicha.getIdPlato(), items.get(0).getPlato().getIdPlato());
+			assertEquals(cantidadChicha, items.get(0).getCantidad());
+			assertEquals(425L * cantidadChicha, items.get(0).getSubtotal().getCentimos());
+			assertEquals(lomo.getIdPlato(), items.get(1).getPlato().getIdPlato());
+			assertEquals(cantidadLomo, items.get(1).getCantidad());
+			assertEquals(2550L * cantidadLomo, items.get(1).getSubtotal().getCentimos());
+			assertEquals(Moneda.PEN, items.get(1).getSubtotal().getMoneda());
+		});
+
+		List<EventoPedido> eventos = eventoRepository.findAll().stream()
+				.filter(e -> idPedido.equals(e.getIdPedido()))
+				.toList();
+		assertEquals(1, eventos.size());
+		assertEquals(EventoPedido.PEDIDO_CREADO, eventos.getFirst().getTipo());
+		assertEquals(EstadoPedido.PENDIENTE, eventos.getFirst().getEstado());
+	}
+
+	@Test
+	void cargaNdjson() throws Exception {
+		String cuerpo = solicitud(1, 2, "Sin aji") + "\n\n" + solicitud(3, 1, "Tocar el timbre") + "\n";
+
+		List<Long> ids = cargar(cuerpo, MediaType.parseMediaType("application/x-ndjson"));
+
+		assertEquals(2, ids.size());
+		verificar(ids.get(0), 1, 2, "Sin aji");
+		verificar(ids.get(1), 3, 1, "Tocar el timbre");
+	}
+
+	@Test
+	void cargaArregloJson() throws Exception {
+		String cuerpo = "[" + solicitud(2, 2, "Sin cebolla") + ",\n " + solicitud(1, 4, "Llamar al llegar") + "]";
+
+		List<Long> ids = cargar(cuerpo, MediaType.APPLICATION_JSON);
+
+		assertEquals(2, ids.size());
+		verificar(ids.get(0), 2, 2, "Sin cebolla");
+		verificar(ids.get(1), 1, 4, "Llamar al llegar");
+	}
+}
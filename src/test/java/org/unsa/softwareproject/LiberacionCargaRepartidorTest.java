@@ -0,0 +1,153 @@
+package org.unsa.softwareproject;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.unsa.model.domain.pedidos.EntregaCambiada;
+import org.unsa.model.domain.pedidos.EstadoEntrega;
+import org.unsa.model.domain.pedidos.EstadoPedido;
+import org.unsa.model.domain.pedidos.ItemPedido;
+import org.unsa.model.domain.pedidos.Pedido;
+import org.unsa.model.domain.pedidos.PedidoData;
+import org.unsa.model.domain.restaurantes.Dinero;
+import org.unsa.model.domain.restaurantes.Plato;
+import org.unsa.model.domain.restaurantes.Restaurante;
+import org.unsa.model.domain.restaurantes.TipoCocina;
+import org.unsa.model.domain.usuarios.Cliente;
+import org.unsa.model.domain.usuarios.Repartidor;
+import org.unsa.model.repository.ClienteRepository;
+import org.unsa.model.repository.EntregaRepository;
+import org.unsa.model.repository.PedidoRepository;
+import org.unsa.model.repository.PlatoRepository;
+import org.unsa.model.repository.RepartidorRepository;
+import org.unsa.model.repository.RestauranteRepository;
+import org.unsa.model.service.Interfaces.IPedidoServicio;
+import org.unsa.model.service.impl.GestionEntregasService;
+import org.unsa.model.service.logistica.DespachoService;
+import org.unsa.model.service.logistica.RegistroDisponibilidadRepartidores;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Con el outbox publicando a un archivo (sin bus local), la carga del repartidor se libera igual al cancelarse
+ * el pedido o al completarse su entrega, tambien cuando la aplicacion se reinicio con la entrega en curso.
+ */
+@Import(TestcontainersConfiguration.class)
+@SpringBootTest(properties = {
+		"app.outbox.sink=archivo",
+		"app.outbox.archivo=build/eventos-pedido-prueba.ndjson",
+		"app.despacho.lote.habilitado=false"
+})
+class LiberacionCargaRepartidorTest {
+
+	@Autowired
+	private DespachoService despachoService;
+
+	@Autowired
+	private RegistroDisponibilidadRepartidores registro;
+
+	@Autowired
+	private IPedidoServicio pedidoServicio;
+
+	@Autowired
+	private GestionEntregasService gestionEntregas;
+
+	@Autowired
+	private ClienteRepository clienteRepository;
+
+	@Autowired
+	private RestauranteRepository restauranteRepository;
+
+	@Autowired
+	private PlatoRepository platoRepository;
+
+	@Autowired
+	private PedidoRepository pedidoRepository;
+
+	@Autowired
+	private RepartidorRepository repartidorRepository;
+
+	@Autowired
+	private EntregaRepository entregaRepository;
+
+	@Autowired
+	private JdbcTemplate jdbcTemplate;
+
+	private Long idPedido;
+	private Integer idRepartidor;
+
+	@BeforeEach
+	void despacharPedido() {
+		double latitud = -16.0 - Math.random();
+		double longitud = -71.0 - Math.random();
+		Cliente cliente = clienteRepository.save(new Cliente(null, "Cliente Carga", "carga" + System.nanoTime() + "@test.pe", "999999999", null));
+		Restaurante restaurante = new Restaurante(null, "Restaurante Carga", "Av. Prueba 7", "054000000", TipoCocina.PERUANA);
+		restaurante.setLatitud(latitud);
+		restaurante.setLongitud(longitud);
+		restaurante = restauranteRepository.save(restaurante);
+		Plato plato = platoRepository.save(new Plato(restaurante, "Plato", "Descripcion", new Dinero(10.0, "PEN")));
+		List<ItemPedido> items = new ArrayList<>(List.of(new ItemPedido(plato, 1)));
+		Pedido pedido = new Pedido(new PedidoData(cliente, restaurante, DatosPrueba.direccion(), null, items), null);
+		items.forEach(item -> item.setPedido(pedido));
+		idPedido = pedidoRepository.save(pedido).getIdPedido();
+
+		idRepartidor = repartidorRepository.save(new Repartidor(null, "Repartidor", "rep" + System.nanoTime() + "@test.pe", "988888888", "Moto", true)).getId();
+		despachoService.registrarDisponible(idRepartidor, latitud, longitud);
+		assertEquals(idRepartidor, despachoService.despachar(idPedido));
+		assertEquals(1, registro.carga(idRepartidor));
+	}
+
+	@Test
+	void seLiberaAlCancelarElPedido() {
+		pedidoServicio.actualizarEstadoPedido(idPedido, EstadoPedido.CANCELADO);
+
+		assertEquals(0, registro.carga(idRepartidor));
+		assertTrue(registro.estaDisponible(idRepartidor));
+	}
+
+	@Test
+	void seLiberaAlCompletarseLaEntrega() {
+		Long idEntrega = entregaRepository.buscarIdPorPedido(idPedido).orElseThrow();
+		gestionEntregas.registrarRecojo(idEntrega);
+		assertEquals(1, registro.carga(idRepartidor));
+
+		gestionEntregas.registrarEntrega(idEntrega);
+		assertEquals(0, registro.carga(idRepartidor));
+		assertTrue(registro.estaDisponible(idRepartidor));
+	}
+
+	@Test
+	void unRepartidorOcupadoAlReiniciarVuelveADespacharseTrasEntregar() {
+		// Al detenerse se vuelca el turno, aunque el repartidor este ocupado con el pedido
+		registro.volcar();
+		assertTrue(repartidorRepository.findById(idRepartidor).orElseThrow().isDisponibleParaEntregas());
+
+		// Otra instancia del registro, como la que arranca al reiniciar la aplicacion
+		RegistroDisponibilidadRepartidores reiniciado = new RegistroDisponibilidadRepartidores(repartidorRepository,
+				pedidoRepository, jdbcTemplate);
+		ReflectionTestUtils.setField(reiniciado, "maxCarga", 1);
+		ReflectionTestUtils.setField(reiniciado, "tamanoLote", 500);
+		reiniciado.reconstruir();
+		assertEquals(1, reiniciado.carga(idRepartidor));
+		assertFalse(reiniciado.estaDisponible(idRepartidor));
+
+		Long idEntrega = entregaRepository.buscarIdPorPedido(idPedido).orElseThrow();
+		gestionEntregas.registrarRecojo(idEntrega);
+		gestionEntregas.registrarEntrega(idEntrega);
+		// La entrega completada que recibiria el registro reiniciado
+		reiniciado.alCambiarEntrega(new EntregaCambiada(idEntrega, idPedido, idRepartidor, idRepartidor,
+				EstadoEntrega.PROPORCIONADO, null, null));
+
+		assertEquals(0, reiniciado.carga(idRepartidor));
+		assertTrue(reiniciado.estaDisponible(idRepartidor));
+	}
+}
@@ -0,0 +1,140 @@
+package org.unsa.softwareproject;
+
+import com.jayway.jsonpath.JsonPath;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.http.HttpHeaders;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+import org.unsa.model.domain.restaurantes.Dinero;
+import org.unsa.model.domain.restaurantes.Plato;
+import org.unsa.model.domain.restaurantes.Restaurante;
+import org.unsa.model.domain.restaurantes.TipoCocina;
+import org.unsa.model.repository.PlatoRepository;
+import org.unsa.model.repository.RestauranteRepository;
+import org.unsa.service.interfaces.IPlatilloServicio;
+
+import static org.hamcrest.Matchers.containsString;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * Pide el menu de un restaurante con y sin If-None-Match: la misma version responde 304 con cualquier forma
+ * valida del encabezado, y una escritura en sus platos cambia el ETag y vuelve a enviar el menu. Con la cache
+ * habilitada, las lecturas repetidas se cuentan como aciertos en las metricas de platillos.menus.
+ */
+@Import(TestcontainersConfiguration.class)
+@SpringBootTest
+@AutoConfigureMockMvc
+class MenusRestauranteTest {
+
+	@Autowired
+	private MockMvc mockMvc;
+
+	@Autowired
+	private IPlatilloServicio platilloServicio;
+
+	@Autowired
+	private RestauranteRepository restauranteRepository;
+
+	@Autowired
+	private PlatoRepository platoRepository;
+
+	private Integer idRestaurante;
+	private Plato plato;
+
+	@BeforeEach
+	void crearMenu() {
+		Restaurante restaurante = restauranteRepository.save(new Restaurante(null, "Restaurante Menu", "Av. Prueba 11", "054000000", TipoCocina.PERUANA));
+		idRestaurante = restaurante.getId();
+		plato = platoRepository.save(new Plato(restaurante, "Rocoto relleno", "Descripcion", new Dinero(18.0, "PEN")));
+	}
+
+	private String pedirMenu() throws Exception {
+		MvcResult resultado = mockMvc.perform(get("/api/restaurantes/{idRestaurante}/platillos", idRestaurante))
+				.andExpect(status().isOk())
+				.andExpect(content().string(containsString("Rocoto relleno")))
+				.andReturn();
+		String etag = resultado.getResponse().getHeader(HttpHeaders.ETAG);
+		assertNotNull(etag);
+		return etag;
+	}
+
+	/**
+	 * Valor de un contador de la cache de menus, leido por GET /api/metricas.
+	 */
+	static long metrica(MockMvc mockMvc, String nombre) throws Exception {
+		String metricas = mockMvc.perform(get("/api/metricas"))
+				.andExpect(status().isOk())
+				.andReturn().getResponse().getContentAsString();
+		return JsonPath.<Number>read(metricas, "$['platillos.menus']['" + nombre + "']").longValue();
+	}
+
+	@Test
+	void laCacheCuentaAciertosFallosEInvalidaciones() throws Exception {
+		long aciertos = metrica(mockMvc, "aciertos");
+		long fallos = metrica(mockMvc, "fallos");
+		long invalidaciones = metrica(mockMvc, "invalidaciones");
+
+		String etag = pedirMenu();
+		assertEquals(etag, pedirMenu());
+		assertEquals(etag, pedirMenu());
+		// La primera lectura carga el menu y las siguientes lo sirven desde la cache
+		assertEquals(fallos + 1, metrica(mockMvc, "fallos"));
+		assertEquals(aciertos + 2, metrica(mockMvc, "aciertos"));
+
+		platilloServicio.actualizarPlatillo(plato.getIdPlato(), "Rocoto relleno especial", "Descripcion", new Dinero(20.0, "PEN"), true);
+		assertEquals(invalidaciones + 1, metrica(mockMvc, "invalidaciones"));
+
+		// Tras invalidar, la primera lectura vuelve a cargar y trae el plato cambiado
+		mockMvc.perform(get("/api/restaurantes/{idRestaurante}/platillos", idRestaurante))
+				.andExpect(status().isOk())
+				.andExpect(content().string(containsString("Rocoto relleno especial")));
+		assertNotEquals(etag, pedirMenu());
+		assertEquals(fallos + 2, metrica(mockMvc, "fallos"));
+		assertEquals(aciertos + 3, metrica(mockMvc, "aciertos"));
+	}
+
+	@Test
+	void laMismaVersionRespondeNoModificado() throws Exception {
+		String etag = pedirMenu();
+
+		for (String ifNoneMatch : new String[]{etag, "\"otro\", " + etag, "W/" + etag, "*"}) {
+			mockMvc.perform(get("/api/restaurantes/{idRestaurante}/platillos", idRestaurante)
+							.header(HttpHeaders.IF_NONE_MATCH, ifNoneMatch))
+					.andExpect(status().isNotModified())
+					.andExpect(header().string(HttpHeaders.ETAG, etag))
+					.andExpect(content().string(""));
+		}
+	}
+
+	@Test
+	void unEtagDeOtraVersionRecibeElMenu() throws Exception {
+		mockMvc.perform(get("/api/restaurantes/{idRestaurante}/platillos", idRestaurante)
+						.header(HttpHeaders.IF_NONE_MATCH, "\"otro\""))
+				.andExpect(status().isOk());
+	}
+
+	@Test
+	void cambiarUnPlatoInvalidaElEtag() throws Exception {
+		String anterior = pedirMenu();
+
+		platilloServicio.actualizarPlatillo(plato.getIdPlato(), "Rocoto relleno especial", "Descripcion", new Dinero(20.0, "PEN"), true);
+
+		MvcResult resultado = mockMvc.perform(get("/api/restaurantes/{idRestaurante}/platillos", idRestaurante)
+						.header(HttpHeaders.IF_NONE_MATCH, anterior))
+				.andExpect(status().isOk())
+				.andExpect(content().string(containsString("Rocoto relleno especial")))
+				.andReturn();
+		assertNotEquals(anterior, resultado.getResponse().getHeader(HttpHeaders.ETAG));
+	}
+}
@@ -0,0 +1,90 @@
+package org.unsa.softwareproject;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.http.HttpHeaders;
+import org.springframework.test.web.servlet.MockMvc;
+import org.unsa.model.domain.restaurantes.Dinero;
+import org.unsa.model.domain.restaurantes.Plato;
+import org.unsa.model.domain.restaurantes.Restaurante;
+import org.unsa.model.domain.restaurantes.TipoCocina;
+import org.unsa.model.repository.PlatoRepository;
+import org.unsa.model.repository.RestauranteRepository;
+import org.unsa.service.interfaces.IPlatilloServicio;
+
+import static org.hamcrest.Matchers.containsString;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * Pide el menu de un restaurante con app.menus.cache.habilitada=false: cada lectura se carga de la base y
+ * cuenta como fallo, no queda ningun menu en cache, y el ETag por version sigue respondiendo 304.
+ */
+@Import(TestcontainersConfiguration.class)
+@SpringBootTest(properties = "app.menus.cache.habilitada=false")
+@AutoConfigureMockMvc
+class MenusSinCacheTest {
+
+	@Autowired
+	private MockMvc mockMvc;
+
+	@Autowired
+	private IPlatilloServicio platilloServicio;
+
+	@Autowired
+	private RestauranteRepository restauranteRepository;
+
+	@Autowired
+	private PlatoRepository platoRepository;
+
+	private Integer idRestaurante;
+	private Plato plato;
+
+	@BeforeEach
+	void crearMenu() {
+		Restaurante restaurante = restauranteRepository.save(new Restaurante(null, "Restaurante Sin Cache", "Av. Prueba 12", "054000000", TipoCocina.PERUANA));
+		idRestaurante = restaurante.getId();
+		plato = platoRepository.save(new Plato(restaurante, "Ocopa", "Descripcion", new Dinero(12.0, "PEN")));
+	}
+
+	@Test
+	void cadaLecturaCuentaComoFallo() throws Exception {
+		long aciertos = MenusRestauranteTest.metrica(mockMvc, "aciertos");
+		long fallos = MenusRestauranteTest.metrica(mockMvc, "fallos");
+		long invalidaciones = MenusRestauranteTest.metrica(mockMvc, "invalidaciones");
+
+		String etag = null;
+		for (int i = 0; i < 3; i++) {
+			etag = mockMvc.perform(get("/api/restaurantes/{idRestaurante}/platillos", idRestaurante))
+					.andExpect(status().isOk())
+					.andExpect(content().string(containsString("Ocopa")))
+					.andReturn().getResponse().getHeader(HttpHeaders.ETAG);
+		}
+		// Sin cache, la version sigue identificando al menu
+		mockMvc.perform(get("/api/restaurantes/{idRestaurante}/platillos", idRestaurante)
+						.header(HttpHeaders.IF_NONE_MATCH, etag))
+				.andExpect(status().isNotModified())
+				.andExpect(header().string(HttpHeaders.ETAG, etag));
+
+		assertEquals(aciertos, MenusRestauranteTest.metrica(mockMvc, "aciertos"));
+		assertEquals(fallos + 4, MenusRestauranteTest.metrica(mockMvc, "fallos"));
+		assertEquals(0L, MenusRestauranteTest.metrica(mockMvc, "menusEnCache"));
+
+		platilloServicio.actualizarPlatillo(plato.getIdPlato(), "Ocopa arequipena", "Descripcion", new Dinero(14.0, "PEN"), true);
+
+		assertEquals(invalidaciones + 1, MenusRestauranteTest.metrica(mockMvc, "invalidaciones"));
+		mockMvc.perform(get("/api/restaurantes/{idRestaurante}/platillos", idRestaurante)
+						.header(HttpHeaders.IF_NONE_MATCH, etag))
+				.andExpect(status().isOk())
+				.andExpect(content().string(containsString("Ocopa arequipena")));
+		assertEquals(aciertos, MenusRestauranteTest.metrica(mockMvc, "aciertos"));
+		assertEquals(fallos + 5, MenusRestauranteTest.metrica(mockMvc, "fallos"));
+	}
+}
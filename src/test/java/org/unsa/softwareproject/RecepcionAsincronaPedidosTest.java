@@ -0,0 +1,236 @@
+package org.unsa.softwareproject;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.jayway.jsonpath.JsonPath;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.unsa.model.domain.pedidos.DatosPlatoPedido;
+import org.unsa.model.domain.pedidos.SolicitudPedidoAsincrona;
+import org.unsa.model.domain.restaurantes.Dinero;
+import org.unsa.model.domain.restaurantes.Plato;
+import org.unsa.model.domain.restaurantes.Restaurante;
+import org.unsa.model.domain.restaurantes.TipoCocina;
+import org.unsa.model.domain.usuarios.Cliente;
+import org.unsa.model.dtos.CrearPedidoRequest;
+import org.unsa.model.dtos.TicketPedido;
+import org.unsa.model.repository.ClienteRepository;
+import org.unsa.model.repository.PedidoRepository;
+import org.unsa.model.repository.PlatoRepository;
+import org.unsa.model.repository.RestauranteRepository;
+import org.unsa.model.repository.SolicitudPedidoAsincronaRepository;
+import org.unsa.model.service.Interfaces.IPedidoServicio;
+import org.unsa.model.service.impl.RecepcionAsincronaPedidosService;
+
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * Recibe pedidos por POST /pedidos/async contra una base real: el 202 deja la solicitud registrada, los
+ * trabajadores la resuelven en micro-lotes aislando a las invalidas, y una solicitud pendiente que se vuelve a
+ * encolar en dos instancias a la vez genera un solo pedido gracias al cambio condicional a COMPLETADO.
+ */
+@Import(TestcontainersConfiguration.class)
+@SpringBootTest(properties = "app.pedidos.async.recuperacion-ms=3600000")
+@AutoConfigureMockMvc
+class RecepcionAsincronaPedidosTest {
+
+	@Autowired
+	private MockMvc mockMvc;
+
+	@Autowired
+	private RecepcionAsincronaPedidosService recepcion;
+
+	@Autowired
+	private IPedidoServicio pedidoServicio;
+
+	@Autowired
+	private SolicitudPedidoAsincronaRepository solicitudRepository;
+
+	@Autowired
+	private ClienteRepository clienteRepository;
+
+	@Autowired
+	private RestauranteRepository restauranteRepository;
+
+	@Autowired
+	private PlatoRepository platoRepository;
+
+	@Autowired
+	private PedidoRepository pedidoRepository;
+
+	@Autowired
+	private ObjectMapper objectMapper;
+
+	@Autowired
+	private PlatformTransactionManager transactionManager;
+
+	private Cliente cliente;
+	private Restaurante restaurante;
+	private Plato plato;
+
+	@BeforeEach
+	void crearDatos() {
+		cliente = clienteRepository.save(new Cliente(null, "Cliente Async", "async" + System.nanoTime() + "@test.pe", "999999999", null));
+		restaurante = restauranteRepository.save(new Restaurante(null, "Restaurante Async", "Av. Prueba 20", "054000000", TipoCocina.PERUANA));
+		plato = platoRepository.save(new Plato(restaurante, "Rocoto relleno", "Descripcion", new Dinero(18.0, "PEN")));
+	}
+
+	private CrearPedidoRequest solicitud(Integer idPlato) {
+		return new CrearPedidoRequest(cliente.getId(), restaurante.getId(), List.of(new DatosPlatoPedido(idPlato, 1)),
+				DatosPrueba.direccion(), null);
+	}
+
+	private String enviar(CrearPedidoRequest solicitud) throws Exception {
+		MvcResult resultado = mockMvc.perform(post("/pedidos/async")
+						.contentType(MediaType.APPLICATION_JSON)
+						.content(objectMapper.writeValueAsString(solicitud)))
+				.andExpect(status().isAccepted())
+				.andReturn();
+		String idTicket = JsonPath.read(resultado.getResponse().getContentAsString(), "$.id");
+		assertEquals("/pedidos/tickets/" + idTicket, resultado.getResponse().getHeader(HttpHeaders.LOCATION));
+		// El 202 solo sale con la solicitud ya registrada
+		assertTrue(solicitudRepository.existsById(idTicket));
+		return idTicket;
+	}
+
+	/**
+	 * Consulta el ticket por HTTP hasta que deje de estar pendiente.
+	 */
+	private String esperarResuelto(String idTicket) throws Exception {
+		String[] cuerpo = new String[1];
+		esperar(() -> {
+			try {
+				cuerpo[0] = mockMvc.perform(get("/pedidos/tickets/{idTicket}", idTicket))
+						.andExpect(status().isOk())
+						.andReturn().getResponse().getContentAsString();
+			} catch (Exception e) {
+				throw new IllegalStateException(e);
+			}
+			return !"PENDIENTE".equals(JsonPath.read(cuerpo[0], "$.estado"));
+		});
+		return cuerpo[0];
+	}
+
+	private int pedidosDelCliente() {
+		return pedidoRepository.findByCliente_Id(cliente.getId()).size();
+	}
+
+	@Test
+	void elTicketAceptadoSeResuelveEnUnPedido() throws Exception {
+		String idTicket = enviar(solicitud(plato.getIdPlato()));
+
+		String ticket = esperarResuelto(idTicket);
+
+		assertEquals("COMPLETADO", JsonPath.read(ticket, "$.estado"));
+		Long idPedido = Long.valueOf(JsonPath.<String>read(ticket, "$.idPedido"));
+		assertTrue(pedidoRepository.existsById(idPedido));
+		SolicitudPedidoAsincrona registrada = solicitudRepository.findById(idTicket).orElseThrow();
+		assertEquals(TicketPedido.Estado.COMPLETADO, registrada.getEstado());
+		assertEquals(idPedido, registrada.getIdPedido());
+		assertNotNull(registrada.getFechaResolucion());
+	}
+
+	@Test
+	void unaSolicitudInvalidaSoloRechazaSuTicket() throws Exception {
+		List<String> validos = new ArrayList<>();
+		for (int i = 0; i < 5; i++) {
+			validos.add(enviar(solicitud(plato.getIdPlato())));
+		}
+		String invalido = enviar(solicitud(Integer.MAX_VALUE));
+
+		for (String idTicket : validos) {
+			assertEquals("COMPLETADO", JsonPath.read(esperarResuelto(idTicket), "$.estado"));
+		}
+		String rechazado = esperarResuelto(invalido);
+		assertEquals("RECHAZADO", JsonPath.read(rechazado, "$.estado"));
+		assertTrue(JsonPath.<String>read(rechazado, "$.error").contains("no encontrado"));
+		assertEquals(TicketPedido.Estado.RECHAZADO, solicitudRepository.findById(invalido).orElseThrow().getEstado());
+		assertEquals(5, pedidosDelCliente());
+	}
+
+	@Test
+	void unaSolicitudPendienteRecuperadaEnDosInstanciasCreaUnSoloPedido() throws Exception {
+		// Solicitudes aceptadas por una instancia que se detuvo antes de procesarlas
+		Date antigua = new Date(System.currentTimeMillis() - TimeUnit.MINUTES.toMillis(30));
+		List<String> idsTickets = new ArrayList<>();
+		for (int i = 0; i < 5; i++) {
+			TicketPedido ticket = new TicketPedido(UUID.randomUUID().toString(), antigua, TicketPedido.Estado.PENDIENTE, null, null);
+			solicitudRepository.save(new SolicitudPedidoAsincrona(ticket, objectMapper.writeValueAsString(solicitud(plato.getIdPlato()))));
+			idsTickets.add(ticket.getId());
+		}
+
+		RecepcionAsincronaPedidosService otra = otraInstancia();
+		try {
+			recepcion.recuperarPendientes();
+			otra.recuperarPendientes();
+
+			Set<Long> idsPedidos = new HashSet<>();
+			for (String idTicket : idsTickets) {
+				// Cada instancia termina con el estado registrado, aunque su propio intento haya perdido
+				esperar(() -> recepcion.obtenerTicket(idTicket).getEstado() != TicketPedido.Estado.PENDIENTE
+						&& otra.obtenerTicket(idTicket).getEstado() != TicketPedido.Estado.PENDIENTE);
+				SolicitudPedidoAsincrona registrada = solicitudRepository.findById(idTicket).orElseThrow();
+				assertEquals(TicketPedido.Estado.COMPLETADO, registrada.getEstado());
+				assertEquals(registrada.getIdPedido(), recepcion.obtenerTicket(idTicket).getIdPedido());
+				assertEquals(registrada.getIdPedido(), otra.obtenerTicket(idTicket).getIdPedido());
+				idsPedidos.add(registrada.getIdPedido());
+			}
+			assertEquals(5, idsPedidos.size());
+			assertEquals(5, pedidosDelCliente());
+
+			// Ya resueltas, una nueva recuperacion no las vuelve a encolar
+			long recuperadas = otra.getMetricas().get("solicitudesRecuperadas").longValue();
+			otra.recuperarPendientes();
+			assertEquals(recuperadas, otra.getMetricas().get("solicitudesRecuperadas").longValue());
+		} finally {
+			ReflectionTestUtils.invokeMethod(otra, "detener");
+		}
+	}
+
+	/**
+	 * Otra instancia de la aplicacion, con su propia cola y sus propios trabajadores, sobre la misma tabla.
+	 */
+	private RecepcionAsincronaPedidosService otraInstancia() {
+		RecepcionAsincronaPedidosService otra = new RecepcionAsincronaPedidosService(pedidoServicio, solicitudRepository, objectMapper,
+				transactionManager, 100);
+		ReflectionTestUtils.setField(otra, "tamanoLote", 50);
+		ReflectionTestUtils.setField(otra, "cantidadTrabajadores", 2);
+		ReflectionTestUtils.setField(otra, "ticketTtlMinutos", 30L);
+		ReflectionTestUtils.setField(otra, "recuperacionMinutos", 5L);
+		ReflectionTestUtils.invokeMethod(otra, "iniciar");
+		return otra;
+	}
+
+	private static void esperar(Supplier<Boolean> condicion) throws InterruptedException {
+		long limite = System.currentTimeMillis() + 10_000;
+		while (!condicion.get()) {
+			if (System.currentTimeMillis() > limite) {
+				throw new AssertionError("La condicion no se cumplio a tiempo");
+			}
+			Thread.sleep(20);
+		}
+	}
+}
@@ -0,0 +1,64 @@
+package org.unsa.softwareproject;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.orm.ObjectOptimisticLockingFailureException;
+import org.unsa.model.service.impl.ReintentosConcurrencia;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Simula varias transiciones concurrentes sobre un registro versionado (como la columna @Version de Pedido)
+ * y verifica que, con los reintentos, ninguna transicion se pierde.
+ */
+class ReintentosConcurrenciaTest {
+
+	private record Registro(long version, int transiciones) {
+	}
+
+	@Test
+	void noSePierdenTransicionesConcurrentes() throws Exception {
+		ReintentosConcurrencia reintentos = new ReintentosConcurrencia(50, 1, 5);
+		AtomicReference<Registro> tabla = new AtomicReference<>(new Registro(0, 0));
+		int hilos = 8;
+		int transicionesPorHilo = 200;
+
+		ExecutorService ejecutor = Executors.newFixedThreadPool(hilos);
+		CountDownLatch salida = new CountDownLatch(1);
+		Future<?>[] tareas = new Future<?>[hilos];
+		for (int h = 0; h < hilos; h++) {
+			tareas[h] = ejecutor.submit(() -> {
+				salida.await();
+				for (int i = 0; i < transicionesPorHilo; i++) {
+					reintentos.ejecutar("prueba", () -> {
+						// Lectura, modificacion y guardado condicionado a la version leida
+						Registro leido = tabla.get();
+						Thread.yield();
+						Registro nuevo = new Registro(leido.version() + 1, leido.transiciones() + 1);
+						if (!tabla.compareAndSet(leido, nuevo)) {
+							throw new ObjectOptimisticLockingFailureException(Registro.class, 1L);
+						}
+					});
+				}
+				return null;
+			});
+		}
+		salida.countDown();
+		for (Future<?> tarea : tareas) {
+			tarea.get();
+		}
+		ejecutor.shutdown();
+
+		assertEquals(hilos * transicionesPorHilo, tabla.get().transiciones());
+		assertEquals(hilos * transicionesPorHilo, tabla.get().version());
+		long agotados = reintentos.getMetricas().get("agotados").longValue();
+		assertEquals(0, agotados);
+		assertTrue(reintentos.getMetricas().get("conflictos").longValue() >= reintentos.getMetricas().get("reintentos").longValue());
+	}
+}
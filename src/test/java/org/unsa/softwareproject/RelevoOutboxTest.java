@@ -0,0 +1,206 @@
+package org.unsa.softwareproject;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.unsa.model.domain.pedidos.EstadoPedido;
+import org.unsa.model.domain.pedidos.EventoPedido;
+import org.unsa.model.repository.EventoPedidoRepository;
+import org.unsa.model.service.Interfaces.IPublicadorEventos;
+import org.unsa.model.service.eventos.ArchivoPublicadorEventos;
+import org.unsa.model.service.eventos.RelevoOutboxService;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.ReentrantLock;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Releva el outbox contra una base real hacia el archivo NDJSON: cada lote leido se entrega en una sola llamada y
+ * en orden de ID, un evento que falla detiene solo a los eventos siguientes de su pedido, y al agotar los intentos
+ * se estaciona y libera a su pedido. El relevo programado de la aplicacion queda bloqueado durante cada prueba.
+ */
+@Import(TestcontainersConfiguration.class)
+@SpringBootTest(properties = "app.outbox.intervalo-ms=3600000")
+class RelevoOutboxTest {
+
+	private static final int TAMANO_LOTE = 4;
+	private static final int MAX_INTENTOS = 3;
+
+	@Autowired
+	private RelevoOutboxService relevoProgramado;
+
+	@Autowired
+	private EventoPedidoRepository eventoRepository;
+
+	@Autowired
+	private ObjectMapper objectMapper;
+
+	@Autowired
+	private PlatformTransactionManager transactionManager;
+
+	@TempDir
+	Path directorio;
+
+	private Path archivo;
+	private ReentrantLock bloqueoProgramado;
+	private final Set<Long> venenosos = new HashSet<>();
+	private final AtomicInteger llamadas = new AtomicInteger();
+	private RelevoOutboxService relevo;
+
+	@BeforeEach
+	void crearRelevo() {
+		// El relevo de la aplicacion no toma los eventos de la prueba mientras tenga su candado
+		bloqueoProgramado = (ReentrantLock) ReflectionTestUtils.getField(relevoProgramado, "ejecutando");
+		bloqueoProgramado.lock();
+
+		archivo = directorio.resolve("eventos.ndjson");
+		ArchivoPublicadorEventos enArchivo = new ArchivoPublicadorEventos(objectMapper, archivo.toString());
+		IPublicadorEventos publicador = eventos -> {
+			llamadas.incrementAndGet();
+			for (EventoPedido evento : eventos) {
+				if (venenosos.contains(evento.getId())) {
+					throw new IOException("Evento venenoso " + evento.getId());
+				}
+			}
+			enArchivo.publicar(eventos);
+		};
+		relevo = new RelevoOutboxService(eventoRepository, publicador, transactionManager);
+		ReflectionTestUtils.setField(relevo, "tamanoLote", TAMANO_LOTE);
+		ReflectionTestUtils.setField(relevo, "maxIntentos", MAX_INTENTOS);
+		ReflectionTestUtils.setField(relevo, "retencionHoras", 72L);
+	}
+
+	@AfterEach
+	void liberarRelevoProgramado() {
+		bloqueoProgramado.unlock();
+	}
+
+	private EventoPedido registrar(Long idPedido) {
+		return eventoRepository.save(new EventoPedido(idPedido, EventoPedido.PEDIDO_CREADO, EstadoPedido.PENDIENTE, null));
+	}
+
+	private EventoPedido releer(EventoPedido evento) {
+		return eventoRepository.findById(evento.getId()).orElseThrow();
+	}
+
+	/**
+	 * IDs de los eventos escritos en el archivo para el pedido, en el orden en que se escribieron.
+	 */
+	private List<Long> escritos(Long idPedido) throws IOException {
+		List<Long> ids = new ArrayList<>();
+		if (!Files.exists(archivo)) {
+			return ids;
+		}
+		for (String linea : Files.readAllLines(archivo)) {
+			JsonNode evento = objectMapper.readTree(linea);
+			if (idPedido.equals(evento.get("idPedido").asLong())) {
+				ids.add(evento.get("id").asLong());
+			}
+		}
+		return ids;
+	}
+
+	private static List<Long> ids(EventoPedido... eventos) {
+		return List.of(eventos).stream().map(EventoPedido::getId).toList();
+	}
+
+	@Test
+	void cadaLoteSeEntregaEnUnaLlamadaYEnOrden() throws Exception {
+		Long pedidoA = System.nanoTime();
+		Long pedidoB = pedidoA + 1;
+		List<EventoPedido> eventos = new ArrayList<>();
+		for (int i = 0; i < 5; i++) {
+			eventos.add(registrar(pedidoA));
+			eventos.add(registrar(pedidoB));
+		}
+		eventos.sort(Comparator.comparing(EventoPedido::getId));
+
+		assertEquals(10, relevo.relevar());
+
+		// 10 eventos en lotes de 4: tres llamadas al publicador y una sola marca por lote
+		assertEquals(3, llamadas.get());
+		assertEquals(eventos.stream().filter(e -> pedidoA.equals(e.getIdPedido())).map(EventoPedido::getId).toList(), escritos(pedidoA));
+		assertEquals(eventos.stream().filter(e -> pedidoB.equals(e.getIdPedido())).map(EventoPedido::getId).toList(), escritos(pedidoB));
+		eventos.forEach(evento -> assertTrue(releer(evento).isPublicado()));
+		assertEquals(0L, relevo.getMetricas().get("pendientes"));
+	}
+
+	@Test
+	void unEventoVenenosoDetieneSoloASuPedido() throws Exception {
+		Long pedidoA = System.nanoTime();
+		Long pedidoB = pedidoA + 1;
+		EventoPedido a1 = registrar(pedidoA);
+		EventoPedido b1 = registrar(pedidoB);
+		EventoPedido a2 = registrar(pedidoA);
+		EventoPedido b2 = registrar(pedidoB);
+		EventoPedido a3 = registrar(pedidoA);
+		EventoPedido b3 = registrar(pedidoB);
+		venenosos.add(a2.getId());
+
+		assertEquals(4, relevo.relevar());
+
+		assertEquals(ids(a1), escritos(pedidoA));
+		assertEquals(ids(b1, b2, b3), escritos(pedidoB));
+		assertEquals(1, releer(a2).getIntentos());
+		assertFalse(releer(a2).isPublicado());
+		assertFalse(releer(a2).isEstacionado());
+		// El evento posterior del mismo pedido ni se intento
+		assertEquals(0, releer(a3).getIntentos());
+		assertFalse(releer(a3).isPublicado());
+		assertEquals(2L, relevo.getMetricas().get("pendientes"));
+
+		// Una vez que el destino lo acepta, el pedido sigue en orden
+		venenosos.clear();
+		assertEquals(2, relevo.relevar());
+		assertEquals(ids(a1, a2, a3), escritos(pedidoA));
+		assertEquals(ids(b1, b2, b3), escritos(pedidoB));
+		assertTrue(releer(a3).isPublicado());
+	}
+
+	@Test
+	void alAgotarLosIntentosElEventoSeEstacionaYLiberaASuPedido() throws Exception {
+		Long pedido = System.nanoTime();
+		EventoPedido venenoso = registrar(pedido);
+		EventoPedido siguiente = registrar(pedido);
+		venenosos.add(venenoso.getId());
+
+		for (int intento = 1; intento < MAX_INTENTOS; intento++) {
+			relevo.relevar();
+			assertEquals(intento, releer(venenoso).getIntentos());
+			assertFalse(releer(siguiente).isPublicado());
+		}
+
+		// El ultimo intento lo estaciona y en la misma ejecucion sale el evento siguiente
+		relevo.relevar();
+		EventoPedido estacionado = releer(venenoso);
+		assertTrue(estacionado.isEstacionado());
+		assertFalse(estacionado.isPublicado());
+		assertEquals(MAX_INTENTOS, estacionado.getIntentos());
+		assertTrue(releer(siguiente).isPublicado());
+		assertEquals(ids(siguiente), escritos(pedido));
+		assertEquals(1L, relevo.getMetricas().get("eventosEstacionados"));
+
+		// Estacionado, el relevo ya no lo toma
+		relevo.relevar();
+		assertEquals(MAX_INTENTOS, releer(venenoso).getIntentos());
+	}
+}
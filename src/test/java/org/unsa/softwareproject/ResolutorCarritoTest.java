@@ -0,0 +1,134 @@
+package org.unsa.softwareproject;
+
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.http.MediaType;
+import org.springframework.test.web.servlet.MockMvc;
+import org.unsa.model.domain.pedidos.DatosPlatoPedido;
+import org.unsa.model.domain.pedidos.ItemPedido;
+import org.unsa.model.domain.restaurantes.Dinero;
+import org.unsa.model.domain.restaurantes.Plato;
+import org.unsa.model.domain.restaurantes.Restaurante;
+import org.unsa.model.domain.restaurantes.TipoCocina;
+import org.unsa.model.domain.usuarios.Cliente;
+import org.unsa.model.exceptions.CarritoInvalidoException;
+import org.unsa.model.repository.ClienteRepository;
+import org.unsa.model.repository.PlatoRepository;
+import org.unsa.model.repository.RestauranteRepository;
+import org.unsa.model.service.impl.ResolutorCarrito;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.hamcrest.Matchers.containsString;
+import static org.hamcrest.Matchers.hasSize;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.put;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * Resuelve carritos contra platos reales: los platos de cualquier cantidad de lineas salen de una sola consulta,
+ * y un carrito con varias lineas invalidas se rechaza con el error de cada una.
+ */
+@Import(TestcontainersConfiguration.class)
+@SpringBootTest(properties = "spring.jpa.properties.hibernate.generate_statistics=true")
+@AutoConfigureMockMvc
+class ResolutorCarritoTest {
+
+	@Autowired
+	private ResolutorCarrito resolutorCarrito;
+
+	@Autowired
+	private MockMvc mockMvc;
+
+	@Autowired
+	private ClienteRepository clienteRepository;
+
+	@Autowired
+	private RestauranteRepository restauranteRepository;
+
+	@Autowired
+	private PlatoRepository platoRepository;
+
+	@Autowired
+	private EntityManagerFactory entityManagerFactory;
+
+	private Restaurante restaurante;
+	private final List<Plato> platos = new ArrayList<>();
+
+	@BeforeEach
+	void crearCatalogo() {
+		restaurante = restauranteRepository.save(new Restaurante(null, "Restaurante Carrito", "Av. Prueba 16", "054000000", TipoCocina.PERUANA));
+		for (int i = 0; i < 50; i++) {
+			platos.add(platoRepository.save(new Plato(restaurante, "Plato " + i, "Descripcion", new Dinero(10.0 + i, "PEN"))));
+		}
+	}
+
+	private Statistics estadisticas() {
+		Statistics estadisticas = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+		estadisticas.clear();
+		return estadisticas;
+	}
+
+	@Test
+	void losPlatosDelCarritoSalenDeUnaSolaConsulta() {
+		for (int lineas : new int[]{1, 15, 50}) {
+			List<DatosPlatoPedido> carrito = new ArrayList<>();
+			for (int i = 0; i < lineas; i++) {
+				carrito.add(new DatosPlatoPedido(platos.get(i).getIdPlato(), i + 1));
+			}
+
+			Statistics estadisticas = estadisticas();
+			List<ItemPedido> items = resolutorCarrito.resolver(restaurante, carrito);
+
+			assertEquals(lineas, items.size());
+			assertEquals(platos.get(lineas - 1).getIdPlato(), items.get(lineas - 1).getPlato().getIdPlato());
+			assertEquals(1, estadisticas.getPrepareStatementCount(), "carrito de " + lineas + " lineas");
+		}
+	}
+
+	@Test
+	void reportaTodasLasLineasInvalidas() throws Exception {
+		Restaurante otro = restauranteRepository.save(new Restaurante(null, "Otro Restaurante", "Av. Prueba 17", "054000000", TipoCocina.PERUANA));
+		Plato ajeno = platoRepository.save(new Plato(otro, "Plato ajeno", "Descripcion", new Dinero(12.0, "PEN")));
+		Plato agotado = platos.get(1);
+		agotado.marcarComoDisponible(false);
+		platoRepository.save(agotado);
+		List<DatosPlatoPedido> carrito = List.of(
+				new DatosPlatoPedido(Integer.MAX_VALUE, 1),
+				new DatosPlatoPedido(ajeno.getIdPlato(), 1),
+				new DatosPlatoPedido(agotado.getIdPlato(), 1),
+				new DatosPlatoPedido(platos.get(2).getIdPlato(), 0));
+
+		CarritoInvalidoException error = assertThrows(CarritoInvalidoException.class, () -> resolutorCarrito.resolver(restaurante, carrito));
+		assertEquals(4, error.getErrores().size());
+		assertTrue(error.getErrores().get(0).contains("no encontrado"));
+		assertTrue(error.getErrores().get(1).contains("no pertenece"));
+		assertTrue(error.getErrores().get(2).contains("no esta disponible"));
+		assertTrue(error.getErrores().get(3).contains("mayor a cero"));
+
+		// Por HTTP llegan las mismas cuatro lineas en ErrorResponse.errores
+		Cliente cliente = clienteRepository.save(new Cliente(null, "Cliente Carrito", "carrito" + System.nanoTime() + "@test.pe", "999999999", null));
+		String cuerpo = """
+				{"idCliente": %d, "idRestaurante": %d,
+				 "itemsCarrito": [{"idPlato": %d, "cantidad": 1}, {"idPlato": %d, "cantidad": 1},
+				                  {"idPlato": %d, "cantidad": 1}, {"idPlato": %d, "cantidad": 0}],
+				 "direccionEntrega": {"calle": "Calle 1", "ciudad": "Arequipa", "distrito": "Cercado"}}
+				""".formatted(cliente.getId(), restaurante.getId(), Integer.MAX_VALUE, ajeno.getIdPlato(),
+				agotado.getIdPlato(), platos.get(2).getIdPlato());
+		mockMvc.perform(put("/pedidos").contentType(MediaType.APPLICATION_JSON).content(cuerpo))
+				.andExpect(status().isBadRequest())
+				.andExpect(jsonPath("$.errores", hasSize(4)))
+				.andExpect(jsonPath("$.errores[3]", containsString("mayor a cero")));
+	}
+}
@@ -0,0 +1,107 @@
+package org.unsa.softwareproject;
+
+import com.jayway.jsonpath.JsonPath;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.request.MockHttpServletRequestBuilder;
+import org.unsa.model.domain.restaurantes.HorarioAtencion;
+import org.unsa.model.domain.restaurantes.TipoCocina;
+import org.unsa.service.interfaces.IRestauranteServicio;
+
+import java.time.ZoneId;
+import java.time.ZonedDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * Lista los restaurantes abiertos por el endpoint: las paginas avanzan por ID con el cursor, solo aparecen los
+ * que atienden ahora y un cambio de horario confirmado se refleja en la siguiente consulta.
+ */
+@Import(TestcontainersConfiguration.class)
+@SpringBootTest
+@AutoConfigureMockMvc
+class RestaurantesAbiertosTest {
+
+	private static final String[] DIAS = {"Lunes", "Martes", "Miercoles", "Jueves", "Viernes", "Sabado", "Domingo"};
+
+	@Autowired
+	private MockMvc mockMvc;
+
+	@Autowired
+	private IRestauranteServicio restauranteServicio;
+
+	private Integer restaurante(String apertura, String cierre) {
+		Integer id = restauranteServicio.registrarRestaurante("Restaurante Abierto", "Av. Prueba 14", "054000000", TipoCocina.PERUANA).getId();
+		cambiarHorario(id, apertura, cierre);
+		return id;
+	}
+
+	private void cambiarHorario(Integer id, String apertura, String cierre) {
+		for (String dia : DIAS) {
+			restauranteServicio.actualizarHorarioRestaurante(id.toString(), new HorarioAtencion(dia, apertura, cierre));
+		}
+	}
+
+	/**
+	 * Recorre todas las paginas y comprueba que cada una respete el tamano y que los IDs sigan creciendo.
+	 */
+	private List<Integer> recorrerAbiertos(int tamano) throws Exception {
+		List<Integer> ids = new ArrayList<>();
+		String cursor = null;
+		do {
+			MockHttpServletRequestBuilder peticion = get("/api/restaurantes/abiertos").param("tamano", String.valueOf(tamano));
+			if (cursor != null) {
+				peticion.param("cursor", cursor);
+			}
+			String cuerpo = mockMvc.perform(peticion).andExpect(status().isOk()).andReturn().getResponse().getContentAsString();
+			List<Integer> pagina = JsonPath.read(cuerpo, "$.restaurantes[*].idRestaurante");
+			assertTrue(pagina.size() <= tamano);
+			for (Integer id : pagina) {
+				assertTrue(ids.isEmpty() || ids.getLast() < id);
+				ids.add(id);
+			}
+			cursor = pagina.isEmpty() ? null : JsonPath.<List<String>>read(cuerpo, "$..siguienteCursor").stream().findFirst().orElse(null);
+		} while (cursor != null);
+		return ids;
+	}
+
+	@Test
+	void listaPorPaginasSoloLosAbiertosAhora() throws Exception {
+		// Apertura igual al cierre: el rango dura todo el dia
+		Integer primero = restaurante("00:00", "00:00");
+		Integer segundo = restaurante("00:00", "00:00");
+		Integer tercero = restaurante("00:00", "00:00");
+		Integer sinHorario = restauranteServicio.registrarRestaurante("Restaurante Sin Horario", "Av. Prueba 15", "054000000", TipoCocina.PERUANA).getId();
+
+		List<Integer> abiertos = recorrerAbiertos(2);
+		assertTrue(abiertos.containsAll(List.of(primero, segundo, tercero)));
+		assertFalse(abiertos.contains(sinHorario));
+
+		// Un minuto de atencion al otro lado del dia: cerrado ahora
+		String dentroDeDoceHoras = ZonedDateTime.now(ZoneId.of("America/Lima")).plusHours(12).format(DateTimeFormatter.ofPattern("HH:mm"));
+		String unMinutoDespues = ZonedDateTime.now(ZoneId.of("America/Lima")).plusHours(12).plusMinutes(1).format(DateTimeFormatter.ofPattern("HH:mm"));
+		cambiarHorario(segundo, dentroDeDoceHoras, unMinutoDespues);
+
+		abiertos = recorrerAbiertos(2);
+		assertTrue(abiertos.containsAll(List.of(primero, tercero)));
+		assertFalse(abiertos.contains(segundo));
+	}
+
+	@Test
+	void unCursorInvalidoResponde400() throws Exception {
+		mockMvc.perform(get("/api/restaurantes/abiertos").param("cursor", "no-es-un-id"))
+				.andExpect(status().isBadRequest());
+		mockMvc.perform(get("/api/restaurantes/abiertos").param("tamano", "0"))
+				.andExpect(status().isBadRequest());
+	}
+}
@@ -0,0 +1,136 @@
+package org.unsa.softwareproject;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.test.web.servlet.MockMvc;
+import org.unsa.model.domain.pedidos.EstadoPedido;
+import org.unsa.model.domain.pedidos.EventoPedido;
+import org.unsa.model.domain.pedidos.ItemPedido;
+import org.unsa.model.domain.pedidos.Pedido;
+import org.unsa.model.domain.pedidos.PedidoData;
+import org.unsa.model.domain.restaurantes.Dinero;
+import org.unsa.model.domain.restaurantes.Plato;
+import org.unsa.model.domain.restaurantes.Restaurante;
+import org.unsa.model.domain.restaurantes.TipoCocina;
+import org.unsa.model.domain.usuarios.Cliente;
+import org.unsa.model.repository.ClienteRepository;
+import org.unsa.model.repository.EventoPedidoRepository;
+import org.unsa.model.repository.PedidoRepository;
+import org.unsa.model.repository.PlatoRepository;
+import org.unsa.model.repository.RestauranteRepository;
+import org.unsa.model.service.eventos.SeguimientoPedidosService;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.request;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * Abre seguimientos SSE reales: el primer evento es el estado actual, los cambios y asignaciones posteriores
+ * llegan a cada suscriptor del pedido y un pedido inexistente no deja una conexion contada.
+ * El outbox se envia a un archivo, de modo que los cambios solo pueden llegar por los eventos de dominio.
+ */
+@Import(TestcontainersConfiguration.class)
+@SpringBootTest(properties = {"app.outbox.sink=archivo", "app.outbox.archivo=${java.io.tmpdir}/seguimiento-eventos.ndjson"})
+@AutoConfigureMockMvc
+class SeguimientoPedidosTest {
+
+	@Autowired
+	private MockMvc mockMvc;
+
+	@Autowired
+	private SeguimientoPedidosService seguimiento;
+
+	@Autowired
+	private EventoPedidoRepository eventoRepository;
+
+	@Autowired
+	private ClienteRepository clienteRepository;
+
+	@Autowired
+	private RestauranteRepository restauranteRepository;
+
+	@Autowired
+	private PlatoRepository platoRepository;
+
+	@Autowired
+	private PedidoRepository pedidoRepository;
+
+	private Long idPedido;
+
+	@BeforeEach
+	void crearPedido() {
+		Cliente cliente = clienteRepository.save(new Cliente(null, "Cliente Seguimiento", "seguimiento" + System.nanoTime() + "@test.pe", "999999999", null));
+		Restaurante restaurante = restauranteRepository.save(new Restaurante(null, "Restaurante Seguimiento", "Av. Prueba 5", "054000000", TipoCocina.PERUANA));
+		Plato plato = platoRepository.save(new Plato(restaurante, "Plato", "Descripcion", new Dinero(10.0, "PEN")));
+		List<ItemPedido> items = new ArrayList<>(List.of(new ItemPedido(plato, 1)));
+		Pedido pedido = new Pedido(new PedidoData(cliente, restaurante, DatosPrueba.direccion(), null, items), null);
+		items.forEach(item -> item.setPedido(pedido));
+		idPedido = pedidoRepository.save(pedido).getIdPedido();
+	}
+
+	private MockHttpServletResponse abrir() throws Exception {
+		return mockMvc.perform(get("/pedidos/{idPedido}/seguimiento", idPedido))
+				.andExpect(request().asyncStarted())
+				.andReturn()
+				.getResponse();
+	}
+
+	@Test
+	void cadaSuscriptorRecibeElEstadoActualYLosCambios() throws Exception {
+		MockHttpServletResponse primero = abrir();
+		MockHttpServletResponse segundo = abrir();
+		esperarContenido(primero, "ESTADO_ACTUAL");
+		esperarContenido(segundo, "ESTADO_ACTUAL");
+
+		eventoRepository.save(new EventoPedido(idPedido, EventoPedido.ESTADO_CAMBIADO, EstadoPedido.EN_PREPARACION, null));
+
+		esperarContenido(primero, EstadoPedido.EN_PREPARACION.name());
+		esperarContenido(segundo, EstadoPedido.EN_PREPARACION.name());
+		// El estado actual se envia antes que el cambio
+		String contenido = primero.getContentAsString();
+		assertTrue(contenido.indexOf("ESTADO_ACTUAL") < contenido.indexOf(EstadoPedido.EN_PREPARACION.name()));
+	}
+
+	@Test
+	void laAsignacionDelRepartidorLlegaSinElRelevo() throws Exception {
+		MockHttpServletResponse respuesta = abrir();
+		esperarContenido(respuesta, "ESTADO_ACTUAL");
+
+		eventoRepository.save(new EventoPedido(idPedido, EventoPedido.REPARTIDOR_ASIGNADO, EstadoPedido.LISTO_PARA_RECOGER, 7));
+
+		esperarContenido(respuesta, EventoPedido.REPARTIDOR_ASIGNADO);
+		assertTrue(respuesta.getContentAsString().contains("\"idRepartidor\":7"));
+	}
+
+	@Test
+	void unPedidoInexistenteNoQuedaComoConexion() throws Exception {
+		int antes = seguimiento.getMetricas().get("conexiones").intValue();
+
+		for (int i = 0; i < 3; i++) {
+			mockMvc.perform(get("/pedidos/{idPedido}/seguimiento", Long.MAX_VALUE - i))
+					.andExpect(status().isNotFound());
+		}
+
+		assertEquals(antes, seguimiento.getMetricas().get("conexiones").intValue());
+	}
+
+	private static void esperarContenido(MockHttpServletResponse respuesta, String texto) throws Exception {
+		long limite = System.currentTimeMillis() + 5_000;
+		while (!respuesta.getContentAsString().contains(texto)) {
+			if (System.currentTimeMillis() > limite) {
+				throw new AssertionError("No llego '" + texto + "'; recibido: " + respuesta.getContentAsString());
+			}
+			Thread.sleep(20);
+		}
+	}
+}
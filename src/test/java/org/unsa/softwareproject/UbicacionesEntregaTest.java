@@ -0,0 +1,118 @@
+package org.unsa.softwareproject;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.unsa.model.domain.pedidos.ItemPedido;
+import org.unsa.model.domain.pedidos.Pedido;
+import org.unsa.model.domain.pedidos.PedidoData;
+import org.unsa.model.domain.restaurantes.Dinero;
+import org.unsa.model.domain.restaurantes.Plato;
+import org.unsa.model.domain.restaurantes.Restaurante;
+import org.unsa.model.domain.restaurantes.TipoCocina;
+import org.unsa.model.domain.usuarios.Cliente;
+import org.unsa.model.domain.usuarios.Repartidor;
+import org.unsa.model.repository.ClienteRepository;
+import org.unsa.model.repository.EntregaRepository;
+import org.unsa.model.repository.PedidoRepository;
+import org.unsa.model.repository.PlatoRepository;
+import org.unsa.model.repository.RepartidorRepository;
+import org.unsa.model.repository.RestauranteRepository;
+import org.unsa.model.service.Interfaces.IPedidoServicio;
+import org.unsa.model.service.impl.GestionEntregasService;
+import org.unsa.model.service.logistica.UbicacionesEntregaService;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * Verifica que las posiciones volcadas en lote no se pierdan al guardar la entrega y que el repartidor
+ * en cache siga a las reasignaciones.
+ */
+@Import(TestcontainersConfiguration.class)
+@SpringBootTest(properties = "app.despacho.lote.habilitado=false")
+class UbicacionesEntregaTest {
+
+	@Autowired
+	private UbicacionesEntregaService ubicaciones;
+
+	@Autowired
+	private GestionEntregasService gestionEntregas;
+
+	@Autowired
+	private IPedidoServicio pedidoServicio;
+
+	@Autowired
+	private ClienteRepository clienteRepository;
+
+	@Autowired
+	private RestauranteRepository restauranteRepository;
+
+	@Autowired
+	private PlatoRepository platoRepository;
+
+	@Autowired
+	private PedidoRepository pedidoRepository;
+
+	@Autowired
+	private RepartidorRepository repartidorRepository;
+
+	@Autowired
+	private EntregaRepository entregaRepository;
+
+	@Autowired
+	private JdbcTemplate jdbcTemplate;
+
+	private Integer idRepartidor;
+	private Long idEntrega;
+
+	@BeforeEach
+	void crearEntrega() {
+		Cliente cliente = clienteRepository.save(new Cliente(null, "Cliente Ubicaciones", "ubicaciones" + System.nanoTime() + "@test.pe", "999999999", null));
+		Restaurante restaurante = restauranteRepository.save(new Restaurante(null, "Restaurante Ubicaciones", "Av. Prueba 4", "054000000", TipoCocina.PERUANA));
+		Plato plato = platoRepository.save(new Plato(restaurante, "Plato", "Descripcion", new Dinero(10.0, "PEN")));
+		List<ItemPedido> items = new ArrayList<>(List.of(new ItemPedido(plato, 1)));
+		Pedido pedido = new Pedido(new PedidoData(cliente, restaurante, DatosPrueba.direccion(), null, items), null);
+		items.forEach(item -> item.setPedido(pedido));
+		Long idPedido = pedidoRepository.save(pedido).getIdPedido();
+		idRepartidor = nuevoRepartidor();
+		pedidoServicio.asignarRepartidorAPedido(idPedido, idRepartidor);
+		idEntrega = entregaRepository.buscarIdPorPedido(idPedido).orElseThrow();
+	}
+
+	private Integer nuevoRepartidor() {
+		return repartidorRepository.save(new Repartidor(null, "Repartidor", "rep" + System.nanoTime() + "@test.pe", "988888888", "Moto", false)).getId();
+	}
+
+	@Test
+	void guardarLaEntregaNoSobrescribeLaUltimaPosicion() {
+		ubicaciones.registrar(idEntrega, -16.40, -71.53);
+		ubicaciones.volcar();
+		ubicaciones.registrar(idEntrega, -16.41, -71.54);
+		ubicaciones.volcar();
+
+		gestionEntregas.registrarRecojo(idEntrega); // Carga y guarda la entidad completa
+
+		Map<String, Object> fila = jdbcTemplate.queryForMap(
+				"SELECT latitud_actual, longitud_actual, ubicacion_actual_repartidor FROM entregas WHERE id = ?", idEntrega);
+		assertEquals(-16.41, ((Number) fila.get("latitud_actual")).doubleValue());
+		assertEquals(-71.54, ((Number) fila.get("longitud_actual")).doubleValue());
+		assertEquals("-16.41,-71.54", fila.get("ubicacion_actual_repartidor"));
+	}
+
+	@Test
+	void elRepartidorEnCacheSigueALaReasignacion() {
+		assertEquals(idRepartidor, ubicaciones.registrar(idEntrega, -16.40, -71.53).idRepartidor());
+
+		Integer otro = nuevoRepartidor();
+		gestionEntregas.asignarRepartidor(idEntrega, otro);
+
+		assertEquals(otro, ubicaciones.registrar(idEntrega, -16.40, -71.53).idRepartidor());
+	}
+}
@@ -0,0 +1,181 @@
+package org.unsa.softwareproject;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.unsa.model.domain.pedidos.EstadoPedido;
+import org.unsa.model.domain.pedidos.ItemPedido;
+import org.unsa.model.domain.pedidos.Pedido;
+import org.unsa.model.domain.pedidos.PedidoData;
+import org.unsa.model.domain.restaurantes.Dinero;
+import org.unsa.model.domain.restaurantes.Plato;
+import org.unsa.model.domain.restaurantes.Restaurante;
+import org.unsa.model.domain.restaurantes.TipoCocina;
+import org.unsa.model.domain.usuarios.Cliente;
+import org.unsa.model.domain.usuarios.Repartidor;
+import org.unsa.model.repository.ClienteRepository;
+import org.unsa.model.repository.EntregaRepository;
+import org.unsa.model.repository.PedidoRepository;
+import org.unsa.model.repository.PlatoRepository;
+import org.unsa.model.repository.RepartidorRepository;
+import org.unsa.model.repository.RestauranteRepository;
+import org.unsa.model.service.Interfaces.IPedidoServicio;
+import org.unsa.model.service.impl.GestionEntregasService;
+import org.unsa.model.service.logistica.AgrupacionViajesService;
+import org.unsa.model.service.logistica.DespachoService;
+import org.unsa.model.service.logistica.RegistroDisponibilidadRepartidores;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Agrupa pedidos listos reales: el viaje sale con el repartidor mas cercano asignado a todas sus entregas,
+ * ocupa una sola unidad de su carga y deja fuera a los pedidos cancelados o asignados mientras esperaban.
+ * El outbox publica a un archivo, asi que los pedidos entran a la agrupacion solo por el evento de dominio.
+ */
+@Import(TestcontainersConfiguration.class)
+@SpringBootTest(properties = {
+		"app.outbox.sink=archivo",
+		"app.outbox.archivo=${java.io.tmpdir}/viajes-eventos.ndjson",
+		"app.despacho.lote.habilitado=false",
+		"app.viajes.espera-max-segundos=0",
+		"app.viajes.intervalo-ms=3600000"
+})
+class ViajesTest {
+
+	@Autowired
+	private AgrupacionViajesService agrupacion;
+
+	@Autowired
+	private DespachoService despachoService;
+
+	@Autowired
+	private RegistroDisponibilidadRepartidores registro;
+
+	@Autowired
+	private IPedidoServicio pedidoServicio;
+
+	@Autowired
+	private GestionEntregasService gestionEntregas;
+
+	@Autowired
+	private ClienteRepository clienteRepository;
+
+	@Autowired
+	private RestauranteRepository restauranteRepository;
+
+	@Autowired
+	private PlatoRepository platoRepository;
+
+	@Autowired
+	private PedidoRepository pedidoRepository;
+
+	@Autowired
+	private RepartidorRepository repartidorRepository;
+
+	@Autowired
+	private EntregaRepository entregaRepository;
+
+	@Autowired
+	private JdbcTemplate jdbcTemplate;
+
+	// Cada prueba trabaja en una zona propia para no ver repartidores de otras pruebas
+	private double latitud;
+	private double longitud;
+	private List<Long> pedidos;
+
+	@BeforeEach
+	void crearPedidosListos() {
+		latitud = -16.0 - Math.random();
+		longitud = -71.0 - Math.random();
+		Cliente cliente = clienteRepository.save(new Cliente(null, "Cliente Viajes", "viajes" + System.nanoTime() + "@test.pe", "999999999", null));
+		Restaurante restaurante = new Restaurante(null, "Restaurante Viajes", "Av. Prueba 8", "054000000", TipoCocina.PERUANA);
+		restaurante.setLatitud(latitud);
+		restaurante.setLongitud(longitud);
+		restaurante = restauranteRepository.save(restaurante);
+		Plato plato = platoRepository.save(new Plato(restaurante, "Plato", "Descripcion", new Dinero(10.0, "PEN")));
+
+		pedidos = new ArrayList<>();
+		for (int i = 0; i < 3; i++) {
+			List<ItemPedido> items = new ArrayList<>(List.of(new ItemPedido(plato, 1)));
+			Pedido pedido = new Pedido(new PedidoData(cliente, restaurante,
+					DatosPrueba.direccion(latitud + 0.001 * (i + 1), longitud), null, items), null);
+			items.forEach(item -> item.setPedido(pedido));
+			Long idPedido = pedidoRepository.save(pedido).getIdPedido();
+			pedidoServicio.actualizarEstadoPedido(idPedido, EstadoPedido.EN_PREPARACION);
+			pedidoServicio.actualizarEstadoPedido(idPedido, EstadoPedido.LISTO_PARA_RECOGER);
+			pedidos.add(idPedido);
+		}
+	}
+
+	private Integer repartidorDisponible() {
+		Integer id = nuevoRepartidor();
+		despachoService.registrarDisponible(id, latitud, longitud);
+		return id;
+	}
+
+	private Integer nuevoRepartidor() {
+		return repartidorRepository.save(new Repartidor(null, "Repartidor", "rep" + System.nanoTime() + "@test.pe", "988888888", "Moto", true)).getId();
+	}
+
+	@Test
+	void elViajeSaleConSuRepartidorYOcupaUnaUnidadDeCarga() {
+		Integer idRepartidor = repartidorDisponible();
+
+		agrupacion.agrupar();
+
+		List<Long> viajes = pedidos.stream().map(this::viajeDe).distinct().toList();
+		assertEquals(1, viajes.size());
+		assertEquals(idRepartidor, repartidorDelViaje(viajes.getFirst()));
+		for (Long idPedido : pedidos) {
+			assertEquals(idRepartidor, jdbcTemplate.queryForObject("SELECT repartidor_id FROM entregas WHERE pedido_id = ?", Integer.class, idPedido));
+			assertEquals(idRepartidor, jdbcTemplate.queryForObject("SELECT repartidor_id FROM pedidos WHERE id_pedido = ?", Integer.class, idPedido));
+		}
+		assertEquals(1, registro.carga(idRepartidor));
+
+		// La unidad del viaje se libera con la ultima entrega, no con la primera
+		for (Long idPedido : pedidos) {
+			Long idEntrega = entregaRepository.buscarIdPorPedido(idPedido).orElseThrow();
+			gestionEntregas.registrarRecojo(idEntrega);
+			gestionEntregas.registrarEntrega(idEntrega);
+			assertEquals(idPedido.equals(pedidos.getLast()) ? 0 : 1, registro.carga(idRepartidor));
+		}
+		assertTrue(registro.estaDisponible(idRepartidor));
+	}
+
+	@Test
+	void losPedidosCanceladosOAsignadosMientrasEsperanQuedanFuera() {
+		// Sin repartidor cerca el grupo sigue esperando
+		agrupacion.agrupar();
+		assertTrue(entregaRepository.buscarIdPorPedido(pedidos.getFirst()).isEmpty());
+		assertTrue(agrupacion.retiene(pedidos.getFirst()));
+
+		pedidoServicio.actualizarEstadoPedido(pedidos.get(0), EstadoPedido.CANCELADO);
+		pedidoServicio.asignarRepartidorAPedido(pedidos.get(1), nuevoRepartidor());
+		Integer idRepartidor = repartidorDisponible();
+
+		agrupacion.agrupar();
+
+		assertTrue(entregaRepository.buscarIdPorPedido(pedidos.get(0)).isEmpty());
+		assertNull(viajeDe(pedidos.get(1)));
+		Long idViaje = viajeDe(pedidos.get(2));
+		assertEquals(idRepartidor, repartidorDelViaje(idViaje));
+		assertEquals(1, jdbcTemplate.queryForObject("SELECT COUNT(*) FROM entregas WHERE viaje_id = ?", Integer.class, idViaje));
+		assertEquals(1, registro.carga(idRepartidor));
+	}
+
+	private Long viajeDe(Long idPedido) {
+		return jdbcTemplate.queryForObject("SELECT MAX(viaje_id) FROM entregas WHERE pedido_id = ?", Long.class, idPedido);
+	}
+
+	private Integer repartidorDelViaje(Long idViaje) {
+		return jdbcTemplate.queryForObject("SELECT repartidor_id FROM viajes WHERE id = ?", Integer.class, idViaje);
+	}
+}